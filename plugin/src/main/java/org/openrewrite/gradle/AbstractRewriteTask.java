@@ -22,19 +22,19 @@ import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.options.Option;
 import org.gradle.util.GradleVersion;
-import org.gradle.work.DisableCachingByDefault;
+import org.gradle.workers.WorkerExecutor;
 import org.jspecify.annotations.Nullable;
 
 import javax.inject.Inject;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 import static java.util.Collections.emptySet;
 import static java.util.stream.Collectors.toSet;
 
-@DisableCachingByDefault(because = "Rewrite tasks act on source files in place and are not safe to cache")
 public abstract class AbstractRewriteTask extends DefaultTask {
     protected @Nullable Provider<Set<File>> resolvedDependencies;
     protected boolean dumpGcActivity;
@@ -74,6 +74,45 @@ public abstract class AbstractRewriteTask extends DefaultTask {
         throw new AssertionError("unexpected; getProjectLayout() should be overridden by Gradle");
     }
 
+    @Inject
+    public WorkerExecutor getWorkerExecutor() {
+        throw new AssertionError("unexpected; getWorkerExecutor() should be overridden by Gradle");
+    }
+
+    /**
+     * Whether {@link RewriteExtension#getWorkerIsolation()} asks for rewrite to run in a worker process and this
+     * version of Gradle supports it.
+     */
+    protected boolean useWorker() {
+        if (extension == null || !extension.getWorkerIsolation()) {
+            return false;
+        }
+        if (GradleVersion.current().compareTo(GradleVersion.version("5.6")) < 0) {
+            getLogger().warn("rewrite workerIsolation requires Gradle 5.6 or newer, running rewrite in the build process instead");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Plan the parse in the build process, then parse the sources and run the active recipes in a worker process.
+     *
+     * @param reportPath Where to write the patch of a dry run, or {@code null} to apply the results.
+     */
+    protected void runInWorker(@Nullable Path reportPath) {
+        Path planFile = getProjectLayout().getBuildDirectory().get().getAsFile().toPath()
+                .resolve("rewrite")
+                .resolve("worker-plan.bin");
+        DelegatingProjectParser parser = getProjectParser();
+        try {
+            parser.writeWorkerPlan(planFile);
+        } finally {
+            parser.shutdownRewrite();
+        }
+        RewriteWorkAction.submit(getWorkerExecutor(), Objects.requireNonNull(extension),
+                parser.getRewriteClasspath(), planFile, reportPath, dumpGcActivity);
+    }
+
     @Internal
     protected <T extends GradleProjectParser> T getProjectParser() {
         if (gpp == null) {
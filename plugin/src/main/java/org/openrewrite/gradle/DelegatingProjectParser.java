@@ -16,7 +16,9 @@
 package org.openrewrite.gradle;
 
 import org.gradle.api.Project;
+import org.gradle.api.invocation.Gradle;
 import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.util.GradleVersion;
 import org.jspecify.annotations.Nullable;
 
 import java.lang.reflect.InvocationTargetException;
@@ -30,16 +32,17 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import static java.util.stream.Collectors.toList;
 
-public class DelegatingProjectParser implements GradleProjectParser {
-    @Nullable
-    protected static List<URL> rewriteClasspath;
-    @Nullable
-    protected static RewriteClassLoader rewriteClassLoader;
+public class DelegatingProjectParser implements GradleProjectParser, WorkerPlanWriter {
+    protected final List<URL> rewriteClasspath;
+    protected final RewriteClassLoader rewriteClassLoader;
     protected final GradleProjectParser gpp;
+    private final AtomicBoolean classLoaderReleased = new AtomicBoolean();
 
     public DelegatingProjectParser(Project project, RewriteExtension extension, Set<Path> classpath) {
         try {
@@ -62,26 +65,33 @@ public class DelegatingProjectParser implements GradleProjectParser {
 
             ClassLoader pluginClassLoader = getPluginClassLoader(project);
 
-            if (rewriteClassLoader == null ||
-                    !classpathUrls.equals(rewriteClasspath) ||
-                    rewriteClassLoader.getPluginClassLoader() != pluginClassLoader) {
-                if (rewriteClassLoader != null) {
-                    rewriteClassLoader.close();
-                }
-                rewriteClassLoader = new RewriteClassLoader(classpathUrls, pluginClassLoader);
-                rewriteClasspath = classpathUrls;
+            rewriteClasspath = classpathUrls;
+            // Held for as long as this parser may be used, so that the pool does not close the class loader under it
+            rewriteClassLoader = RewriteClassLoaderPool.shared().get(classpathUrls, pluginClassLoader,
+                    extension.getCacheIdleTimeoutMinutes(), TimeUnit.MINUTES);
+            try {
+                Class<?> gppClass = Class.forName("org.openrewrite.gradle.isolated.DefaultProjectParser", true, rewriteClassLoader);
+                assert (gppClass.getClassLoader() == rewriteClassLoader) : "DefaultProjectParser must be loaded from RewriteClassLoader to be sufficiently isolated from Gradle's classpath";
+                gpp = (GradleProjectParser) gppClass.getDeclaredConstructor(Project.class, RewriteExtension.class)
+                        .newInstance(project, extension);
+            } catch (Exception e) {
+                releaseClassLoader();
+                throw e;
             }
-
-            Class<?> gppClass = Class.forName("org.openrewrite.gradle.isolated.DefaultProjectParser", true, rewriteClassLoader);
-            assert (gppClass.getClassLoader() == rewriteClassLoader) : "DefaultProjectParser must be loaded from RewriteClassLoader to be sufficiently isolated from Gradle's classpath";
-            gpp = (GradleProjectParser) gppClass.getDeclaredConstructor(Project.class, RewriteExtension.class)
-                    .newInstance(project, extension);
+            releaseClassLoaderWhenBuildFinishes(project.getGradle());
 
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * The classpath that the rewrite classes of this parser are loaded from.
+     */
+    public List<URL> getRewriteClasspath() {
+        return rewriteClasspath;
+    }
+
     @Override
     public List<String> getActiveRecipes() {
         return unwrapInvocationException(gpp::getActiveRecipes);
@@ -110,6 +120,11 @@ public class DelegatingProjectParser implements GradleProjectParser {
         return unwrapInvocationException(gpp::listSources);
     }
 
+    @Override
+    public Collection<Path> listClasspath() {
+        return unwrapInvocationException(gpp::listClasspath);
+    }
+
     @Override
     public void run(Consumer<Throwable> onError) {
         unwrapInvocationException(() -> {
@@ -126,12 +141,39 @@ public class DelegatingProjectParser implements GradleProjectParser {
         });
     }
 
+    @Override
+    public void writeWorkerPlan(Path planFile) {
+        unwrapInvocationException(() -> {
+            ((WorkerPlanWriter) gpp).writeWorkerPlan(planFile);
+            return null;
+        });
+    }
+
     @Override
     public void shutdownRewrite() {
         unwrapInvocationException(() -> {
             gpp.shutdownRewrite();
             return null;
         });
+        rewriteClassLoader.writeClassLoadTimings();
+        releaseClassLoader();
+    }
+
+    /**
+     * Release the class loader when the build finishes, in case this parser is never shut down.
+     */
+    private void releaseClassLoaderWhenBuildFinishes(Gradle gradle) {
+        if (GradleVersion.current().compareTo(GradleVersion.version("6.1")) >= 0) {
+            RewriteClassLoaderLeases.register(gradle).get().releaseWhenBuildFinishes(this::releaseClassLoader);
+        } else {
+            gradle.buildFinished(result -> releaseClassLoader());
+        }
+    }
+
+    private void releaseClassLoader() {
+        if (classLoaderReleased.compareAndSet(false, true)) {
+            rewriteClassLoader.release();
+        }
     }
 
     protected URL jarContainingResource(String resourcePath) {
@@ -162,6 +204,8 @@ public class DelegatingProjectParser implements GradleProjectParser {
      * "Recipe validation errors detected ..." rather than only "InvocationTargetException ..."
      */
     private <T> T unwrapInvocationException(Callable<T> supplier) {
+        // Keeps the class loader from being closed as idle while rewrite runs
+        rewriteClassLoader.acquire();
         try {
             return supplier.call();
         } catch (InvocationTargetException e) {
@@ -171,6 +215,8 @@ public class DelegatingProjectParser implements GradleProjectParser {
             throw new RuntimeException(e.getTargetException());
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            rewriteClassLoader.release();
         }
     }
 
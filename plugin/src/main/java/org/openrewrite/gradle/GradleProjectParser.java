@@ -19,6 +19,7 @@ import org.gradle.internal.service.ServiceRegistry;
 
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -31,6 +32,14 @@ public interface GradleProjectParser {
 
     Collection<Path> listSources();
 
+    /**
+     * The classpath entries that the types of the sources are attributed with, sorted, so that they can be used as
+     * task inputs. The output of the source sets themselves is left out, as it follows from their sources.
+     */
+    default Collection<Path> listClasspath() {
+        return Collections.emptyList();
+    }
+
     void discoverRecipes(ServiceRegistry serviceRegistry);
 
     /**
@@ -15,24 +15,56 @@
  */
 package org.openrewrite.gradle;
 
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 /**
  * Rewrite uses jackson for serialization/deserialization. So do lots of other build plugins.
  * Gradle plugins all share the same classpath at runtime.
  * <p>
  * This classloader exists to isolate rewrite's use of jackson from the rest of the build.
+ * <p>
+ * When the classpath consists of jars alone, the packages of every jar are indexed when the classloader is created, so
+ * that a class is read straight from the jars that contain its package instead of searching every jar in turn. Setting
+ * the system property {@code rewrite.classLoadTimings} to a file writes how long each class took to load to that file,
+ * slowest first, after rewrite ran.
  */
 public class RewriteClassLoader extends URLClassLoader {
+    private static final Logger logger = Logging.getLogger(RewriteClassLoader.class);
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
 
     private static final List<String> PARENT_LOADED_PACKAGES = Arrays.asList(
             "org.openrewrite.gradle.GradleProjectParser",
             "org.openrewrite.gradle.DefaultRewriteExtension",
             "org.openrewrite.gradle.RewriteExtension",
+            "org.openrewrite.gradle.SourceSetClasspaths",
             "org.slf4j",
             "org.gradle",
             "groovy",
@@ -40,10 +72,30 @@ public class RewriteClassLoader extends URLClassLoader {
     private static final List<String> PLUGIN_LOADED_PACKAGES = Arrays.asList("com.android");
     private final ClassLoader pluginClassLoader;
 
+    /**
+     * The jars of the classpath by the packages that they contain, in classpath order, or {@code null} when the
+     * classpath includes anything other than jars.
+     */
+    @Nullable
+    private final Map<String, List<IndexedJar>> packageIndex;
+
+    @Nullable
+    private final Path classLoadTimingsFile;
+
+    private final Queue<ClassLoadTiming> classLoadTimings = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger definedClasses = new AtomicInteger();
+    private final AtomicLong definedClassBytes = new AtomicLong();
+    private final AtomicInteger uses = new AtomicInteger();
+    private volatile long lastUsed = System.nanoTime();
+
     public RewriteClassLoader(Collection<URL> artifacts, ClassLoader pluginClassLoader) {
         super(artifacts.toArray(new URL[0]), RewriteClassLoader.class.getClassLoader());
         this.pluginClassLoader = pluginClassLoader;
         setDefaultAssertionStatus(true);
+        this.packageIndex = indexPackages(artifacts);
+        String classLoadTimingsFile = System.getProperty("rewrite.classLoadTimings");
+        this.classLoadTimingsFile = classLoadTimingsFile == null ? null : Paths.get(classLoadTimingsFile);
     }
 
     public ClassLoader getPluginClassLoader() {
@@ -79,6 +131,224 @@ public class RewriteClassLoader extends URLClassLoader {
         }
     }
 
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        if (classLoadTimingsFile == null) {
+            Class<?> found = findIndexedClass(name);
+            definedClasses.incrementAndGet();
+            return found;
+        }
+        long start = System.nanoTime();
+        try {
+            Class<?> found = findIndexedClass(name);
+            definedClasses.incrementAndGet();
+            return found;
+        } finally {
+            classLoadTimings.add(new ClassLoadTiming(name, System.nanoTime() - start));
+        }
+    }
+
+    private Class<?> findIndexedClass(String name) throws ClassNotFoundException {
+        if (packageIndex == null) {
+            return super.findClass(name);
+        }
+        int lastDot = name.lastIndexOf('.');
+        List<IndexedJar> jars = packageIndex.get(lastDot < 0 ? "" : name.substring(0, lastDot));
+        if (jars == null) {
+            throw new ClassNotFoundException(name);
+        }
+        String path = name.replace('.', '/') + ".class";
+        for (IndexedJar jar : jars) {
+            if (jar.multiRelease) {
+                // Which version of a class to load depends on the JVM, which is left to URLClassLoader
+                return super.findClass(name);
+            }
+            JarEntry entry = jar.jarFile.getJarEntry(path);
+            if (entry != null) {
+                return defineClass(name, jar, entry);
+            }
+        }
+        throw new ClassNotFoundException(name);
+    }
+
+    private Class<?> defineClass(String name, IndexedJar jar, JarEntry entry) throws ClassNotFoundException {
+        byte[] bytes;
+        try (InputStream in = jar.jarFile.getInputStream(entry)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(entry.getSize() > 0 ? (int) entry.getSize() : 8192);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            bytes = out.toByteArray();
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+        definedClassBytes.addAndGet(bytes.length);
+
+        int lastDot = name.lastIndexOf('.');
+        if (lastDot > 0) {
+            String packageName = name.substring(0, lastDot);
+            //noinspection deprecation
+            if (getPackage(packageName) == null) {
+                try {
+                    if (jar.manifest == null) {
+                        definePackage(packageName, null, null, null, null, null, null, null);
+                    } else {
+                        definePackage(packageName, jar.manifest, jar.url);
+                    }
+                } catch (IllegalArgumentException ignored) {
+                    // Defined by another thread in the meantime
+                }
+            }
+        }
+        // The code signers of an entry are known once it has been read
+        return defineClass(name, bytes, 0, bytes.length, new CodeSource(jar.url, entry.getCodeSigners()));
+    }
+
+    /**
+     * Write how long each class took to load to the file named by the system property {@code rewrite.classLoadTimings},
+     * if it is set.
+     */
+    public void writeClassLoadTimings() {
+        if (classLoadTimingsFile == null) {
+            return;
+        }
+        List<ClassLoadTiming> timings = new ArrayList<>(classLoadTimings);
+        timings.sort(Comparator.comparingLong((ClassLoadTiming timing) -> timing.nanos).reversed());
+        long totalNanos = 0;
+        for (ClassLoadTiming timing : timings) {
+            totalNanos += timing.nanos;
+        }
+        List<String> lines = new ArrayList<>(timings.size() + 1);
+        lines.add("# " + timings.size() + " classes loaded in " + TimeUnit.NANOSECONDS.toMillis(totalNanos) + "ms, in microseconds");
+        for (ClassLoadTiming timing : timings) {
+            lines.add(TimeUnit.NANOSECONDS.toMicros(timing.nanos) + "\t" + timing.className);
+        }
+        try {
+            Path parent = classLoadTimingsFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(classLoadTimingsFile, lines, StandardCharsets.UTF_8);
+            logger.lifecycle("Wrote rewrite class load timings: {}", classLoadTimingsFile);
+        } catch (IOException e) {
+            logger.warn("Unable to write rewrite class load timings to {}", classLoadTimingsFile, e);
+        }
+    }
+
+    /**
+     * Mark this class loader as used by a build until {@link #release()} is called, so that it is not closed as idle
+     * in the meantime.
+     */
+    public void acquire() {
+        uses.incrementAndGet();
+        lastUsed = System.nanoTime();
+    }
+
+    public void release() {
+        lastUsed = System.nanoTime();
+        uses.decrementAndGet();
+    }
+
+    /**
+     * @return Whether no build used this class loader for longer than {@code idleTimeoutNanos} as of {@code now}.
+     */
+    boolean isIdle(long now, long idleTimeoutNanos) {
+        return uses.get() <= 0 && now - lastUsed > idleTimeoutNanos;
+    }
+
+    /**
+     * @return A rough estimate of the memory that is held by this class loader, for logging.
+     */
+    String describeRetainedSize() {
+        return definedClasses.get() + " classes" + (definedClassBytes.get() > 0 ?
+                " (~" + definedClassBytes.get() / 1024 + " KB of bytecode)" : "");
+    }
+
+    /**
+     * Close the caches that rewrite keeps in static fields of the classes of this class loader, such as the pom
+     * cache, since they are not released by closing the class loader itself.
+     *
+     * @return A description of what was released, for logging, or {@code null} when rewrite was never run with this
+     * class loader.
+     */
+    @Nullable
+    String releaseCaches() {
+        Class<?> projectParser = findLoadedClass("org.openrewrite.gradle.isolated.DefaultProjectParser");
+        if (projectParser == null) {
+            return null;
+        }
+        try {
+            Method releaseCaches = projectParser.getDeclaredMethod("releaseCaches");
+            releaseCaches.setAccessible(true);
+            return (String) releaseCaches.invoke(null);
+        } catch (InvocationTargetException e) {
+            logger.debug("Unable to release rewrite caches", e.getTargetException());
+        } catch (ReflectiveOperationException e) {
+            logger.debug("Unable to release rewrite caches", e);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (packageIndex != null) {
+            Set<IndexedJar> jars = Collections.newSetFromMap(new IdentityHashMap<>());
+            packageIndex.values().forEach(jars::addAll);
+            for (IndexedJar jar : jars) {
+                jar.jarFile.close();
+            }
+        }
+        super.close();
+    }
+
+    private static @Nullable Map<String, List<IndexedJar>> indexPackages(Collection<URL> artifacts) {
+        Map<String, List<IndexedJar>> index = new HashMap<>();
+        List<JarFile> opened = new ArrayList<>();
+        try {
+            for (URL url : artifacts) {
+                File file = new File(url.toURI());
+                if (!file.isFile()) {
+                    // Directories may change while they are used, so they are searched by URLClassLoader
+                    closeAll(opened);
+                    return null;
+                }
+                JarFile jarFile = new JarFile(file);
+                opened.add(jarFile);
+                Manifest manifest = jarFile.getManifest();
+                IndexedJar jar = new IndexedJar(url, jarFile, manifest, manifest != null &&
+                        "true".equalsIgnoreCase(manifest.getMainAttributes().getValue("Multi-Release")));
+                Set<String> packages = new HashSet<>();
+                for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements(); ) {
+                    String entryName = entries.nextElement().getName();
+                    if (entryName.endsWith(".class") && !entryName.startsWith("META-INF/")) {
+                        int lastSlash = entryName.lastIndexOf('/');
+                        packages.add(lastSlash < 0 ? "" : entryName.substring(0, lastSlash).replace('/', '.'));
+                    }
+                }
+                for (String packageName : packages) {
+                    index.computeIfAbsent(packageName, p -> new ArrayList<>(1)).add(jar);
+                }
+            }
+            return index;
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            logger.debug("Unable to index the packages of the rewrite classpath", e);
+            closeAll(opened);
+            return null;
+        }
+    }
+
+    private static void closeAll(List<JarFile> jarFiles) {
+        for (JarFile jarFile : jarFiles) {
+            try {
+                jarFile.close();
+            } catch (IOException ignored) {
+                // Not used any further
+            }
+        }
+    }
+
     protected boolean shouldBeParentLoaded(String name) {
         return shouldBeLoaded(name, PARENT_LOADED_PACKAGES);
     }
@@ -95,4 +365,29 @@ public class RewriteClassLoader extends URLClassLoader {
         }
         return false;
     }
+
+    private static class IndexedJar {
+        private final URL url;
+        private final JarFile jarFile;
+        @Nullable
+        private final Manifest manifest;
+        private final boolean multiRelease;
+
+        IndexedJar(URL url, JarFile jarFile, @Nullable Manifest manifest, boolean multiRelease) {
+            this.url = url;
+            this.jarFile = jarFile;
+            this.manifest = manifest;
+            this.multiRelease = multiRelease;
+        }
+    }
+
+    private static class ClassLoadTiming {
+        private final String className;
+        private final long nanos;
+
+        ClassLoadTiming(String className, long nanos) {
+            this.className = className;
+            this.nanos = nanos;
+        }
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle;
+
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Releases the pooled {@link RewriteClassLoader}s that the parsers of a build hold when the build finishes, so that a
+ * parser which is never shut down, like one that only provided the inputs of a task, does not keep its class loader
+ * from being closed as idle. Requires Gradle 6.1 or newer, so this class must only be loaded once the Gradle version
+ * has been checked.
+ */
+public abstract class RewriteClassLoaderLeases implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+    private static final String NAME = "rewriteClassLoaderLeases";
+
+    private final List<Runnable> releases = new ArrayList<>();
+
+    static Provider<RewriteClassLoaderLeases> register(Gradle gradle) {
+        return gradle.getSharedServices().registerIfAbsent(NAME, RewriteClassLoaderLeases.class, spec -> {
+        });
+    }
+
+    synchronized void releaseWhenBuildFinishes(Runnable release) {
+        releases.add(release);
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Runnable release : releases) {
+            release.run();
+        }
+        releases.clear();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jspecify.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link RewriteClassLoader}s of a Gradle daemon or worker process, kept across builds so that the classes of
+ * rewrite and its recipes are not loaded and compiled again by every build.
+ * <p>
+ * A class loader is shared by every use of the same rewrite classpath and plugin class loader, so that projects with
+ * different rewrite classpaths, or Android and other projects, do not replace each other's class loader. Class loaders
+ * that no build used for longer than their idle timeout are closed together with the caches that rewrite keeps in them,
+ * as are the least recently used ones when the pool is full. Class loaders that a build is using are never closed.
+ * <p>
+ * Idle class loaders are looked for every minute by a daemon thread while the pool is not empty, so that a daemon that
+ * runs no further builds still releases them.
+ */
+public class RewriteClassLoaderPool implements Closeable {
+    private static final Logger logger = Logging.getLogger(RewriteClassLoaderPool.class);
+    private static final RewriteClassLoaderPool SHARED = new RewriteClassLoaderPool(4, TimeUnit.MINUTES.toNanos(30));
+    private static final long IDLE_CHECK_INTERVAL_SECONDS = 60;
+
+    private final int maxClassLoaders;
+    private final long idleTimeoutNanos;
+    private final LinkedHashMap<Key, Entry> classLoaders = new LinkedHashMap<>(16, 0.75f, true);
+    private int loads;
+    private int evictions;
+
+    @Nullable
+    private ScheduledExecutorService idleCheckExecutor;
+
+    @Nullable
+    private ScheduledFuture<?> idleCheck;
+
+    RewriteClassLoaderPool(int maxClassLoaders, long idleTimeoutNanos) {
+        this.maxClassLoaders = maxClassLoaders;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+    }
+
+    /**
+     * The pool of this process.
+     */
+    public static RewriteClassLoaderPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return The class loader for {@code classpath} and {@code pluginClassLoader}, which is created when the pool has
+     * none, and is closed once it was idle for the default idle timeout of the pool. The class loader is
+     * {@linkplain RewriteClassLoader#acquire() acquired} for the caller, who must release it when done.
+     */
+    public RewriteClassLoader get(List<URL> classpath, ClassLoader pluginClassLoader) {
+        return get(classpath, pluginClassLoader, idleTimeoutNanos);
+    }
+
+    /**
+     * @param idleTimeout How long the class loader is kept once no build uses it. A negative timeout closes it as
+     *                    soon as it is found to be unused.
+     * @return The class loader for {@code classpath} and {@code pluginClassLoader}, which is created when the pool has
+     * none. The class loader is {@linkplain RewriteClassLoader#acquire() acquired} for the caller, who must release it
+     * when done.
+     */
+    public RewriteClassLoader get(List<URL> classpath, ClassLoader pluginClassLoader, long idleTimeout, TimeUnit unit) {
+        return get(classpath, pluginClassLoader, unit.toNanos(idleTimeout));
+    }
+
+    private synchronized RewriteClassLoader get(List<URL> classpath, ClassLoader pluginClassLoader, long idleTimeoutNanos) {
+        evictIdle();
+
+        Key key = new Key(classpath, pluginClassLoader);
+        Entry entry = classLoaders.get(key);
+        if (entry == null) {
+            entry = new Entry(new RewriteClassLoader(classpath, pluginClassLoader));
+            classLoaders.put(key, entry);
+            loads++;
+            logger.debug("Created rewrite class loader for {} classpath entries ({} created, {} evicted, {} pooled)",
+                    classpath.size(), loads, evictions, classLoaders.size());
+            for (Iterator<Entry> entries = classLoaders.values().iterator();
+                 classLoaders.size() > maxClassLoaders && entries.hasNext(); ) {
+                Entry eldest = entries.next();
+                if (eldest != entry && eldest.classLoader.isIdle(System.nanoTime(), -1)) {
+                    entries.remove();
+                    evict(eldest, "least recently used");
+                }
+            }
+        }
+        entry.idleTimeoutNanos = idleTimeoutNanos;
+        entry.classLoader.acquire();
+        scheduleIdleCheck();
+        return entry.classLoader;
+    }
+
+    /**
+     * Close every class loader of the pool. The pool creates new class loaders when it is used again.
+     */
+    @Override
+    public synchronized void close() {
+        for (Entry entry : classLoaders.values()) {
+            evict(entry, "closed");
+        }
+        classLoaders.clear();
+        if (idleCheckExecutor != null) {
+            idleCheckExecutor.shutdownNow();
+            idleCheckExecutor = null;
+            idleCheck = null;
+        }
+    }
+
+    /**
+     * Close the class loaders that no build used for longer than their idle timeout.
+     */
+    synchronized void evictIdle() {
+        long now = System.nanoTime();
+        for (Iterator<Entry> entries = classLoaders.values().iterator(); entries.hasNext(); ) {
+            Entry entry = entries.next();
+            if (entry.classLoader.isIdle(now, entry.idleTimeoutNanos)) {
+                entries.remove();
+                evict(entry, "idle");
+            }
+        }
+        if (classLoaders.isEmpty() && idleCheck != null) {
+            idleCheck.cancel(false);
+            idleCheck = null;
+        }
+    }
+
+    private void scheduleIdleCheck() {
+        if (idleCheck != null) {
+            return;
+        }
+        if (idleCheckExecutor == null) {
+            idleCheckExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rewrite-class-loader-idle-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        idleCheck = idleCheckExecutor.scheduleWithFixedDelay(this::evictIdle,
+                IDLE_CHECK_INTERVAL_SECONDS, IDLE_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    synchronized int size() {
+        return classLoaders.size();
+    }
+
+    private void evict(Entry entry, String reason) {
+        evictions++;
+        String retained = entry.classLoader.describeRetainedSize();
+        String caches = entry.classLoader.releaseCaches();
+        logger.info("Closing {} rewrite class loader holding {}{} ({} created, {} evicted)", reason, retained,
+                caches == null ? "" : ", released " + caches, loads, evictions);
+        try {
+            entry.classLoader.close();
+        } catch (IOException e) {
+            logger.debug("Unable to close rewrite class loader", e);
+        }
+    }
+
+    private static class Key {
+        private final List<URL> classpath;
+        private final ClassLoader pluginClassLoader;
+
+        Key(List<URL> classpath, ClassLoader pluginClassLoader) {
+            this.classpath = new ArrayList<>(classpath);
+            this.pluginClassLoader = pluginClassLoader;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return pluginClassLoader == key.pluginClassLoader && classpath.equals(key.classpath);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * classpath.hashCode() + System.identityHashCode(pluginClassLoader);
+        }
+    }
+
+    private static class Entry {
+        private final RewriteClassLoader classLoader;
+        private long idleTimeoutNanos;
+
+        Entry(RewriteClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+    }
+}
@@ -15,17 +15,27 @@
  */
 package org.openrewrite.gradle;
 
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
-import org.gradle.api.specs.Specs;
-import org.gradle.api.tasks.OutputFile;
-import org.gradle.api.tasks.TaskAction;
-import org.gradle.work.DisableCachingByDefault;
+import org.gradle.api.tasks.*;
+import org.jspecify.annotations.Nullable;
 
 import javax.inject.Inject;
+import java.io.File;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
-@DisableCachingByDefault(because = "Rewrite tasks act on source files in place and are not safe to cache")
+/**
+ * Runs the active recipes without changing source files, and writes their changes to a patch file. The task declares
+ * everything that the patch depends on as inputs, so it is up-to-date, or served from the build cache, when the
+ * sources, their classpath, the recipes and their configuration are unchanged. A dry run that is served from the build
+ * cache does not log the changes that recipes would make again.
+ */
+@CacheableTask
 public class RewriteDryRunTask extends AbstractRewriteTask {
 
     private static final Logger logger = Logging.getLogger(RewriteDryRunTask.class);
@@ -42,15 +52,111 @@ public class RewriteDryRunTask extends AbstractRewriteTask {
                 .resolve("rewrite.patch");
     }
 
+    /**
+     * Where data tables are exported to, when {@link RewriteExtension#isExportDatatables()} is set.
+     */
+    @Optional
+    @OutputDirectory
+    public @Nullable Path getDatatablesDirectory() {
+        if (extension == null || !extension.isExportDatatables()) {
+            return null;
+        }
+        return getProjectLayout()
+                .getBuildDirectory()
+                .get()
+                .getAsFile()
+                .toPath()
+                .resolve("reports")
+                .resolve("rewrite")
+                .resolve("datatables");
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public FileCollection getSources() {
+        return getProject().files(getProjectParser().listSources());
+    }
+
+    @Classpath
+    public FileCollection getSourcesClasspath() {
+        return getProject().files(getProjectParser().listClasspath());
+    }
+
+    /**
+     * The recipe modules and rewrite itself.
+     */
+    @Classpath
+    public FileCollection getRecipeClasspath() {
+        return getProject().files(resolvedDependencies == null ? Collections.emptySet() : resolvedDependencies);
+    }
+
+    @Optional
+    @InputFile
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public @Nullable File getConfigFile() {
+        File configFile = Objects.requireNonNull(extension).getConfigFile();
+        return configFile.exists() ? configFile : null;
+    }
+
+    @Optional
+    @InputFile
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public @Nullable File getCheckstyleConfigFile() {
+        File checkstyleConfigFile = Objects.requireNonNull(extension).getCheckstyleConfigFile();
+        return checkstyleConfigFile != null && checkstyleConfigFile.exists() ? checkstyleConfigFile : null;
+    }
+
+    /**
+     * The settings of the extension that the results of the active recipes depend on. Settings that only change how
+     * sources are parsed or how much memory that takes, such as parallelism and caches, are left out.
+     * <p>
+     * The project properties are available to placeholders of the configuration file. Only properties with plain
+     * values are declared, since the string form of other objects, such as the tasks of the project, is not stable
+     * from one build to the next.
+     */
+    @Input
+    public Map<String, String> getRewriteSettings() {
+        RewriteExtension extension = Objects.requireNonNull(this.extension);
+        Map<String, String> settings = new TreeMap<>();
+        settings.put("exclusions", String.valueOf(extension.getExclusions()));
+        settings.put("plainTextMasks", String.valueOf(extension.getPlainTextMasks()));
+        settings.put("sizeThresholdMb", String.valueOf(extension.getSizeThresholdMb()));
+        settings.put("checkstyleProperties", String.valueOf(new TreeMap<>(extension.getCheckstyleProperties())));
+        settings.put("failOnDryRunResults", String.valueOf(extension.getFailOnDryRunResults()));
+        settings.put("failOnInvalidActiveRecipes", String.valueOf(extension.getFailOnInvalidActiveRecipes()));
+        settings.put("throwOnParseFailures", String.valueOf(extension.getThrowOnParseFailures()));
+        settings.put("logCompilationWarningsAndErrors", String.valueOf(extension.getLogCompilationWarningsAndErrors()));
+        settings.put("exportDatatables", String.valueOf(extension.isExportDatatables()));
+        settings.put("runRecipesPerProject", String.valueOf(extension.getRunRecipesPerProject()));
+        settings.put("styleDetectionSampleSize", String.valueOf(extension.getStyleDetectionSampleSize()));
+        settings.put("noChangeMemo", String.valueOf(extension.getNoChangeMemo()));
+        Map<String, String> properties = new TreeMap<>();
+        for (Map.Entry<String, ?> property : getProject().getProperties().entrySet()) {
+            Object value = property.getValue();
+            if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean) {
+                properties.put(property.getKey(), value.toString());
+            }
+        }
+        settings.put("properties", properties.toString());
+        return settings;
+    }
+
     @Inject
     public RewriteDryRunTask() {
         setGroup("rewrite");
         setDescription("Run the active refactoring recipes, producing a patch file. No source files will be changed.");
-        getOutputs().upToDateWhen(Specs.SATISFIES_NONE);
+        // Which files changed since a git ref depends on the state of the repository, which is not an input
+        getOutputs().upToDateWhen(task -> extension == null || extension.getChangedSince() == null);
+        getOutputs().doNotCacheIf("changedSince depends on the state of the git repository",
+                task -> extension != null && extension.getChangedSince() != null);
     }
 
     @TaskAction
     public void run() {
+        if (useWorker()) {
+            runInWorker(getReportPath());
+            return;
+        }
         getProjectParser().dryRun(getReportPath(), dumpGcActivity, throwable -> logger.info("Error during rewrite dry run", throwable));
     }
 }
@@ -160,6 +160,218 @@ public class RewriteExtension {
     @Nullable
     private String pomCacheDirectory;
 
+    /**
+     * Number of source sets to parse concurrently. When greater than {@code 1}, independent source sets are parsed on a
+     * bounded pool of threads, and the parsed source files are still returned in a deterministic order.
+     * Can be overridden with the system property {@code -Drewrite.parseParallelism=4}.
+     * Defaults to {@code 1}, which parses source sets one after another.
+     */
+    private int parseParallelism = 1;
+
+    /**
+     * Number of projects of a multi-project build to parse concurrently. The sources of each project are still
+     * discovered one project after another, so which project a file shared by overlapping projects belongs to does not
+     * depend on parsing order, and parsed source files are returned in a deterministic order.
+     * Can be overridden with the system property {@code -Drewrite.projectParseParallelism=4}.
+     * Defaults to {@code 1}, which parses projects one after another.
+     */
+    private int projectParseParallelism = 1;
+
+    /**
+     * Whether to write the parse manifest, which lists the project, source set, parser, charset and classpath each
+     * source file is parsed with, to {@code build/rewrite/parse-manifest.txt} before parsing starts.
+     * Can also be enabled via the project property {@code -Prewrite.dumpParseManifest}.
+     * Defaults to {@code false}.
+     */
+    private boolean dumpParseManifest;
+
+    /**
+     * Maximum number of Java source files of a source set to compile with one parser. Larger source sets are split
+     * into batches that share type information, and the compiler state of each batch is released before the next batch
+     * is parsed, which caps the memory needed to parse very large source sets. Types declared in other batches are
+     * resolved from the classes the source set was compiled to, so it should be compiled first. Set to {@code -1} to choose the batch size from the
+     * available heap. Can be overridden with the system property {@code -Drewrite.javaParseBatchSize=2000}.
+     * Defaults to {@code 0}, which parses each source set in a single batch.
+     */
+    private int javaParseBatchSize;
+
+    /**
+     * Maximum number of idle parsers to keep for reuse. A source set whose parser language, Java version, classpath
+     * and charset match those of a source set parsed before reuses that parser instead of creating a new one, which
+     * saves starting the Kotlin compiler for every source set. Can be overridden with the system property
+     * {@code -Drewrite.parserPoolSize=4}. Defaults to {@code 0}, which creates a new parser for every source set.
+     */
+    private int parserPoolSize;
+
+    /**
+     * Maximum number of types to keep in type caches that are shared by source sets with the same jars on their
+     * classpath, so that the types of their dependencies are only attributed once. Class directories, such as the
+     * output of other projects of the build, are not compared. When the shared caches hold more types, the caches of
+     * the least recently parsed classpaths are dropped. Can be overridden with the system property
+     * {@code -Drewrite.sharedTypeCacheSize=1000000}. Defaults to {@code 0}, which gives every source set its own type
+     * cache.
+     */
+    private int sharedTypeCacheSize;
+
+    /**
+     * Maximum number of megabytes of source files to read ahead of the Java, Kotlin and Groovy parsers, on virtual
+     * threads where the JVM supports them. Reading ahead hides the latency of slow file systems, such as
+     * network-mounted CI workspaces. Can be overridden with the system property {@code -Drewrite.sourcePrefetchMb=64}.
+     * Defaults to {@code 0}, which lets the parsers read each file when they get to it.
+     */
+    private int sourcePrefetchMb;
+
+    /**
+     * Number of resource parsers to run concurrently. Resource files, such as YAML, XML, properties and JSON files, are
+     * split by the parser that parses them, and the parsers run on a bounded pool of threads. Parsed source files are
+     * returned grouped by parser, in a deterministic order.
+     * Can be overridden with the system property {@code -Drewrite.resourceParseParallelism=4}.
+     * Defaults to {@code 1}, which parses all resource files in a single pass.
+     */
+    private int resourceParseParallelism = 1;
+
+    /**
+     * Whether to parse one project of a multi-project build at a time and run the active recipes on the sources of that
+     * project alone, keeping only the results, so that peak memory depends on the largest project rather than on the
+     * whole build. Styles are autodetected per project. When any active recipe needs to scan all source files before
+     * making changes, recipes run on the whole build at once instead.
+     * Can also be enabled via the project property {@code -Prewrite.runRecipesPerProject}.
+     * Defaults to {@code false}.
+     */
+    private boolean runRecipesPerProject;
+
+    /**
+     * Maximum size in megabytes of an on-disk cache of parsed source files, which is kept between builds. Source files
+     * whose content, classpath, charset and Java version are unchanged since they were cached are read from the cache
+     * instead of being parsed again. When the cache grows past this size, the entries that were used least recently are
+     * deleted at the end of the build.
+     * Can be overridden with the system property {@code -Drewrite.lstCacheSizeMb=2048}.
+     * Defaults to {@code 0}, which disables the cache.
+     */
+    private int lstCacheSizeMb;
+
+    /**
+     * Directory in which to store the cache of parsed source files. Only used when {@link #lstCacheSizeMb} is set.
+     * When {@code null} (the default), the cache is stored under {@code caches/rewrite/lst} in the Gradle user home.
+     */
+    @Nullable
+    private String lstCacheDirectory;
+
+    /**
+     * Whether to parse all source files again, ignoring the cache of parsed source files, and replace the cached
+     * entries with the new parse results. Useful when the cache is suspected to be out of date.
+     * Can also be enabled via the project property {@code -Prewrite.refreshLstCache}.
+     * Defaults to {@code false}.
+     */
+    private boolean refreshLstCache;
+
+    /**
+     * A git ref, such as {@code origin/main}, to limit recipes to the files changed since then, like the files that a
+     * pull request touches. Changes are taken from the merge base of the ref and {@code HEAD} to the working tree.
+     * Recipes only visit changed files, and only their results are reported and applied. Other files are only parsed
+     * where the types of the changed files depend on them, unless a recipe needs to see all source files.
+     * Can be overridden with the system property {@code -Drewrite.changedSince=origin/main}.
+     * Defaults to {@code null}, which runs recipes on all files.
+     */
+    @Nullable
+    private String changedSince;
+
+    /**
+     * Whether to remember the files that the active recipes made no change to, and leave them out of later runs for as
+     * long as neither the files, their styles and classpath, nor the recipes and their options change. The memo is
+     * kept in the build directory. It is not used when any active recipe needs to see all source files before making
+     * changes, and may miss changes of recipes that depend on anything other than the file itself, such as the latest
+     * versions of dependencies.
+     * Can also be enabled via the project property {@code -Prewrite.noChangeMemo}.
+     * Defaults to {@code false}.
+     */
+    private boolean noChangeMemo;
+
+    /**
+     * When greater than 0, the parsed source files are written to disk in the build directory while the active recipes
+     * run on the whole build, and only about this many megabytes of them, measured by their serialized size, are kept on
+     * heap at a time. Source files that recipes change stay on heap. This lets recipes run on repositories whose source
+     * files do not fit on heap at once, at the cost of reading source files back from disk every time a recipe visits
+     * them. Not used when recipes are run per project.
+     * Can be overridden with the system property {@code -Drewrite.sourceSetHeapBudgetMb=512}.
+     * Defaults to {@code 0}, which keeps all parsed source files on heap.
+     */
+    private int sourceSetHeapBudgetMb;
+
+    /**
+     * When greater than 0, the styles of Java, Kotlin and XML files are detected from a sample of up to this many files
+     * of each language per project, which are parsed on their own before the build is parsed. The detected styles are
+     * then added to source files as they are parsed, instead of after all source files were parsed, and styles are no
+     * longer detected from every file. Styles detected from a sample may differ from those detected from all files where
+     * the formatting of a project is inconsistent.
+     * Can be overridden with the system property {@code -Drewrite.styleDetectionSampleSize=200}.
+     * Defaults to {@code 0}, which detects styles from all parsed files.
+     */
+    private int styleDetectionSampleSize;
+
+    /**
+     * Whether to write out the diff of each result of a dry run, or the content of each file that a run changes, as
+     * soon as the active recipes are done with it, and only keep a summary of each result until the results are
+     * reported or applied. This lowers the peak heap of runs that change many files, because the trees of changed files
+     * are not all held until the end. Files are written to the build directory until they are moved in place.
+     * Can also be enabled via the project property {@code -Prewrite.compactResults}.
+     * Defaults to {@code false}.
+     */
+    private boolean compactResults;
+
+    /**
+     * When greater than 0, the heap is watched while sources are parsed and recipes run, and rewrite uses less heap
+     * once more than this percentage of the old generation is still in use after garbage collections, or more than
+     * {@link #heapPressureGcOverheadPercent} of the time is spent collecting garbage. Java sources are then parsed in
+     * smaller batches, unless {@link #javaParseBatchSize} is {@code 0}, cached types and idle parsers are dropped, and
+     * spilled source files are no longer kept on heap. When the old generation is still more than halfway from this percentage to full, parsing pauses until the pressure
+     * eases, for at most a minute. This trades speed for not running out of heap on builds that are close to it.
+     * Can be overridden with the system property {@code -Drewrite.heapPressureOldGenPercent=80}.
+     * Defaults to {@code 0}, which does not watch the heap.
+     */
+    private int heapPressureOldGenPercent;
+
+    /**
+     * The percentage of time spent collecting garbage at which heap pressure is considered elevated, when
+     * {@link #heapPressureOldGenPercent} is set.
+     * Can be overridden with the system property {@code -Drewrite.heapPressureGcOverheadPercent=20}.
+     * Defaults to {@code 20}.
+     */
+    private int heapPressureGcOverheadPercent = 20;
+
+    /**
+     * Whether to parse sources and run recipes in a separate worker process with its own heap, instead of in the Gradle
+     * daemon. The build plans which files to parse and hands the plan to the worker, so the memory that parsing needs is
+     * released when the worker is stopped rather than staying in the daemon. Gradle keeps the worker alive for reuse by
+     * later builds that use the same worker settings. Requires Gradle 5.6 or newer.
+     * Can also be enabled via the project property {@code -Prewrite.workerIsolation}.
+     * Defaults to {@code false}.
+     */
+    private boolean workerIsolation;
+
+    /**
+     * Maximum heap size of the worker process, for example {@code "4g"}. Only used with {@link #workerIsolation}.
+     * When {@code null} (the default), Gradle's default for worker processes is used.
+     */
+    @Nullable
+    private String workerMaxHeapSize;
+
+    /**
+     * Additional JVM arguments of the worker process, for example to choose a garbage collector with
+     * {@code "-XX:+UseParallelGC"}. Only used with {@link #workerIsolation}.
+     */
+    private final List<String> workerJvmArgs = new ArrayList<>();
+
+    /**
+     * Minutes that the classes of rewrite and the caches that outlive a build, such as the in-memory pom cache, are kept
+     * in the Gradle daemon or worker process once no build uses them. Later builds within that time reuse them. Once it
+     * expires they are released, and the next build loads them again. Set to {@code 0} to release them within a minute
+     * after every build, which suits long-lived daemons that run rewrite rarely.
+     * Can be overridden with the system property {@code -Drewrite.cacheIdleTimeoutMinutes=10}.
+     * Defaults to {@code 30}.
+     */
+    private int cacheIdleTimeoutMinutes = 30;
+
     @SuppressWarnings("unused")
     public RewriteExtension(Project project) {
         this.project = project;
@@ -453,4 +665,266 @@ public class RewriteExtension {
     public void setPomCacheDirectory(@Nullable String pomCacheDirectory) {
         this.pomCacheDirectory = pomCacheDirectory;
     }
+
+    public int getParseParallelism() {
+        Integer parseParallelismOverride = Integer.getInteger("rewrite.parseParallelism");
+        if (parseParallelismOverride != null) {
+            return parseParallelismOverride;
+        }
+        return parseParallelism;
+    }
+
+    public void setParseParallelism(int parseParallelism) {
+        this.parseParallelism = parseParallelism;
+    }
+
+    public int getProjectParseParallelism() {
+        Integer projectParseParallelismOverride = Integer.getInteger("rewrite.projectParseParallelism");
+        if (projectParseParallelismOverride != null) {
+            return projectParseParallelismOverride;
+        }
+        return projectParseParallelism;
+    }
+
+    public void setProjectParseParallelism(int projectParseParallelism) {
+        this.projectParseParallelism = projectParseParallelism;
+    }
+
+    public boolean getDumpParseManifest() {
+        if (project.getProperties().containsKey("rewrite.dumpParseManifest")) {
+            return true;
+        }
+        return dumpParseManifest;
+    }
+
+    public void setDumpParseManifest(boolean dumpParseManifest) {
+        this.dumpParseManifest = dumpParseManifest;
+    }
+
+    public int getJavaParseBatchSize() {
+        Integer javaParseBatchSizeOverride = Integer.getInteger("rewrite.javaParseBatchSize");
+        if (javaParseBatchSizeOverride != null) {
+            return javaParseBatchSizeOverride;
+        }
+        return javaParseBatchSize;
+    }
+
+    public void setJavaParseBatchSize(int javaParseBatchSize) {
+        this.javaParseBatchSize = javaParseBatchSize;
+    }
+
+    public int getParserPoolSize() {
+        Integer parserPoolSizeOverride = Integer.getInteger("rewrite.parserPoolSize");
+        if (parserPoolSizeOverride != null) {
+            return parserPoolSizeOverride;
+        }
+        return parserPoolSize;
+    }
+
+    public void setParserPoolSize(int parserPoolSize) {
+        this.parserPoolSize = parserPoolSize;
+    }
+
+    public int getSharedTypeCacheSize() {
+        Integer sharedTypeCacheSizeOverride = Integer.getInteger("rewrite.sharedTypeCacheSize");
+        if (sharedTypeCacheSizeOverride != null) {
+            return sharedTypeCacheSizeOverride;
+        }
+        return sharedTypeCacheSize;
+    }
+
+    public void setSharedTypeCacheSize(int sharedTypeCacheSize) {
+        this.sharedTypeCacheSize = sharedTypeCacheSize;
+    }
+
+    public int getSourcePrefetchMb() {
+        Integer sourcePrefetchMbOverride = Integer.getInteger("rewrite.sourcePrefetchMb");
+        if (sourcePrefetchMbOverride != null) {
+            return sourcePrefetchMbOverride;
+        }
+        return sourcePrefetchMb;
+    }
+
+    public void setSourcePrefetchMb(int sourcePrefetchMb) {
+        this.sourcePrefetchMb = sourcePrefetchMb;
+    }
+
+    public int getResourceParseParallelism() {
+        Integer resourceParseParallelismOverride = Integer.getInteger("rewrite.resourceParseParallelism");
+        if (resourceParseParallelismOverride != null) {
+            return resourceParseParallelismOverride;
+        }
+        return resourceParseParallelism;
+    }
+
+    public void setResourceParseParallelism(int resourceParseParallelism) {
+        this.resourceParseParallelism = resourceParseParallelism;
+    }
+
+    public boolean getRunRecipesPerProject() {
+        if (project.getProperties().containsKey("rewrite.runRecipesPerProject")) {
+            return true;
+        }
+        return runRecipesPerProject;
+    }
+
+    public void setRunRecipesPerProject(boolean runRecipesPerProject) {
+        this.runRecipesPerProject = runRecipesPerProject;
+    }
+
+    public int getLstCacheSizeMb() {
+        Integer lstCacheSizeMbOverride = Integer.getInteger("rewrite.lstCacheSizeMb");
+        if (lstCacheSizeMbOverride != null) {
+            return lstCacheSizeMbOverride;
+        }
+        return lstCacheSizeMb;
+    }
+
+    public void setLstCacheSizeMb(int lstCacheSizeMb) {
+        this.lstCacheSizeMb = lstCacheSizeMb;
+    }
+
+    public @Nullable String getLstCacheDirectory() {
+        return lstCacheDirectory;
+    }
+
+    public void setLstCacheDirectory(@Nullable String lstCacheDirectory) {
+        this.lstCacheDirectory = lstCacheDirectory;
+    }
+
+    public boolean getRefreshLstCache() {
+        if (project.getProperties().containsKey("rewrite.refreshLstCache")) {
+            return true;
+        }
+        return refreshLstCache;
+    }
+
+    public void setRefreshLstCache(boolean refreshLstCache) {
+        this.refreshLstCache = refreshLstCache;
+    }
+
+    public @Nullable String getChangedSince() {
+        String changedSinceOverride = System.getProperty("rewrite.changedSince");
+        if (changedSinceOverride != null) {
+            return changedSinceOverride;
+        }
+        return changedSince;
+    }
+
+    public void setChangedSince(@Nullable String changedSince) {
+        this.changedSince = changedSince;
+    }
+
+    public boolean getNoChangeMemo() {
+        if (project.getProperties().containsKey("rewrite.noChangeMemo")) {
+            return true;
+        }
+        return noChangeMemo;
+    }
+
+    public void setNoChangeMemo(boolean noChangeMemo) {
+        this.noChangeMemo = noChangeMemo;
+    }
+
+    public int getSourceSetHeapBudgetMb() {
+        Integer sourceSetHeapBudgetMbOverride = Integer.getInteger("rewrite.sourceSetHeapBudgetMb");
+        if (sourceSetHeapBudgetMbOverride != null) {
+            return sourceSetHeapBudgetMbOverride;
+        }
+        return sourceSetHeapBudgetMb;
+    }
+
+    public void setSourceSetHeapBudgetMb(int sourceSetHeapBudgetMb) {
+        this.sourceSetHeapBudgetMb = sourceSetHeapBudgetMb;
+    }
+
+    public int getStyleDetectionSampleSize() {
+        Integer styleDetectionSampleSizeOverride = Integer.getInteger("rewrite.styleDetectionSampleSize");
+        if (styleDetectionSampleSizeOverride != null) {
+            return styleDetectionSampleSizeOverride;
+        }
+        return styleDetectionSampleSize;
+    }
+
+    public void setStyleDetectionSampleSize(int styleDetectionSampleSize) {
+        this.styleDetectionSampleSize = styleDetectionSampleSize;
+    }
+
+    public boolean getCompactResults() {
+        if (project.getProperties().containsKey("rewrite.compactResults")) {
+            return true;
+        }
+        return compactResults;
+    }
+
+    public void setCompactResults(boolean compactResults) {
+        this.compactResults = compactResults;
+    }
+
+    public int getHeapPressureOldGenPercent() {
+        Integer heapPressureOldGenPercentOverride = Integer.getInteger("rewrite.heapPressureOldGenPercent");
+        if (heapPressureOldGenPercentOverride != null) {
+            return heapPressureOldGenPercentOverride;
+        }
+        return heapPressureOldGenPercent;
+    }
+
+    public void setHeapPressureOldGenPercent(int heapPressureOldGenPercent) {
+        this.heapPressureOldGenPercent = heapPressureOldGenPercent;
+    }
+
+    public int getHeapPressureGcOverheadPercent() {
+        Integer heapPressureGcOverheadPercentOverride = Integer.getInteger("rewrite.heapPressureGcOverheadPercent");
+        if (heapPressureGcOverheadPercentOverride != null) {
+            return heapPressureGcOverheadPercentOverride;
+        }
+        return heapPressureGcOverheadPercent;
+    }
+
+    public void setHeapPressureGcOverheadPercent(int heapPressureGcOverheadPercent) {
+        this.heapPressureGcOverheadPercent = heapPressureGcOverheadPercent;
+    }
+
+    public boolean getWorkerIsolation() {
+        if (project.getProperties().containsKey("rewrite.workerIsolation")) {
+            return true;
+        }
+        return workerIsolation;
+    }
+
+    public void setWorkerIsolation(boolean workerIsolation) {
+        this.workerIsolation = workerIsolation;
+    }
+
+    public @Nullable String getWorkerMaxHeapSize() {
+        return workerMaxHeapSize;
+    }
+
+    public void setWorkerMaxHeapSize(@Nullable String workerMaxHeapSize) {
+        this.workerMaxHeapSize = workerMaxHeapSize;
+    }
+
+    public List<String> getWorkerJvmArgs() {
+        return workerJvmArgs;
+    }
+
+    public void workerJvmArg(String... jvmArgs) {
+        this.workerJvmArgs.addAll(asList(jvmArgs));
+    }
+
+    public void workerJvmArg(Collection<String> jvmArgs) {
+        this.workerJvmArgs.addAll(jvmArgs);
+    }
+
+    public int getCacheIdleTimeoutMinutes() {
+        Integer cacheIdleTimeoutMinutesOverride = Integer.getInteger("rewrite.cacheIdleTimeoutMinutes");
+        if (cacheIdleTimeoutMinutesOverride != null) {
+            return Math.max(0, cacheIdleTimeoutMinutesOverride);
+        }
+        return Math.max(0, cacheIdleTimeoutMinutes);
+    }
+
+    public void setCacheIdleTimeoutMinutes(int cacheIdleTimeoutMinutes) {
+        this.cacheIdleTimeoutMinutes = cacheIdleTimeoutMinutes;
+    }
 }
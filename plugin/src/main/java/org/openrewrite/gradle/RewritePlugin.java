@@ -32,6 +32,7 @@ import org.gradle.api.plugins.quality.CheckstylePlugin;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.SourceSetContainer;
 import org.gradle.api.tasks.TaskProvider;
+import org.gradle.util.GradleVersion;
 import org.jspecify.annotations.Nullable;
 
 import java.io.File;
@@ -90,6 +91,10 @@ public class RewritePlugin implements Plugin<Project> {
             task.dependsOn(rewriteConf);
         });
 
+        if (GradleVersion.current().compareTo(GradleVersion.version("6.1")) >= 0) {
+            useBuildServices(project, rewriteRun, rewriteDryRun, rewriteDiscover);
+        }
+
         if (isRootProject) {
             project.allprojects(subproject -> configureProject(subproject, extension, rewriteDryRun, rewriteRun));
         } else {
@@ -97,6 +102,21 @@ public class RewritePlugin implements Plugin<Project> {
         }
     }
 
+    /**
+     * Register the build services that the rewrite tasks share across the projects of a build, and declare that the
+     * tasks use them. Requires Gradle 6.1 or newer.
+     */
+    private static void useBuildServices(Project project, TaskProvider<?>... tasks) {
+        Provider<SourceSetClasspathsService> classpaths = SourceSetClasspathsService.register(project.getGradle());
+        Provider<RewriteClassLoaderLeases> leases = RewriteClassLoaderLeases.register(project.getGradle());
+        for (TaskProvider<?> task : tasks) {
+            task.configure(t -> {
+                t.usesService(classpaths);
+                t.usesService(leases);
+            });
+        }
+    }
+
     private static void configureProject(Project project, RewriteExtension extension, TaskProvider<RewriteDryRunTask> rewriteDryRun, TaskProvider<RewriteRunTask> rewriteRun) {
         // DomainObjectCollection.all() accepts a function to be applied to both existing and subsequently added members of the collection
         // Do not replace all() with any form of collection iteration which does not share this important property
@@ -35,6 +35,10 @@ public class RewriteRunTask extends AbstractRewriteTask {
 
     @TaskAction
     public void run() {
+        if (useWorker()) {
+            runInWorker(null);
+            return;
+        }
         getProjectParser().run(throwable -> logger.info("Error during rewrite run", throwable));
     }
 
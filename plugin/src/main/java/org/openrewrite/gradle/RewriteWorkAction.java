@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+import org.jspecify.annotations.Nullable;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the sources and runs the active recipes in a worker process, following a plan written by
+ * {@link WorkerPlanWriter#writeWorkerPlan(Path)} in the build process. Requires Gradle 5.6 or newer, so this class
+ * must only be loaded once the Gradle version has been checked.
+ */
+public abstract class RewriteWorkAction implements WorkAction<RewriteWorkAction.Parameters> {
+    private static final Logger logger = Logging.getLogger(RewriteWorkAction.class);
+
+    public interface Parameters extends WorkParameters {
+        ConfigurableFileCollection getRewriteClasspath();
+
+        RegularFileProperty getPlanFile();
+
+        /**
+         * Where to write the patch of a dry run. When not set, the results are applied to the source files.
+         */
+        RegularFileProperty getReportFile();
+
+        Property<Boolean> getDumpGcActivity();
+
+        Property<Integer> getCacheIdleTimeoutMinutes();
+    }
+
+    static void submit(WorkerExecutor workerExecutor, RewriteExtension extension, List<URL> classpath,
+                       Path planFile, @Nullable Path reportPath, boolean dumpGcActivity) {
+        List<File> classpathFiles = new ArrayList<>(classpath.size());
+        for (URL url : classpath) {
+            try {
+                classpathFiles.add(new File(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        WorkQueue queue = workerExecutor.processIsolation(spec -> {
+            spec.getClasspath().from(classpathFiles);
+            spec.forkOptions(fork -> {
+                if (extension.getWorkerMaxHeapSize() != null) {
+                    fork.setMaxHeapSize(extension.getWorkerMaxHeapSize());
+                }
+                fork.jvmArgs(extension.getWorkerJvmArgs());
+            });
+        });
+        queue.submit(RewriteWorkAction.class, parameters -> {
+            parameters.getRewriteClasspath().from(classpathFiles);
+            parameters.getPlanFile().set(planFile.toFile());
+            if (reportPath != null) {
+                parameters.getReportFile().set(reportPath.toFile());
+            }
+            parameters.getDumpGcActivity().set(dumpGcActivity);
+            parameters.getCacheIdleTimeoutMinutes().set(extension.getCacheIdleTimeoutMinutes());
+        });
+        queue.await();
+    }
+
+    @Override
+    public void execute() {
+        Path planFile = getParameters().getPlanFile().get().getAsFile().toPath();
+        File reportFile = getParameters().getReportFile().getAsFile().getOrNull();
+        RewriteClassLoader rewriteClassLoader = rewriteClassLoader(getParameters().getRewriteClasspath(),
+                getParameters().getCacheIdleTimeoutMinutes().getOrElse(30));
+        try {
+            RewriteWorker worker = worker(rewriteClassLoader, planFile);
+            if (reportFile == null) {
+                worker.run(throwable -> logger.info("Error during rewrite run", throwable));
+            } else {
+                worker.dryRun(reportFile.toPath(), getParameters().getDumpGcActivity().getOrElse(false),
+                        throwable -> logger.info("Error during rewrite dry run", throwable));
+            }
+        } finally {
+            rewriteClassLoader.release();
+            rewriteClassLoader.writeClassLoadTimings();
+        }
+    }
+
+    private static RewriteWorker worker(RewriteClassLoader rewriteClassLoader, Path planFile) {
+        try {
+            Class<?> gppClass = Class.forName("org.openrewrite.gradle.isolated.WorkerProjectParser", true, rewriteClassLoader);
+            return (RewriteWorker) gppClass.getDeclaredConstructor(Path.class).newInstance(planFile);
+        } catch (InvocationTargetException e) {
+            if (e.getTargetException() instanceof RuntimeException) {
+                throw (RuntimeException) e.getTargetException();
+            }
+            throw new RuntimeException(e.getTargetException());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Worker processes are reused by later builds, so the classes of rewrite are only loaded again when the rewrite
+     * classpath changes or the class loader was idle for longer than {@code idleTimeoutMinutes}.
+     */
+    private static RewriteClassLoader rewriteClassLoader(Iterable<File> files, int idleTimeoutMinutes) {
+        List<URL> classpath = new ArrayList<>();
+        for (File file : files) {
+            try {
+                classpath.add(file.toURI().toURL());
+            } catch (MalformedURLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return RewriteClassLoaderPool.shared().get(classpath, RewriteWorkAction.class.getClassLoader(),
+                idleTimeoutMinutes, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle;
+
+import org.gradle.api.Project;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.logging.Logger;
+import org.gradle.util.GradleVersion;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The resolved classpaths of the source sets of a build, so that each classpath is resolved and normalized once per
+ * build rather than by every rewrite task and parser that needs it. Shared through {@link SourceSetClasspathsService}
+ * on Gradle 6.1 and newer.
+ * <p>
+ * Loaded by the parent of the {@link RewriteClassLoader}, so that it is shared with the isolated parsers.
+ */
+public class SourceSetClasspaths {
+    private static final Map<Gradle, SourceSetClasspaths> BEFORE_BUILD_SERVICES = new WeakHashMap<>();
+
+    private final Map<String, Set<Path>> classpaths = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> resolutionNanos = new ConcurrentHashMap<>();
+
+    /**
+     * The classpaths of the build that {@code project} belongs to.
+     */
+    public static SourceSetClasspaths of(Project project) {
+        Gradle gradle = project.getGradle();
+        if (GradleVersion.current().compareTo(GradleVersion.version("6.1")) >= 0) {
+            return SourceSetClasspathsService.register(gradle).get().getClasspaths();
+        }
+        synchronized (BEFORE_BUILD_SERVICES) {
+            return BEFORE_BUILD_SERVICES.computeIfAbsent(gradle, g -> new SourceSetClasspaths());
+        }
+    }
+
+    /**
+     * @param name    The name of the classpath within {@code project}, such as the name of its source set.
+     * @param resolve Resolves the classpath, unless it was already resolved by this build. When it throws, nothing is
+     *                remembered, and the exception is passed on to the caller.
+     * @return The absolute, normalized paths of the classpath, in the order they were resolved in without duplicates.
+     */
+    public Set<Path> get(Project project, String name, Supplier<? extends Collection<File>> resolve) {
+        String key = project.getPath() + " " + name;
+        Set<Path> classpath = classpaths.get(key);
+        if (classpath != null) {
+            return classpath;
+        }
+
+        long start = System.nanoTime();
+        Set<Path> resolved = new LinkedHashSet<>();
+        for (File file : resolve.get()) {
+            resolved.add(file.toPath().toAbsolutePath().normalize());
+        }
+        resolutionNanos.computeIfAbsent(project.getPath(), path -> new AtomicLong())
+                .addAndGet(System.nanoTime() - start);
+        Set<Path> previous = classpaths.putIfAbsent(key, Collections.unmodifiableSet(resolved));
+        return previous == null ? classpaths.get(key) : previous;
+    }
+
+    void logResolutionTimes(Logger logger) {
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(resolutionNanos).entrySet()) {
+            logger.info("Resolved source set classpaths of {} in {}ms", entry.getKey(),
+                    TimeUnit.NANOSECONDS.toMillis(entry.getValue().get()));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle;
+
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+/**
+ * Holds the {@link SourceSetClasspaths} of a build, and reports how long each project took to resolve them when the
+ * build finishes. Requires Gradle 6.1 or newer, so this class must only be loaded once the Gradle version has been
+ * checked.
+ */
+public abstract class SourceSetClasspathsService implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+    private static final Logger logger = Logging.getLogger(SourceSetClasspathsService.class);
+    private static final String NAME = "rewriteSourceSetClasspaths";
+
+    private final SourceSetClasspaths classpaths = new SourceSetClasspaths();
+
+    static Provider<SourceSetClasspathsService> register(Gradle gradle) {
+        return gradle.getSharedServices().registerIfAbsent(NAME, SourceSetClasspathsService.class, spec -> {
+        });
+    }
+
+    SourceSetClasspaths getClasspaths() {
+        return classpaths;
+    }
+
+    @Override
+    public void close() {
+        classpaths.logResolutionTimes(logger);
+    }
+}
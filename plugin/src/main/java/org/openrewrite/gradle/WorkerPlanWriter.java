@@ -0,0 +1,30 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle;
+
+import java.nio.file.Path;
+
+/**
+ * A project parser that can hand the parse and the recipe run off to a {@link RewriteWorker} in a worker process.
+ */
+public interface WorkerPlanWriter {
+
+    /**
+     * Plan the parse and write everything that is needed to parse the sources and run the active recipes without
+     * access to the Gradle model to {@code planFile}, to be picked up by a rewrite worker process.
+     */
+    void writeWorkerPlan(Path planFile);
+}
@@ -22,22 +22,11 @@ import org.gradle.api.DomainObjectSet;
 import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
-import org.jspecify.annotations.Nullable;
-import org.openrewrite.ExecutionContext;
-import org.openrewrite.SourceFile;
 import org.openrewrite.Tree;
-import org.openrewrite.gradle.RewriteExtension;
-import org.openrewrite.java.JavaParser;
-import org.openrewrite.java.internal.JavaTypeCache;
 import org.openrewrite.java.marker.JavaSourceSet;
 import org.openrewrite.java.marker.JavaVersion;
-import org.openrewrite.jgit.dircache.DirCache;
-import org.openrewrite.jgit.lib.Repository;
-import org.openrewrite.kotlin.KotlinParser;
+import org.openrewrite.marker.Marker;
 import org.openrewrite.polyglot.OmniParser;
-import org.openrewrite.polyglot.ProgressBar;
-import org.openrewrite.polyglot.SourceFileStream;
-import org.openrewrite.style.NamedStyles;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -45,71 +34,34 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.PathMatcher;
 import java.util.*;
-import java.util.function.Supplier;
-import java.util.stream.Stream;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
-import static org.openrewrite.tree.ParsingExecutionContextView.view;
 
 class AndroidProjectParser {
     private static final Logger logger = Logging.getLogger(DefaultProjectParser.class);
     private final Path baseDir;
-    private final @Nullable Repository repository;
-    private @Nullable DirCache dirCache;
-    private boolean dirCacheInitialized;
-    private final RewriteExtension rewriteExtension;
-    private final List<NamedStyles> styles;
 
-    AndroidProjectParser(Path baseDir, @Nullable Repository repository, RewriteExtension rewriteExtension, List<NamedStyles> styles) {
+    AndroidProjectParser(Path baseDir) {
         this.baseDir = baseDir;
-        this.repository = repository;
-        this.rewriteExtension = rewriteExtension;
-        this.styles = styles;
     }
 
-    private @Nullable DirCache dirCache() {
-        if (!dirCacheInitialized) {
-            dirCacheInitialized = true;
-            if (repository != null) {
-                try {
-                    dirCache = repository.readDirCache();
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            }
-        }
-        return dirCache;
-    }
-
-    SourceFileStream parseProjectSourceSets(Project project,
-                                            ProgressBar progressBar,
-                                            Path buildDir,
-                                            Set<Path> alreadyParsed,
-                                            Collection<PathMatcher> exclusions,
-                                            ExecutionContext ctx,
-                                            OmniParser omniParser) {
-        SourceFileStream sourceFileStream = SourceFileStream.build(
-                project.getPath(),
-                projectName -> progressBar.intermediateResult(":" + projectName));
-
+    void planProjectSourceSets(Project project, ParseManifest.Builder manifest, OmniParser omniParser) {
         for (AndroidProjectVariant variant : findAndroidProjectVariants(project)) {
             JavaVersion javaVersion = getJavaVersion(project);
             final Charset javaSourceCharset = getSourceFileEncoding(project);
 
             for (String sourceSetName : variant.getSourceSetNames()) {
-                Stream<SourceFile> sourceSetSourceFiles = Stream.of();
-                int sourceSetSize = 0;
-
                 Set<Path> javaAndKotlinDirectories = new HashSet<>();
                 javaAndKotlinDirectories.addAll(variant.getJavaDirectories(sourceSetName));
                 javaAndKotlinDirectories.addAll(variant.getKotlinDirectories(sourceSetName));
 
                 Set<Path> javaAndKotlinPaths = javaAndKotlinDirectories.stream()
                         .filter(Files::exists)
-                        .filter(dir -> !alreadyParsed.contains(dir))
+                        .filter(dir -> !manifest.isClaimed(dir))
                         .flatMap(dir -> {
                             try {
                                 return Files.walk(dir);
@@ -120,27 +72,14 @@ class AndroidProjectParser {
                         .filter(Files::isRegularFile)
                         .map(Path::toAbsolutePath)
                         .map(Path::normalize)
-                        .filter(path -> !alreadyParsed.contains(path))
                         .collect(toSet());
 
-                List<Path> javaPaths = javaAndKotlinPaths.stream()
-                        .filter(path -> path.toString().endsWith(".java"))
-                        .collect(toList());
-                List<Path> kotlinPaths = javaAndKotlinPaths.stream()
-                        .filter(path -> path.toString().endsWith(".kt"))
-                        .collect(toList());
-
-                JavaTypeCache javaTypeCache = new JavaTypeCache();
-
                 // The compilation classpath doesn't include the transitive dependencies
                 // The runtime classpath doesn't include compile only dependencies, e.g.: lombok, servlet-api
                 // So we use both together to get comprehensive type information.
-                Set<Path> dependencyPaths = new HashSet<>();
+                Set<Path> dependencyPaths = emptySet();
                 try {
-                    Stream.concat(variant.getCompileClasspath().stream(), variant.getRuntimeClasspath().stream())
-                            .map(Path::toAbsolutePath)
-                            .map(Path::normalize)
-                            .forEach(dependencyPaths::add);
+                    dependencyPaths = variant.getClasspath();
                 } catch (Exception e) {
                     logger.warn("Unable to resolve classpath for variant {} sourceSet {}:{}",
                             variant.getName(),
@@ -149,30 +88,33 @@ class AndroidProjectParser {
                             e);
                 }
 
+                JavaSourceSet sourceSetProvenance = manifest.javaSourceSet(sourceSetName, dependencyPaths);
+                List<Marker> markers = Arrays.asList(javaVersion, sourceSetProvenance);
+
+                List<Path> javaPaths = manifest.claim(project.getPath(),
+                        sourceSetName,
+                        ParseManifest.Kind.JAVA,
+                        javaSourceCharset,
+                        dependencyPaths,
+                        markers,
+                        javaAndKotlinPaths.stream()
+                                .filter(path -> path.toString().endsWith(".java"))
+                                .collect(toList()));
                 if (!javaPaths.isEmpty()) {
-                    alreadyParsed.addAll(javaPaths);
-                    Stream<SourceFile> parsedJavaFiles = parseJavaFiles(javaPaths,
-                            ctx,
-                            javaSourceCharset,
-                            javaVersion,
-                            dependencyPaths,
-                            javaTypeCache);
-                    sourceSetSourceFiles = Stream.concat(sourceSetSourceFiles, parsedJavaFiles);
-                    sourceSetSize += javaPaths.size();
-
                     logger.info("Scanned {} Java sources in {}/{}", javaPaths.size(), project.getPath(), sourceSetName);
                 }
 
+                List<Path> kotlinPaths = manifest.claim(project.getPath(),
+                        sourceSetName,
+                        ParseManifest.Kind.KOTLIN,
+                        // Kotlin requires UTF-8
+                        StandardCharsets.UTF_8,
+                        dependencyPaths,
+                        markers,
+                        javaAndKotlinPaths.stream()
+                                .filter(path -> path.toString().endsWith(".kt"))
+                                .collect(toList()));
                 if (!kotlinPaths.isEmpty()) {
-                    alreadyParsed.addAll(kotlinPaths);
-                    Stream<SourceFile> parsedKotlinFiles = parseKotlinFiles(kotlinPaths,
-                            ctx,
-                            javaVersion,
-                            dependencyPaths,
-                            javaTypeCache);
-                    sourceSetSourceFiles = Stream.concat(sourceSetSourceFiles, parsedKotlinFiles);
-                    sourceSetSize += kotlinPaths.size();
-
                     logger.info("Scanned {} Kotlin sources in {}/{}",
                             kotlinPaths.size(),
                             project.getPath(),
@@ -180,31 +122,18 @@ class AndroidProjectParser {
                 }
 
                 for (Path resourcesDir : variant.getResourcesDirectories(sourceSetName)) {
-                    if (Files.exists(resourcesDir) && !alreadyParsed.contains(resourcesDir)) {
-                        Set<Path> accepted =
-                                omniParser.acceptedPaths(baseDir, resourcesDir)
-                                        .stream()
-                                        .filter(path -> !alreadyParsed.contains(path))
-                                        .collect(toSet());
-                        sourceSetSourceFiles = Stream.concat(
-                                sourceSetSourceFiles,
-                                omniParser.parse(accepted, baseDir, ctx)
-                                        .map(it -> it.withMarkers(it.getMarkers().add(javaVersion))));
-                        alreadyParsed.addAll(accepted);
-                        sourceSetSize += accepted.size();
+                    if (Files.exists(resourcesDir) && !manifest.isClaimed(resourcesDir)) {
+                        manifest.claim(project.getPath(),
+                                sourceSetName,
+                                ParseManifest.Kind.RESOURCE,
+                                null,
+                                emptyList(),
+                                markers,
+                                omniParser.acceptedPaths(baseDir, resourcesDir));
                     }
                 }
-
-                JavaSourceSet sourceSetProvenance = JavaSourceSet.build(sourceSetName, dependencyPaths);
-                sourceFileStream = sourceFileStream.concat(
-                        sourceSetSourceFiles
-                                .filter(cu -> !DefaultProjectParser.isExcluded(repository, dirCache(), exclusions, cu.getSourcePath()) &&
-                                        !cu.getSourcePath().startsWith(buildDir))
-                                .map(DefaultProjectParser.addProvenance(sourceSetProvenance)),
-                        sourceSetSize);
             }
         }
-        return sourceFileStream;
     }
 
     Collection<Path> findSourceDirectories(Project project) {
@@ -231,20 +160,20 @@ class AndroidProjectParser {
             return variants;
         }
         TestedExtension testedExtension = (TestedExtension) extension;
-        addModuleVariants(variants, extension);
-        addProjectVariant(variants, testedExtension.getTestVariants());
-        addProjectVariant(variants, testedExtension.getUnitTestVariants());
+        addModuleVariants(project, variants, extension);
+        addProjectVariant(project, variants, testedExtension.getTestVariants());
+        addProjectVariant(project, variants, testedExtension.getUnitTestVariants());
         return variants;
     }
 
     @SuppressWarnings("unchecked")
-    private void addModuleVariants(List<AndroidProjectVariant> variants, Object extension) {
+    private void addModuleVariants(Project project, List<AndroidProjectVariant> variants, Object extension) {
         for (String methodName : new String[]{"getApplicationVariants", "getLibraryVariants"}) {
             try {
                 DomainObjectSet<? extends BaseVariant> moduleVariants =
                         (DomainObjectSet<? extends BaseVariant>) extension.getClass()
                                 .getMethod(methodName).invoke(extension);
-                addProjectVariant(variants, moduleVariants);
+                addProjectVariant(project, variants, moduleVariants);
                 return;
             } catch (NoSuchMethodException ignored) {
             } catch (Exception e) {
@@ -253,9 +182,12 @@ class AndroidProjectParser {
         }
     }
 
-    private void addProjectVariant(List<AndroidProjectVariant> projectVariants,
+    private void addProjectVariant(Project project,
+                                   List<AndroidProjectVariant> projectVariants,
                                    DomainObjectSet<? extends BaseVariant> variantSet) {
-        variantSet.stream().map(AndroidProjectVariant::fromBaseVariant).forEach(projectVariants::add);
+        variantSet.stream()
+                .map(baseVariant -> AndroidProjectVariant.fromBaseVariant(project, baseVariant))
+                .forEach(projectVariants::add);
     }
 
     private JavaVersion getJavaVersion(Project project) {
@@ -295,43 +227,4 @@ class AndroidProjectParser {
         }
         return StandardCharsets.UTF_8; // Android defaults to UTF-8
     }
-
-    private Stream<SourceFile> parseJavaFiles(List<Path> javaPaths,
-                                              ExecutionContext ctx,
-                                              Charset javaSourceCharset,
-                                              JavaVersion javaVersion,
-                                              Set<Path> dependencyPaths,
-                                              JavaTypeCache javaTypeCache) {
-        return Stream.of((Supplier<JavaParser>) () -> JavaParser.fromJavaVersion()
-                        .classpath(dependencyPaths)
-                        .styles(styles)
-                        .typeCache(javaTypeCache)
-                        .logCompilationWarningsAndErrors(rewriteExtension.getLogCompilationWarningsAndErrors())
-                        .build())
-                .map(Supplier::get)
-                .flatMap(jp -> {
-                    view(ctx).setCharset(javaSourceCharset);
-                    return jp.parse(javaPaths, baseDir, ctx).onClose(() -> view(ctx).setCharset(null));
-                })
-                .map(it -> it.withMarkers(it.getMarkers().add(javaVersion)));
-    }
-
-    private Stream<SourceFile> parseKotlinFiles(List<Path> kotlinPaths,
-                                                ExecutionContext ctx,
-                                                JavaVersion javaVersion,
-                                                Set<Path> dependencyPaths,
-                                                JavaTypeCache javaTypeCache) {
-        return Stream.of((Supplier<KotlinParser>) () -> KotlinParser.builder()
-                        .classpath(dependencyPaths)
-                        .styles(styles)
-                        .typeCache(javaTypeCache)
-                        .logCompilationWarningsAndErrors(rewriteExtension.getLogCompilationWarningsAndErrors())
-                        .build())
-                .map(Supplier::get)
-                .flatMap(kp -> {
-                    view(ctx).setCharset(StandardCharsets.UTF_8); // Kotlin requires UTF-8
-                    return kp.parse(kotlinPaths, baseDir, ctx).onClose(() -> view(ctx).setCharset(null));
-                })
-                .map(it -> it.withMarkers(it.getMarkers().add(javaVersion)));
-    }
 }
@@ -17,12 +17,15 @@ package org.openrewrite.gradle.isolated;
 
 import com.android.build.gradle.api.BaseVariant;
 import com.android.builder.model.SourceProvider;
+import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.openrewrite.gradle.SourceSetClasspaths;
 
 import java.io.File;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static java.util.Collections.emptySet;
 import static java.util.stream.Collectors.toSet;
@@ -34,21 +37,18 @@ class AndroidProjectVariant {
     private final Map<String, Set<Path>> kotlinSourceSets;
     private final Map<String, Set<Path>> resourcesSourceSets;
     private final Set<String> sourceSetNames = new HashSet<>();
-    private final Set<Path> compileClasspath;
-    private final Set<Path> runtimeClasspath;
+    private final Supplier<Set<Path>> classpath;
 
     AndroidProjectVariant(String name,
                           Map<String, Set<Path>> javaSourceSets,
                           Map<String, Set<Path>> kotlinSourceSets,
                           Map<String, Set<Path>> resourcesSourceSets,
-                          Set<Path> compileClasspath,
-                          Set<Path> runtimeClasspath) {
+                          Supplier<Set<Path>> classpath) {
         this.name = name;
         this.javaSourceSets = javaSourceSets;
         this.kotlinSourceSets = kotlinSourceSets;
         this.resourcesSourceSets = resourcesSourceSets;
-        this.compileClasspath = compileClasspath;
-        this.runtimeClasspath = runtimeClasspath;
+        this.classpath = classpath;
 
         sourceSetNames.addAll(javaSourceSets.keySet());
         sourceSetNames.addAll(kotlinSourceSets.keySet());
@@ -75,15 +75,15 @@ class AndroidProjectVariant {
         return resourcesSourceSets.computeIfAbsent(sourceSetName, key -> emptySet());
     }
 
-    Set<Path> getCompileClasspath() {
-        return compileClasspath;
+    /**
+     * The compile and runtime classpath of the variant together, which are resolved when they are first needed and
+     * then shared by the rest of the build.
+     */
+    Set<Path> getClasspath() {
+        return classpath.get();
     }
 
-    Set<Path> getRuntimeClasspath() {
-        return runtimeClasspath;
-    }
-
-    static AndroidProjectVariant fromBaseVariant(BaseVariant baseVariant) {
+    static AndroidProjectVariant fromBaseVariant(Project project, BaseVariant baseVariant) {
         Map<String, Set<Path>> javaSourceSets = new HashMap<>();
         Map<String, Set<Path>> kotlinSourceSets = new HashMap<>();
         Map<String, Set<Path>> resourceSourceSets = new HashMap<>();
@@ -98,39 +98,32 @@ class AndroidProjectVariant {
             addSourceSets(resourceSourceSets, sourceProvider.getName(), sourceProvider.getResourcesDirectories());
         }
 
-        Set<Path> compileClasspath = new LinkedHashSet<>();
-        try {
-            baseVariant.getCompileClasspath(null)
-                    .getFiles()
-                    .stream()
-                    .map(File::toPath)
-                    .forEach(compileClasspath::add);
-        } catch (RuntimeException e) {
-            // Calling BaseVariant#getCompileClasspath will throw an exception when run with
-            // an AGP version less than 8.0 and a gradle version less than 8, when trying to
-            // create a task using org.gradle.api.tasks.incremental.IncrementalTaskInputs which
-            // was removed in gradle 8.
-            logger.warn("Unable to determine compile class path", e);
-        }
-
-        Set<Path> runtimeClasspath = new LinkedHashSet<>();
+        Supplier<Set<Path>> classpath = () -> SourceSetClasspaths.of(project).get(project, "android " + baseVariant.getName(), () -> {
+            List<File> files = new ArrayList<>();
+            try {
+                files.addAll(baseVariant.getCompileClasspath(null).getFiles());
+            } catch (RuntimeException e) {
+                // Calling BaseVariant#getCompileClasspath will throw an exception when run with
+                // an AGP version less than 8.0 and a gradle version less than 8, when trying to
+                // create a task using org.gradle.api.tasks.incremental.IncrementalTaskInputs which
+                // was removed in gradle 8.
+                logger.warn("Unable to determine compile class path", e);
+            }
 
-        try {
-            baseVariant.getRuntimeConfiguration().getFiles()
-                    .stream()
-                    .map(File::toPath)
-                    .forEach(runtimeClasspath::add);
-        } catch (Exception e) {
-            logger.warn("Unable to determine runtime class path", e);
-        }
+            try {
+                files.addAll(baseVariant.getRuntimeConfiguration().getFiles());
+            } catch (Exception e) {
+                logger.warn("Unable to determine runtime class path", e);
+            }
+            return files;
+        });
 
         return new AndroidProjectVariant(
                 baseVariant.getName(),
                 javaSourceSets,
                 kotlinSourceSets,
                 resourceSourceSets,
-                compileClasspath,
-                runtimeClasspath);
+                classpath);
     }
 
     private static void addSourceSets(Map<String, Set<Path>> sourceSets, String name, Collection<File> directories) {
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.openrewrite.jgit.dircache.DirCacheIterator;
+import org.openrewrite.jgit.lib.Constants;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.revwalk.RevCommit;
+import org.openrewrite.jgit.revwalk.RevWalk;
+import org.openrewrite.jgit.revwalk.filter.RevFilter;
+import org.openrewrite.jgit.treewalk.FileTreeIterator;
+import org.openrewrite.jgit.treewalk.TreeWalk;
+import org.openrewrite.jgit.treewalk.filter.AndTreeFilter;
+import org.openrewrite.jgit.treewalk.filter.NotIgnoredFilter;
+import org.openrewrite.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The files of a git repository that were changed since a ref, like the files that a pull request touches.
+ */
+final class ChangedFiles {
+    private static final int INDEX = 1;
+    private static final int WORKING_TREE = 2;
+
+    private ChangedFiles() {
+    }
+
+    /**
+     * @param ref A branch, tag or commit, such as {@code origin/main}.
+     * @return The absolute paths of the files that differ between the merge base of {@code ref} and {@code HEAD} on one
+     * side and the index or working tree on the other side, including files that are not yet committed but not
+     * those that are ignored. Deleted files are included as well.
+     * @throws IllegalArgumentException When {@code ref} or {@code HEAD} can not be resolved, or they have no common
+     *                                  history.
+     */
+    static Set<Path> since(Repository repository, String ref) throws IOException {
+        ObjectId since = repository.resolve(ref);
+        if (since == null) {
+            throw new IllegalArgumentException("Unable to resolve " + ref + " in " + repository.getWorkTree());
+        }
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            throw new IllegalArgumentException("Unable to resolve HEAD in " + repository.getWorkTree());
+        }
+
+        RevCommit mergeBase;
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            revWalk.setRevFilter(RevFilter.MERGE_BASE);
+            revWalk.markStart(revWalk.parseCommit(since));
+            revWalk.markStart(revWalk.parseCommit(head));
+            mergeBase = revWalk.next();
+            if (mergeBase == null) {
+                throw new IllegalArgumentException(ref + " and HEAD have no common history in " + repository.getWorkTree());
+            }
+            mergeBase = revWalk.parseCommit(mergeBase);
+        }
+
+        Path workTree = repository.getWorkTree().toPath().toAbsolutePath().normalize();
+        Set<Path> changed = new HashSet<>();
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.setRecursive(true);
+            treeWalk.addTree(mergeBase.getTree());
+            treeWalk.addTree(new DirCacheIterator(repository.readDirCache()));
+            FileTreeIterator workingTree = new FileTreeIterator(repository);
+            treeWalk.addTree(workingTree);
+            // Files that are clean according to the index are not hashed again
+            workingTree.setDirCacheIterator(treeWalk, INDEX);
+            treeWalk.setFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, new NotIgnoredFilter(WORKING_TREE)));
+            while (treeWalk.next()) {
+                changed.add(workTree.resolve(treeWalk.getPathString()).normalize());
+            }
+        }
+        return changed;
+    }
+}
@@ -43,44 +43,28 @@ import org.openrewrite.*;
 import org.openrewrite.binary.Binary;
 import org.openrewrite.config.Environment;
 import org.openrewrite.config.RecipeDescriptor;
-import org.openrewrite.config.YamlResourceLoader;
-import org.openrewrite.gradle.GradleParser;
 import org.openrewrite.gradle.GradleProjectParser;
 import org.openrewrite.gradle.RewriteExtension;
 import org.openrewrite.gradle.SanitizedMarkerPrinter;
+import org.openrewrite.gradle.SourceSetClasspaths;
+import org.openrewrite.gradle.WorkerPlanWriter;
 import org.openrewrite.gradle.marker.GradleProject;
 import org.openrewrite.gradle.marker.GradleProjectBuilder;
 import org.openrewrite.gradle.marker.GradleSettings;
 import org.openrewrite.gradle.marker.GradleSettingsBuilder;
-import org.openrewrite.groovy.GroovyParser;
 import org.openrewrite.internal.GitIgnore;
-import org.openrewrite.internal.InMemoryLargeSourceSet;
-import org.openrewrite.internal.ListUtils;
 import org.openrewrite.internal.StringUtils;
-import org.openrewrite.java.JavaParser;
 import org.openrewrite.java.internal.JavaTypeCache;
-import org.openrewrite.java.marker.JavaProject;
 import org.openrewrite.java.marker.JavaSourceSet;
 import org.openrewrite.java.marker.JavaVersion;
-import org.openrewrite.java.style.CheckstyleConfigLoader;
-import org.openrewrite.java.tree.J;
 import org.openrewrite.jgit.api.Git;
 import org.openrewrite.jgit.dircache.DirCache;
-import org.openrewrite.jgit.lib.ObjectId;
 import org.openrewrite.jgit.lib.Repository;
-import org.openrewrite.jgit.revwalk.RevCommit;
-import org.openrewrite.jgit.revwalk.RevWalk;
-import org.openrewrite.jgit.treewalk.TreeWalk;
-import org.openrewrite.jgit.treewalk.filter.PathFilter;
-import org.openrewrite.kotlin.KotlinParser;
-import org.openrewrite.kotlin.tree.K;
 import org.openrewrite.marker.*;
 import org.openrewrite.marker.ci.BuildEnvironment;
-import org.openrewrite.maven.MavenExecutionContextView;
 import org.openrewrite.maven.cache.InMemoryMavenPomCache;
 import org.openrewrite.maven.cache.MavenPomCache;
 import org.openrewrite.polyglot.*;
-import org.openrewrite.properties.PropertiesParser;
 import org.openrewrite.quark.Quark;
 import org.openrewrite.quark.QuarkParser;
 import org.openrewrite.remote.Remote;
@@ -88,7 +72,6 @@ import org.openrewrite.style.NamedStyles;
 import org.openrewrite.text.PlainTextParser;
 import org.openrewrite.tree.ParsingEventListener;
 import org.openrewrite.tree.ParsingExecutionContextView;
-import org.openrewrite.xml.tree.Xml;
 
 import java.io.*;
 import java.lang.reflect.Method;
@@ -97,13 +80,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
-import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 import static java.util.Collections.*;
@@ -112,32 +90,34 @@ import static org.openrewrite.PathUtils.separatorsToUnix;
 import static org.openrewrite.Tree.randomId;
 import static org.openrewrite.tree.ParsingExecutionContextView.view;
 
-public class DefaultProjectParser implements GradleProjectParser {
+public class DefaultProjectParser implements GradleProjectParser, WorkerPlanWriter {
     private static final String LOG_INDENT_INCREMENT = "    ";
 
     private static final Logger logger = Logging.getLogger(DefaultProjectParser.class);
     private static @Nullable MavenPomCache pomCache;
-    private final AtomicBoolean firstWarningLogged = new AtomicBoolean(false);
     protected final Path baseDir;
     protected final RewriteExtension extension;
     protected final Project project;
     private final List<Marker> sharedProvenance;
+    private final MarkerInterner markerInterner = new MarkerInterner();
+
+    // The planned files of the calls to parseNonProjectResources that are in progress, by their alreadyParsed set
+    private final Map<Set<Path>, List<Path>> plannedNonProjectResources = synchronizedMap(new IdentityHashMap<>());
 
     @Nullable
     protected final Repository repository;
 
     @Nullable
-    private DirCache dirCache;
-    private boolean dirCacheInitialized;
+    private RewriteEngine engine;
 
     @Nullable
-    private List<NamedStyles> styles;
+    private AndroidProjectParser androidProjectParser;
 
     @Nullable
-    private Environment environment;
+    private List<Path> gradleParserClasspath;
 
     @Nullable
-    private AndroidProjectParser androidProjectParser;
+    private List<Path> gradleParserSettingsClasspath;
 
     public DefaultProjectParser(Project project, RewriteExtension extension) {
         this.baseDir = repositoryRoot(project);
@@ -218,13 +198,94 @@ public class DefaultProjectParser implements GradleProjectParser {
         return maybeProp;
     }
 
+    /**
+     * The classpath to parse the Java sources of {@code sourceSet} with. When they may be parsed in batches, the classes
+     * the source set was compiled to are added, so that the types declared in other batches can be resolved from them.
+     */
+    private List<Path> javaClasspath(Project subproject, SourceSet sourceSet, List<Path> dependencyPaths, int sourceCount) {
+        int batchSize = extension.getJavaParseBatchSize();
+        if (batchSize == 0) {
+            return dependencyPaths;
+        }
+        List<Path> classesDirs = sourceSet.getOutput().getClassesDirs().getFiles().stream()
+                .map(File::toPath)
+                .collect(toList());
+        boolean split = batchSize < 0 ? sourceCount > ParseBatches.MIN_AUTO_BATCH_SIZE : sourceCount > batchSize;
+        if (split && classesDirs.stream().noneMatch(DefaultProjectParser::containsFiles)) {
+            logger.warn("The {} Java sources of {}/{} may be parsed in batches, but the source set has not been compiled. " +
+                        "Types declared in other batches will be missing, unless it is compiled first or " +
+                        "javaParseBatchSize is set to 0.",
+                    sourceCount, subproject.getPath(), sourceSet.getName());
+        }
+        return Stream.concat(dependencyPaths.stream(), classesDirs.stream()).collect(toList());
+    }
+
+    private static boolean containsFiles(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.anyMatch(Files::isRegularFile);
+        } catch (IOException | UncheckedIOException e) {
+            return false;
+        }
+    }
+
     private static boolean isAndroidProject(Project project) {
         return project.hasProperty("android");
     }
 
+    private Path fileIndexFile() {
+        return project.getRootDir().toPath().resolve(".gradle/rewrite/file-index.bin");
+    }
+
+    private Path environmentIndexFile() {
+        return project.getRootDir().toPath().resolve(".gradle/rewrite/environment-index.txt");
+    }
+
+    /**
+     * The engine that parses the planned files and runs the active recipes on them, created with the settings of the
+     * extension and the active recipes and styles at the time of first use.
+     */
+    private synchronized RewriteEngine engine() {
+        if (engine == null) {
+            engine = new RewriteEngine(baseDir, settings(), sharedProvenance, repository, this::createTypeCache) {
+                @Override
+                protected SourceFileStream parseNonProjectResources(ParseManifest.Project planned,
+                                                                    Set<Path> alreadyParsed,
+                                                                    List<Path> resources,
+                                                                    ExecutionContext ctx) {
+                    return DefaultProjectParser.this.parseNonProjectResources(project.project(planned.getPath()),
+                            alreadyParsed, resources, ctx);
+                }
+            };
+        }
+        return engine;
+    }
+
+    private RewriteSettings settings() {
+        Path buildDir = project.getLayout().getBuildDirectory().get().getAsFile().toPath();
+        return new RewriteSettings(
+                extension,
+                getActiveRecipes(),
+                getActiveStyles(),
+                project.getProperties(),
+                extension.isExportDatatables() ? buildDir.resolve("reports/rewrite/datatables") : null,
+                extension.getNoChangeMemo() ? noChangeMemoFile() : null,
+                fileIndexFile(),
+                environmentIndexFile(),
+                lstCacheDirectory(),
+                spillDirectory(),
+                compactResultsDirectory());
+    }
+
+    private @Nullable DirCache dirCache() {
+        return engine().dirCache();
+    }
+
     private AndroidProjectParser getAndroidProjectParser() {
         if (androidProjectParser == null) {
-            androidProjectParser = new AndroidProjectParser(baseDir, repository, extension, getStyles());
+            androidProjectParser = new AndroidProjectParser(baseDir);
         }
         return androidProjectParser;
     }
@@ -249,7 +310,7 @@ public class DefaultProjectParser implements GradleProjectParser {
 
     @Override
     public List<String> getAvailableStyles() {
-        return environment().listStyles().stream().map(NamedStyles::getName).collect(toList());
+        return engine().environment().listStyles().stream().map(NamedStyles::getName).collect(toList());
     }
 
     @Override
@@ -289,7 +350,7 @@ public class DefaultProjectParser implements GradleProjectParser {
     }
 
     public Collection<RecipeDescriptor> listRecipeDescriptors() {
-        return environment().listRecipeDescriptors();
+        return engine().environment(null).listRecipeDescriptors();
     }
 
     private static String indent(int indent, CharSequence content) {
@@ -305,32 +366,79 @@ public class DefaultProjectParser implements GradleProjectParser {
         return buffer;
     }
 
+    /**
+     * Every file that is parsed, as planned by the same walk that plans the parse, so that build scripts, properties
+     * and other files outside of source sets are inputs as well.
+     */
     @Override
     public Collection<Path> listSources() {
+        ParseManifest.Builder manifest = ParseManifest.builder(new MarkerInterner());
+        if (project == project.getRootProject()) {
+            for (Project subProject : project.getSubprojects()) {
+                plan(subProject, manifest, false);
+            }
+        }
+        plan(project, manifest, false);
         // Use a sorted collection so that gradle input detection isn't thrown off by ordering
-        Set<Path> result = new TreeSet<>(omniParser(emptySet(), project).acceptedPaths(
-                baseDir,
-                project.getProjectDir().toPath()));
-        if (isAndroidProject(project)) {
-            getAndroidProjectParser().findSourceDirectories(project)
-                    .stream()
-                    .map(Path::toAbsolutePath)
-                    .map(Path::normalize)
-                    .forEach(result::add);
-        } else {
-            for (SourceSet sourceSet : findGradleSourceSets(project)) {
-                sourceSet.getAllSource()
-                        .getFiles()
-                        .stream()
+        Set<Path> result = new TreeSet<>();
+        for (Path path : manifest.build().getClaimedPaths()) {
+            result.add(path.toAbsolutePath().normalize());
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<Path> listClasspath() {
+        Set<Path> result = new TreeSet<>();
+        for (Project subproject : parsedProjects()) {
+            if (isAndroidProject(subproject)) {
+                continue;
+            }
+            for (SourceSet sourceSet : findGradleSourceSets(subproject)) {
+                // The classes compiled from the source set itself follow from its sources
+                Set<Path> output = sourceSet.getOutput().getFiles().stream()
                         .map(File::toPath)
                         .map(Path::toAbsolutePath)
                         .map(Path::normalize)
-                        .forEach(result::add);
+                        .collect(toSet());
+                try {
+                    classpath(subproject, sourceSet).stream()
+                            .filter(path -> !output.contains(path))
+                            .forEach(result::add);
+                } catch (Exception e) {
+                    logger.warn("Unable to resolve classpath for sourceSet {}:{}", subproject.getPath(), sourceSet.getName(), e);
+                }
             }
         }
         return result;
     }
 
+    /**
+     * The runtime and compile classpath of {@code sourceSet} together, which are resolved once per build.
+     */
+    private static Set<Path> classpath(Project subproject, SourceSet sourceSet) {
+        return SourceSetClasspaths.of(subproject).get(subproject, sourceSet.getName(), () -> {
+            // The compilation classpath doesn't include the transitive dependencies
+            // The runtime classpath doesn't include compile only dependencies, e.g.: lombok, servlet-api
+            // So we use both together to get comprehensive type information
+            List<File> files = new ArrayList<>(sourceSet.getRuntimeClasspath().getFiles());
+            files.addAll(sourceSet.getCompileClasspath().getFiles());
+            return files;
+        });
+    }
+
+    /**
+     * The projects whose sources are parsed, which are all projects of the build when rewrite runs on the root project.
+     */
+    private List<Project> parsedProjects() {
+        List<Project> projects = new ArrayList<>();
+        if (project == project.getRootProject()) {
+            projects.addAll(project.getSubprojects());
+        }
+        projects.add(project);
+        return projects;
+    }
+
     @Override
     public void dryRun(Path reportPath, boolean dumpGcActivity, Consumer<Throwable> onError) {
         ParsingExecutionContextView ctx = view(new InMemoryExecutionContext(onError));
@@ -349,18 +457,22 @@ public class DefaultProjectParser implements GradleProjectParser {
                         ctx.setParsingListener(new ParsingEventListener() {
                             @Override
                             public void parsed(Parser.Input input, SourceFile sourceFile) {
+                                Gauge g1Used = meterRegistry.find("jvm.memory.used").tag("id", "G1 Old Gen").gauge();
+                                String line = input.getPath() + "," +
+                                              meterRegistry.get("jvm.gc.overhead").gauge().value() + "," +
+                                              (g1Used == null ? "" : Double.toString(g1Used.value())) + "\n";
+                                // Source sets may be parsed concurrently, so each line is written at once
                                 try {
-                                    logWriter.write(input.getPath() + ",");
-                                    logWriter.write(meterRegistry.get("jvm.gc.overhead").gauge().value() + ",");
-                                    Gauge g1Used = meterRegistry.find("jvm.memory.used").tag("id", "G1 Old Gen").gauge();
-                                    logWriter.write((g1Used == null ? "" : Double.toString(g1Used.value())) + "\n");
+                                    synchronized (logWriter) {
+                                        logWriter.write(line);
+                                    }
                                 } catch (IOException e) {
                                     logger.error("Unable to write rewrite GC log");
                                     throw new UncheckedIOException(e);
                                 }
                             }
                         });
-                        dryRun(reportPath, listResults(ctx));
+                        dryRun(reportPath, listResults(ctx, true));
                         logWriter.flush();
                         logger.lifecycle("Wrote rewrite GC log: {}", rewriteGcLog.getAbsolutePath());
                     } catch (IOException e) {
@@ -370,78 +482,68 @@ public class DefaultProjectParser implements GradleProjectParser {
                 }
             }
         } else {
-            dryRun(reportPath, listResults(ctx));
+            dryRun(reportPath, listResults(ctx, true));
         }
     }
 
     public void dryRun(Path reportPath, ResultsContainer results) {
         try {
-            RuntimeException firstException = results.getFirstException();
-            if (firstException != null) {
-                logger.error("The recipe produced an error. Please report this to the recipe author.");
-                throw firstException;
-            }
+            writeDryRunReport(reportPath, results,
+                    project.getExtensions().getByType(RewriteExtension.class).getFailOnDryRunResults(),
+                    this::logRecipesThatMadeChanges);
+        } finally {
+            results.close();
+            shutdownRewrite();
+        }
+    }
 
-            if (results.isNotEmpty()) {
-                Duration estimateTimeSaved = Duration.ZERO;
-                for (Result result : results.generated) {
-                    assert result.getAfter() != null;
-                    logger.warn("These recipes would generate new file {}:", result.getAfter().getSourcePath());
-                    logRecipesThatMadeChanges(result);
-                    estimateTimeSaved = estimateTimeSavedSum(result, estimateTimeSaved);
-                }
-                for (Result result : results.deleted) {
-                    assert result.getBefore() != null;
-                    logger.warn("These recipes would delete file {}:", result.getBefore().getSourcePath());
-                    logRecipesThatMadeChanges(result);
-                    estimateTimeSaved = estimateTimeSavedSum(result, estimateTimeSaved);
-                }
-                for (Result result : results.moved) {
-                    assert result.getBefore() != null;
-                    assert result.getAfter() != null;
-                    logger.warn("These recipes would move file from {} to {}:", result.getBefore().getSourcePath(), result.getAfter().getSourcePath());
-                    logRecipesThatMadeChanges(result);
-                    estimateTimeSaved = estimateTimeSavedSum(result, estimateTimeSaved);
-                }
-                for (Result result : results.refactoredInPlace) {
-                    assert result.getBefore() != null;
-                    logger.warn("These recipes would make changes to {}:", result.getBefore().getSourcePath());
-                    logRecipesThatMadeChanges(result);
-                    estimateTimeSaved = estimateTimeSavedSum(result, estimateTimeSaved);
-                }
+    static void writeDryRunReport(Path reportPath,
+                                  ResultsContainer results,
+                                  boolean failOnDryRunResults,
+                                  Consumer<ResultSummary> logRecipes) {
+        RuntimeException firstException = results.getFirstException();
+        if (firstException != null) {
+            logger.error("The recipe produced an error. Please report this to the recipe author.");
+            throw firstException;
+        }
 
-                //noinspection ResultOfMethodCallIgnored
-                reportPath.getParent().toFile().mkdirs();
-                try (BufferedWriter writer = Files.newBufferedWriter(reportPath)) {
-                    Stream.concat(
-                                    Stream.concat(results.generated.stream(), results.deleted.stream()),
-                                    Stream.concat(results.moved.stream(), results.refactoredInPlace.stream()))
-                            // cannot meaningfully display diffs of these things. Console output notes that they were touched by a recipe.
-                            .filter(it -> !(it.getAfter() instanceof Binary) && !(it.getAfter() instanceof Quark))
-                            .map(Result::diff)
-                            .forEach(diff -> {
-                                try {
-                                    writer.write(diff + "\n");
-                                } catch (IOException e) {
-                                    throw new RuntimeException(e);
-                                }
-                            });
-                } catch (Exception e) {
-                    throw new RuntimeException("Unable to generate rewrite result file.", e);
+        if (results.isNotEmpty()) {
+            Duration estimateTimeSaved = Duration.ZERO;
+            for (ResultSummary result : results.getSummaries()) {
+                switch (result.getChange()) {
+                    case GENERATED:
+                        logger.warn("These recipes would generate new file {}:", result.getAfter());
+                        break;
+                    case DELETED:
+                        logger.warn("These recipes would delete file {}:", result.getBefore());
+                        break;
+                    case MOVED:
+                        logger.warn("These recipes would move file from {} to {}:", result.getBefore(), result.getAfter());
+                        break;
+                    default:
+                        logger.warn("These recipes would make changes to {}:", result.getBefore());
                 }
-                logger.warn("Report available:");
-                logger.warn("    {}", reportPath.normalize());
-                logger.warn("Estimate time saved: {}", formatDuration(estimateTimeSaved));
-                logger.warn("Run 'gradle rewriteRun' to apply the recipes.");
+                logRecipes.accept(result);
+                estimateTimeSaved = estimateTimeSavedSum(result, estimateTimeSaved);
+            }
 
-                if (project.getExtensions().getByType(RewriteExtension.class).getFailOnDryRunResults()) {
-                    throw new RuntimeException("Applying recipes would make changes. See logs for more details.");
-                }
-            } else {
-                logger.lifecycle("Applying recipes would make no changes. No report generated.");
+            //noinspection ResultOfMethodCallIgnored
+            reportPath.getParent().toFile().mkdirs();
+            try {
+                results.writeDiffs(reportPath);
+            } catch (Exception e) {
+                throw new RuntimeException("Unable to generate rewrite result file.", e);
             }
-        } finally {
-            shutdownRewrite();
+            logger.warn("Report available:");
+            logger.warn("    {}", reportPath.normalize());
+            logger.warn("Estimate time saved: {}", formatDuration(estimateTimeSaved));
+            logger.warn("Run 'gradle rewriteRun' to apply the recipes.");
+
+            if (failOnDryRunResults) {
+                throw new RuntimeException("Applying recipes would make changes. See logs for more details.");
+            }
+        } else {
+            logger.lifecycle("Applying recipes would make no changes. No report generated.");
         }
     }
 
@@ -456,147 +558,164 @@ public class DefaultProjectParser implements GradleProjectParser {
     @Override
     public void run(Consumer<Throwable> onError) {
         ExecutionContext ctx = new InMemoryExecutionContext(onError);
-        run(listResults(ctx), ctx);
+        run(listResults(ctx, false), ctx);
     }
 
     public void run(ResultsContainer results, ExecutionContext ctx) {
         try {
-            if (results.isNotEmpty()) {
-                Duration estimateTimeSaved = Duration.ZERO;
-                RuntimeException firstException = results.getFirstException();
-                if (firstException != null) {
-                    logger.error("The recipe produced an error. Please report this to the recipe author.");
-                    throw firstException;
-                }
+            applyResults(results, ctx, this::logRecipesThatMadeChanges);
+        } finally {
+            results.close();
+            shutdownRewrite();
+        }
+    }
 
-                for (Result result : results.generated) {
-                    assert result.getAfter() != null;
-                    logger.lifecycle("Generated new file " +
-                                     result.getAfter().getSourcePath() +
-                                     " by:");
-                    logRecipesThatMadeChanges(result);
-                    estimateTimeSaved = estimateTimeSavedSum(result, estimateTimeSaved);
-                }
-                for (Result result : results.deleted) {
-                    assert result.getBefore() != null;
-                    logger.lifecycle("Deleted file " +
-                                     result.getBefore().getSourcePath() +
-                                     " by:");
-                    logRecipesThatMadeChanges(result);
-                    estimateTimeSaved = estimateTimeSavedSum(result, estimateTimeSaved);
-                }
-                for (Result result : results.moved) {
-                    assert result.getAfter() != null;
-                    assert result.getBefore() != null;
-                    logger.lifecycle("File has been moved from " +
-                                     result.getBefore().getSourcePath() + " to " +
-                                     result.getAfter().getSourcePath() + " by:");
-                    logRecipesThatMadeChanges(result);
-                    estimateTimeSaved = estimateTimeSavedSum(result, estimateTimeSaved);
-                }
-                for (Result result : results.refactoredInPlace) {
-                    assert result.getBefore() != null;
-                    logger.lifecycle("Changes have been made to " +
-                                     result.getBefore().getSourcePath() +
-                                     " by:");
-                    logRecipesThatMadeChanges(result);
-                    estimateTimeSaved = estimateTimeSavedSum(result, estimateTimeSaved);
+    static void applyResults(ResultsContainer results, ExecutionContext ctx, Consumer<ResultSummary> logRecipes) {
+        if (results.isNotEmpty()) {
+            Duration estimateTimeSaved = Duration.ZERO;
+            RuntimeException firstException = results.getFirstException();
+            if (firstException != null) {
+                logger.error("The recipe produced an error. Please report this to the recipe author.");
+                throw firstException;
+            }
+
+            List<ResultSummary> summaries = results.getSummaries();
+            for (ResultSummary result : summaries) {
+                switch (result.getChange()) {
+                    case GENERATED:
+                        logger.lifecycle("Generated new file " +
+                                         result.getAfter() +
+                                         " by:");
+                        break;
+                    case DELETED:
+                        logger.lifecycle("Deleted file " +
+                                         result.getBefore() +
+                                         " by:");
+                        break;
+                    case MOVED:
+                        logger.lifecycle("File has been moved from " +
+                                         result.getBefore() + " to " +
+                                         result.getAfter() + " by:");
+                        break;
+                    default:
+                        logger.lifecycle("Changes have been made to " +
+                                         result.getBefore() +
+                                         " by:");
                 }
+                logRecipes.accept(result);
+                estimateTimeSaved = estimateTimeSavedSum(result, estimateTimeSaved);
+            }
 
-                logger.lifecycle("Please review and commit the results.");
+            logger.lifecycle("Please review and commit the results.");
 
-                logger.lifecycle("Estimate time saved: {}", formatDuration(estimateTimeSaved));
+            logger.lifecycle("Estimate time saved: {}", formatDuration(estimateTimeSaved));
 
-                try {
-                    for (Result result : results.generated) {
-                        writeAfter(results.getProjectRoot(), result, ctx);
-                    }
-                    for (Result result : results.deleted) {
-                        assert result.getBefore() != null;
-                        Path originalLocation = results.getProjectRoot().resolve(result.getBefore().getSourcePath());
-                        File originalFile = originalLocation.toFile();
-                        if (originalFile.exists()) {
-                            boolean deleteSucceeded = originalFile.delete();
-                            if (!deleteSucceeded) {
-                                throw new IOException("Unable to delete file " + originalLocation.toAbsolutePath());
+            try {
+                for (ResultSummary result : summaries) {
+                    switch (result.getChange()) {
+                        case DELETED: {
+                            assert result.getBefore() != null;
+                            Path originalLocation = results.getProjectRoot().resolve(result.getBefore());
+                            File originalFile = originalLocation.toFile();
+                            if (originalFile.exists()) {
+                                boolean deleteSucceeded = originalFile.delete();
+                                if (!deleteSucceeded) {
+                                    throw new IOException("Unable to delete file " + originalLocation.toAbsolutePath());
+                                }
                             }
+                            break;
                         }
-                    }
-                    for (Result result : results.moved) {
-                        // Should we try to use git to move the file first, and only if that fails fall back to this?
-                        assert result.getBefore() != null;
-                        Path originalLocation = results.getProjectRoot().resolve(result.getBefore().getSourcePath());
-                        File originalParentDir = originalLocation.toFile().getParentFile();
-
-                        assert result.getAfter() != null;
-                        // Ensure directories exist in case something was moved into a hitherto nonexistent package
-                        Path afterLocation = results.getProjectRoot().resolve(result.getAfter().getSourcePath());
-                        File afterParentDir = afterLocation.toFile().getParentFile();
-                        // Rename the directory if its name case has been changed, e.g. camel case to lower case.
-                        if (afterParentDir.exists() &&
-                            afterParentDir.getAbsolutePath().equalsIgnoreCase(originalParentDir.getAbsolutePath()) &&
-                            !afterParentDir.getAbsolutePath().equals(originalParentDir.getAbsolutePath())) {
-                            if (!originalParentDir.renameTo(afterParentDir)) {
-                                throw new RuntimeException("Unable to rename directory from " + originalParentDir.getAbsolutePath() + " To: " + afterParentDir.getAbsolutePath());
+                        case MOVED: {
+                            // Should we try to use git to move the file first, and only if that fails fall back to this?
+                            assert result.getBefore() != null;
+                            Path originalLocation = results.getProjectRoot().resolve(result.getBefore());
+                            File originalParentDir = originalLocation.toFile().getParentFile();
+
+                            assert result.getAfter() != null;
+                            // Ensure directories exist in case something was moved into a hitherto nonexistent package
+                            Path afterLocation = results.getProjectRoot().resolve(result.getAfter());
+                            File afterParentDir = afterLocation.toFile().getParentFile();
+                            // Rename the directory if its name case has been changed, e.g. camel case to lower case.
+                            if (afterParentDir.exists() &&
+                                afterParentDir.getAbsolutePath().equalsIgnoreCase(originalParentDir.getAbsolutePath()) &&
+                                !afterParentDir.getAbsolutePath().equals(originalParentDir.getAbsolutePath())) {
+                                if (!originalParentDir.renameTo(afterParentDir)) {
+                                    throw new RuntimeException("Unable to rename directory from " + originalParentDir.getAbsolutePath() + " To: " + afterParentDir.getAbsolutePath());
+                                }
+                            } else if (!afterParentDir.exists() && !afterParentDir.mkdirs()) {
+                                throw new RuntimeException("Unable to create directory " + afterParentDir.getAbsolutePath());
+                            }
+                            if (result.isQuark()) {
+                                // We don't know the contents of a Quark, but we can move it
+                                Files.move(originalLocation, afterLocation);
+                            } else {
+                                // On Mac this can return "false" even when the file was deleted, so skip the check
+                                //noinspection ResultOfMethodCallIgnored
+                                originalLocation.toFile().delete();
+                                writeAfter(results.getProjectRoot(), result, ctx);
                             }
-                        } else if (!afterParentDir.exists() && !afterParentDir.mkdirs()) {
-                            throw new RuntimeException("Unable to create directory " + afterParentDir.getAbsolutePath());
+                            break;
                         }
-                        if (result.getAfter() instanceof Quark) {
-                            // We don't know the contents of a Quark, but we can move it
-                            Files.move(originalLocation, results.getProjectRoot().resolve(result.getAfter().getSourcePath()));
-                        } else {
-                            // On Mac this can return "false" even when the file was deleted, so skip the check
-                            //noinspection ResultOfMethodCallIgnored
-                            originalLocation.toFile().delete();
+                        default:
                             writeAfter(results.getProjectRoot(), result, ctx);
-                        }
-                    }
-
-                    for (Result result : results.refactoredInPlace) {
-                        writeAfter(results.getProjectRoot(), result, ctx);
                     }
-                    List<Path> emptyDirectories = results.newlyEmptyDirectories();
-                    if (!emptyDirectories.isEmpty()) {
-                        logger.quiet("Removing {} newly empty directories:",
-                                emptyDirectories.size());
-                        for (Path emptyDirectory : emptyDirectories) {
-                            logger.quiet("  {}", emptyDirectory);
-                            Files.delete(emptyDirectory);
-                        }
+                }
+                List<Path> emptyDirectories = results.newlyEmptyDirectories();
+                if (!emptyDirectories.isEmpty()) {
+                    logger.quiet("Removing {} newly empty directories:",
+                            emptyDirectories.size());
+                    for (Path emptyDirectory : emptyDirectories) {
+                        logger.quiet("  {}", emptyDirectory);
+                        Files.delete(emptyDirectory);
                     }
-                } catch (IOException e) {
-                    throw new UncheckedIOException("Unable to rewrite source files", e);
                 }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to rewrite source files", e);
             }
-        } finally {
-            shutdownRewrite();
         }
     }
 
-    private static Duration estimateTimeSavedSum(Result result, Duration timeSaving) {
+    private static Duration estimateTimeSavedSum(ResultSummary result, Duration timeSaving) {
         if (null != result.getTimeSavings()) {
             return timeSaving.plus(result.getTimeSavings());
         }
         return timeSaving;
     }
 
-    private static void writeAfter(Path root, Result result, ExecutionContext ctx) {
+    /**
+     * Write the file after a change to its place in {@code root}, moving it there when it was staged by compact
+     * results.
+     */
+    private static void writeAfter(Path root, ResultSummary result, ExecutionContext ctx) throws IOException {
+        Result fullResult = result.getResult();
+        if (fullResult != null) {
+            assert fullResult.getAfter() != null;
+            writeSource(fullResult.getAfter(), root.resolve(fullResult.getAfter().getSourcePath()), ctx);
+            return;
+        }
         assert result.getAfter() != null;
-        Path targetPath = root.resolve(result.getAfter().getSourcePath());
+        Path targetPath = root.resolve(result.getAfter());
+        if (result.getStaged() != null) {
+            Files.createDirectories(targetPath.getParent());
+            Files.move(result.getStaged(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        applyFileAttributes(targetPath.toFile(), result.getFileAttributes());
+    }
+
+    static void writeSource(SourceFile after, Path targetPath, ExecutionContext ctx) {
         File targetFile = targetPath.toFile();
         if (!targetFile.getParentFile().exists()) {
             //noinspection ResultOfMethodCallIgnored
             targetFile.getParentFile().mkdirs();
         }
-        if (result.getAfter() instanceof Binary) {
+        if (after instanceof Binary) {
             try (FileOutputStream sourceFileWriter = new FileOutputStream(targetFile)) {
-                sourceFileWriter.write(((Binary) result.getAfter()).getBytes());
+                sourceFileWriter.write(((Binary) after).getBytes());
             } catch (IOException e) {
                 throw new UncheckedIOException("Unable to rewrite source files", e);
             }
-        } else if (result.getAfter() instanceof Remote) {
-            Remote remote = (Remote) result.getAfter();
+        } else if (after instanceof Remote) {
+            Remote remote = (Remote) after;
             try (FileOutputStream sourceFileWriter = new FileOutputStream(targetFile)) {
                 InputStream source = remote.getInputStream(ctx);
                 byte[] buf = new byte[4096];
@@ -608,18 +727,21 @@ public class DefaultProjectParser implements GradleProjectParser {
                 throw new UncheckedIOException("Unable to rewrite source files", e);
             }
         } else //noinspection StatementWithEmptyBody
-            if (result.getAfter() instanceof Quark) {
+            if (after instanceof Quark) {
                 // Don't attempt to write to a Quark; it has already been logged as change that has been made
             } else {
-                Charset charset = result.getAfter().getCharset() == null ? StandardCharsets.UTF_8 : result.getAfter().getCharset();
+                Charset charset = after.getCharset() == null ? StandardCharsets.UTF_8 : after.getCharset();
                 try (BufferedWriter sourceFileWriter = Files.newBufferedWriter(targetPath, charset)) {
-                    sourceFileWriter.write(result.getAfter().printAll(new PrintOutputCapture<>(0, new SanitizedMarkerPrinter())));
+                    sourceFileWriter.write(after.printAll(new PrintOutputCapture<>(0, new SanitizedMarkerPrinter())));
                 } catch (IOException e) {
                     throw new UncheckedIOException("Unable to rewrite source files", e);
                 }
             }
-        if (result.getAfter().getFileAttributes() != null) {
-            FileAttributes fileAttributes = result.getAfter().getFileAttributes();
+        applyFileAttributes(targetFile, after.getFileAttributes());
+    }
+
+    private static void applyFileAttributes(File targetFile, @Nullable FileAttributes fileAttributes) {
+        if (fileAttributes != null) {
             if (targetFile.canRead() != fileAttributes.isReadable()) {
                 //noinspection ResultOfMethodCallIgnored
                 targetFile.setReadable(fileAttributes.isReadable());
@@ -636,149 +758,130 @@ public class DefaultProjectParser implements GradleProjectParser {
     }
 
     protected Environment environment() {
-        if (environment == null) {
-            Map<Object, Object> gradleProps = project.getProperties().entrySet().stream()
-                    .filter(entry -> entry.getKey() != null && entry.getValue() != null)
-                    .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-            Properties properties = new Properties();
-            properties.putAll(gradleProps);
-
-            Environment.Builder env = Environment.builder();
-            env.scanClassLoader(getClass().getClassLoader());
-
-            File rewriteConfig = extension.getConfigFile();
-            if (rewriteConfig.exists()) {
-                try (FileInputStream is = new FileInputStream(rewriteConfig)) {
-                    YamlResourceLoader resourceLoader = new YamlResourceLoader(is, rewriteConfig.toURI(), properties, getClass().getClassLoader());
-                    env.load(resourceLoader);
-                } catch (IOException e) {
-                    throw new RuntimeException("Unable to load rewrite configuration", e);
-                }
-            } else if (extension.getConfigFileSetDeliberately()) {
-                logger.warn("Rewrite configuration file {} does not exist.", rewriteConfig);
-            }
-
-            environment = env.build();
-        }
-        return environment;
+        return engine().environment();
     }
 
     public Stream<SourceFile> parse(ExecutionContext ctx) {
-        Stream<SourceFile> builder = Stream.of();
-        Set<Path> alreadyParsed = new HashSet<>();
+        return engine().parse(planParse(), ctx);
+    }
+
+    /**
+     * Decide which project, source set and parser each file of the build is parsed by, before any file is parsed.
+     * Projects are planned in the same order in which they are parsed, so a file that is shared by several projects
+     * or source sets belongs to the first one that claims it.
+     */
+    ParseManifest planParse() {
+        ParseManifest.Builder manifest = ParseManifest.builder(markerInterner);
         if (project == project.getRootProject()) {
             for (Project subProject : project.getSubprojects()) {
-                builder = Stream.concat(builder, parse(subProject, alreadyParsed, ctx));
+                plan(subProject, manifest, true);
             }
         }
-        return Stream.concat(builder, parse(project, alreadyParsed, ctx)).map(this::logParseErrors);
+        plan(project, manifest, true);
+        ParseManifest parseManifest = manifest.build();
+        logger.info("Planned {} files to parse", parseManifest.size());
+        engine().indexFiles(parseManifest.getClaimedPaths());
+        logger.info(markerInterner.describeSavings());
+        if (extension.getDumpParseManifest()) {
+            dumpParseManifest(parseManifest);
+        }
+        resolveGradleParserClasspath(parseManifest);
+        return parseManifest;
+    }
+
+    @Override
+    public void writeWorkerPlan(Path planFile) {
+        Set<Path> changedFiles = changedFiles();
+        Recipe wholeBuildRecipe = RecipeScope.findWholeBuildRecipe(environment().activateRecipes(getActiveRecipes()));
+        ParseManifest manifest = RewriteEngine.plan(this::planParse, changedFiles, wholeBuildRecipe);
+        new WorkerPlan(
+                baseDir,
+                project.getGradle().getGradleVersion(),
+                settings(),
+                changedFiles,
+                gradleParserClasspath == null ? emptyList() : gradleParserClasspath,
+                gradleParserSettingsClasspath == null ? emptyList() : gradleParserSettingsClasspath,
+                manifest).write(planFile);
+    }
+
+    private void dumpParseManifest(ParseManifest manifest) {
+        File rewriteBuildDir = project.getLayout().getBuildDirectory().dir("rewrite").get().getAsFile();
+        if (rewriteBuildDir.exists() || rewriteBuildDir.mkdirs()) {
+            File manifestFile = new File(rewriteBuildDir, "parse-manifest.txt");
+            try (BufferedWriter writer = Files.newBufferedWriter(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+                manifest.dump(baseDir, writer);
+            } catch (IOException e) {
+                logger.error("Unable to write rewrite parse manifest", e);
+                throw new UncheckedIOException(e);
+            }
+            logger.lifecycle("Wrote rewrite parse manifest: {}", manifestFile.getAbsolutePath());
+        }
     }
 
     public Stream<SourceFile> parse(Project subproject, Set<Path> alreadyParsed, ExecutionContext ctx) {
-        String cliPort = System.getenv("MODERNE_CLI_PORT");
-        try (ProgressBar progressBar = StringUtils.isBlank(cliPort) ? new NoopProgressBar() :
-                new RemoteProgressBarSender(Integer.parseInt(cliPort))) {
-            SourceFileStream sourceFileStream = SourceFileStream.build(
-                    subproject.getPath(),
-                    projectName -> progressBar.intermediateResult(":" + projectName));
+        ParseManifest.Builder manifest = ParseManifest.builder(alreadyParsed, markerInterner);
+        plan(subproject, manifest, true);
+        ParseManifest parseManifest = manifest.build();
+        logger.debug(markerInterner.describeSavings());
+        alreadyParsed.addAll(parseManifest.getClaimedPaths());
+        engine().indexFiles(parseManifest.getClaimedPaths());
+        resolveGradleParserClasspath(parseManifest);
+        ParseManifest.Project planned = parseManifest.getProject(subproject.getPath());
+        return planned == null ? Stream.empty() : engine().parse(planned, parseManifest, ctx);
+    }
 
-            Collection<PathMatcher> exclusions = extension.getExclusions().stream()
-                    .map(pattern -> subproject.getProjectDir().toPath().getFileSystem().getPathMatcher("glob:" + pattern))
-                    .collect(toList());
-            if (isExcluded(repository, dirCache(), exclusions, baseDir.relativize(subproject.getProjectDir().toPath()))) {
+    /**
+     * @param parsing Whether the files are planned to be parsed, in which case the progress of planning is logged,
+     *                rather than only listed as the inputs of a task.
+     */
+    private void plan(Project subproject, ParseManifest.Builder manifest, boolean parsing) {
+        Collection<PathMatcher> exclusions = projectExclusions(subproject);
+        if (isExcluded(repository, dirCache(), exclusions, baseDir.relativize(subproject.getProjectDir().toPath()))) {
+            if (parsing) {
                 logger.lifecycle("Skipping project {} because it is excluded", subproject.getPath());
-                return Stream.empty();
             }
+            return;
+        }
 
+        manifest.project(plannedProject(subproject));
+        if (parsing) {
             logger.lifecycle("Scanning sources in project {}", subproject.getPath());
-            List<NamedStyles> styles = getStyles();
+            List<NamedStyles> styles = engine().getStyles();
             logger.lifecycle("Using active styles {}", styles.stream().map(NamedStyles::getName).collect(toList()));
+        }
 
-            if (subproject.getPlugins().hasPlugin("org.jetbrains.kotlin.gradle.dsl.KotlinMultiplatformExtension") ||
-                subproject.getExtensions()
-                        .findByName("kotlin") != null && subproject.getExtensions()
-                        .getByName("kotlin")
-                        .getClass()
-                        .getCanonicalName()
-                        .startsWith("org.jetbrains.kotlin.gradle.dsl.KotlinMultiplatformExtension")) {
-                sourceFileStream = sourceFileStream.concat(parseMultiplatformKotlinProject(
-                        subproject,
-                        exclusions,
-                        alreadyParsed,
-                        ctx));
-            }
-
-            Path buildDirPath = baseDir.relativize(subproject.getLayout()
-                    .getBuildDirectory()
-                    .get()
-                    .getAsFile()
-                    .toPath());
-
-            SourceFileStream projectSourceFileStream;
-            if (isAndroidProject(subproject)) {
-                projectSourceFileStream = parseAndroidProjectSourceSets(
-                        subproject,
-                        progressBar,
-                        buildDirPath,
-                        alreadyParsed,
-                        exclusions,
-                        ctx);
-            } else {
-                projectSourceFileStream = parseGradleProjectSourceSets(
-                        subproject,
-                        progressBar,
-                        buildDirPath,
-                        alreadyParsed,
-                        exclusions,
-                        ctx);
-            }
-            sourceFileStream = sourceFileStream.concat(projectSourceFileStream, projectSourceFileStream.size());
-            List<Marker> projectProvenance;
-            if (projectSourceFileStream.size() == 0) {
-                projectProvenance = sharedProvenance;
-            } else {
-                projectProvenance = new ArrayList<>(sharedProvenance);
-                projectProvenance.add(new JavaProject(
-                        randomId(),
-                        subproject.getName(),
-                        new JavaProject.Publication(
-                                subproject.getGroup().toString(),
-                                subproject.getName(),
-                                subproject.getVersion().toString())));
-            }
-
-            SourceFileStream gradleFiles = parseGradleFiles(subproject, exclusions, alreadyParsed, ctx);
-            sourceFileStream = sourceFileStream.concat(gradleFiles, gradleFiles.size());
-
-            SourceFileStream gradleWrapperFiles = parseGradleWrapperFiles(exclusions, alreadyParsed, ctx);
-            sourceFileStream = sourceFileStream.concat(gradleWrapperFiles, gradleWrapperFiles.size());
-
-            SourceFileStream nonProjectResources = parseNonProjectResources(subproject, alreadyParsed, ctx);
-            sourceFileStream = sourceFileStream.concat(nonProjectResources, nonProjectResources.size());
-
-            return sourceFileStream.map(addProvenance(projectProvenance))
-                    .map(addGitTreeEntryInformation());
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        if (isMultiplatformKotlinProject(subproject)) {
+            planMultiplatformKotlinProject(subproject, manifest);
         }
+        if (isAndroidProject(subproject)) {
+            getAndroidProjectParser().planProjectSourceSets(subproject, manifest, omniParser(manifest.claimed(), subproject));
+        } else {
+            planGradleProjectSourceSets(subproject, manifest);
+        }
+        planGradleFiles(subproject, exclusions, manifest);
+        planGradleWrapperFiles(subproject, exclusions, manifest);
+        planNonProjectResources(subproject, manifest);
     }
 
-    private SourceFileStream parseGradleProjectSourceSets(Project subproject,
-                                                          ProgressBar progressBar,
-                                                          Path buildDir,
-                                                          Set<Path> alreadyParsed,
-                                                          Collection<PathMatcher> exclusions,
-                                                          ExecutionContext ctx) {
-        SourceFileStream sourceFileStream = SourceFileStream.build(
+    private ParseManifest.Project plannedProject(Project subproject) {
+        return new ParseManifest.Project(
                 subproject.getPath(),
-                projectName -> progressBar.intermediateResult(":" + projectName));
+                subproject.getName(),
+                subproject.getGroup().toString(),
+                subproject.getVersion().toString(),
+                isAndroidProject(subproject),
+                mergeExclusions(subproject, baseDir, extension),
+                baseDir.relativize(subproject.getLayout().getBuildDirectory().get().getAsFile().toPath()));
+    }
 
-        for (SourceSet sourceSet : findGradleSourceSets(subproject)) {
-            Stream<SourceFile> sourceSetSourceFiles = Stream.of();
-            int sourceSetSize = 0;
+    private Collection<PathMatcher> projectExclusions(Project subproject) {
+        return extension.getExclusions().stream()
+                .map(pattern -> subproject.getProjectDir().toPath().getFileSystem().getPathMatcher("glob:" + pattern))
+                .collect(toList());
+    }
 
-            JavaTypeCache javaTypeCache = createTypeCache();
+    private void planGradleProjectSourceSets(Project subproject, ParseManifest.Builder manifest) {
+        for (SourceSet sourceSet : findGradleSourceSets(subproject)) {
             JavaCompile javaCompileTask = (JavaCompile) subproject.getTasks()
                     .getByName(sourceSet.getCompileJavaTaskName());
             JavaVersion javaVersion = getJavaVersion(subproject, javaCompileTask);
@@ -789,7 +892,7 @@ public class DefaultProjectParser implements GradleProjectParser {
                     .getSourceDirectories()
                     .filter(File::exists)
                     .filter(dir -> !dir.toPath().toAbsolutePath().normalize().startsWith(absoluteBuildDir))
-                    .filter(dir -> !alreadyParsed.contains(dir.toPath()))
+                    .filter(dir -> !manifest.isClaimed(dir.toPath()))
                     .getFiles()
                     .stream()
                     .map(File::toPath)
@@ -806,23 +909,9 @@ public class DefaultProjectParser implements GradleProjectParser {
                     .distinct()
                     .collect(toList());
 
-            List<Path> javaPaths = unparsedSources.stream()
-                    .filter(path -> !alreadyParsed.contains(path))
-                    .filter(path -> path.toString().endsWith(".java"))
-                    .collect(toList());
-
-            // The compilation classpath doesn't include the transitive dependencies
-            // The runtime classpath doesn't include compile only dependencies, e.g.: lombok, servlet-api
-            // So we use both together to get comprehensive type information
-            Set<Path> dependencyPaths = new HashSet<>();
+            Set<Path> dependencyPaths = emptySet();
             try {
-                Stream.concat(
-                                sourceSet.getRuntimeClasspath().getFiles().stream(),
-                                sourceSet.getCompileClasspath().getFiles().stream())
-                        .map(File::toPath)
-                        .map(Path::toAbsolutePath)
-                        .map(Path::normalize)
-                        .forEach(dependencyPaths::add);
+                dependencyPaths = classpath(subproject, sourceSet);
             } catch (Exception e) {
                 logger.warn(
                         "Unable to resolve classpath for sourceSet {}:{}",
@@ -831,17 +920,21 @@ public class DefaultProjectParser implements GradleProjectParser {
                         e);
             }
 
+            JavaSourceSet sourceSetProvenance = manifest.javaSourceSet(sourceSet.getName(), dependencyPaths);
+            List<Marker> markers = Arrays.asList(javaVersion, sourceSetProvenance);
+
+            List<Path> javaSources = unparsedSources.stream()
+                    .filter(path -> path.toString().endsWith(".java"))
+                    .collect(toList());
+            List<Path> javaPaths = manifest.claim(
+                    subproject.getPath(),
+                    sourceSet.getName(),
+                    ParseManifest.Kind.JAVA,
+                    getSourceFileEncoding(javaCompileTask.getOptions()),
+                    javaClasspath(subproject, sourceSet, dependencyPaths, javaSources.size()),
+                    markers,
+                    javaSources);
             if (!javaPaths.isEmpty()) {
-                alreadyParsed.addAll(javaPaths);
-                Stream<SourceFile> parsedJavaFiles = parseJavaFiles(
-                        javaPaths,
-                        ctx,
-                        getSourceFileEncoding(javaCompileTask.getOptions()),
-                        javaVersion,
-                        dependencyPaths,
-                        javaTypeCache);
-                sourceSetSourceFiles = Stream.concat(sourceSetSourceFiles, parsedJavaFiles);
-                sourceSetSize += javaPaths.size();
                 logger.info(
                         "Scanned {} Java sources in {}/{}",
                         javaPaths.size(),
@@ -850,20 +943,18 @@ public class DefaultProjectParser implements GradleProjectParser {
             }
 
             if (subproject.getPlugins().hasPlugin("org.jetbrains.kotlin.jvm")) {
-                List<Path> kotlinPaths = unparsedSources.stream()
-                        .filter(it -> it.toString().endsWith(".kt"))
-                        .collect(toList());
-
+                List<Path> kotlinPaths = manifest.claim(
+                        subproject.getPath(),
+                        sourceSet.getName(),
+                        ParseManifest.Kind.KOTLIN,
+                        // Kotlin requires UTF-8
+                        StandardCharsets.UTF_8,
+                        dependencyPaths,
+                        markers,
+                        unparsedSources.stream()
+                                .filter(it -> it.toString().endsWith(".kt"))
+                                .collect(toList()));
                 if (!kotlinPaths.isEmpty()) {
-                    alreadyParsed.addAll(kotlinPaths);
-                    Stream<SourceFile> parsedKotlinFiles = parseKotlinFiles(
-                            kotlinPaths,
-                            ctx,
-                            javaVersion,
-                            dependencyPaths,
-                            javaTypeCache);
-                    sourceSetSourceFiles = Stream.concat(sourceSetSourceFiles, parsedKotlinFiles);
-                    sourceSetSize += kotlinPaths.size();
                     logger.info(
                             "Scanned {} Kotlin sources in {}/{}",
                             kotlinPaths.size(),
@@ -872,11 +963,11 @@ public class DefaultProjectParser implements GradleProjectParser {
                 }
             }
             if (subproject.getPlugins().hasPlugin(GroovyPlugin.class)) {
-                List<Path> groovyPaths = unparsedSources.stream()
+                List<Path> groovySources = unparsedSources.stream()
                         .filter(it -> it.toString().endsWith(".groovy"))
                         .collect(toList());
 
-                if (!groovyPaths.isEmpty()) {
+                if (!groovySources.isEmpty()) {
                     // Groovy sources are aware of java types that are intermixed in the same directory/sourceSet
                     // Include the build directory containing class files so these definitions are available
                     List<Path> dependenciesWithBuildDirs = Stream.concat(
@@ -884,115 +975,57 @@ public class DefaultProjectParser implements GradleProjectParser {
                                     sourceSet.getOutput().getClassesDirs().getFiles().stream().map(File::toPath))
                             .collect(toList());
 
-                    alreadyParsed.addAll(groovyPaths);
-
                     GroovyCompile groovyCompileTask = (GroovyCompile) subproject.getTasks()
                             .getByName(sourceSet.getCompileTaskName("groovy"));
-                    Stream<SourceFile> cus = Stream.of((Supplier<GroovyParser>) () -> GroovyParser.builder()
-                            .classpath(dependenciesWithBuildDirs)
-                            .typeCache(javaTypeCache)
-                            .logCompilationWarningsAndErrors(false)
-                            .build())
-                            .map(Supplier::get)
-                            .flatMap(gp -> {
-                                view(ctx).setCharset(getSourceFileEncoding(groovyCompileTask.getOptions()));
-                                return gp.parse(groovyPaths, baseDir, ctx).onClose(() -> view(ctx).setCharset(null));
-                            }).map(it -> it.withMarkers(it.getMarkers().add(javaVersion)));
-                    sourceSetSourceFiles = Stream.concat(sourceSetSourceFiles, cus);
-                    sourceSetSize += groovyPaths.size();
-                    logger.info(
-                            "Scanned {} Groovy sources in {}/{}",
-                            groovyPaths.size(),
+                    List<Path> groovyPaths = manifest.claim(
                             subproject.getPath(),
-                            sourceSet.getName());
+                            sourceSet.getName(),
+                            ParseManifest.Kind.GROOVY,
+                            getSourceFileEncoding(groovyCompileTask.getOptions()),
+                            dependenciesWithBuildDirs,
+                            markers,
+                            groovySources);
+                    if (!groovyPaths.isEmpty()) {
+                        logger.info(
+                                "Scanned {} Groovy sources in {}/{}",
+                                groovyPaths.size(),
+                                subproject.getPath(),
+                                sourceSet.getName());
+                    }
                 }
             }
 
             for (File resourcesDir : sourceSet.getResources().getSourceDirectories()) {
-                if (resourcesDir.exists() && !alreadyParsed.contains(resourcesDir.toPath())) {
-                    OmniParser omniParser = omniParser(alreadyParsed, subproject);
-                    List<Path> accepted = omniParser.acceptedPaths(baseDir, resourcesDir.toPath());
-                    sourceSetSourceFiles = Stream.concat(
-                            sourceSetSourceFiles,
-                            omniParser.parse(accepted, baseDir, ctx)
-                                    .map(it -> it.withMarkers(it.getMarkers().add(javaVersion))));
-                    alreadyParsed.addAll(accepted);
-                    sourceSetSize += accepted.size();
+                if (resourcesDir.exists() && !manifest.isClaimed(resourcesDir.toPath())) {
+                    OmniParser omniParser = omniParser(manifest.claimed(), subproject);
+                    manifest.claim(
+                            subproject.getPath(),
+                            sourceSet.getName(),
+                            ParseManifest.Kind.RESOURCE,
+                            null,
+                            emptyList(),
+                            markers,
+                            omniParser.acceptedPaths(baseDir, resourcesDir.toPath()));
                 }
             }
 
-            JavaSourceSet sourceSetProvenance = JavaSourceSet.build(sourceSet.getName(), dependencyPaths);
-            sourceFileStream = sourceFileStream.concat(
-                    sourceSetSourceFiles
-                            .filter(cu -> !isExcluded(repository, dirCache(), exclusions, cu.getSourcePath()) &&
-                                    !cu.getSourcePath().startsWith(buildDir))
-                            .map(addProvenance(sourceSetProvenance)),
-                    sourceSetSize);
             // Some source sets get misconfigured to have the same directories as other source sets
             // Prevent files which appear in multiple source sets from being parsed more than once
             for (File file : sourceSet.getAllSource().getSourceDirectories().getFiles()) {
-                alreadyParsed.add(file.toPath());
+                manifest.reserve(file.toPath());
             }
         }
-        return sourceFileStream;
     }
 
-    private SourceFileStream parseAndroidProjectSourceSets(
-            Project subproject,
-            ProgressBar progressBar,
-            Path buildDir,
-            Set<Path> alreadyParsed,
-            Collection<PathMatcher> exclusions,
-            ExecutionContext ctx) {
-        return getAndroidProjectParser().parseProjectSourceSets(
-                subproject,
-                progressBar,
-                buildDir,
-                alreadyParsed,
-                exclusions,
-                ctx,
-                omniParser(alreadyParsed, subproject));
-    }
-
-    private Stream<SourceFile> parseJavaFiles(
-            List<Path> javaPaths,
-            ExecutionContext ctx,
-            Charset javaSourceCharset,
-            JavaVersion javaVersion,
-            Set<Path> dependencyPaths,
-            JavaTypeCache javaTypeCache) {
-        return Stream.of((Supplier<JavaParser>) () -> JavaParser.fromJavaVersion()
-                        .classpath(dependencyPaths)
-                        .typeCache(javaTypeCache)
-                        .logCompilationWarningsAndErrors(extension.getLogCompilationWarningsAndErrors())
-                        .build())
-                .map(Supplier::get)
-                .flatMap(jp -> {
-                    view(ctx).setCharset(javaSourceCharset);
-                    return jp.parse(javaPaths, baseDir, ctx).onClose(() -> view(ctx).setCharset(null));
-                })
-                .map(it -> it.withMarkers(it.getMarkers().add(javaVersion)));
-    }
-
-    private Stream<SourceFile> parseKotlinFiles(List<Path> kotlinPaths,
-                                                ExecutionContext ctx,
-                                                JavaVersion javaVersion,
-                                                Set<Path> dependencyPaths,
-                                                JavaTypeCache javaTypeCache) {
-        return Stream.of((Supplier<KotlinParser>) () -> KotlinParser.builder()
-                        .classpath(dependencyPaths)
-                        .typeCache(javaTypeCache)
-                        .logCompilationWarningsAndErrors(extension.getLogCompilationWarningsAndErrors())
-                        .build())
-                .map(Supplier::get)
-                .flatMap(kp -> {
-                    view(ctx).setCharset(StandardCharsets.UTF_8); // Kotlin requires UTF-8
-                    return kp.parse(kotlinPaths, baseDir, ctx).onClose(() -> view(ctx).setCharset(null));
-                })
-                .map(it -> it.withMarkers(it.getMarkers().add(javaVersion)));
-    }
-
-    private GradleParser gradleParser() {
+    /**
+     * Resolve the classpath of the Gradle parser when {@code manifest} has Gradle scripts to parse. Resolving it
+     * accesses the Gradle model, so it can't be deferred to a parser thread.
+     */
+    private void resolveGradleParserClasspath(ParseManifest manifest) {
+        if (gradleParserClasspath != null ||
+            manifest.getGroups().stream().noneMatch(group -> group.getKind() == ParseManifest.Kind.GRADLE)) {
+            return;
+        }
         List<Path> settingsClasspath;
         if (GradleVersion.current().compareTo(GradleVersion.version("4.4")) >= 0) {
             try {
@@ -1010,47 +1043,30 @@ public class DefaultProjectParser implements GradleProjectParser {
         } else {
             settingsClasspath = emptyList();
         }
-        List<Path> buildscriptClasspath = project.getBuildscript()
+        gradleParserSettingsClasspath = settingsClasspath;
+        gradleParserClasspath = project.getBuildscript()
                 .getConfigurations()
                 .getByName("classpath")
                 .resolve()
                 .stream()
                 .map(File::toPath)
                 .collect(toList());
-
-        JavaTypeCache typeCache = createTypeCache();
-        return GradleParser.builder()
-                .groovyParser(GroovyParser.builder()
-                        .typeCache(typeCache)
-                        .logCompilationWarningsAndErrors(false))
-                .kotlinParser(KotlinParser.builder()
-                        .typeCache(typeCache)
-                        .logCompilationWarningsAndErrors(false))
-                .buildscriptClasspath(buildscriptClasspath)
-                .settingsClasspath(settingsClasspath)
-                .build();
+        engine().useGradleParserClasspath(gradleParserClasspath, gradleParserSettingsClasspath);
     }
 
-    private SourceFileStream parseGradleFiles(
+    private void planGradleFiles(
             Project subproject,
             Collection<PathMatcher> exclusions,
-            Set<Path> alreadyParsed,
-            ExecutionContext ctx) {
-        Stream<SourceFile> sourceFiles = Stream.empty();
-        int gradleFileCount = 0;
-
+            ParseManifest.Builder manifest) {
         // build.gradle
-        GradleParser gradleParser = null;
         GradleProject gradleProject = GradleProjectBuilder.gradleProject(subproject);
+        List<Marker> gradleProjectMarkers = singletonList(gradleProject);
         File buildGradleFile = subproject.getBuildscript().getSourceFile();
         if (buildGradleFile != null) {
             Path buildScriptPath = baseDir.relativize(buildGradleFile.toPath());
             if (!isExcluded(repository, dirCache(), exclusions, buildScriptPath) && buildGradleFile.exists()) {
-                gradleParser = gradleParser();
-                sourceFiles = gradleParser.parse(singleton(buildGradleFile.toPath()), baseDir, ctx);
-                gradleFileCount++;
-                sourceFiles = sourceFiles.map(sourceFile -> sourceFile.withMarkers(sourceFile.getMarkers().add(gradleProject)));
-                alreadyParsed.add(buildGradleFile.toPath());
+                manifest.claim(subproject.getPath(), null, ParseManifest.Kind.GRADLE, null, emptyList(),
+                        gradleProjectMarkers, singletonList(buildGradleFile.toPath()));
             }
         }
 
@@ -1064,23 +1080,10 @@ public class DefaultProjectParser implements GradleProjectParser {
                     if (GradleVersion.current().compareTo(GradleVersion.version("4.4")) >= 0) {
                         gs = GradleSettingsBuilder.gradleSettings(((DefaultGradle) project.getGradle()).getSettings());
                     }
-                    GradleSettings finalGs = gs;
-                    if (gradleParser == null) {
-                        gradleParser = gradleParser();
-                    }
-                    sourceFiles = Stream.concat(
-                            sourceFiles,
-                            gradleParser
-                                    .parse(singleton(settingsGradleFile.toPath()), baseDir, ctx)
-                                    .map(sourceFile -> {
-                                        if (finalGs == null) {
-                                            return sourceFile;
-                                        }
-                                        return sourceFile.withMarkers(sourceFile.getMarkers().add(finalGs));
-                                    }));
-                    gradleFileCount++;
+                    manifest.claim(subproject.getPath(), null, ParseManifest.Kind.GRADLE, null, emptyList(),
+                            gs == null ? emptyList() : singletonList(gs), singletonList(settingsGradleFile.toPath()));
                 }
-                alreadyParsed.add(settingsGradleFile.toPath());
+                manifest.reserve(settingsGradleFile.toPath());
             }
         }
 
@@ -1089,15 +1092,10 @@ public class DefaultProjectParser implements GradleProjectParser {
         if (gradlePropertiesFile.exists()) {
             Path gradlePropertiesPath = baseDir.relativize(gradlePropertiesFile.toPath());
             if (!isExcluded(repository, dirCache(), exclusions, gradlePropertiesPath)) {
-                final GradleProject finalGradleProject = gradleProject;
-                sourceFiles = Stream.concat(
-                        sourceFiles,
-                        new PropertiesParser()
-                                .parse(singleton(gradlePropertiesFile.toPath()), baseDir, ctx)
-                                .map(sourceFile -> sourceFile.withMarkers(sourceFile.getMarkers().add(finalGradleProject))));
-                gradleFileCount++;
+                manifest.claim(subproject.getPath(), null, ParseManifest.Kind.PROPERTIES, null, emptyList(),
+                        gradleProjectMarkers, singletonList(gradlePropertiesFile.toPath()));
             }
-            alreadyParsed.add(gradlePropertiesFile.toPath());
+            manifest.reserve(gradlePropertiesFile.toPath());
         }
 
         // Freestanding scripts
@@ -1124,49 +1122,27 @@ public class DefaultProjectParser implements GradleProjectParser {
 
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    if ((file.toString().endsWith(".gradle") || file.toString().endsWith(".gradle.kts")) && !alreadyParsed.contains(file) && !isExcluded(repository, dirCache(), exclusions, baseDir.relativize(file))) {
+                    if ((file.toString().endsWith(".gradle") || file.toString().endsWith(".gradle.kts")) && !manifest.isClaimed(file) && !isExcluded(repository, dirCache(), exclusions, baseDir.relativize(file))) {
                         freeStandingScripts.add(file);
                     }
                     return FileVisitResult.CONTINUE;
                 }
             });
-            if (!freeStandingScripts.isEmpty()) {
-                if (gradleParser == null) {
-                    gradleParser = gradleParser();
-                }
-                sourceFiles = Stream.concat(
-                        sourceFiles,
-                        gradleParser.parse(freeStandingScripts, baseDir, ctx)
-                                .map(sourceFile -> sourceFile.withMarkers(sourceFile.getMarkers().add(gradleProject)))
-                );
-                alreadyParsed.addAll(freeStandingScripts);
-                gradleFileCount += freeStandingScripts.size();
-            }
+            manifest.claim(subproject.getPath(), null, ParseManifest.Kind.GRADLE, null, emptyList(),
+                    gradleProjectMarkers, freeStandingScripts);
         } catch (IOException e) {
             logger.warn("Unable to walk file tree for project {}", subproject.getPath(), e);
         }
 
         // if there is a gradle.lockfile or buildscript-gradle.lockfile parse it as plain text
         // Can be renamed according to https://docs.gradle.org/current/userguide/dependency_locking.html#sec:configuring-the-per-project-lock-file-name-and-location
-        File lockfile = subproject.file("gradle.lockfile");
-        if (lockfile.exists()) {
-            sourceFiles = Stream.concat(sourceFiles,
-                    PlainTextParser.builder().build()
-                            .parse(singletonList(lockfile.toPath()), baseDir, ctx)
-                            .map(sourceFile -> sourceFile.withMarkers(sourceFile.getMarkers().add(gradleProject)))
-            );
-        }
-        File buildscriptLockfile = subproject.file("buildscript-gradle.lockfile");
-        if (buildscriptLockfile.exists()) {
-            sourceFiles = Stream.concat(sourceFiles,
-                    PlainTextParser.builder().build()
-                            .parse(singletonList(buildscriptLockfile.toPath()), baseDir, ctx)
-                            .map(sourceFile -> sourceFile.withMarkers(sourceFile.getMarkers().add(gradleProject)))
-            );
-        }
-
-        return SourceFileStream.build("", s -> {
-        }).concat(sourceFiles, gradleFileCount);
+        List<Path> lockfiles = Stream.of("gradle.lockfile", "buildscript-gradle.lockfile")
+                .map(subproject::file)
+                .filter(File::exists)
+                .map(File::toPath)
+                .collect(toList());
+        manifest.claim(subproject.getPath(), null, ParseManifest.Kind.PLAIN_TEXT, null, emptyList(),
+                gradleProjectMarkers, lockfiles);
     }
 
     private @Nullable File determineGradleSettingsFile(Project rootProject) {
@@ -1183,13 +1159,11 @@ public class DefaultProjectParser implements GradleProjectParser {
     }
 
     /**
-     * Parse Gradle wrapper files separately from other resource files, as Moderne CLI skips `parseNonProjectResources`.
+     * Plan Gradle wrapper files separately from other resource files, as Moderne CLI skips `parseNonProjectResources`.
      */
-    private SourceFileStream parseGradleWrapperFiles(Collection<PathMatcher> exclusions, Set<Path> alreadyParsed, ExecutionContext ctx) {
-        Stream<SourceFile> sourceFiles = Stream.empty();
-        int fileCount = 0;
+    private void planGradleWrapperFiles(Project subproject, Collection<PathMatcher> exclusions, ParseManifest.Builder manifest) {
         if (project == project.getRootProject()) {
-            OmniParser omniParser = omniParser(alreadyParsed, project);
+            OmniParser omniParser = omniParser(manifest.claimed(), project);
             List<Path> gradleWrapperFiles = Stream.of(
                             "gradlew",
                             "gradlew.bat",
@@ -1201,32 +1175,82 @@ public class DefaultProjectParser implements GradleProjectParser {
                     .filter(it -> !isExcluded(repository, dirCache(), exclusions, it))
                     .filter(omniParser::accept)
                     .collect(toList());
-            sourceFiles = omniParser.parse(gradleWrapperFiles, baseDir, ctx);
-            fileCount = gradleWrapperFiles.size();
+            manifest.claim(subproject.getPath(), null, ParseManifest.Kind.GRADLE_WRAPPER, null, emptyList(),
+                    emptyList(), gradleWrapperFiles);
         }
-        return SourceFileStream.build("wrapper", s -> {
-        }).concat(sourceFiles, fileCount);
     }
 
-    protected SourceFileStream parseNonProjectResources(Project subproject, Set<Path> alreadyParsed, ExecutionContext ctx) {
+    private void planNonProjectResources(Project subproject, ParseManifest.Builder manifest) {
         //Collect any additional yaml/properties/xml files that are NOT already in a source set.
-        OmniParser omniParser = omniParser(alreadyParsed, subproject);
+        OmniParser omniParser = omniParser(manifest.claimed(), subproject);
         List<Path> accepted = omniParser.acceptedPaths(baseDir, subproject.getProjectDir().toPath());
+        manifest.claim(subproject.getPath(), null, ParseManifest.Kind.RESOURCE, null, emptyList(),
+                emptyList(), accepted);
+    }
+
+    /**
+     * Parse the files of a project that are not part of any source set or Gradle script, as planned in the
+     * {@link ParseManifest}, through {@link #parseNonProjectResources(Project, Set, ExecutionContext)} so that
+     * subclasses which override it keep deciding how they are parsed.
+     */
+    private SourceFileStream parseNonProjectResources(Project subproject,
+                                                      Set<Path> alreadyParsed,
+                                                      List<Path> resources,
+                                                      ExecutionContext ctx) {
+        plannedNonProjectResources.put(alreadyParsed, resources);
+        try {
+            return parseNonProjectResources(subproject, alreadyParsed, ctx);
+        } finally {
+            plannedNonProjectResources.remove(alreadyParsed);
+        }
+    }
+
+    protected SourceFileStream parseNonProjectResources(Project subproject, Set<Path> alreadyParsed, ExecutionContext ctx) {
+        // The files were already found when the parse was planned, unless this is called by a subclass
+        List<Path> accepted = plannedNonProjectResources.get(alreadyParsed);
+        if (accepted == null) {
+            //Collect any additional yaml/properties/xml files that are NOT already in a source set.
+            OmniParser omniParser = omniParser(alreadyParsed, subproject);
+            accepted = omniParser.acceptedPaths(baseDir, subproject.getProjectDir().toPath());
+        }
         return SourceFileStream.build("", s -> {
-        }).concat(omniParser.parse(accepted, baseDir, ctx), accepted.size());
+        }).concat(engine().parseResources(plannedProject(subproject), accepted, ctx), accepted.size());
     }
 
     private OmniParser omniParser(Set<Path> alreadyParsed, Project project) {
-        return OmniParser.builder(
-                        OmniParser.defaultResourceParsers(),
-                        PlainTextParser.builder()
-                                .plainTextMasks(baseDir, extension.getPlainTextMasks())
-                                .build(),
-                        QuarkParser.builder().build()
-                )
-                .exclusionMatchers(pathMatchers(baseDir, mergeExclusions(project, baseDir, extension)))
+        return omniParser(baseDir, extension.getPlainTextMasks(),
+                pathMatchers(baseDir, mergeExclusions(project, baseDir, extension)),
+                alreadyParsed, extension.getSizeThresholdMb());
+    }
+
+    static OmniParser omniParser(Path baseDir,
+                                 List<String> plainTextMasks,
+                                 Collection<PathMatcher> exclusions,
+                                 Set<Path> alreadyParsed,
+                                 int sizeThresholdMb) {
+        return omniParser(resourceParsers(baseDir, plainTextMasks), exclusions, alreadyParsed, sizeThresholdMb);
+    }
+
+    /**
+     * The parsers that the omni parser picks from, in order of preference.
+     */
+    static List<Parser> resourceParsers(Path baseDir, List<String> plainTextMasks) {
+        List<Parser> parsers = new ArrayList<>(OmniParser.defaultResourceParsers());
+        parsers.add(PlainTextParser.builder()
+                .plainTextMasks(baseDir, plainTextMasks)
+                .build());
+        parsers.add(QuarkParser.builder().build());
+        return parsers;
+    }
+
+    static OmniParser omniParser(List<Parser> resourceParsers,
+                                 Collection<PathMatcher> exclusions,
+                                 Set<Path> alreadyParsed,
+                                 int sizeThresholdMb) {
+        return OmniParser.builder(resourceParsers)
+                .exclusionMatchers(exclusions)
                 .exclusions(alreadyParsed)
-                .sizeThresholdMb(extension.getSizeThresholdMb())
+                .sizeThresholdMb(sizeThresholdMb)
                 .build();
     }
 
@@ -1237,13 +1261,23 @@ public class DefaultProjectParser implements GradleProjectParser {
                 extension.getExclusions().stream()).collect(toList());
     }
 
-    private Collection<PathMatcher> pathMatchers(Path basePath, Collection<String> pathExpressions) {
+    static Collection<PathMatcher> pathMatchers(Path basePath, Collection<String> pathExpressions) {
         return pathExpressions.stream()
                 .map(o -> basePath.getFileSystem().getPathMatcher("glob:" + o))
                 .collect(toList());
     }
 
-    private SourceFileStream parseMultiplatformKotlinProject(Project subproject, Collection<PathMatcher> exclusions, Set<Path> alreadyParsed, ExecutionContext ctx) {
+    private static boolean isMultiplatformKotlinProject(Project subproject) {
+        return subproject.getPlugins().hasPlugin("org.jetbrains.kotlin.gradle.dsl.KotlinMultiplatformExtension") ||
+               subproject.getExtensions()
+                       .findByName("kotlin") != null && subproject.getExtensions()
+                       .getByName("kotlin")
+                       .getClass()
+                       .getCanonicalName()
+                       .startsWith("org.jetbrains.kotlin.gradle.dsl.KotlinMultiplatformExtension");
+    }
+
+    private void planMultiplatformKotlinProject(Project subproject, ParseManifest.Builder manifest) {
         Object kotlinExtension = subproject.getExtensions().getByName("kotlin");
         NamedDomainObjectContainer<KotlinSourceSet> sourceSets;
         try {
@@ -1255,12 +1289,9 @@ public class DefaultProjectParser implements GradleProjectParser {
         } catch (Exception e) {
             logger.warn("Failed to resolve KotlinMultiplatformExtension from {}. No sources files from KotlinMultiplatformExtension will be parsed.",
                     subproject.getPath());
-            return SourceFileStream.build(subproject.getPath(), s -> {
-            });
+            return;
         }
 
-        SourceFileStream sourceFileStream = SourceFileStream.build(subproject.getPath(), s -> {
-        });
         SortedSet<String> sourceSetNames;
         try {
             //noinspection unchecked
@@ -1269,10 +1300,9 @@ public class DefaultProjectParser implements GradleProjectParser {
         } catch (Exception e) {
             logger.warn("Failed to resolve SourceSetNames in KotlinMultiplatformExtension from {}. No sources files from KotlinMultiplatformExtension will be parsed.",
                     subproject.getPath());
-            return sourceFileStream;
+            return;
         }
 
-        Path buildDirPath = baseDir.relativize(subproject.getLayout().getBuildDirectory().get().getAsFile().toPath());
         for (String sourceSetName : sourceSetNames) {
             try {
                 Object sourceSet = sourceSets.getClass().getMethod("getByName", String.class)
@@ -1299,15 +1329,6 @@ public class DefaultProjectParser implements GradleProjectParser {
                     rewriteImplementation.extendsFrom(implementation);
                 }
 
-                Set<File> implementationClasspath;
-                try {
-                    implementationClasspath = rewriteImplementation.resolve();
-                } catch (Exception e) {
-                    logger.warn("Failed to resolve dependencies from {}:{}. Some type information may be incomplete",
-                            subproject.getPath(), implementationName);
-                    implementationClasspath = emptySet();
-                }
-
                 String compileName = (String) sourceSet.getClass().getMethod("getCompileOnlyConfigurationName").invoke(sourceSet);
                 Configuration compileOnly = subproject.getConfigurations().getByName(compileName);
                 Configuration rewriteCompileOnly = subproject.getConfigurations().maybeCreate("rewrite" + compileName);
@@ -1315,67 +1336,33 @@ public class DefaultProjectParser implements GradleProjectParser {
                 rewriteCompileOnly.setCanBeResolved(true);
                 rewriteCompileOnly.extendsFrom(compileOnly);
 
-                // The implementation configuration doesn't include build/source directories from project dependencies
-                // So mash it and our rewriteImplementation together to get everything
-                List<Path> dependencyPaths = Stream.concat(implementationClasspath.stream(), rewriteCompileOnly.getFiles().stream())
-                        .map(File::toPath)
-                        .map(Path::toAbsolutePath)
-                        .map(Path::normalize)
-                        .distinct()
-                        .collect(toList());
+                Set<Path> dependencyPaths = SourceSetClasspaths.of(subproject).get(subproject, "kotlin " + sourceSetName, () -> {
+                    Set<File> implementationClasspath;
+                    try {
+                        implementationClasspath = rewriteImplementation.resolve();
+                    } catch (Exception e) {
+                        logger.warn("Failed to resolve dependencies from {}:{}. Some type information may be incomplete",
+                                subproject.getPath(), implementationName);
+                        implementationClasspath = emptySet();
+                    }
+                    // The implementation configuration doesn't include build/source directories from project dependencies
+                    // So mash it and our rewriteImplementation together to get everything
+                    List<File> files = new ArrayList<>(implementationClasspath);
+                    files.addAll(rewriteCompileOnly.getFiles());
+                    return files;
+                });
 
                 if (!kotlinPaths.isEmpty()) {
-                    JavaTypeCache javaTypeCache = createTypeCache();
-                    KotlinParser kp = KotlinParser.builder()
-                            .classpath(dependencyPaths)
-                            .typeCache(javaTypeCache)
-                            .logCompilationWarningsAndErrors(extension.getLogCompilationWarningsAndErrors())
-                            .build();
-
-                    Stream<SourceFile> cus = kp.parse(kotlinPaths, baseDir, ctx);
-                    alreadyParsed.addAll(kotlinPaths);
-                    JavaSourceSet sourceSetProvenance = JavaSourceSet.build(sourceSetName, dependencyPaths);
-
-                    sourceFileStream = sourceFileStream.concat(
-                            cus.filter(cu -> !isExcluded(repository, dirCache(), exclusions, cu.getSourcePath()) &&
-                                    !cu.getSourcePath().startsWith(buildDirPath))
-                                    .map(addProvenance(sourceSetProvenance)),
-                            kotlinPaths.size());
-                    logger.info("Scanned {} Kotlin sources in {}/{}", kotlinPaths.size(), subproject.getPath(), kotlinDirectorySet.getName());
+                    JavaSourceSet sourceSetProvenance = manifest.javaSourceSet(sourceSetName, dependencyPaths);
+                    List<Path> claimed = manifest.claim(subproject.getPath(), sourceSetName, ParseManifest.Kind.KOTLIN, null,
+                            dependencyPaths, singletonList(sourceSetProvenance), kotlinPaths);
+                    logger.info("Scanned {} Kotlin sources in {}/{}", claimed.size(), subproject.getPath(), kotlinDirectorySet.getName());
                 }
             } catch (Exception e) {
                 logger.warn("Failed to resolve sourceSet from {}:{}. Some type information may be incomplete",
                         subproject.getPath(), sourceSetName);
             }
         }
-
-        return sourceFileStream;
-    }
-
-    private SourceFile logParseErrors(SourceFile source) {
-        source.getMarkers().findFirst(ParseExceptionResult.class).ifPresent(e -> {
-            if (firstWarningLogged.compareAndSet(false, true)) {
-                logger.warn("There were problems parsing some source files, run with --info to see full stack traces");
-            }
-            logger.warn("There were problems parsing {}", source.getSourcePath());
-            logger.debug(e.getMessage());
-        });
-        return source;
-    }
-
-    @Nullable
-    private DirCache dirCache() {
-        if (!dirCacheInitialized) {
-            dirCacheInitialized = true;
-            if (repository != null) {
-                try {
-                    dirCache = repository.readDirCache();
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            }
-        }
-        return dirCache;
     }
 
     static boolean isExcluded(@Nullable Repository repository, Collection<PathMatcher> exclusions, Path path) {
@@ -1413,87 +1400,75 @@ public class DefaultProjectParser implements GradleProjectParser {
         return false;
     }
 
-    private List<NamedStyles> getStyles() {
-        if (styles == null) {
-            styles = environment().activateStyles(getActiveStyles());
-            File checkstyleConfig = extension.getCheckstyleConfigFile();
-            if (checkstyleConfig != null && checkstyleConfig.exists()) {
-                try {
-                    styles.add(CheckstyleConfigLoader.loadCheckstyleConfig(checkstyleConfig.toPath(), extension.getCheckstyleProperties()));
-                } catch (Exception e) {
-                    logger.warn("Unable to parse Checkstyle configuration", e);
-                }
-            }
-        }
-        return styles;
+    protected ResultsContainer listResults(ExecutionContext ctx) {
+        return listResults(ctx, false);
     }
 
-    protected ResultsContainer listResults(ExecutionContext ctx) {
-        if (extension.getPomCacheEnabled()) {
-            MavenExecutionContextView.view(ctx).setPomCache(getPomCache(extension.getPomCacheDirectory()));
-        }
-        Environment env = environment();
-        Recipe recipe = env.activateRecipes(getActiveRecipes());
-        if ("org.openrewrite.Recipe$Noop".equals(recipe.getName())) {
-            logger.warn("No recipes were activated. Activate a recipe with rewrite.activeRecipe(\"com.fully.qualified.RecipeClassName\") in your build file, or on the command line with -DactiveRecipe=com.fully.qualified.RecipeClassName");
-            return new ResultsContainer(baseDir, null);
-        }
-        logger.lifecycle("Validating active recipes");
-        Collection<Validated<Object>> validated = recipe.validateAll(ctx, new ArrayList<>());
-        List<Validated.Invalid<Object>> failedValidations = validated.stream().map(Validated::failures)
-                .flatMap(Collection::stream).collect(toList());
-        if (!failedValidations.isEmpty()) {
-            failedValidations.forEach(failedValidation -> logger.error(
-                    "Recipe validation error in {} for property {}: {}",
-                    recipe.getName(),
-                    failedValidation.getProperty(),
-                    failedValidation.getMessage(),
-                    failedValidation.getException()));
-            if (extension.getFailOnInvalidActiveRecipes()) {
-                throw new RuntimeException("Recipe validation errors detected as part of one or more activeRecipe(s). Please check error logs.");
-            }
-            logger.error("Recipe validation errors detected as part of one or more activeRecipe(s). Execution will continue regardless.");
-        }
-
-        org.openrewrite.java.style.Autodetect.Detector javaDetector = org.openrewrite.java.style.Autodetect.detector();
-        org.openrewrite.kotlin.style.Autodetect.Detector kotlinDetector = org.openrewrite.kotlin.style.Autodetect.detector();
-        org.openrewrite.xml.style.Autodetect.Detector xmlDetector = org.openrewrite.xml.style.Autodetect.detector();
-        List<SourceFile> sourceFiles = parse(ctx)
-                .peek(s -> {
-                    if (s instanceof K.CompilationUnit) {
-                        kotlinDetector.sample(s);
-                    } else if (s instanceof J.CompilationUnit) {
-                        javaDetector.sample(s);
-                    }
-                })
-                .peek(xmlDetector::sample)
-                .collect(toList());
-        if (extension.getThrowOnParseFailures() && firstWarningLogged.get()) {
-            throw new RuntimeException("There were problems parsing some source files, run with --info to see full stack traces. Fix the parse failures or set throwOnParseFailures to false to continue.");
-        }
-        Map<Class<? extends SourceFile>, NamedStyles> stylesByType = new HashMap<>();
-        stylesByType.put(J.CompilationUnit.class, javaDetector.build());
-        stylesByType.put(K.CompilationUnit.class, kotlinDetector.build());
-        stylesByType.put(Xml.Document.class, xmlDetector.build());
-        sourceFiles = ListUtils.map(sourceFiles, applyAutodetected(stylesByType));
-        sourceFiles = ListUtils.map(sourceFiles, applyConfiguredStyles());
+    /**
+     * @param dryRun Whether the results are reported as a dry run, rather than applied.
+     */
+    protected ResultsContainer listResults(ExecutionContext ctx, boolean dryRun) {
+        return engine().listResults(this::planParse, changedFiles(), dryRun, ctx);
+    }
 
-        logger.lifecycle("All sources parsed, running active recipes: {}", String.join(", ", getActiveRecipes()));
+    private Path spillDirectory() {
+        return project.getLayout().getBuildDirectory().dir("rewrite/spill").get().getAsFile().toPath();
+    }
 
-        if (extension.isExportDatatables()) {
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS"));
-            Path datatableDirectoryPath = project.getLayout().getBuildDirectory().dir("reports/rewrite/datatables/" + timestamp).get().getAsFile().toPath();
-            logger.info(String.format("Printing available datatables to: %s", datatableDirectoryPath));
-            DataTableExecutionContextView.view(ctx).setDataTableStore(new CsvDataTableStore(datatableDirectoryPath));
+    /**
+     * Where compact results are written to until they are reported or applied, or {@code null} when results are kept
+     * on heap.
+     */
+    private @Nullable Path compactResultsDirectory() {
+        if (!extension.getCompactResults()) {
+            return null;
         }
+        return project.getLayout().getBuildDirectory().dir("rewrite/results").get().getAsFile().toPath();
+    }
+
+    /**
+     * The LST cache is shared by the builds of a user, like the other caches of Gradle.
+     */
+    private Path lstCacheDirectory() {
+        String lstCacheDirectory = extension.getLstCacheDirectory();
+        return lstCacheDirectory == null ?
+                project.getGradle().getGradleUserHomeDir().toPath().resolve("caches/rewrite/lst") :
+                Paths.get(lstCacheDirectory);
+    }
 
-        RecipeRun recipeRun = recipe.run(new InMemoryLargeSourceSet(sourceFiles), ctx);
+    private Path noChangeMemoFile() {
+        return project.getLayout().getBuildDirectory().file("rewrite/no-change-memo.txt").get().getAsFile().toPath();
+    }
 
-        return new ResultsContainer(baseDir, recipeRun);
+    /**
+     * The files changed since {@link RewriteExtension#getChangedSince()}, or {@code null} when recipes are run on all
+     * files.
+     */
+    private @Nullable Set<Path> changedFiles() {
+        String changedSince = extension.getChangedSince();
+        if (changedSince == null) {
+            return null;
+        }
+        if (repository == null) {
+            logger.warn("Running active recipes on all files, because changes since {} can not be determined outside of a git repository",
+                    changedSince);
+            return null;
+        }
+        try {
+            Set<Path> changedFiles = ChangedFiles.since(repository, changedSince);
+            logger.lifecycle("Running active recipes on {} files changed since {}", changedFiles.size(), changedSince);
+            return changedFiles;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
     public void shutdownRewrite() {
+        if (engine != null) {
+            engine.shutdown();
+            engine = null;
+        }
         REPO_ROOT_TO_PROVENANCE.clear();
         GradleProjectBuilder.clearCaches();
         if (repository != null) {
@@ -1501,7 +1476,7 @@ public class DefaultProjectParser implements GradleProjectParser {
         }
     }
 
-    private static synchronized MavenPomCache getPomCache(@Nullable String pomCacheDirectory) {
+    static synchronized MavenPomCache getPomCache(@Nullable String pomCacheDirectory) {
         if (pomCache == null) {
             pomCache = new MavenPomCacheBuilder(logger).build(pomCacheDirectory);
         }
@@ -1511,86 +1486,53 @@ public class DefaultProjectParser implements GradleProjectParser {
         return pomCache;
     }
 
-    private UnaryOperator<SourceFile> applyAutodetected(
-            Map<Class<? extends SourceFile>, NamedStyles> stylesByType) {
-        return before -> {
-            for (Map.Entry<Class<? extends SourceFile>, NamedStyles> styleTypeEntry : stylesByType.entrySet()) {
-                if (styleTypeEntry.getKey().isAssignableFrom(before.getClass())) {
-                    before = before.withMarkers(before.getMarkers().add(styleTypeEntry.getValue()));
-                }
-            }
-            return before;
-        };
-    }
-
-    private <T extends SourceFile> UnaryOperator<T> applyConfiguredStyles() {
-        return s -> {
-            Markers m = s.getMarkers();
-            for (NamedStyles style : getStyles()) {
-                m = m.addIfAbsent(style);
+    /**
+     * Release the caches that are kept in static fields, which outlive a build. Called reflectively by
+     * {@code RewriteClassLoaderPool} before it closes an idle class loader.
+     *
+     * @return A description of what was released, for logging.
+     */
+    @SuppressWarnings("unused")
+    static synchronized String releaseCaches() {
+        REPO_ROOT_TO_PROVENANCE.clear();
+        GradleProjectBuilder.clearCaches();
+        if (pomCache == null) {
+            return "no pom cache";
+        }
+        String released = pomCache.getClass().getSimpleName();
+        if (pomCache instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) pomCache).close();
+            } catch (Exception e) {
+                logger.debug("Unable to close the pom cache", e);
             }
-            return s.withMarkers(m);
-        };
+        }
+        pomCache = null;
+        return released;
     }
 
-    private <T extends SourceFile> UnaryOperator<T> addProvenance(List<Marker> projectProvenance) {
-        return s -> {
-            Markers m = s.getMarkers();
-            for (Marker marker : projectProvenance) {
-                m = m.addIfAbsent(marker);
-            }
-            return s.withMarkers(m);
-        };
+    protected void logRecipesThatMadeChanges(Result result) {
+        logRecipes(result.getRecipeDescriptorsThatMadeChanges());
     }
 
-    static <T extends SourceFile> UnaryOperator<T> addProvenance(Marker sourceSet) {
-        return s -> {
-            Markers m = s.getMarkers();
-            m = m.addIfAbsent(sourceSet);
-            return s.withMarkers(m);
-        };
+    protected void logRecipesThatMadeChanges(ResultSummary result) {
+        logRecipes(result);
     }
 
-    private <T extends SourceFile> UnaryOperator<T> addGitTreeEntryInformation() {
-        return s -> {
-            if (repository == null) {
-                return s;
-            }
-
-            try {
-                ObjectId head = repository.resolve("HEAD");
-                if (head == null) {
-                    return s;
-                }
-
-                try (RevWalk revWalk = new RevWalk(repository);
-                     TreeWalk treeWalk = new TreeWalk(repository)) {
-                    RevCommit commit = revWalk.parseCommit(head);
-                    treeWalk.addTree(commit.getTree());
-                    treeWalk.setRecursive(true);
-                    treeWalk.setFilter(PathFilter.create(PathUtils.separatorsToUnix(s.getSourcePath().toString())));
-
-                    if (treeWalk.next()) {
-                        return s.withMarkers(s.getMarkers().add(new GitTreeEntry(randomId(), treeWalk.getObjectId(0).name(), treeWalk.getRawMode(0))));
-                    }
-                    return s;
-                }
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        };
+    static void logRecipes(ResultSummary result) {
+        logRecipes(result.getRecipeDescriptorsThatMadeChanges());
     }
 
-    protected void logRecipesThatMadeChanges(Result result) {
+    private static void logRecipes(List<RecipeDescriptor> recipesThatMadeChanges) {
         String indent = "    ";
         String prefix = "    ";
-        for (RecipeDescriptor recipeDescriptor : result.getRecipeDescriptorsThatMadeChanges()) {
+        for (RecipeDescriptor recipeDescriptor : recipesThatMadeChanges) {
             logRecipe(recipeDescriptor, prefix);
             prefix = prefix + indent;
         }
     }
 
-    private void logRecipe(RecipeDescriptor rd, String prefix) {
+    private static void logRecipe(RecipeDescriptor rd, String prefix) {
         StringBuilder recipeString = new StringBuilder(prefix + rd.getName());
         if (!rd.getOptions().isEmpty()) {
             String opts = rd.getOptions().stream().map(option -> {
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Contributor;
+import org.openrewrite.Recipe;
+import org.openrewrite.config.*;
+import org.openrewrite.style.NamedStyles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The recipes and styles found by scanning the rewrite classpath, kept between builds so that the classpath is only
+ * scanned again when any of its jars change.
+ * <p>
+ * The index records the class of every recipe and style that is implemented in Java, and where the declarative recipes
+ * and styles are found in the jars. Declarative recipes are loaded from their YAML again on every build, which is cheap
+ * compared to scanning the classes of every jar. Of the Java recipes only those are instantiated that the active
+ * recipes refer to, directly or through declarative recipes.
+ * <p>
+ * The index is only used when the classpath consists of jars alone. Directories, such as the output of a project that
+ * develops recipes, are always scanned.
+ */
+class EnvironmentIndex {
+    private static final Logger logger = Logging.getLogger(EnvironmentIndex.class);
+    private static final String FORMAT_VERSION = "1";
+    private static final String YAML_DIRECTORY = "META-INF/rewrite/";
+    private static final Pattern DOCUMENT_SEPARATOR = Pattern.compile("(?m)^---\\s*$");
+    private static final Pattern NAME = Pattern.compile("(?m)^name:\\s*[\"']?([^\\s\"']+)");
+    private static final Pattern QUALIFIED_NAME = Pattern.compile("[A-Za-z_$][\\w$]*(?:\\.[A-Za-z_$][\\w$]*)+");
+
+    private final Map<String, String> recipeClasses;
+    private final List<String> styleClasses;
+    private final List<String> yamlResources;
+
+    private EnvironmentIndex(Map<String, String> recipeClasses, List<String> styleClasses, List<String> yamlResources) {
+        this.recipeClasses = recipeClasses;
+        this.styleClasses = styleClasses;
+        this.yamlResources = yamlResources;
+    }
+
+    /**
+     * Load the recipes and styles of {@code classLoader} into {@code env}, from the index in {@code indexFile} when it
+     * was written for the same jars, or by scanning the classpath and writing the index otherwise.
+     *
+     * @param recipeNames   The recipes that will be activated, or {@code null} when all recipes are needed, for example
+     *                      to list them.
+     * @param rewriteConfig The YAML of the rewrite configuration file, whose declarative recipes may refer to Java
+     *                      recipes, or {@code null} when there is none.
+     */
+    static void scanClassLoader(Environment.Builder env,
+                                ClassLoader classLoader,
+                                Path indexFile,
+                                FileIndex fileIndex,
+                                @Nullable Collection<String> recipeNames,
+                                @Nullable String rewriteConfig) {
+        List<Path> jars = jars(classLoader);
+        String key = jars == null ? null : key(jars, fileIndex);
+        if (key == null) {
+            env.scanClassLoader(classLoader);
+            return;
+        }
+
+        EnvironmentIndex index = read(indexFile, key);
+        if (index != null) {
+            try {
+                index.load(env, classLoader, recipeNames, rewriteConfig);
+                return;
+            } catch (Exception e) {
+                // Nothing was loaded into env yet
+                logger.info("Unable to load recipes from the recipe index, scanning the rewrite classpath instead", e);
+            }
+        }
+
+        ClasspathScanningLoader scanned = new ClasspathScanningLoader(new Properties(), classLoader);
+        env.load(scanned);
+        index = create(scanned, jars, classLoader);
+        if (index != null) {
+            index.write(indexFile, key);
+        }
+    }
+
+    private void load(Environment.Builder env,
+                      ClassLoader classLoader,
+                      @Nullable Collection<String> recipeNames,
+                      @Nullable String rewriteConfig) throws IOException, ReflectiveOperationException {
+        List<String> yaml = new ArrayList<>(yamlResources.size() + 1);
+        List<ResourceLoader> loaders = new ArrayList<>(yamlResources.size() + 1);
+        for (String resource : yamlResources) {
+            int separator = resource.indexOf("!/");
+            Path jar = Paths.get(resource.substring(0, separator));
+            String entryName = resource.substring(separator + 2);
+            byte[] content;
+            try (ZipFile zip = new ZipFile(jar.toFile())) {
+                ZipEntry entry = zip.getEntry(entryName);
+                if (entry == null) {
+                    throw new IOException("Missing " + resource);
+                }
+                try (InputStream in = zip.getInputStream(entry)) {
+                    content = readAllBytes(in);
+                }
+            }
+            yaml.add(new String(content, StandardCharsets.UTF_8));
+            loaders.add(new YamlResourceLoader(new ByteArrayInputStream(content), yamlUri(jar, entryName),
+                    new Properties(), classLoader));
+        }
+        if (rewriteConfig != null) {
+            yaml.add(rewriteConfig);
+        }
+
+        Set<String> referenced = null;
+        if (recipeNames != null) {
+            String unknown = unknownRecipe(recipeNames, recipeClasses.keySet(), yaml);
+            if (unknown == null) {
+                referenced = referencedRecipes(recipeNames, yaml);
+            } else {
+                // Let the environment report the recipe as it would after scanning, with every recipe to suggest from
+                logger.info("Loading all recipes of the recipe index, because {} is not one of them", unknown);
+            }
+        }
+        List<Recipe> recipes = new ArrayList<>();
+        for (Map.Entry<String, String> recipeClass : recipeClasses.entrySet()) {
+            if (referenced == null || referenced.contains(recipeClass.getKey())) {
+                recipes.add(RecipeIntrospectionUtils.constructRecipe(Class.forName(recipeClass.getValue(), true, classLoader)));
+            }
+        }
+        List<NamedStyles> styles = new ArrayList<>(styleClasses.size());
+        for (String styleClass : styleClasses) {
+            styles.add((NamedStyles) Class.forName(styleClass, true, classLoader).getDeclaredConstructor().newInstance());
+        }
+
+        for (ResourceLoader loader : loaders) {
+            env.load(loader);
+        }
+        env.load(new IndexedResourceLoader(recipes, styles));
+        logger.info("Loaded {} of {} Java recipes from the recipe index", recipes.size(), recipeClasses.size());
+    }
+
+    /**
+     * The names of the recipes in {@code recipeNames}, and of every recipe that the declarative recipes among them refer
+     * to, transitively. Any qualified name in a declarative recipe is considered a reference, which may include more
+     * recipes than needed, but never less.
+     */
+    static Set<String> referencedRecipes(Collection<String> recipeNames, List<String> yaml) {
+        Map<String, Set<String>> references = new HashMap<>();
+        for (String source : yaml) {
+            for (String document : DOCUMENT_SEPARATOR.split(source)) {
+                Matcher name = NAME.matcher(document);
+                if (!name.find()) {
+                    continue;
+                }
+                Set<String> names = references.computeIfAbsent(name.group(1), n -> new HashSet<>());
+                Matcher qualifiedName = QUALIFIED_NAME.matcher(document);
+                while (qualifiedName.find()) {
+                    names.add(qualifiedName.group());
+                }
+            }
+        }
+
+        Set<String> referenced = new HashSet<>();
+        Deque<String> unvisited = new ArrayDeque<>(recipeNames);
+        while (!unvisited.isEmpty()) {
+            String recipeName = unvisited.pop();
+            if (referenced.add(recipeName)) {
+                unvisited.addAll(references.getOrDefault(recipeName, Collections.emptySet()));
+            }
+        }
+        return referenced;
+    }
+
+    /**
+     * The first of {@code recipeNames} that is neither one of {@code javaRecipes} nor the name of a declarative recipe
+     * in {@code yaml}, or {@code null} when every one of them is known.
+     */
+    static @Nullable String unknownRecipe(Collection<String> recipeNames, Set<String> javaRecipes, List<String> yaml) {
+        Set<String> declarativeRecipes = new HashSet<>();
+        for (String source : yaml) {
+            for (String document : DOCUMENT_SEPARATOR.split(source)) {
+                Matcher name = NAME.matcher(document);
+                if (name.find()) {
+                    declarativeRecipes.add(name.group(1));
+                }
+            }
+        }
+        for (String recipeName : recipeNames) {
+            if (!javaRecipes.contains(recipeName) && !declarativeRecipes.contains(recipeName)) {
+                return recipeName;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Index what {@code scanned} found, or {@code null} when some of it can not be loaded without scanning.
+     */
+    private static @Nullable EnvironmentIndex create(ClasspathScanningLoader scanned, List<Path> jars, ClassLoader classLoader) {
+        try {
+            List<String> yamlResources = new ArrayList<>();
+            Set<String> declarativeRecipes = new HashSet<>();
+            Set<String> declarativeStyles = new HashSet<>();
+            for (Path jar : jars) {
+                try (ZipFile zip = new ZipFile(jar.toFile())) {
+                    for (ZipEntry entry : Collections.list(zip.entries())) {
+                        String name = entry.getName();
+                        if (!entry.isDirectory() && name.startsWith(YAML_DIRECTORY) &&
+                            (name.endsWith(".yml") || name.endsWith(".yaml"))) {
+                            yamlResources.add(jar + "!/" + name);
+                            try (InputStream in = zip.getInputStream(entry)) {
+                                YamlResourceLoader loader = new YamlResourceLoader(in, yamlUri(jar, name), new Properties(), classLoader);
+                                loader.listRecipes().forEach(recipe -> declarativeRecipes.add(recipe.getName()));
+                                loader.listStyles().forEach(style -> declarativeStyles.add(style.getName()));
+                            }
+                        }
+                    }
+                }
+            }
+
+            Map<String, String> recipeClasses = new TreeMap<>();
+            for (Recipe recipe : scanned.listRecipes()) {
+                if (declarativeRecipes.contains(recipe.getName())) {
+                    continue;
+                }
+                if (recipe instanceof DeclarativeRecipe) {
+                    logger.info("Not indexing the rewrite classpath, because the source of {} is unknown", recipe.getName());
+                    return null;
+                }
+                recipeClasses.put(recipe.getName(), recipe.getClass().getName());
+            }
+            List<String> styleClasses = new ArrayList<>();
+            for (NamedStyles style : scanned.listStyles()) {
+                if (declarativeStyles.contains(style.getName())) {
+                    continue;
+                }
+                // Java styles are instantiated with their no-argument constructor
+                style.getClass().getDeclaredConstructor();
+                styleClasses.add(style.getClass().getName());
+            }
+            return new EnvironmentIndex(recipeClasses, styleClasses, yamlResources);
+        } catch (IOException | NoSuchMethodException | RuntimeException e) {
+            logger.info("Not indexing the rewrite classpath", e);
+            return null;
+        }
+    }
+
+    private static @Nullable EnvironmentIndex read(Path indexFile, String key) {
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(key)) {
+                return null;
+            }
+            Map<String, String> recipeClasses = new TreeMap<>();
+            List<String> styleClasses = new ArrayList<>();
+            List<String> yamlResources = new ArrayList<>();
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split(" ", 3);
+                switch (fields[0]) {
+                    case "recipe":
+                        recipeClasses.put(fields[1], fields[2]);
+                        break;
+                    case "style":
+                        styleClasses.add(fields[1]);
+                        break;
+                    case "yaml":
+                        yamlResources.add(line.substring("yaml ".length()));
+                        break;
+                    default:
+                        return null;
+                }
+            }
+            return new EnvironmentIndex(recipeClasses, styleClasses, yamlResources);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void write(Path indexFile, String key) {
+        List<String> lines = new ArrayList<>();
+        lines.add(key);
+        recipeClasses.forEach((name, recipeClass) -> lines.add("recipe " + name + " " + recipeClass));
+        styleClasses.forEach(styleClass -> lines.add("style " + styleClass));
+        yamlResources.forEach(resource -> lines.add("yaml " + resource));
+        try {
+            Files.createDirectories(indexFile.getParent());
+            Path temp = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The classpath is scanned again by the next build
+            logger.info("Unable to write the recipe index {}", indexFile, e);
+        }
+    }
+
+    /**
+     * The jars of the rewrite classpath that {@code classLoader} loads recipes from, or {@code null} when it loads
+     * classes from anything other than jars. The classes that it leaves to its parents, such as those of Gradle, do
+     * not include recipes.
+     */
+    private static @Nullable List<Path> jars(ClassLoader classLoader) {
+        if (!(classLoader instanceof URLClassLoader)) {
+            return null;
+        }
+        List<Path> jars = new ArrayList<>();
+        for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+            try {
+                Path path = Paths.get(url.toURI());
+                if (!Files.isRegularFile(path)) {
+                    return null;
+                }
+                jars.add(path);
+            } catch (URISyntaxException | RuntimeException e) {
+                return null;
+            }
+        }
+        return jars;
+    }
+
+    private static @Nullable String key(List<Path> jars, FileIndex fileIndex) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+            for (Path jar : jars) {
+                digest.update(jar.toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(fileIndex.hash(jar));
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (IOException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static URI yamlUri(Path jar, String entryName) {
+        return URI.create("jar:" + jar.toUri() + "!/" + entryName);
+    }
+
+    private static byte[] readAllBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static class IndexedResourceLoader implements ResourceLoader {
+        private final List<Recipe> recipes;
+        private final List<NamedStyles> styles;
+
+        IndexedResourceLoader(List<Recipe> recipes, List<NamedStyles> styles) {
+            this.recipes = recipes;
+            this.styles = styles;
+        }
+
+        @Override
+        public Collection<Recipe> listRecipes() {
+            return recipes;
+        }
+
+        @Override
+        public Collection<RecipeDescriptor> listRecipeDescriptors() {
+            return recipes.stream().map(Recipe::getDescriptor).collect(toList());
+        }
+
+        @Override
+        public Collection<NamedStyles> listStyles() {
+            return styles;
+        }
+
+        @Override
+        public Collection<CategoryDescriptor> listCategoryDescriptors() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Map<String, List<Contributor>> listContributors() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, List<RecipeExample>> listRecipeExamples() {
+            return Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.gradle.api.logging.Logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The size, modification time and content hash of the files that were read by previous builds, kept between builds so
+ * that the content of a file is only read and hashed again when its size or modification time changed. The files of
+ * a build are indexed when their parse is planned, so {@link #changed(Path)} tells whether a file changed since the
+ * last build with a stat call.
+ * <p>
+ * A file that is modified within the resolution of the file system clock after it was hashed may keep its size and
+ * modification time, so files modified less than {@link #RACY_MILLIS} before they were hashed are not remembered.
+ * <p>
+ * The index is written by {@link #save()} in a compact binary layout. An index that can not be read, for example
+ * because it was written by another version of the layout, is discarded.
+ */
+class FileIndex {
+    private static final int MAGIC = 0x72774649;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HASH_BYTES = 32;
+    private static final long RACY_MILLIS = 2000;
+
+    private final Path indexFile;
+    private final Path baseDir;
+    private final Map<String, Entry> entries;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private volatile boolean dirty;
+
+    private FileIndex(Path indexFile, Path baseDir, Map<String, Entry> entries) {
+        this.indexFile = indexFile;
+        this.baseDir = baseDir;
+        this.entries = entries;
+    }
+
+    /**
+     * Read the index that previous builds wrote to {@code indexFile}, if there is one.
+     *
+     * @param baseDir The directory that paths in the index are relative to.
+     */
+    static FileIndex load(Path indexFile, Path baseDir) {
+        Map<String, Entry> entries = new ConcurrentHashMap<>();
+        if (Files.isRegularFile(indexFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION) {
+                    int size = in.readInt();
+                    for (int i = 0; i < size; i++) {
+                        String path = in.readUTF();
+                        long length = in.readLong();
+                        long lastModified = in.readLong();
+                        byte[] hash = new byte[HASH_BYTES];
+                        in.readFully(hash);
+                        entries.put(path, new Entry(length, lastModified, hash));
+                    }
+                }
+            } catch (IOException e) {
+                // Every file is hashed again
+                entries.clear();
+            }
+        }
+        return new FileIndex(indexFile, baseDir.toAbsolutePath().normalize(), entries);
+    }
+
+    /**
+     * @return Whether the size or modification time of {@code file} differ from when it was last hashed, or it was
+     * never hashed, which is answered with a single stat call.
+     */
+    boolean changed(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Entry entry = entries.get(key(file));
+        return entry == null || !entry.matches(attributes);
+    }
+
+    /**
+     * Hash the files that changed since they were last hashed, so that the index covers the files of a build as they
+     * are planned to be parsed. Files that can not be read are left out, and are reported when they are parsed.
+     */
+    void update(Collection<Path> files) {
+        for (Path file : files) {
+            try {
+                hash(file);
+            } catch (IOException ignored) {
+                // Not indexed
+            }
+        }
+    }
+
+    /**
+     * @return The SHA-256 hash of the content of {@code file}, which is only read when it changed since it was last
+     * hashed.
+     */
+    byte[] hash(Path file) throws IOException {
+        String key = key(file);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.matches(attributes)) {
+            hits.incrementAndGet();
+            return entry.hash;
+        }
+
+        misses.incrementAndGet();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(Files.readAllBytes(file));
+        byte[] hash = digest.digest();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (System.currentTimeMillis() - lastModified >= RACY_MILLIS) {
+            entries.put(key, new Entry(attributes.size(), lastModified, hash));
+            dirty = true;
+        } else {
+            entries.remove(key);
+        }
+        return hash;
+    }
+
+    /**
+     * Write the index if any file was hashed. Files that were not used by this build are kept as long as they exist.
+     */
+    void save() {
+        if (!dirty) {
+            return;
+        }
+        entries.keySet().removeIf(key -> !Files.exists(baseDir.resolve(key)));
+        Path temp = null;
+        try {
+            Files.createDirectories(indexFile.getParent());
+            temp = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().length);
+                    out.writeLong(entry.getValue().lastModified);
+                    out.write(entry.getValue().hash);
+                }
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            try {
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+                // Left behind in the directory of the index
+            }
+            // Files are hashed again by the next build
+        }
+    }
+
+    void logStatistics(Logger logger) {
+        logger.info("File index: {} unchanged files, {} hashed", hits.get(), misses.get());
+    }
+
+    private String key(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        return absolute.startsWith(baseDir) ? baseDir.relativize(absolute).toString() : absolute.toString();
+    }
+
+    private static class Entry {
+        final long length;
+        final long lastModified;
+        final byte[] hash;
+
+        Entry(long length, long lastModified, byte[] hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return length == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+}
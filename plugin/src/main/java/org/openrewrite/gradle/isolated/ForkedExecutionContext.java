@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.DelegatingExecutionContext;
+import org.openrewrite.ExecutionContext;
+
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.openrewrite.tree.ParsingExecutionContextView.view;
+
+/**
+ * An execution context for a single parser invocation. The messages that are written when the context is forked, such
+ * as the charset of the sources being parsed, stay local to that invocation instead of being written to the shared
+ * execution context, so that several parsers can run concurrently with different settings. All other messages, such
+ * as the data tables and caches that parsers record for later phases, are read from and written to the shared
+ * context, and errors are reported to its error handler.
+ */
+class ForkedExecutionContext extends DelegatingExecutionContext {
+    private static final Object NULL = new Object();
+
+    private final Set<String> localKeys = ConcurrentHashMap.newKeySet();
+    private final Map<String, Object> local = new ConcurrentHashMap<>();
+    private boolean forking;
+
+    private ForkedExecutionContext(ExecutionContext delegate) {
+        super(delegate);
+    }
+
+    static ExecutionContext withCharset(ExecutionContext ctx, @Nullable Charset charset) {
+        ForkedExecutionContext forked = new ForkedExecutionContext(ctx);
+        forked.forking = true;
+        view(forked).setCharset(charset);
+        forked.forking = false;
+        return forked;
+    }
+
+    @Override
+    public void putMessage(String key, @Nullable Object value) {
+        if (forking) {
+            localKeys.add(key);
+        }
+        if (localKeys.contains(key)) {
+            local.put(key, value == null ? NULL : value);
+        } else {
+            super.putMessage(key, value);
+        }
+    }
+
+    @Override
+    public <T> @Nullable T getMessage(String key) {
+        Object value = local.get(key);
+        if (value == null) {
+            return super.getMessage(key);
+        }
+        //noinspection unchecked
+        return value == NULL ? null : (T) value;
+    }
+
+    @Override
+    public <T> @Nullable T pollMessage(String key) {
+        Object value = local.remove(key);
+        if (value == null) {
+            return super.pollMessage(key);
+        }
+        //noinspection unchecked
+        return value == NULL ? null : (T) value;
+    }
+}
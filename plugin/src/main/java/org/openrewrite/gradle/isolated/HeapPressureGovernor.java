@@ -0,0 +1,268 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.JvmHeapPressureMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Watches how much of the old generation is still in use after garbage collections and how much time is spent
+ * collecting garbage, and makes rewrite use less heap when either crosses its threshold, so that a build that runs short
+ * of heap slows down instead of failing with an {@link OutOfMemoryError}.
+ * <p>
+ * When the pressure is elevated, Java sources are parsed in batches of half the planned size and the registered
+ * reliefs, like dropping cached types and idle parsers, are run. When the old generation is still more than halfway
+ * from the threshold to full after collections, the pressure is critical: batches are a quarter of the planned size,
+ * the reliefs are run again and no further batch is started until the pressure eases, or for at most
+ * {@link #MAX_PAUSE}.
+ */
+class HeapPressureGovernor implements AutoCloseable {
+    private static final Logger logger = Logging.getLogger(HeapPressureGovernor.class);
+
+    static final int MIN_BATCH_SIZE = 25;
+    static final Duration CHECK_INTERVAL = Duration.ofSeconds(1);
+    static final Duration MAX_PAUSE = Duration.ofMinutes(1);
+
+    enum Pressure {
+        NORMAL,
+        ELEVATED,
+        CRITICAL
+    }
+
+    private final double oldGenThreshold;
+    private final double criticalOldGenThreshold;
+    private final double gcOverheadThreshold;
+    private final DoubleSupplier oldGenUsage;
+    private final DoubleSupplier gcOverhead;
+    private final Map<Runnable, String> reliefs = new LinkedHashMap<>();
+    private volatile Pressure pressure = Pressure.NORMAL;
+    private int escalations;
+    private int pauses;
+    private long pausedNanos;
+
+    private @Nullable AutoCloseable metrics;
+    private @Nullable ScheduledExecutorService checker;
+
+    /**
+     * @param oldGenPercent     The percentage of the old generation in use after collections at which the pressure is
+     *                          elevated.
+     * @param gcOverheadPercent The percentage of time spent collecting garbage at which the pressure is elevated.
+     * @param oldGenUsage       The fraction of the old generation in use after the latest collection.
+     * @param gcOverhead        The fraction of recent time spent collecting garbage.
+     */
+    HeapPressureGovernor(int oldGenPercent, int gcOverheadPercent, DoubleSupplier oldGenUsage, DoubleSupplier gcOverhead) {
+        this.oldGenThreshold = oldGenPercent / 100.0;
+        this.criticalOldGenThreshold = (1 + oldGenThreshold) / 2;
+        this.gcOverheadThreshold = gcOverheadPercent / 100.0;
+        this.oldGenUsage = oldGenUsage;
+        this.gcOverhead = gcOverhead;
+    }
+
+    /**
+     * Start watching the heap of this JVM, checking the pressure every {@link #CHECK_INTERVAL} until the governor is
+     * closed.
+     */
+    static HeapPressureGovernor start(int oldGenPercent, int gcOverheadPercent) {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JvmHeapPressureMetrics heapMetrics = new JvmHeapPressureMetrics(emptyList(), Duration.ofMinutes(1), CHECK_INTERVAL);
+        heapMetrics.bindTo(meterRegistry);
+        HeapPressureGovernor governor = new HeapPressureGovernor(oldGenPercent, gcOverheadPercent,
+                () -> gauge(meterRegistry, "jvm.memory.usage.after.gc"),
+                () -> gauge(meterRegistry, "jvm.gc.overhead"));
+        governor.metrics = heapMetrics;
+        governor.checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rewrite-heap-pressure-governor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        governor.checker.scheduleWithFixedDelay(governor::check, CHECK_INTERVAL.toMillis(), CHECK_INTERVAL.toMillis(),
+                TimeUnit.MILLISECONDS);
+        return governor;
+    }
+
+    private static double gauge(MeterRegistry meterRegistry, String name) {
+        Gauge gauge = meterRegistry.find(name).gauge();
+        return gauge == null ? 0 : gauge.value();
+    }
+
+    /**
+     * Run {@code relief} every time the pressure rises, as long as it is registered.
+     *
+     * @param what What the relief releases, for the log.
+     */
+    synchronized void addRelief(String what, Runnable relief) {
+        reliefs.put(relief, what);
+    }
+
+    synchronized void removeRelief(Runnable relief) {
+        reliefs.remove(relief);
+    }
+
+    Pressure getPressure() {
+        return pressure;
+    }
+
+    /**
+     * Compare the heap with the thresholds, and react when the pressure rises.
+     */
+    synchronized Pressure check() {
+        double usage = fraction(oldGenUsage.getAsDouble());
+        double overhead = fraction(gcOverhead.getAsDouble());
+        Pressure current;
+        if (usage >= criticalOldGenThreshold) {
+            current = Pressure.CRITICAL;
+        } else if (usage >= oldGenThreshold || overhead >= gcOverheadThreshold) {
+            current = Pressure.ELEVATED;
+        } else {
+            current = Pressure.NORMAL;
+        }
+
+        Pressure previous = pressure;
+        if (current == previous) {
+            return current;
+        }
+        pressure = current;
+        if (current.compareTo(previous) < 0) {
+            logger.lifecycle("Heap pressure eased to {} ({}% of the old generation in use after GC, {}% of time in GC), " +
+                             "parsing Java sources in batches of {}",
+                    describe(current), percent(usage), percent(overhead), describeBatchSize(current));
+            notifyAll();
+            return current;
+        }
+
+        escalations++;
+        logger.warn("Heap pressure is {} ({}% of the old generation in use after GC, {}% of time in GC), " +
+                    "parsing Java sources in batches of {}{}",
+                describe(current), percent(usage), percent(overhead), describeBatchSize(current),
+                current == Pressure.CRITICAL ? " and pausing until the pressure eases" : "");
+        for (Map.Entry<Runnable, String> relief : new ArrayList<>(reliefs.entrySet())) {
+            relief.getKey().run();
+            logger.warn("Released {} to ease heap pressure", relief.getValue());
+        }
+        // The old generation is measured after collections, so ask for one rather than wait for it. Parsing threads
+        // only check again while the pressure is critical, so escalations happen on the checker thread.
+        //noinspection CallToSystemGC
+        System.gc();
+        return current;
+    }
+
+    /**
+     * The size of the next batch of sources to parse.
+     *
+     * @param planned The number of sources that would be parsed at once without heap pressure.
+     */
+    int batchSize(int planned) {
+        switch (pressure) {
+            case ELEVATED:
+                return Math.min(planned, Math.max(MIN_BATCH_SIZE, planned / 2));
+            case CRITICAL:
+                return Math.min(planned, Math.max(MIN_BATCH_SIZE, planned / 4));
+            default:
+                return planned;
+        }
+    }
+
+    /**
+     * Wait until the pressure is no longer critical before more sources are parsed, or for at most
+     * {@link #MAX_PAUSE}.
+     */
+    void awaitRelief() {
+        if (pressure != Pressure.CRITICAL) {
+            return;
+        }
+        long start = System.nanoTime();
+        synchronized (this) {
+            pauses++;
+            try {
+                while (check() == Pressure.CRITICAL && System.nanoTime() - start < MAX_PAUSE.toNanos()) {
+                    wait(CHECK_INTERVAL.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                pausedNanos += System.nanoTime() - start;
+            }
+            if (pressure == Pressure.CRITICAL) {
+                logger.warn("Resuming parsing after {} seconds, although heap pressure is still critical",
+                        TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+            } else {
+                logger.lifecycle("Resuming parsing after {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+    }
+
+    synchronized void logStatistics(Logger logger) {
+        if (escalations > 0) {
+            logger.lifecycle("Heap pressure rose {} times, parsing was paused {} times for {} seconds in total",
+                    escalations, pauses, TimeUnit.NANOSECONDS.toSeconds(pausedNanos));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (checker != null) {
+            checker.shutdownNow();
+            checker = null;
+        }
+        if (metrics != null) {
+            try {
+                metrics.close();
+            } catch (Exception e) {
+                logger.debug("Unable to stop watching heap pressure", e);
+            }
+            metrics = null;
+        }
+    }
+
+    private static String describe(Pressure pressure) {
+        return pressure.name().toLowerCase();
+    }
+
+    private static String describeBatchSize(Pressure pressure) {
+        switch (pressure) {
+            case ELEVATED:
+                return "half the planned size";
+            case CRITICAL:
+                return "a quarter of the planned size";
+            default:
+                return "the planned size";
+        }
+    }
+
+    private static double fraction(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    private static long percent(double fraction) {
+        return Math.round(fraction * 100);
+    }
+}
@@ -0,0 +1,511 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.SourceFile;
+import org.openrewrite.internal.ObjectMappers;
+import org.openrewrite.java.marker.JavaVersion;
+import org.openrewrite.marker.Marker;
+import org.openrewrite.tree.ParseExceptionResult;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * An on-disk cache of parsed source files that is kept between builds, so that files which have not changed are read
+ * from the cache instead of being parsed again.
+ * <p>
+ * The key of an entry covers everything that the parse result depends on: the version of the rewrite libraries, the
+ * kind of parser and its settings, the charset, the Java version of the source set and the content of the parsed
+ * files. Java, Kotlin, Groovy and Gradle files are attributed with the types of each other and of their classpath, so
+ * they are cached per group of files, with a key that also covers the classpath; when any file of the group changes,
+ * the whole group is parsed again. Other files are parsed on their own, and are cached and parsed again one file at a
+ * time.
+ * <p>
+ * Source files are cached as the parser returns them, before markers are added, so that markers describing the build
+ * are always current. Results with parse errors are not cached. A cache entry that can not be read, for example because
+ * it was written by a version of rewrite whose trees can not be deserialized, is treated as a miss. A
+ * {@link RoundTripSample sample} of the entries is read back as it is written, and source files of a type whose
+ * deserialized sources do not print the same as the parsed ones are no longer cached.
+ * <p>
+ * When the cache grows past its maximum size, {@link #evict()} deletes the entries that were used least recently.
+ * The size of the cache is recorded in a marker file, to which every build adds the size of the entries it wrote, so
+ * that the cache is only walked once the recorded size is over the maximum. Builds that write to the cache at the same
+ * time may each miss the other's entries, which are then counted when the cache is walked next.
+ */
+class LstCache {
+    private static final String FORMAT_VERSION = "1";
+    private static final String SUFFIX = ".json.gz";
+    private static final String SIZE_MARKER = "size";
+    private static final TypeReference<List<SourceFile>> SOURCE_FILES = new TypeReference<List<SourceFile>>() {
+    };
+
+    private final Path directory;
+    private final Path baseDir;
+    private final long maxBytes;
+    private final boolean refresh;
+    private final ObjectMapper mapper;
+    private final String rewriteFingerprint;
+    private final String parserSettings;
+    private final FileIndex fileIndex;
+    private final RoundTripSample roundTrips = new RoundTripSample();
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicLong written = new AtomicLong();
+    private int evictions;
+
+    /**
+     * @param baseDir The directory that the source paths of parsed source files are relative to.
+     * @param parserSettings The settings that the parsers are configured with, such as plain text masks, which are part
+     *                       of the key of every entry.
+     * @param refresh        Whether to parse all files again and replace their cache entries, ignoring what is cached.
+     * @param fileIndex      The content hashes of files, so that unchanged files are not read to compute their keys.
+     */
+    LstCache(Path directory, Path baseDir, int maxMegabytes, String parserSettings, boolean refresh, FileIndex fileIndex) {
+        this.directory = directory;
+        this.baseDir = baseDir;
+        this.fileIndex = fileIndex;
+        this.maxBytes = maxMegabytes * 1024L * 1024L;
+        this.parserSettings = parserSettings;
+        this.refresh = refresh;
+        this.mapper = ObjectMappers.propertyBasedMapper(LstCache.class.getClassLoader())
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.rewriteFingerprint = rewriteFingerprint();
+    }
+
+    /**
+     * @param classpath The classpath that the files are attributed with, which is part of the key of typed files.
+     * @param markers   The markers of the group, of which the Java version is part of the key.
+     * @param parse     Parses the given files, which are the files that were not found in the cache. For Java, Kotlin,
+     *                  Groovy and Gradle files these are always all {@code paths}.
+     * @return The parsed source files, which are read from the cache or parsed lazily when the stream is consumed.
+     */
+    Stream<SourceFile> parse(ParseManifest.Kind kind,
+                             @Nullable Charset charset,
+                             Collection<Path> classpath,
+                             List<Marker> markers,
+                             List<Path> paths,
+                             Function<List<Path>, Stream<SourceFile>> parse) {
+        if (paths.isEmpty()) {
+            return parse.apply(paths);
+        }
+        switch (kind) {
+            case JAVA:
+            case KOTLIN:
+            case GROOVY:
+            case GRADLE:
+                return Stream.of(paths).flatMap(p -> parseGroup(kind, charset, classpath, markers, p, parse));
+            default:
+                return Stream.of(paths).flatMap(p -> parseFiles(kind, charset, p, parse));
+        }
+    }
+
+    private Stream<SourceFile> parseGroup(ParseManifest.Kind kind,
+                                          @Nullable Charset charset,
+                                          Collection<Path> classpath,
+                                          List<Marker> markers,
+                                          List<Path> paths,
+                                          Function<List<Path>, Stream<SourceFile>> parse) {
+        String key;
+        try {
+            Digest digest = new Digest(kind, charset);
+            digest.add(javaVersion(markers));
+            for (Path entry : classpath) {
+                digest.addClasspathEntry(entry);
+            }
+            for (Path path : paths) {
+                digest.add(path.toAbsolutePath().normalize().toString());
+                digest.addContent(path);
+            }
+            key = digest.hex();
+        } catch (IOException | UncheckedIOException e) {
+            return parse.apply(paths);
+        }
+
+        List<SourceFile> cached = read(key);
+        if (cached != null && cached.size() == paths.size()) {
+            hits.addAndGet(paths.size());
+            return cached.stream();
+        }
+        misses.addAndGet(paths.size());
+        List<SourceFile> parsed;
+        try (Stream<SourceFile> sourceFiles = parse.apply(paths)) {
+            parsed = sourceFiles.collect(toList());
+        }
+        write(key, parsed);
+        return parsed.stream();
+    }
+
+    private Stream<SourceFile> parseFiles(ParseManifest.Kind kind,
+                                          @Nullable Charset charset,
+                                          List<Path> paths,
+                                          Function<List<Path>, Stream<SourceFile>> parse) {
+        Map<Path, List<SourceFile>> cached = new HashMap<>();
+        Map<Path, String> keys = new HashMap<>();
+        List<Path> unparsed = new ArrayList<>();
+        for (Path path : paths) {
+            try {
+                Digest digest = new Digest(kind, charset);
+                digest.add(path.toAbsolutePath().normalize().toString());
+                digest.addContent(path);
+                String key = digest.hex();
+                List<SourceFile> sourceFiles = read(key);
+                if (sourceFiles != null) {
+                    cached.put(path, sourceFiles);
+                    continue;
+                }
+                keys.put(path, key);
+            } catch (IOException | UncheckedIOException ignored) {
+                // Parsed, but not cached
+            }
+            unparsed.add(path);
+        }
+        hits.addAndGet(paths.size() - unparsed.size());
+        misses.addAndGet(unparsed.size());
+        if (unparsed.isEmpty()) {
+            return paths.stream().flatMap(p -> cached.get(p).stream());
+        }
+
+        List<SourceFile> unmatched = new ArrayList<>();
+        Map<Path, Path> byAbsolutePath = new HashMap<>();
+        for (Path path : unparsed) {
+            byAbsolutePath.put(path.toAbsolutePath().normalize(), path);
+        }
+        try (Stream<SourceFile> sourceFiles = parse.apply(unparsed)) {
+            sourceFiles.forEach(sourceFile -> {
+                Path path = byAbsolutePath.get(baseDir.resolve(sourceFile.getSourcePath()).toAbsolutePath().normalize());
+                if (path == null) {
+                    unmatched.add(sourceFile);
+                } else {
+                    cached.put(path, singletonList(sourceFile));
+                }
+            });
+        }
+        for (Path path : unparsed) {
+            String key = keys.get(path);
+            List<SourceFile> parsed = cached.get(path);
+            if (key != null && parsed != null) {
+                write(key, parsed);
+            }
+        }
+        // Returned in the planned order, as the parser would have returned them
+        return Stream.concat(
+                paths.stream().flatMap(p -> cached.getOrDefault(p, Collections.emptyList()).stream()),
+                unmatched.stream());
+    }
+
+    private @Nullable List<SourceFile> read(String key) {
+        if (refresh) {
+            return null;
+        }
+        Path entry = entry(key);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            List<SourceFile> sourceFiles = mapper.readValue(in, SOURCE_FILES);
+            // Recently used entries are the last to be evicted
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return sourceFiles;
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException ignored) {
+                // Overwritten when the files are parsed
+            }
+            return null;
+        }
+    }
+
+    private void write(String key, List<SourceFile> sourceFiles) {
+        for (SourceFile sourceFile : sourceFiles) {
+            if (sourceFile.getMarkers().findFirst(ParseExceptionResult.class).isPresent()) {
+                return;
+            }
+        }
+        Path entry = entry(key);
+        Path temp = null;
+        try {
+            byte[] serialized = mapper.writeValueAsBytes(sourceFiles);
+            if (!roundTrips(sourceFiles, serialized)) {
+                failures.incrementAndGet();
+                return;
+            }
+            Files.createDirectories(entry.getParent());
+            temp = Files.createTempFile(entry.getParent(), key, ".tmp");
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.write(serialized);
+            }
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            written.addAndGet(Files.size(entry));
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Cleaned up by eviction
+                }
+            }
+        }
+    }
+
+    private boolean roundTrips(List<SourceFile> sourceFiles, byte[] serialized) {
+        boolean check = false;
+        for (SourceFile sourceFile : sourceFiles) {
+            if (roundTrips.isUntrusted(sourceFile)) {
+                return false;
+            }
+            check |= roundTrips.shouldCheck(sourceFile);
+        }
+        if (!check) {
+            return true;
+        }
+
+        List<SourceFile> deserialized;
+        try {
+            deserialized = mapper.readValue(serialized, SOURCE_FILES);
+        } catch (IOException | RuntimeException e) {
+            deserialized = Collections.emptyList();
+        }
+        boolean printsTheSame = true;
+        for (int i = 0; i < sourceFiles.size(); i++) {
+            SourceFile sourceFile = sourceFiles.get(i);
+            if (roundTrips.shouldCheck(sourceFile)) {
+                boolean same = i < deserialized.size() &&
+                               sourceFile.printAll().equals(deserialized.get(i).printAll());
+                roundTrips.record(sourceFile, same);
+                printsTheSame &= same;
+            }
+        }
+        return printsTheSame && deserialized.size() == sourceFiles.size();
+    }
+
+    private Path entry(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+    /**
+     * Delete the least recently used entries when the cache is larger than its maximum size, until it is no larger than
+     * nine tenths of it, so that the following builds can add entries without walking the cache again.
+     */
+    synchronized void evict() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Path sizeMarker = directory.resolve(SIZE_MARKER);
+        long recorded = recordedSize(sizeMarker);
+        if (recorded >= 0 && recorded + written.get() <= maxBytes) {
+            if (written.get() > 0) {
+                recordSize(sizeMarker, recorded + written.getAndSet(0));
+            }
+            return;
+        }
+        written.set(0);
+
+        List<Path> entries;
+        try (Stream<Path> files = Files.walk(directory)) {
+            entries = files.filter(Files::isRegularFile)
+                    .filter(file -> !file.equals(sizeMarker))
+                    .collect(toList());
+        } catch (IOException | UncheckedIOException e) {
+            return;
+        }
+        Map<Path, Long> lastModified = new HashMap<>();
+        long size = 0;
+        for (Path entry : entries) {
+            try {
+                size += Files.size(entry);
+                lastModified.put(entry, Files.getLastModifiedTime(entry).toMillis());
+            } catch (IOException ignored) {
+                // Deleted concurrently
+            }
+        }
+        entries = new ArrayList<>(lastModified.keySet());
+        entries.sort(Comparator.comparing(lastModified::get));
+        long lowWaterMark = size <= maxBytes ? maxBytes : maxBytes / 10 * 9;
+        for (Path entry : entries) {
+            if (size <= lowWaterMark) {
+                break;
+            }
+            try {
+                long entrySize = Files.size(entry);
+                Files.delete(entry);
+                size -= entrySize;
+                evictions++;
+            } catch (IOException ignored) {
+                // Deleted concurrently
+            }
+        }
+        recordSize(sizeMarker, size);
+    }
+
+    /**
+     * The size of the cache as recorded in {@code sizeMarker}, or {@code -1} when it is unknown.
+     */
+    private static long recordedSize(Path sizeMarker) {
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(sizeMarker), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void recordSize(Path sizeMarker, long size) {
+        try {
+            Path temp = Files.createTempFile(sizeMarker.getParent(), SIZE_MARKER, ".tmp");
+            Files.write(temp, Long.toString(size).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, sizeMarker, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The cache is walked again by the next build
+        }
+    }
+
+    void logStatistics(Logger logger) {
+        if (hits.get() + misses.get() > 0) {
+            logger.info("LST cache served {} source files, parsed {} and evicted {} entries", hits.get(), misses.get(), evictions);
+        }
+        if (failures.get() > 0) {
+            logger.info("LST cache could not read or write {} entries", failures.get());
+        }
+    }
+
+    private static String javaVersion(List<Marker> markers) {
+        for (Marker marker : markers) {
+            if (marker instanceof JavaVersion) {
+                JavaVersion javaVersion = (JavaVersion) marker;
+                return javaVersion.getSourceCompatibility() + "/" + javaVersion.getTargetCompatibility();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * The jars that rewrite is loaded from, by path, size and modification time, so that entries written by other
+     * versions of rewrite are never read.
+     */
+    static String rewriteFingerprint() {
+        List<URL> urls = new ArrayList<>();
+        ClassLoader classLoader = LstCache.class.getClassLoader();
+        if (classLoader instanceof URLClassLoader) {
+            urls.addAll(Arrays.asList(((URLClassLoader) classLoader).getURLs()));
+        } else {
+            CodeSource codeSource = SourceFile.class.getProtectionDomain().getCodeSource();
+            if (codeSource != null) {
+                urls.add(codeSource.getLocation());
+            }
+        }
+        StringBuilder fingerprint = new StringBuilder(FORMAT_VERSION);
+        for (URL url : urls) {
+            fingerprint.append('|').append(url);
+            try {
+                Path path = Paths.get(url.toURI());
+                if (Files.isRegularFile(path)) {
+                    fingerprint.append(':').append(Files.size(path))
+                            .append(':').append(Files.getLastModifiedTime(path).toMillis());
+                }
+            } catch (URISyntaxException | IOException | RuntimeException ignored) {
+                // Identified by its URL alone
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    private class Digest {
+        private final MessageDigest digest;
+
+        Digest(ParseManifest.Kind kind, @Nullable Charset charset) {
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            add(rewriteFingerprint);
+            add(parserSettings);
+            add(kind.name());
+            add(charset == null ? "" : charset.name());
+        }
+
+        void add(String value) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        void addContent(Path path) throws IOException {
+            digest.update(fileIndex.hash(path));
+            digest.update((byte) 0);
+        }
+
+        /**
+         * Classpath entries are identified by their modification time rather than their content, which is too large to
+         * hash on every build. Directories, such as the output of other projects, by their most recent modification.
+         */
+        void addClasspathEntry(Path entry) throws IOException {
+            add(entry.toAbsolutePath().normalize().toString());
+            if (Files.isDirectory(entry)) {
+                long files = 0;
+                long lastModified = 0;
+                try (Stream<Path> walk = Files.walk(entry)) {
+                    for (Iterator<Path> it = walk.iterator(); it.hasNext(); ) {
+                        Path file = it.next();
+                        files++;
+                        lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+                    }
+                }
+                add(files + ":" + lastModified);
+            } else if (Files.exists(entry)) {
+                add(Files.size(entry) + ":" + Files.getLastModifiedTime(entry).toMillis());
+            } else {
+                add("missing");
+            }
+        }
+
+        String hex() {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+    }
+}
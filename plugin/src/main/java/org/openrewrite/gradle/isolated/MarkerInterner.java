@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.java.marker.JavaVersion;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.marker.Marker;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.openrewrite.Tree.randomId;
+
+/**
+ * Shares the markers of source sets and projects that are identical, so that the whole run holds one copy of each.
+ * <p>
+ * The types on the classpath of a {@link JavaSourceSet} are computed once per distinct classpath, and source sets with
+ * the same classpath, such as the variants of an Android project or the source sets of a Kotlin multiplatform project,
+ * get markers of their own that share those types. {@link JavaVersion} markers that describe the same Java version are
+ * the same marker.
+ */
+class MarkerInterner {
+    /**
+     * Rough sizes of the objects that a duplicate marker would have retained, to report what interning saved.
+     */
+    private static final int TYPE_BYTES = 64;
+    private static final int STRING_BYTES = 40;
+    private static final int JAVA_VERSION_BYTES = 96;
+
+    private final Map<List<Path>, JavaSourceSet> sourceSets = new HashMap<>();
+    private final Map<String, JavaVersion> javaVersions = new HashMap<>();
+    private long sharedSourceSets;
+    private long sharedJavaVersions;
+    private long savedBytes;
+
+    /**
+     * Build the {@link JavaSourceSet} marker of a source set, computing the types on its classpath only if no source set
+     * with the same classpath was built before.
+     */
+    synchronized JavaSourceSet javaSourceSet(String name, Collection<Path> classpath) {
+        List<Path> key = new ArrayList<>(classpath);
+        JavaSourceSet built = sourceSets.get(key);
+        if (built == null) {
+            built = JavaSourceSet.build(name, classpath);
+            sourceSets.put(key, built);
+            return built;
+        }
+        sharedSourceSets++;
+        for (JavaType.FullyQualified type : built.getClasspath()) {
+            savedBytes += TYPE_BYTES + STRING_BYTES + type.getFullyQualifiedName().length();
+        }
+        return built.withId(randomId()).withName(name);
+    }
+
+    /**
+     * @return An identical marker that was interned before, or {@code marker} itself. Only {@link JavaVersion} markers
+     * are interned, other markers are returned as they are.
+     */
+    synchronized Marker intern(Marker marker) {
+        if (marker instanceof JavaVersion) {
+            JavaVersion javaVersion = (JavaVersion) marker;
+            String key = javaVersion.getCreatedBy() + '\n' + javaVersion.getVmVendor() + '\n' +
+                         javaVersion.getSourceCompatibility() + '\n' + javaVersion.getTargetCompatibility();
+            JavaVersion interned = javaVersions.putIfAbsent(key, javaVersion);
+            if (interned != null && interned != javaVersion) {
+                sharedJavaVersions++;
+                savedBytes += JAVA_VERSION_BYTES;
+                return interned;
+            }
+        }
+        return marker;
+    }
+
+    /**
+     * @return An estimate of the heap that interning saved so far, in bytes.
+     */
+    synchronized long getSavedBytes() {
+        return savedBytes;
+    }
+
+    synchronized String describeSavings() {
+        return String.format("Shared the classpath types of %d source sets and %d Java version markers, saving about %,d KB",
+                sharedSourceSets, sharedJavaVersions, savedBytes / 1024);
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.*;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.marker.Marker;
+import org.openrewrite.style.NamedStyles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Remembers which files the active recipes made no change to, so that those files are not visited again by later runs
+ * as long as neither the files nor the recipes change.
+ * <p>
+ * A file is remembered by its path and content, the descriptor of the recipe including its options, the styles
+ * attached to the file, the types on the classpath of its source set and the version of rewrite. Recipes whose changes
+ * depend on anything else, such as the latest versions of dependencies in a remote repository, may miss changes to
+ * remembered files; those files are visited again when any of the above changes.
+ * <p>
+ * Remembered files are left as they are by the recipes, whether the source set is held on heap or spilled to disk.
+ * Recipes that scan all source files before they make changes could change a remembered file because of what they
+ * collected from other files, so they are run on all files, and nothing is remembered for them.
+ */
+class NoChangeMemo {
+    private final Path memoFile;
+    private final Path baseDir;
+    private final String recipeKey;
+    private final FileIndex fileIndex;
+    private final Set<String> memo;
+    private final Set<String> unchanged = new HashSet<>();
+    private final Map<NamedStyles, String> styleKeys = new IdentityHashMap<>();
+    private final Map<JavaSourceSet, String> sourceSetKeys = new IdentityHashMap<>();
+    private final Map<Path, @Nullable String> visitedKeys = new HashMap<>();
+    private final Set<Path> skipped = new HashSet<>();
+
+    private NoChangeMemo(Path memoFile, Path baseDir, String recipeKey, FileIndex fileIndex, Set<String> memo) {
+        this.memoFile = memoFile;
+        this.baseDir = baseDir;
+        this.recipeKey = recipeKey;
+        this.fileIndex = fileIndex;
+        this.memo = memo;
+    }
+
+    /**
+     * Read the files that were remembered by previous runs from {@code memoFile}, if it exists.
+     *
+     * @param baseDir   The directory that the source paths of source files are relative to.
+     * @param fileIndex The content hashes of files, so that unchanged files are not read to compute their keys.
+     */
+    static NoChangeMemo load(Path memoFile, Path baseDir, Recipe recipe, FileIndex fileIndex) {
+        Set<String> memo = new HashSet<>();
+        if (Files.isRegularFile(memoFile)) {
+            try {
+                memo.addAll(Files.readAllLines(memoFile, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                // Every file is visited again
+                memo.clear();
+            }
+        }
+        return new NoChangeMemo(memoFile, baseDir, LstCache.rewriteFingerprint() + "\n" + recipe.getDescriptor(), fileIndex, memo);
+    }
+
+    /**
+     * Run {@code recipe} on {@code sourceFiles}, and remember the files that it made no change to.
+     */
+    RecipeRun run(Recipe recipe, List<SourceFile> sourceFiles, ExecutionContext ctx) {
+        return run(recipe, new InMemoryLargeSourceSet(sourceFiles), ctx);
+    }
+
+    /**
+     * Run {@code recipe} on {@code sourceSet} without visiting the files that it is known to leave unchanged, and
+     * remember the files that it made no change to. A recipe that scans all source files is run on all of them.
+     */
+    RecipeRun run(Recipe recipe, LargeSourceSet sourceSet, ExecutionContext ctx) {
+        if (RecipeScope.findWholeBuildRecipe(recipe) != null) {
+            return recipe.run(sourceSet, ctx);
+        }
+        visitedKeys.clear();
+        RecipeRun recipeRun = recipe.run(new SkippingSourceSet(sourceSet), ctx);
+        for (Result result : recipeRun.getChangeset().getAllResults()) {
+            if (result.getBefore() != null) {
+                visitedKeys.remove(result.getBefore().getSourcePath());
+            }
+        }
+        for (String key : visitedKeys.values()) {
+            if (key != null) {
+                unchanged.add(key);
+            }
+        }
+        return recipeRun;
+    }
+
+    /**
+     * Leave {@code sourceFile} as it is when it is remembered as unchanged, and otherwise apply {@code map} to it.
+     */
+    private @Nullable SourceFile visit(SourceFile sourceFile, UnaryOperator<SourceFile> map) {
+        Path sourcePath = sourceFile.getSourcePath();
+        if (skipped.contains(sourcePath)) {
+            return sourceFile;
+        }
+        if (!visitedKeys.containsKey(sourcePath)) {
+            String key = key(sourceFile);
+            if (key != null && memo.contains(key)) {
+                unchanged.add(key);
+                skipped.add(sourcePath);
+                return sourceFile;
+            }
+            visitedKeys.put(sourcePath, key);
+        }
+        return map.apply(sourceFile);
+    }
+
+    /**
+     * @return The number of files that were not visited, because they were unchanged by previous runs.
+     */
+    int getSkipped() {
+        return skipped.size();
+    }
+
+    /**
+     * Replace the memo of previous runs with the files that were unchanged by this run, including the skipped ones.
+     * Files that were not part of this run are forgotten.
+     */
+    void save() {
+        List<String> lines = new ArrayList<>(unchanged);
+        Collections.sort(lines);
+        try {
+            Files.createDirectories(memoFile.getParent());
+            Path temp = Files.createTempFile(memoFile.getParent(), memoFile.getFileName().toString(), ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, memoFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The key of a source file, or {@code null} when its content can not be read.
+     */
+    private @Nullable String key(SourceFile sourceFile) {
+        byte[] content;
+        try {
+            content = fileIndex.hash(baseDir.resolve(sourceFile.getSourcePath()));
+        } catch (IOException e) {
+            return null;
+        }
+        MessageDigest digest = digest();
+        update(digest, recipeKey);
+        update(digest, sourceFile.getSourcePath().toString());
+        for (Marker marker : sourceFile.getMarkers().getMarkers()) {
+            if (marker instanceof NamedStyles) {
+                update(digest, styleKeys.computeIfAbsent((NamedStyles) marker,
+                        styles -> styles.getName() + styles.getStyles()));
+            } else if (marker instanceof JavaSourceSet) {
+                update(digest, sourceSetKeys.computeIfAbsent((JavaSourceSet) marker, NoChangeMemo::sourceSetKey));
+            }
+        }
+        digest.update(content);
+        return hex(digest);
+    }
+
+    /**
+     * A source set whose edits leave the files that are remembered as unchanged as they are. Only recipes that do not
+     * scan are run on it, so every edit is one that makes changes.
+     */
+    private final class SkippingSourceSet implements LargeSourceSet {
+        private final LargeSourceSet delegate;
+
+        SkippingSourceSet(LargeSourceSet delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void setRecipe(List<Recipe> recipeStack) {
+            delegate.setRecipe(recipeStack);
+        }
+
+        @Override
+        public void beforeCycle(boolean definitelyLastCycle) {
+            delegate.beforeCycle(definitelyLastCycle);
+        }
+
+        @Override
+        public LargeSourceSet edit(UnaryOperator<SourceFile> map) {
+            return wrap(delegate.edit(sourceFile -> visit(sourceFile, map)));
+        }
+
+        @Override
+        public LargeSourceSet generate(@Nullable Collection<? extends SourceFile> t) {
+            return wrap(delegate.generate(t));
+        }
+
+        @Override
+        public void afterCycle(boolean lastCycle) {
+            delegate.afterCycle(lastCycle);
+        }
+
+        @Override
+        public Changeset getChangeset() {
+            return delegate.getChangeset();
+        }
+
+        @Override
+        public @Nullable SourceFile getBefore(Path sourcePath) {
+            return delegate.getBefore(sourcePath);
+        }
+
+        private LargeSourceSet wrap(LargeSourceSet edited) {
+            return edited == delegate ? this : new SkippingSourceSet(edited);
+        }
+    }
+
+    private static String sourceSetKey(JavaSourceSet sourceSet) {
+        MessageDigest digest = digest();
+        update(digest, sourceSet.getName());
+        for (JavaType.FullyQualified type : sourceSet.getClasspath()) {
+            update(digest, type.getFullyQualifiedName());
+        }
+        return hex(digest);
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static String hex(MessageDigest digest) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
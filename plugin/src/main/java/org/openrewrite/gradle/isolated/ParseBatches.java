@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.SourceFile;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Splits the sources of a source set into batches that are parsed one after another, with the parser reset in between,
+ * so that the compiler state of one batch, such as javac's symbol tables, can be reclaimed before the next batch is
+ * parsed. The batches of a source set share a type cache, so types that were attributed in an earlier batch are not
+ * attributed again. Types declared in other batches are resolved from the classes that the source set was compiled to,
+ * which the classpath of a batched source set includes.
+ */
+final class ParseBatches {
+    private static final Logger logger = Logging.getLogger(ParseBatches.class);
+
+    /**
+     * Choose the batch size from the heap that is available when a source set is about to be parsed.
+     */
+    static final int AUTO = -1;
+
+    /**
+     * Compiling about 22,000 Java sources at once was observed to take about 12 GB of heap,
+     * or roughly half a megabyte per source file.
+     */
+    static final long ESTIMATED_BYTES_PER_SOURCE = 512 * 1024;
+
+    static final int MIN_AUTO_BATCH_SIZE = 100;
+    static final int MAX_AUTO_BATCH_SIZE = 5_000;
+
+    private ParseBatches() {
+    }
+
+    /**
+     * Parse {@code paths} in batches of {@code batchSize} files. A batch size of {@code 0} parses all files as a single
+     * batch, and {@link #AUTO} chooses the batch size from the available heap once parsing starts.
+     *
+     * @param concurrentParsers The number of parsers that may be running at the same time, which share the heap.
+     * @param parseBatch        Parses one batch, with a parser that is reset once the batch has been consumed.
+     */
+    static Stream<SourceFile> parse(List<Path> paths,
+                                    int batchSize,
+                                    int concurrentParsers,
+                                    Function<List<Path>, Stream<SourceFile>> parseBatch) {
+        return parse(paths, batchSize, concurrentParsers, null, parseBatch);
+    }
+
+    /**
+     * Parse {@code paths} in batches like {@link #parse(List, int, int, Function)}, but choose the size of each batch
+     * only when it is about to be parsed, so that batches get smaller while the heap is under pressure, and wait for
+     * the pressure to ease before a batch is parsed. A batch size of {@code 0} still parses all files as a single
+     * batch, because only batched source sets have the classes to resolve the types declared in other batches from.
+     *
+     * @param governor Watches the heap pressure, or {@code null} to plan all batches up front.
+     */
+    static Stream<SourceFile> parse(List<Path> paths,
+                                    int batchSize,
+                                    int concurrentParsers,
+                                    @Nullable HeapPressureGovernor governor,
+                                    Function<List<Path>, Stream<SourceFile>> parseBatch) {
+        if (governor == null) {
+            return Stream.of(paths)
+                    .flatMap(p -> partition(p, resolveBatchSize(batchSize, p.size(), concurrentParsers)).stream())
+                    .flatMap(parseBatch);
+        }
+        return Stream.of(paths)
+                .flatMap(p -> batches(p, resolveBatchSize(batchSize, p.size(), concurrentParsers), governor))
+                .flatMap(parseBatch);
+    }
+
+    private static Stream<List<Path>> batches(List<Path> paths, int batchSize, HeapPressureGovernor governor) {
+        Iterator<List<Path>> batches = new Iterator<List<Path>>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < paths.size();
+            }
+
+            @Override
+            public List<Path> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                governor.awaitRelief();
+                int size = batchSize <= 0 ? paths.size() : governor.batchSize(batchSize);
+                List<Path> batch = paths.subList(next, Math.min(paths.size(), next + size));
+                next += batch.size();
+                return batch;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * The number of parsers that may run at the same time when source sets and projects are parsed concurrently.
+     */
+    static int concurrentParsers(RewriteSettings settings) {
+        return Math.max(1, settings.parseParallelism) * Math.max(1, settings.projectParseParallelism);
+    }
+
+    static int resolveBatchSize(int batchSize, int sourceCount, int concurrentParsers) {
+        if (batchSize != AUTO) {
+            return batchSize;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        int auto = autoBatchSize(runtime.maxMemory(), runtime.totalMemory() - runtime.freeMemory(), concurrentParsers);
+        if (sourceCount > auto) {
+            logger.info("Parsing {} sources in batches of {} to fit the available heap", sourceCount, auto);
+        }
+        return auto;
+    }
+
+    /**
+     * The number of sources that fit into the free part of the heap when it is shared by {@code concurrentParsers}
+     * parsers, kept between {@link #MIN_AUTO_BATCH_SIZE} and {@link #MAX_AUTO_BATCH_SIZE}.
+     */
+    static int autoBatchSize(long maxHeap, long usedHeap, int concurrentParsers) {
+        if (maxHeap == Long.MAX_VALUE) {
+            return MAX_AUTO_BATCH_SIZE;
+        }
+        long headroom = Math.max(0, maxHeap - usedHeap);
+        long batchSize = headroom / (Math.max(1, concurrentParsers) * ESTIMATED_BYTES_PER_SOURCE);
+        return (int) Math.max(MIN_AUTO_BATCH_SIZE, Math.min(MAX_AUTO_BATCH_SIZE, batchSize));
+    }
+
+    static <T> List<List<T>> partition(List<T> items, int batchSize) {
+        if (batchSize <= 0 || items.size() <= batchSize) {
+            return singletonList(items);
+        }
+        List<List<T>> batches = new ArrayList<>((items.size() + batchSize - 1) / batchSize);
+        for (int i = 0; i < items.size(); i += batchSize) {
+            batches.add(items.subList(i, Math.min(items.size(), i + batchSize)));
+        }
+        return batches;
+    }
+}
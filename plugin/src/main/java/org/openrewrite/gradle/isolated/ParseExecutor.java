@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Parses independent groups of source files, such as the sources of one source set, on a bounded pool of threads.
+ * <p>
+ * Each submitted stream is drained on a pool thread as soon as a thread is available, while the stream handed back
+ * to the caller waits for that result only when it is consumed. Concatenating the returned streams in submission
+ * order therefore yields the same order of source files as parsing everything serially. Streams passed to
+ * {@link #submitInOrder(List)} are only submitted as the results of earlier ones are consumed, so that no more than
+ * one group per thread is parsed ahead of the consumer.
+ * <p>
+ * With a parallelism of {@code 1} or less no threads are created and submitted streams are returned unchanged.
+ */
+class ParseExecutor {
+    static final Duration TERMINATION_TIMEOUT = Duration.ofMinutes(1);
+
+    private final int parallelism;
+
+    @Nullable
+    private ExecutorService executor;
+
+    ParseExecutor(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    boolean isParallel() {
+        return parallelism > 1;
+    }
+
+    <T> Stream<T> submit(Stream<T> sourceFiles) {
+        if (!isParallel()) {
+            return sourceFiles;
+        }
+        Future<List<T>> parsed = collect(sourceFiles);
+        return Stream.of(parsed).flatMap(future -> await(future).stream());
+    }
+
+    /**
+     * Parse the streams that {@code groups} create in order, creating and submitting each only once there is a thread
+     * for it among the groups that have not been consumed yet. The streams are created on the consuming thread.
+     */
+    <T> Stream<T> submitInOrder(List<Supplier<Stream<T>>> groups) {
+        if (!isParallel()) {
+            return groups.stream().flatMap(Supplier::get);
+        }
+        Iterator<Supplier<Stream<T>>> unsubmitted = groups.iterator();
+        Deque<Future<List<T>>> submitted = new ArrayDeque<>(parallelism);
+        Iterator<List<T>> parsed = new Iterator<List<T>>() {
+            @Override
+            public boolean hasNext() {
+                fill();
+                return !submitted.isEmpty();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return await(submitted.poll());
+            }
+
+            private void fill() {
+                while (submitted.size() < parallelism && unsubmitted.hasNext()) {
+                    submitted.add(collect(unsubmitted.next().get()));
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(parsed, Spliterator.ORDERED), false)
+                .flatMap(List::stream);
+    }
+
+    private <T> Future<List<T>> collect(Stream<T> sourceFiles) {
+        return executor().submit(() -> {
+            try (Stream<T> s = sourceFiles) {
+                return s.collect(toList());
+            }
+        });
+    }
+
+    /**
+     * Stop accepting new work. Work that was already submitted is still parsed to completion, for at most
+     * {@link #TERMINATION_TIMEOUT}, after which the parser threads are interrupted.
+     */
+    synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(TERMINATION_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            ClassLoader classLoader = ParseExecutor.class.getClassLoader();
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "rewrite-parser-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                // Parsers look up compiler and serialization classes through the context class loader,
+                // which must be the isolated rewrite class loader rather than the one of the Gradle worker thread
+                thread.setContextClassLoader(classLoader);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for sources to be parsed", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.marker.Marker;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+import static org.openrewrite.PathUtils.separatorsToUnix;
+
+/**
+ * Which project, source set and parser each file is parsed by, decided in a single pass over the build before any
+ * file is parsed.
+ * <p>
+ * Files are claimed in the order in which projects and their source sets, Gradle scripts and resources are planned.
+ * A file belongs to the first group that claims it, so a file that appears in several overlapping source sets or
+ * projects is parsed exactly once, no matter in which order or on which thread the groups are parsed afterwards.
+ */
+class ParseManifest {
+
+    enum Kind {
+        JAVA,
+        KOTLIN,
+        GROOVY,
+        GRADLE,
+        PROPERTIES,
+        PLAIN_TEXT,
+        GRADLE_WRAPPER,
+        RESOURCE
+    }
+
+    /**
+     * What is known about a planned project when its files are parsed, so that they can be parsed without access to
+     * the Gradle model.
+     */
+    static final class Project implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+        private final String name;
+        private final String group;
+        private final String version;
+        private final boolean android;
+        private final List<String> resourceExclusions;
+        private final String buildDir;
+
+        /**
+         * @param resourceExclusions Glob patterns of files that the resource parsers do not accept.
+         * @param buildDir           The build directory, relative to the base directory.
+         */
+        Project(String path, String name, String group, String version, boolean android,
+                Collection<String> resourceExclusions, Path buildDir) {
+            this.path = path;
+            this.name = name;
+            this.group = group;
+            this.version = version;
+            this.android = android;
+            this.resourceExclusions = new ArrayList<>(resourceExclusions);
+            this.buildDir = buildDir.toString();
+        }
+
+        /**
+         * The path of the Gradle project, e.g. {@code :app}.
+         */
+        String getPath() {
+            return path;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getGroup() {
+            return group;
+        }
+
+        String getVersion() {
+            return version;
+        }
+
+        boolean isAndroid() {
+            return android;
+        }
+
+        List<String> getResourceExclusions() {
+            return resourceExclusions;
+        }
+
+        Path getBuildDir() {
+            return Paths.get(buildDir);
+        }
+    }
+
+    /**
+     * Files of one project that are parsed together, by the same parser and with the same settings.
+     */
+    static final class Group {
+        private final String project;
+        private final @Nullable String sourceSet;
+        private final Kind kind;
+        private final @Nullable Charset charset;
+        private final List<Path> classpath;
+        private final List<Marker> markers;
+        private final List<Path> paths;
+
+        private Group(String project, @Nullable String sourceSet, Kind kind, @Nullable Charset charset,
+                      List<Path> classpath, List<Marker> markers, List<Path> paths) {
+            this.project = project;
+            this.sourceSet = sourceSet;
+            this.kind = kind;
+            this.charset = charset;
+            this.classpath = classpath;
+            this.markers = markers;
+            this.paths = paths;
+        }
+
+        /**
+         * The path of the Gradle project that owns the files, e.g. {@code :app}.
+         */
+        String getProject() {
+            return project;
+        }
+
+        /**
+         * The name of the source set the files belong to, or {@code null} for files outside of any source set,
+         * such as Gradle scripts and other project resources.
+         */
+        @Nullable
+        String getSourceSet() {
+            return sourceSet;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * The charset to parse the files with, or {@code null} to leave it to the parser.
+         */
+        @Nullable
+        Charset getCharset() {
+            return charset;
+        }
+
+        List<Path> getClasspath() {
+            return classpath;
+        }
+
+        /**
+         * Markers added to every source file parsed from this group.
+         */
+        List<Marker> getMarkers() {
+            return markers;
+        }
+
+        List<Path> getPaths() {
+            return paths;
+        }
+    }
+
+    private final List<Project> projects;
+    private final List<Group> groups;
+    private final Map<Path, Group> owners;
+    private final Set<Path> claimed;
+    private final Map<JavaSourceSet, List<Path>> sourceSetClasspaths;
+
+    private ParseManifest(List<Project> projects, List<Group> groups, Map<Path, Group> owners, Set<Path> claimed,
+                          Map<JavaSourceSet, List<Path>> sourceSetClasspaths) {
+        this.projects = projects;
+        this.groups = groups;
+        this.owners = owners;
+        this.claimed = claimed;
+        this.sourceSetClasspaths = sourceSetClasspaths;
+    }
+
+    static Builder builder() {
+        return new Builder(Collections.emptySet(), new MarkerInterner());
+    }
+
+    /**
+     * @param markerInterner Shares identical markers with the manifests of other projects of the same run.
+     */
+    static Builder builder(MarkerInterner markerInterner) {
+        return new Builder(Collections.emptySet(), markerInterner);
+    }
+
+    /**
+     * @param alreadyClaimed Files and directories that are owned by something outside of this manifest and must not be
+     *                       claimed again.
+     */
+    static Builder builder(Collection<Path> alreadyClaimed) {
+        return new Builder(alreadyClaimed, new MarkerInterner());
+    }
+
+    /**
+     * @param alreadyClaimed Files and directories that are owned by something outside of this manifest and must not be
+     *                       claimed again.
+     * @param markerInterner Shares identical markers with the manifests of other projects of the same run.
+     */
+    static Builder builder(Collection<Path> alreadyClaimed, MarkerInterner markerInterner) {
+        return new Builder(alreadyClaimed, markerInterner);
+    }
+
+    /**
+     * The projects that were planned, in the order in which they were planned and are parsed.
+     */
+    List<Project> getProjects() {
+        return projects;
+    }
+
+    @Nullable
+    Project getProject(String path) {
+        for (Project project : projects) {
+            if (project.getPath().equals(path)) {
+                return project;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * All groups, in the order in which they were planned.
+     */
+    List<Group> getGroups() {
+        return groups;
+    }
+
+    /**
+     * The groups of one project, in the order in which they were planned.
+     */
+    List<Group> getGroups(String project) {
+        List<Group> projectGroups = new ArrayList<>();
+        for (Group group : groups) {
+            if (group.getProject().equals(project)) {
+                projectGroups.add(group);
+            }
+        }
+        return projectGroups;
+    }
+
+    @Nullable
+    Group getOwner(Path path) {
+        return owners.get(path);
+    }
+
+    /**
+     * Every file and directory claimed while planning, including those that were reserved without being parsed,
+     * such as excluded Gradle scripts and the source directories of a source set.
+     */
+    Set<Path> getClaimedPaths() {
+        return claimed;
+    }
+
+    int size() {
+        return owners.size();
+    }
+
+    /**
+     * The classpath that a {@link JavaSourceSet} marker was built from by {@link Builder#javaSourceSet(String, Collection)}.
+     */
+    @Nullable
+    List<Path> getSourceSetClasspath(JavaSourceSet sourceSet) {
+        return sourceSetClasspaths.get(sourceSet);
+    }
+
+    /**
+     * A manifest with only the files that are needed to parse the {@code changed} files. Java, Kotlin and Groovy files
+     * are attributed with the types of the other sources of their source set, so those groups are kept whole for
+     * every source set with a changed source. Other files are parsed on their own, so only the changed ones are kept.
+     */
+    ParseManifest retainChanged(Set<Path> changed) {
+        Set<String> changedSourceSets = new HashSet<>();
+        for (Group group : groups) {
+            if (isTyped(group.getKind()) && !Collections.disjoint(group.getPaths(), changed)) {
+                changedSourceSets.add(group.getProject() + " " + group.getSourceSet());
+            }
+        }
+        List<Group> retained = new ArrayList<>();
+        Map<Path, Group> retainedOwners = new HashMap<>();
+        for (Group group : groups) {
+            Group retainedGroup = group;
+            if (!isTyped(group.getKind())) {
+                List<Path> paths = new ArrayList<>();
+                for (Path path : group.getPaths()) {
+                    if (changed.contains(path)) {
+                        paths.add(path);
+                    }
+                }
+                retainedGroup = paths.isEmpty() ? null : new Group(group.getProject(), group.getSourceSet(), group.getKind(),
+                        group.getCharset(), group.getClasspath(), group.getMarkers(), unmodifiableList(paths));
+            } else if (!changedSourceSets.contains(group.getProject() + " " + group.getSourceSet())) {
+                retainedGroup = null;
+            }
+            if (retainedGroup != null) {
+                retained.add(retainedGroup);
+                for (Path path : retainedGroup.getPaths()) {
+                    retainedOwners.put(path, retainedGroup);
+                }
+            }
+        }
+        return new ParseManifest(projects, unmodifiableList(retained), Collections.unmodifiableMap(retainedOwners),
+                claimed, sourceSetClasspaths);
+    }
+
+    private static boolean isTyped(Kind kind) {
+        return kind == Kind.JAVA || kind == Kind.KOTLIN || kind == Kind.GROOVY;
+    }
+
+    /**
+     * Write a human-readable listing of every group and its files, with paths relative to {@code baseDir}.
+     */
+    void dump(Path baseDir, Writer writer) throws IOException {
+        for (Group group : groups) {
+            writer.write(group.getProject());
+            writer.write(' ');
+            writer.write(group.getSourceSet() == null ? "-" : group.getSourceSet());
+            writer.write(' ');
+            writer.write(group.getKind().name());
+            writer.write(' ');
+            writer.write(group.getCharset() == null ? "-" : group.getCharset().name());
+            writer.write(" (" + group.getPaths().size() + " files, " + group.getClasspath().size() + " classpath entries)\n");
+            for (Path entry : group.getClasspath()) {
+                writer.write("    classpath ");
+                writer.write(separatorsToUnix(entry.toString()));
+                writer.write('\n');
+            }
+            for (Path path : group.getPaths()) {
+                writer.write("    ");
+                writer.write(separatorsToUnix(baseDir.relativize(path).toString()));
+                writer.write('\n');
+            }
+        }
+    }
+
+    static class Builder {
+        private final List<Project> projects = new ArrayList<>();
+        private final List<Group> groups = new ArrayList<>();
+        private final Map<Path, Group> owners = new HashMap<>();
+        private final Set<Path> claimed;
+        private final Set<Path> claimedView;
+        private final Map<JavaSourceSet, List<Path>> sourceSetClasspaths = new IdentityHashMap<>();
+        private final MarkerInterner markerInterner;
+
+        private Builder(Collection<Path> alreadyClaimed, MarkerInterner markerInterner) {
+            claimed = new HashSet<>(alreadyClaimed);
+            claimedView = unmodifiableSet(claimed);
+            this.markerInterner = markerInterner;
+        }
+
+        /**
+         * Add a project whose files are planned next.
+         */
+        void project(Project project) {
+            projects.add(project);
+        }
+
+        boolean isClaimed(Path path) {
+            return claimed.contains(path);
+        }
+
+        /**
+         * A live, read-only view of every file and directory claimed so far, suitable for excluding already planned
+         * files from a directory walk.
+         */
+        Set<Path> claimed() {
+            return claimedView;
+        }
+
+        /**
+         * Reserve a file or directory without parsing it, so that it is not claimed by anything planned later.
+         *
+         * @return {@code true} if the path had not been claimed before.
+         */
+        boolean reserve(Path path) {
+            return claimed.add(path);
+        }
+
+        /**
+         * Claim those {@code candidates} that are not already claimed for a new group.
+         *
+         * @return The files that were claimed, in the order of {@code candidates}. The group is only added to the
+         * manifest when this is not empty.
+         */
+        List<Path> claim(String project,
+                         @Nullable String sourceSet,
+                         Kind kind,
+                         @Nullable Charset charset,
+                         Collection<Path> classpath,
+                         List<Marker> markers,
+                         Collection<Path> candidates) {
+            List<Path> paths = new ArrayList<>(candidates.size());
+            for (Path candidate : candidates) {
+                if (claimed.add(candidate)) {
+                    paths.add(candidate);
+                }
+            }
+            if (paths.isEmpty()) {
+                return paths;
+            }
+            List<Path> unmodifiablePaths = unmodifiableList(paths);
+            List<Marker> internedMarkers = new ArrayList<>(markers.size());
+            for (Marker marker : markers) {
+                internedMarkers.add(markerInterner.intern(marker));
+            }
+            Group group = new Group(project, sourceSet, kind, charset,
+                    unmodifiableList(new ArrayList<>(classpath)), unmodifiableList(internedMarkers), unmodifiablePaths);
+            groups.add(group);
+            for (Path path : paths) {
+                owners.put(path, group);
+            }
+            return unmodifiablePaths;
+        }
+
+        /**
+         * Build the {@link JavaSourceSet} marker of a source set, remembering the classpath it was built from, so that
+         * the marker can be built again where only the manifest is available. Source sets with the same classpath share
+         * the types on it.
+         */
+        JavaSourceSet javaSourceSet(String name, Collection<Path> classpath) {
+            JavaSourceSet sourceSet = markerInterner.javaSourceSet(name, classpath);
+            sourceSetClasspaths.put(sourceSet, unmodifiableList(new ArrayList<>(classpath)));
+            return sourceSet;
+        }
+
+        ParseManifest build() {
+            return new ParseManifest(
+                    unmodifiableList(new ArrayList<>(projects)),
+                    unmodifiableList(new ArrayList<>(groups)),
+                    Collections.unmodifiableMap(new HashMap<>(owners)),
+                    unmodifiableSet(new HashSet<>(claimed)),
+                    Collections.unmodifiableMap(new IdentityHashMap<>(sourceSetClasspaths)));
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Parser;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.internal.JavaTypeCache;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Parsers that have finished parsing a group of sources, kept for later groups that are parsed with the same
+ * classpath. Creating a parser, and starting the Kotlin compiler environment in particular, is expensive, while a
+ * parser that has been {@link Parser#reset() reset} can be used again as if it were new.
+ * <p>
+ * A parser is used by one group of sources at a time and is returned to the pool once all of that group's source
+ * files have been consumed. At most {@code maxIdle} parsers are kept, and the least recently used are dropped first.
+ * With a {@code maxIdle} of {@code 0} every group gets a new parser.
+ * <p>
+ * A parser that attributes types keeps the type cache it was built with, which is the cache of the source set that
+ * created it. Parsers created through {@link #parse(Key, JavaTypeCache, Function, Function)} are instead built with a
+ * cache that the pool binds to the cache of whichever source set borrows the parser.
+ */
+class ParserPool {
+    private final int maxIdle;
+
+    // Access-ordered, so that iteration starts with the least recently used key
+    private final LinkedHashMap<Key, Deque<Parser>> idle = new LinkedHashMap<>(16, 0.75f, true);
+    private int idleCount;
+    private final Map<Parser, BoundTypeCache> boundTypeCaches = new IdentityHashMap<>();
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger evictions = new AtomicInteger();
+
+    ParserPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Parse with a pooled parser for {@code key}, or one created by {@code newParser} when none is available. The
+     * parser is taken from the pool when the returned stream is first consumed and goes back to it once the stream has
+     * been consumed completely.
+     *
+     * @param key       Must identify the type of parser that {@code newParser} creates.
+     * @param newParser Creates a new parser when there is no idle parser for {@code key}.
+     * @param parse     Parses sources with the parser.
+     */
+    <P extends Parser> Stream<SourceFile> parse(Key key, Supplier<P> newParser, Function<P, Stream<SourceFile>> parse) {
+        return Stream.of(key).flatMap(k -> {
+            P parser = acquire(k, newParser);
+            return parse.apply(parser).onClose(() -> release(k, parser));
+        });
+    }
+
+    /**
+     * Parse with a pooled parser for {@code key} as {@link #parse(Key, Supplier, Function)} does, with the parser
+     * attributing types to {@code typeCache} however it was created.
+     *
+     * @param newParser Creates a new parser that attributes types to the given cache.
+     */
+    <P extends Parser> Stream<SourceFile> parse(Key key,
+                                                JavaTypeCache typeCache,
+                                                Function<JavaTypeCache, P> newParser,
+                                                Function<P, Stream<SourceFile>> parse) {
+        return Stream.of(key).flatMap(k -> {
+            P parser = acquire(k, () -> {
+                BoundTypeCache bound = new BoundTypeCache();
+                P created = newParser.apply(bound);
+                synchronized (this) {
+                    boundTypeCaches.put(created, bound);
+                }
+                return created;
+            });
+            BoundTypeCache bound;
+            synchronized (this) {
+                bound = boundTypeCaches.get(parser);
+            }
+            bound.bind(typeCache);
+            return parse.apply(parser).onClose(() -> {
+                // Resetting the parser must not clear the cache of the source set, which others may share
+                bound.bind(new JavaTypeCache());
+                release(k, parser);
+            });
+        });
+    }
+
+    <P extends Parser> P acquire(Key key, Supplier<P> newParser) {
+        synchronized (this) {
+            Deque<Parser> parsers = idle.get(key);
+            if (parsers != null) {
+                Parser parser = parsers.pop();
+                if (parsers.isEmpty()) {
+                    idle.remove(key);
+                }
+                idleCount--;
+                hits.incrementAndGet();
+                //noinspection unchecked
+                return (P) parser;
+            }
+        }
+        misses.incrementAndGet();
+        return newParser.get();
+    }
+
+    void release(Key key, Parser parser) {
+        parser.reset();
+        if (maxIdle <= 0) {
+            synchronized (this) {
+                boundTypeCaches.remove(parser);
+            }
+            return;
+        }
+        synchronized (this) {
+            idle.computeIfAbsent(key, k -> new ArrayDeque<>()).push(parser);
+            idleCount++;
+            Iterator<Deque<Parser>> leastRecentlyUsed = idle.values().iterator();
+            while (idleCount > maxIdle) {
+                Deque<Parser> parsers = leastRecentlyUsed.next();
+                boundTypeCaches.remove(parsers.removeLast());
+                idleCount--;
+                evictions.incrementAndGet();
+                if (parsers.isEmpty()) {
+                    leastRecentlyUsed.remove();
+                }
+            }
+        }
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+    void logStatistics(Logger logger) {
+        if (hits.get() + misses.get() > 0) {
+            logger.info("Parser pool reused {} parsers, created {} and evicted {}", hits.get(), misses.get(), evictions.get());
+        }
+    }
+
+    synchronized void clear() {
+        idle.clear();
+        idleCount = 0;
+        boundTypeCaches.clear();
+    }
+
+    static final class Key {
+        private final String language;
+        private final String classpath;
+
+        @Nullable
+        private final Charset charset;
+
+        @Nullable
+        private final String languageLevel;
+
+        private Key(String language, String classpath, @Nullable Charset charset, @Nullable String languageLevel) {
+            this.language = language;
+            this.classpath = classpath;
+            this.charset = charset;
+            this.languageLevel = languageLevel;
+        }
+
+        /**
+         * @param language Distinguishes parsers of different types, or that are configured differently, such as with
+         *                 or without styles.
+         */
+        static Key of(String language, Collection<Path> classpath, @Nullable Charset charset) {
+            return of(language, classpath, charset, null);
+        }
+
+        /**
+         * @param languageLevel The Java version that the sources are compiled for, or {@code null} when it is unknown
+         *                      or does not matter to the parser.
+         */
+        static Key of(String language, Collection<Path> classpath, @Nullable Charset charset, @Nullable String languageLevel) {
+            return new Key(language, fingerprint(classpath), charset, languageLevel);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return language.equals(key.language) &&
+                   classpath.equals(key.classpath) &&
+                   Objects.equals(charset, key.charset) &&
+                   Objects.equals(languageLevel, key.languageLevel);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(language, classpath, charset, languageLevel);
+        }
+
+        @Override
+        public String toString() {
+            return language + (languageLevel == null ? "" : languageLevel) + "@" + classpath.substring(0, 12) +
+                   (charset == null ? "" : "/" + charset.name());
+        }
+    }
+
+    /**
+     * The type cache of a pooled parser, which stands in for the cache of the source set that borrowed the parser.
+     */
+    private static class BoundTypeCache extends JavaTypeCache {
+        private volatile JavaTypeCache delegate = new JavaTypeCache();
+
+        void bind(JavaTypeCache typeCache) {
+            this.delegate = typeCache;
+        }
+
+        @Override
+        public <T> @Nullable T get(String signature) {
+            return delegate.get(signature);
+        }
+
+        @Override
+        public void put(String signature, Object o) {
+            delegate.put(signature, o);
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public JavaTypeCache clone() {
+            return delegate.clone();
+        }
+    }
+
+    /**
+     * A digest of the classpath entries that does not depend on their order.
+     */
+    static String fingerprint(Collection<Path> classpath) {
+        List<String> entries = new ArrayList<>(classpath.size());
+        for (Path entry : classpath) {
+            entries.add(entry.toAbsolutePath().normalize().toString());
+        }
+        Collections.sort(entries);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String entry : entries) {
+                digest.update(entry.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Recipe;
+import org.openrewrite.ScanningRecipe;
+
+/**
+ * Decides whether a recipe can be run on one project of a build at a time, which only holds when no recipe in its tree
+ * needs to see the source files of other projects before it makes changes.
+ */
+final class RecipeScope {
+
+    private RecipeScope() {
+    }
+
+    /**
+     * @return The first recipe in the tree of {@code recipe} that scans all source files before it makes changes, or
+     * {@code null} when the recipe can be run on one project at a time.
+     */
+    static @Nullable Recipe findWholeBuildRecipe(Recipe recipe) {
+        if (recipe instanceof ScanningRecipe) {
+            // Declarative recipes are scanning recipes so that their preconditions may scan, and their preconditions
+            // are not part of their public API, so they are assumed to scan as well
+            return recipe;
+        }
+        for (Recipe child : recipe.getRecipeList()) {
+            Recipe wholeBuild = findWholeBuildRecipe(child);
+            if (wholeBuild != null) {
+                return wholeBuild;
+            }
+        }
+        return null;
+    }
+}
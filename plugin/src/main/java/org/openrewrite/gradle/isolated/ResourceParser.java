@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Parser;
+import org.openrewrite.SourceFile;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Parses resource files, such as YAML, XML, properties and JSON files, with one partition per parser that the omni
+ * parser would pick for them. Resource parsers do not depend on each other, so the partitions are parsed concurrently.
+ * <p>
+ * The parsed files are returned partition after partition, in the order in which the omni parser prefers its parsers,
+ * and in the planned order within a partition, so the order does not depend on which partition finishes first.
+ * With a parallelism of {@code 1} or less all files are parsed in a single pass, in the planned order.
+ */
+class ResourceParser {
+    private final ParseExecutor executor;
+
+    ResourceParser(int parallelism) {
+        this.executor = new ParseExecutor(parallelism);
+    }
+
+    /**
+     * @param resourceParsers Creates the parsers that the omni parser picks from, in order of preference. Every
+     *                        partition gets parsers of its own, so that no parser is used by two threads at once.
+     * @param omniParser      Creates the omni parser that parses a partition with the given parsers.
+     */
+    Stream<SourceFile> parse(Supplier<List<Parser>> resourceParsers,
+                             Function<List<Parser>, Parser> omniParser,
+                             List<Path> paths,
+                             Path relativeTo,
+                             ExecutionContext ctx) {
+        List<List<Path>> partitions = executor.isParallel() ?
+                partition(resourceParsers.get(), paths) :
+                singletonList(paths);
+        if (partitions.size() <= 1) {
+            return omniParser.apply(resourceParsers.get()).parse(paths, relativeTo, ctx);
+        }
+        Stream<SourceFile> parsed = Stream.empty();
+        for (List<Path> partition : partitions) {
+            parsed = Stream.concat(parsed, executor.submit(Stream.of(partition)
+                    .flatMap(p -> omniParser.apply(resourceParsers.get()).parse(p, relativeTo, ctx))));
+        }
+        return parsed;
+    }
+
+    /**
+     * Group {@code paths} by the first of {@code parsers} that accepts them, like the omni parser picks a parser.
+     * Paths that no parser accepts are grouped last.
+     */
+    static List<List<Path>> partition(List<Parser> parsers, List<Path> paths) {
+        Map<Integer, List<Path>> byParser = new TreeMap<>();
+        for (Path path : paths) {
+            int parser = parsers.size();
+            for (int i = 0; i < parsers.size(); i++) {
+                if (parsers.get(i).accept(path)) {
+                    parser = i;
+                    break;
+                }
+            }
+            byParser.computeIfAbsent(parser, p -> new ArrayList<>()).add(path);
+        }
+        return new ArrayList<>(byParser.values());
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
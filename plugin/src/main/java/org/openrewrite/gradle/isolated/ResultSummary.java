@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.FileAttributes;
+import org.openrewrite.Result;
+import org.openrewrite.SourceFile;
+import org.openrewrite.config.RecipeDescriptor;
+import org.openrewrite.quark.Quark;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * How the active recipes changed one file. A summary either refers to the {@link Result} it was made from, or, for
+ * results that are {@linkplain ResultsContainer#compact compact}, only keeps what is needed to report and apply the
+ * change, so that the trees of the file before and after the change can be garbage collected.
+ */
+public final class ResultSummary {
+    public enum Change {
+        GENERATED,
+        DELETED,
+        MOVED,
+        CHANGED
+    }
+
+    private final Change change;
+    private final @Nullable Path before;
+    private final @Nullable Path after;
+    private final List<RecipeDescriptor> recipes;
+    private final @Nullable Duration timeSavings;
+    private final @Nullable FileAttributes fileAttributes;
+    private final boolean quark;
+    private final @Nullable Result result;
+    private final @Nullable Path staged;
+
+    private ResultSummary(Change change, Result result, @Nullable Result kept, @Nullable Path staged) {
+        SourceFile beforeFile = result.getBefore();
+        SourceFile afterFile = result.getAfter();
+        this.change = change;
+        this.before = beforeFile == null ? null : beforeFile.getSourcePath();
+        this.after = afterFile == null ? null : afterFile.getSourcePath();
+        this.recipes = result.getRecipeDescriptorsThatMadeChanges();
+        this.timeSavings = result.getTimeSavings();
+        this.fileAttributes = afterFile == null ? null : afterFile.getFileAttributes();
+        this.quark = afterFile instanceof Quark;
+        this.result = kept;
+        this.staged = staged;
+    }
+
+    static ResultSummary of(Change change, Result result) {
+        return new ResultSummary(change, result, result, null);
+    }
+
+    /**
+     * @param staged A file that holds the content of the file after the change, or {@code null} when that content was
+     *               not written out.
+     */
+    static ResultSummary compact(Change change, Result result, @Nullable Path staged) {
+        return new ResultSummary(change, result, null, staged);
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    /**
+     * @return The source path of the file before the change, or {@code null} for a generated file.
+     */
+    public @Nullable Path getBefore() {
+        return before;
+    }
+
+    /**
+     * @return The source path of the file after the change, or {@code null} for a deleted file.
+     */
+    public @Nullable Path getAfter() {
+        return after;
+    }
+
+    public List<RecipeDescriptor> getRecipeDescriptorsThatMadeChanges() {
+        return recipes;
+    }
+
+    public @Nullable Duration getTimeSavings() {
+        return timeSavings;
+    }
+
+    @Nullable
+    FileAttributes getFileAttributes() {
+        return fileAttributes;
+    }
+
+    /**
+     * @return Whether the file after the change is a {@link Quark}, whose content is unknown.
+     */
+    boolean isQuark() {
+        return quark;
+    }
+
+    /**
+     * @return The result that this summarizes, or {@code null} when it is compact.
+     */
+    @Nullable
+    Result getResult() {
+        return result;
+    }
+
+    /**
+     * @return The file that holds the content of the file after the change, when it is compact.
+     */
+    @Nullable
+    Path getStaged() {
+        return staged;
+    }
+}
@@ -17,12 +17,17 @@ package org.openrewrite.gradle.isolated;
 
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.*;
+import org.openrewrite.binary.Binary;
 import org.openrewrite.marker.Marker;
 import org.openrewrite.marker.Markers;
 import org.openrewrite.marker.Markup;
 import org.openrewrite.marker.SearchResult;
+import org.openrewrite.quark.Quark;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -33,36 +38,182 @@ import java.util.stream.Stream;
 
 import static java.util.Collections.emptyList;
 
-public class ResultsContainer {
+public class ResultsContainer implements Closeable {
+    /**
+     * The number of results that are read from a changeset at a time, so that the results of a changeset whose trees
+     * are not all on heap, like the changeset of a {@link SpillingLargeSourceSet}, are not all read at once.
+     */
+    private static final int PAGE_SIZE = 100;
+
     final Path projectRoot;
-    final RecipeRun recipeRun;
+    final @Nullable RecipeRun recipeRun;
     final List<Result> generated = new ArrayList<>();
     final List<Result> deleted = new ArrayList<>();
     final List<Result> moved = new ArrayList<>();
     final List<Result> refactoredInPlace = new ArrayList<>();
+    private int skippedUnchanged;
+
+    private final @Nullable Path compactDirectory;
+    private final boolean dryRun;
+    private final @Nullable ExecutionContext ctx;
+    private final Map<ResultSummary.Change, List<ResultSummary>> compacted = new EnumMap<>(ResultSummary.Change.class);
+    private @Nullable RuntimeException firstCompactedException;
+    private final Map<ResultSummary.Change, BufferedWriter> diffWriters = new EnumMap<>(ResultSummary.Change.class);
+    private int staged;
+    private @Nullable Set<Path> retainedPaths;
 
     public ResultsContainer(Path projectRoot, @Nullable RecipeRun recipeRun) {
         this.projectRoot = projectRoot;
         this.recipeRun = recipeRun;
+        this.compactDirectory = null;
+        this.dryRun = false;
+        this.ctx = null;
         if (recipeRun != null) {
-            for (Result result : recipeRun.getChangeset().getAllResults()) {
-                if (result.getBefore() == null && result.getAfter() == null) {
-                    // This situation shouldn't happen / makes no sense
+            add(recipeRun);
+        }
+    }
+
+    private ResultsContainer(Path projectRoot, Path compactDirectory, boolean dryRun, ExecutionContext ctx) {
+        this.projectRoot = projectRoot;
+        this.recipeRun = null;
+        this.compactDirectory = compactDirectory;
+        this.dryRun = dryRun;
+        this.ctx = ctx;
+        for (ResultSummary.Change change : ResultSummary.Change.values()) {
+            compacted.put(change, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Results that are written out as soon as they are added, keeping only a {@link ResultSummary} of each, so that
+     * the trees of changed files are not all held on heap until the results are reported or applied. For a dry run
+     * the diff of each result is written out, otherwise the content of each changed file is staged to be moved in
+     * place when the results are applied.
+     *
+     * @param directory Where diffs and changed files are written to until the results are reported or applied.
+     */
+    static ResultsContainer compact(Path projectRoot, Path directory, boolean dryRun, ExecutionContext ctx) {
+        try {
+            Files.createDirectories(directory);
+            return new ResultsContainer(projectRoot, Files.createTempDirectory(directory, "results-"), dryRun, ctx);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Add the results of another run, such as the run of the active recipes on another project of the build.
+     */
+    void add(RecipeRun recipeRun) {
+        Changeset changeset = recipeRun.getChangeset();
+        for (int start = 0; start < changeset.size(); start += PAGE_SIZE) {
+            for (Result result : changeset.getPage(start, PAGE_SIZE)) {
+                ResultSummary.Change change = classify(result);
+                if (change == null || !isRetained(result)) {
                     continue;
                 }
-                if (result.getBefore() == null && result.getAfter() != null) {
-                    generated.add(result);
-                } else if (result.getBefore() != null && result.getAfter() == null) {
-                    deleted.add(result);
-                } else if (result.getBefore() != null && !result.getBefore().getSourcePath().equals(result.getAfter().getSourcePath())) {
-                    moved.add(result);
+                if (compactDirectory == null) {
+                    results(change).add(result);
                 } else {
-                    if (!result.diff(Paths.get(""), new FencedMarkerPrinter(), true).isEmpty()) {
-                        refactoredInPlace.add(result);
+                    compacted.get(change).add(compact(change, result, compactDirectory));
+                }
+            }
+        }
+    }
+
+    private static ResultSummary.@Nullable Change classify(Result result) {
+        if (result.getBefore() == null && result.getAfter() == null) {
+            // This situation shouldn't happen / makes no sense
+            return null;
+        }
+        if (result.getBefore() == null && result.getAfter() != null) {
+            return ResultSummary.Change.GENERATED;
+        } else if (result.getBefore() != null && result.getAfter() == null) {
+            return ResultSummary.Change.DELETED;
+        } else if (result.getBefore() != null && !result.getBefore().getSourcePath().equals(result.getAfter().getSourcePath())) {
+            return ResultSummary.Change.MOVED;
+        } else if (!result.diff(Paths.get(""), new FencedMarkerPrinter(), true).isEmpty()) {
+            return ResultSummary.Change.CHANGED;
+        }
+        return null;
+    }
+
+    private List<Result> results(ResultSummary.Change change) {
+        switch (change) {
+            case GENERATED:
+                return generated;
+            case DELETED:
+                return deleted;
+            case MOVED:
+                return moved;
+            default:
+                return refactoredInPlace;
+        }
+    }
+
+    private ResultSummary compact(ResultSummary.Change change, Result result, Path directory) {
+        if (firstCompactedException == null) {
+            List<RuntimeException> errors = getRecipeErrors(result);
+            if (!errors.isEmpty()) {
+                firstCompactedException = errors.get(0);
+            }
+        }
+        SourceFile after = result.getAfter();
+        try {
+            if (dryRun) {
+                // cannot meaningfully display diffs of these things. Console output notes that they were touched by a recipe.
+                if (!(after instanceof Binary) && !(after instanceof Quark)) {
+                    // Diffs are written per kind of change, so that the report lists them in the same order as when
+                    // results are kept on heap
+                    BufferedWriter diffWriter = diffWriters.get(change);
+                    if (diffWriter == null) {
+                        diffWriter = Files.newBufferedWriter(diffFile(directory, change));
+                        diffWriters.put(change, diffWriter);
                     }
+                    diffWriter.write(result.diff() + "\n");
                 }
+            } else if (after != null && !(after instanceof Quark)) {
+                Path stagedFile = directory.resolve(Integer.toString(staged++));
+                DefaultProjectParser.writeSource(after, stagedFile, Objects.requireNonNull(ctx));
+                return ResultSummary.compact(change, result, stagedFile);
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return ResultSummary.compact(change, result, null);
+    }
+
+    private static Path diffFile(Path directory, ResultSummary.Change change) {
+        return directory.resolve(change.name().toLowerCase(Locale.ROOT) + ".patch");
+    }
+
+    /**
+     * Drop the results of files that are not among {@code paths}, such as the files that were not changed since a ref.
+     * A result is kept by the path of the file before the change. Generated files are always kept, because they are
+     * caused by the files that recipes ran on rather than being among them. Results that are added later are dropped
+     * the same way.
+     *
+     * @param paths Absolute paths of the files whose results are kept.
+     */
+    void retain(Set<Path> paths) {
+        retainedPaths = paths;
+        for (List<Result> results : Arrays.asList(generated, deleted, moved, refactoredInPlace)) {
+            results.removeIf(result -> !isRetained(result));
+        }
+        for (List<ResultSummary> summaries : compacted.values()) {
+            summaries.removeIf(summary -> summary.getBefore() != null && !isRetained(summary.getBefore()));
+        }
+    }
+
+    private boolean isRetained(Result result) {
+        return result.getBefore() == null || isRetained(result.getBefore().getSourcePath());
+    }
+
+    private boolean isRetained(@Nullable Path sourcePath) {
+        if (retainedPaths == null) {
+            return true;
+        }
+        return sourcePath != null && retainedPaths.contains(projectRoot.resolve(sourcePath).toAbsolutePath().normalize());
     }
 
     /**
@@ -81,6 +232,9 @@ public class ResultsContainer {
     }
 
     public @Nullable RuntimeException getFirstException() {
+        if (firstCompactedException != null) {
+            return firstCompactedException;
+        }
         for (Result result : generated) {
             for (RuntimeException error : getRecipeErrors(result)) {
                 return error;
@@ -121,12 +275,75 @@ public class ResultsContainer {
         return exceptions;
     }
 
+    /**
+     * @return The number of files that were not visited by the active recipes, because previous runs made no change to
+     * them.
+     */
+    public int getSkippedUnchanged() {
+        return skippedUnchanged;
+    }
+
+    void setSkippedUnchanged(int skippedUnchanged) {
+        this.skippedUnchanged = skippedUnchanged;
+    }
+
     public Path getProjectRoot() {
         return projectRoot;
     }
 
     public boolean isNotEmpty() {
-        return !generated.isEmpty() || !deleted.isEmpty() || !moved.isEmpty() || !refactoredInPlace.isEmpty();
+        return !generated.isEmpty() || !deleted.isEmpty() || !moved.isEmpty() || !refactoredInPlace.isEmpty() ||
+               compacted.values().stream().anyMatch(summaries -> !summaries.isEmpty());
+    }
+
+    /**
+     * The changes to generated, deleted, moved and changed files, in this order.
+     */
+    public List<ResultSummary> getSummaries() {
+        List<ResultSummary> summaries = new ArrayList<>();
+        for (ResultSummary.Change change : ResultSummary.Change.values()) {
+            for (Result result : results(change)) {
+                summaries.add(ResultSummary.of(change, result));
+            }
+            List<ResultSummary> compactedSummaries = compacted.get(change);
+            if (compactedSummaries != null) {
+                summaries.addAll(compactedSummaries);
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Write the diffs of all results that can be displayed as a diff to {@code reportPath}.
+     */
+    void writeDiffs(Path reportPath) throws IOException {
+        if (compactDirectory != null) {
+            closeDiffWriters();
+            try (OutputStream report = Files.newOutputStream(reportPath)) {
+                for (ResultSummary.Change change : ResultSummary.Change.values()) {
+                    Path diffs = diffFile(compactDirectory, change);
+                    if (Files.exists(diffs)) {
+                        Files.copy(diffs, report);
+                    }
+                }
+            }
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(reportPath)) {
+            Stream.concat(
+                            Stream.concat(generated.stream(), deleted.stream()),
+                            Stream.concat(moved.stream(), refactoredInPlace.stream()))
+                    // cannot meaningfully display diffs of these things. Console output notes that they were touched by a recipe.
+                    .filter(it -> !(it.getAfter() instanceof Binary) && !(it.getAfter() instanceof Quark))
+                    .map(Result::diff)
+                    .forEach(diff -> {
+                        try {
+                            writer.write(diff + "\n");
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        }
     }
 
     /**
@@ -134,13 +351,11 @@ public class ResultsContainer {
      */
     public List<Path> newlyEmptyDirectories() {
         Set<Path> maybeEmptyDirectories = new LinkedHashSet<>();
-        for (Result result : moved) {
-            assert result.getBefore() != null;
-            maybeEmptyDirectories.add(projectRoot.resolve(result.getBefore().getSourcePath()).getParent());
-        }
-        for (Result result : deleted) {
-            assert result.getBefore() != null;
-            maybeEmptyDirectories.add(projectRoot.resolve(result.getBefore().getSourcePath()).getParent());
+        for (ResultSummary summary : getSummaries()) {
+            if (summary.getChange() == ResultSummary.Change.MOVED || summary.getChange() == ResultSummary.Change.DELETED) {
+                assert summary.getBefore() != null;
+                maybeEmptyDirectories.add(projectRoot.resolve(summary.getBefore()).getParent());
+            }
         }
         if (maybeEmptyDirectories.isEmpty()) {
             return emptyList();
@@ -158,4 +373,34 @@ public class ResultsContainer {
         }
         return emptyDirectories;
     }
+
+    private void closeDiffWriters() throws IOException {
+        for (BufferedWriter diffWriter : diffWriters.values()) {
+            diffWriter.close();
+        }
+        diffWriters.clear();
+    }
+
+    /**
+     * Delete the diffs and changed files that compact results wrote out and that were not moved in place.
+     */
+    @Override
+    public void close() {
+        if (compactDirectory == null) {
+            return;
+        }
+        try {
+            closeDiffWriters();
+            if (Files.exists(compactDirectory)) {
+                try (Stream<Path> files = Files.list(compactDirectory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(compactDirectory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
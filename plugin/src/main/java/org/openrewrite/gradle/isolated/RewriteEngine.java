@@ -0,0 +1,1163 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.*;
+import org.openrewrite.config.Environment;
+import org.openrewrite.config.YamlResourceLoader;
+import org.openrewrite.gradle.GradleParser;
+import org.openrewrite.groovy.GroovyParser;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.internal.StringUtils;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.internal.JavaTypeCache;
+import org.openrewrite.java.marker.JavaProject;
+import org.openrewrite.java.marker.JavaVersion;
+import org.openrewrite.java.style.CheckstyleConfigLoader;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.jgit.dircache.DirCache;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.revwalk.RevCommit;
+import org.openrewrite.jgit.revwalk.RevWalk;
+import org.openrewrite.jgit.treewalk.TreeWalk;
+import org.openrewrite.jgit.treewalk.filter.PathFilter;
+import org.openrewrite.kotlin.KotlinParser;
+import org.openrewrite.kotlin.tree.K;
+import org.openrewrite.marker.GitTreeEntry;
+import org.openrewrite.marker.Marker;
+import org.openrewrite.marker.Markers;
+import org.openrewrite.maven.MavenExecutionContextView;
+import org.openrewrite.polyglot.NoopProgressBar;
+import org.openrewrite.polyglot.ProgressBar;
+import org.openrewrite.polyglot.RemoteProgressBarSender;
+import org.openrewrite.polyglot.SourceFileStream;
+import org.openrewrite.properties.PropertiesParser;
+import org.openrewrite.style.NamedStyles;
+import org.openrewrite.text.PlainTextParser;
+import org.openrewrite.xml.tree.Xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toList;
+import static org.openrewrite.Tree.randomId;
+
+/**
+ * Parses the files of a {@link ParseManifest} and runs the active recipes on them, following {@link RewriteSettings}.
+ * Nothing here touches the Gradle model, so the same engine runs in the build process behind the
+ * {@link DefaultProjectParser}, which plans the parse, and in a worker process behind the {@link WorkerProjectParser},
+ * which reads the plan that the build process wrote.
+ */
+class RewriteEngine {
+    private static final Logger logger = Logging.getLogger(RewriteEngine.class);
+
+    private final Path baseDir;
+    private final RewriteSettings settings;
+    private final List<Marker> sharedProvenance;
+    private final @Nullable Repository repository;
+    private final Supplier<JavaTypeCache> typeCacheFactory;
+    private final AtomicBoolean firstWarningLogged = new AtomicBoolean(false);
+
+    @Nullable
+    private DirCache dirCache;
+    private boolean dirCacheInitialized;
+
+    @Nullable
+    private List<NamedStyles> styles;
+
+    @Nullable
+    private Environment environment;
+
+    private boolean environmentHasAllRecipes;
+
+    @Nullable
+    private ParseExecutor parseExecutor;
+
+    @Nullable
+    private ParseExecutor projectExecutor;
+
+    // Read by the reliefs of the heap pressure governor on its own thread
+    @Nullable
+    private volatile ParserPool parserPool;
+
+    @Nullable
+    private volatile TypeCacheRegistry typeCacheRegistry;
+
+    @Nullable
+    private HeapPressureGovernor heapPressureGovernor;
+
+    @Nullable
+    private SourceIngestion sourceIngestion;
+
+    @Nullable
+    private ResourceParser resourceParser;
+
+    @Nullable
+    private LstCache lstCache;
+
+    @Nullable
+    private FileIndex fileIndex;
+
+    @Nullable
+    private List<Path> gradleParserClasspath;
+
+    @Nullable
+    private List<Path> gradleParserSettingsClasspath;
+
+    /**
+     * @param sharedProvenance The markers that every parsed source file is attributed with.
+     * @param repository       The git repository of the build, which is closed by the caller.
+     * @param typeCacheFactory Creates the type caches that sources are parsed with.
+     */
+    RewriteEngine(Path baseDir,
+                  RewriteSettings settings,
+                  List<Marker> sharedProvenance,
+                  @Nullable Repository repository,
+                  Supplier<JavaTypeCache> typeCacheFactory) {
+        this.baseDir = baseDir;
+        this.settings = settings;
+        this.sharedProvenance = sharedProvenance;
+        this.repository = repository;
+        this.typeCacheFactory = typeCacheFactory;
+    }
+
+    /**
+     * Set the classpath that Gradle scripts are parsed with, which is resolved from the Gradle model before any Gradle
+     * script of a manifest is parsed.
+     */
+    void useGradleParserClasspath(List<Path> buildscriptClasspath, List<Path> settingsClasspath) {
+        this.gradleParserClasspath = buildscriptClasspath;
+        this.gradleParserSettingsClasspath = settingsClasspath;
+    }
+
+    Environment environment() {
+        return environment(settings.activeRecipes);
+    }
+
+    /**
+     * @param recipeNames The recipes that will be activated, or {@code null} when all recipes are needed. Of the
+     *                    recipes on the rewrite classpath only those that these refer to are loaded when the recipe
+     *                    index is up to date.
+     */
+    Environment environment(@Nullable Collection<String> recipeNames) {
+        if (environment == null || recipeNames == null && !environmentHasAllRecipes) {
+            Properties properties = new Properties();
+            properties.putAll(settings.properties);
+
+            Environment.Builder env = Environment.builder();
+
+            File rewriteConfig = new File(settings.configFile);
+            byte[] config = null;
+            if (rewriteConfig.exists()) {
+                try {
+                    config = Files.readAllBytes(rewriteConfig.toPath());
+                } catch (IOException e) {
+                    throw new RuntimeException("Unable to load rewrite configuration", e);
+                }
+            } else if (settings.configFileSetDeliberately) {
+                logger.warn("Rewrite configuration file {} does not exist.", rewriteConfig);
+            }
+
+            EnvironmentIndex.scanClassLoader(env, getClass().getClassLoader(),
+                    Paths.get(settings.environmentIndexFile), fileIndex(),
+                    recipeNames, config == null ? null : new String(config, StandardCharsets.UTF_8));
+            if (config != null) {
+                env.load(new YamlResourceLoader(new ByteArrayInputStream(config), rewriteConfig.toURI(), properties,
+                        getClass().getClassLoader()));
+            }
+
+            environment = env.build();
+            environmentHasAllRecipes = recipeNames == null;
+        }
+        return environment;
+    }
+
+    synchronized List<NamedStyles> getStyles() {
+        if (styles == null) {
+            styles = environment().activateStyles(settings.activeStyles);
+            if (settings.checkstyleConfigFile != null) {
+                File checkstyleConfig = new File(settings.checkstyleConfigFile);
+                if (checkstyleConfig.exists()) {
+                    try {
+                        styles.add(CheckstyleConfigLoader.loadCheckstyleConfig(checkstyleConfig.toPath(),
+                                new HashMap<>(settings.checkstyleProperties)));
+                    } catch (Exception e) {
+                        logger.warn("Unable to parse Checkstyle configuration", e);
+                    }
+                }
+            }
+        }
+        return styles;
+    }
+
+    // Sources are filtered against the index from parser threads when projects are parsed concurrently
+    synchronized @Nullable DirCache dirCache() {
+        if (!dirCacheInitialized) {
+            dirCacheInitialized = true;
+            if (repository != null) {
+                try {
+                    dirCache = repository.readDirCache();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return dirCache;
+    }
+
+    /**
+     * Parse the files that {@code planner} plans and run the active recipes on them.
+     *
+     * @param planner      Plans which files of the build are parsed.
+     * @param changedFiles The files that recipes are limited to, or {@code null} to run them on all files.
+     * @param dryRun       Whether the results are reported as a dry run, rather than applied.
+     */
+    ResultsContainer listResults(Supplier<ParseManifest> planner,
+                                 @Nullable Set<Path> changedFiles,
+                                 boolean dryRun,
+                                 ExecutionContext ctx) {
+        if (settings.pomCacheEnabled) {
+            MavenExecutionContextView.view(ctx).setPomCache(DefaultProjectParser.getPomCache(settings.pomCacheDirectory));
+        }
+        Recipe recipe = environment().activateRecipes(settings.activeRecipes);
+        if ("org.openrewrite.Recipe$Noop".equals(recipe.getName())) {
+            logger.warn("No recipes were activated. Activate a recipe with rewrite.activeRecipe(\"com.fully.qualified.RecipeClassName\") in your build file, or on the command line with -DactiveRecipe=com.fully.qualified.RecipeClassName");
+            return new ResultsContainer(baseDir, null);
+        }
+        validateRecipe(recipe, settings.failOnInvalidActiveRecipes, ctx);
+
+        Recipe wholeBuildRecipe = RecipeScope.findWholeBuildRecipe(recipe);
+        if (settings.runRecipesPerProject) {
+            if (wholeBuildRecipe == null) {
+                return listResultsPerProject(recipe, plan(planner, changedFiles, null), changedFiles, dryRun, ctx);
+            }
+            logger.lifecycle("Running active recipes on the whole build at once, because {} needs to see all source files",
+                    wholeBuildRecipe.getName());
+        }
+
+        ParseManifest manifest = plan(planner, changedFiles, wholeBuildRecipe);
+        Map<Class<? extends SourceFile>, NamedStyles> sampledStyles = sampleStyles(manifest.getGroups());
+        if (settings.sourceSetHeapBudgetMb > 0) {
+            return listResultsSpilled(recipe, manifest, sampledStyles, changedFiles, wholeBuildRecipe, dryRun, ctx);
+        }
+
+        List<SourceFile> sourceFiles = sampledStyles == null ?
+                applyStyles(parse(manifest, ctx), getStyles()) :
+                applyStyles(parse(manifest, ctx), sampledStyles, getStyles()).collect(toList());
+        checkParseFailures();
+
+        logger.lifecycle("All sources parsed, running active recipes: {}", String.join(", ", settings.activeRecipes));
+
+        exportDatatables(ctx);
+
+        NoChangeMemo memo = noChangeMemo(recipe, wholeBuildRecipe);
+        RecipeRun recipeRun = run(recipe, sourcesToVisit(sourceFiles, baseDir, changedFiles, wholeBuildRecipe), memo, ctx);
+
+        ResultsContainer results = results(dryRun, ctx);
+        if (changedFiles != null) {
+            results.retain(changedFiles);
+        }
+        results.add(recipeRun);
+        saveNoChangeMemo(memo, results);
+        return results;
+    }
+
+    /**
+     * Plan which files to parse. When recipes only run on {@code changedFiles}, other files are only parsed where the
+     * types of the changed files depend on them, unless {@code wholeBuildRecipe} needs to see all files.
+     */
+    static ParseManifest plan(Supplier<ParseManifest> planner,
+                              @Nullable Set<Path> changedFiles,
+                              @Nullable Recipe wholeBuildRecipe) {
+        ParseManifest manifest = planner.get();
+        if (changedFiles == null) {
+            return manifest;
+        }
+        if (wholeBuildRecipe != null) {
+            logger.lifecycle("Parsing all files, because {} needs to see all source files", wholeBuildRecipe.getName());
+            return manifest;
+        }
+        ParseManifest changed = manifest.retainChanged(changedFiles);
+        logger.info("Planned {} files to parse for the changed files", changed.size());
+        return changed;
+    }
+
+    /**
+     * Parse the sources of the whole build to disk, and run the active recipes on them while only keeping some of them
+     * on heap at a time.
+     */
+    private ResultsContainer listResultsSpilled(Recipe recipe,
+                                                ParseManifest manifest,
+                                                @Nullable Map<Class<? extends SourceFile>, NamedStyles> sampledStyles,
+                                                @Nullable Set<Path> changedFiles,
+                                                @Nullable Recipe wholeBuildRecipe,
+                                                boolean dryRun,
+                                                ExecutionContext ctx) {
+        try (SpillingLargeSourceSet sourceSet = spill(parse(manifest, ctx), sampledStyles, getStyles(),
+                visited(baseDir, changedFiles, wholeBuildRecipe), Paths.get(settings.spillDirectory),
+                settings.sourceSetHeapBudgetMb)) {
+            checkParseFailures();
+
+            logger.lifecycle("All sources parsed, running active recipes: {}", String.join(", ", settings.activeRecipes));
+
+            exportDatatables(ctx);
+
+            NoChangeMemo memo = noChangeMemo(recipe, wholeBuildRecipe);
+            ResultsContainer results = run(recipe, sourceSet, memo, heapPressureGovernor(), results(dryRun, ctx),
+                    changedFiles, ctx);
+            saveNoChangeMemo(memo, results);
+            return results;
+        }
+    }
+
+    /**
+     * Parse one project after another and run the active recipes on the sources of each project on their own, so that
+     * the sources of a project can be reclaimed before the next project is parsed. Only the results of the runs are
+     * kept. Styles are autodetected from the sources of each project.
+     */
+    private ResultsContainer listResultsPerProject(Recipe recipe,
+                                                   ParseManifest manifest,
+                                                   @Nullable Set<Path> changedFiles,
+                                                   boolean dryRun,
+                                                   ExecutionContext ctx) {
+        exportDatatables(ctx);
+        NoChangeMemo memo = noChangeMemo(recipe, null);
+        ResultsContainer results = results(dryRun, ctx);
+        if (changedFiles != null) {
+            results.retain(changedFiles);
+        }
+        for (ParseManifest.Project project : manifest.getProjects()) {
+            Map<Class<? extends SourceFile>, NamedStyles> sampledStyles = sampleStyles(manifest.getGroups(project.getPath()));
+            Stream<SourceFile> parsed = parse(project, manifest, ctx).map(this::logParseErrors);
+            List<SourceFile> sourceFiles = sampledStyles == null ?
+                    applyStyles(parsed, getStyles()) :
+                    applyStyles(parsed, sampledStyles, getStyles()).collect(toList());
+            checkParseFailures();
+            if (sourceFiles.isEmpty()) {
+                continue;
+            }
+            logger.lifecycle("Sources of {} parsed, running active recipes: {}", project.getPath(),
+                    String.join(", ", settings.activeRecipes));
+            results.add(run(recipe, sourcesToVisit(sourceFiles, baseDir, changedFiles, null), memo, ctx));
+        }
+        saveNoChangeMemo(memo, results);
+        return results;
+    }
+
+    /**
+     * The styles detected from a sample of the files of {@code groups}, or {@code null} when styles are detected from
+     * all parsed files instead.
+     */
+    private @Nullable Map<Class<? extends SourceFile>, NamedStyles> sampleStyles(List<ParseManifest.Group> groups) {
+        if (settings.styleDetectionSampleSize <= 0) {
+            return null;
+        }
+        StyleSampler sampler = new StyleSampler(settings.styleDetectionSampleSize);
+        for (ParseManifest.Group group : groups) {
+            for (Path path : group.getPaths()) {
+                sampler.offer(group.getProject(), path);
+            }
+        }
+        return sampler.detect(baseDir, logger);
+    }
+
+    private ResultsContainer results(boolean dryRun, ExecutionContext ctx) {
+        if (settings.compactResultsDirectory == null) {
+            return new ResultsContainer(baseDir, null);
+        }
+        return ResultsContainer.compact(baseDir, Paths.get(settings.compactResultsDirectory), dryRun, ctx);
+    }
+
+    /**
+     * @param heapPressureGovernor Makes the source set drop the source files that it keeps on heap when the heap is
+     *                             under pressure.
+     */
+    static ResultsContainer run(Recipe recipe,
+                                SpillingLargeSourceSet sourceSet,
+                                @Nullable NoChangeMemo memo,
+                                @Nullable HeapPressureGovernor heapPressureGovernor,
+                                ResultsContainer results,
+                                @Nullable Set<Path> changedFiles,
+                                ExecutionContext ctx) {
+        if (changedFiles != null) {
+            results.retain(changedFiles);
+        }
+        Runnable releaseHeap = sourceSet::releaseHeap;
+        if (heapPressureGovernor != null) {
+            heapPressureGovernor.addRelief("spilled source files kept on heap", releaseHeap);
+        }
+        try {
+            results.add(memo == null ? recipe.run(sourceSet, ctx) : memo.run(recipe, sourceSet, ctx));
+        } finally {
+            if (heapPressureGovernor != null) {
+                heapPressureGovernor.removeRelief(releaseHeap);
+            }
+        }
+        sourceSet.logStatistics(logger);
+        return results;
+    }
+
+    /**
+     * The memo of files that previous runs of {@code recipe} made no change to, or {@code null} when it is disabled or
+     * {@code wholeBuildRecipe} needs to see all files.
+     */
+    private @Nullable NoChangeMemo noChangeMemo(Recipe recipe, @Nullable Recipe wholeBuildRecipe) {
+        if (settings.noChangeMemoFile == null) {
+            return null;
+        }
+        if (wholeBuildRecipe != null) {
+            logger.lifecycle("Visiting files that previous runs made no change to, because {} needs to see all source files",
+                    wholeBuildRecipe.getName());
+            return null;
+        }
+        return NoChangeMemo.load(Paths.get(settings.noChangeMemoFile), baseDir, recipe, fileIndex());
+    }
+
+    static RecipeRun run(Recipe recipe, List<SourceFile> sourceFiles, @Nullable NoChangeMemo memo, ExecutionContext ctx) {
+        if (memo == null) {
+            return recipe.run(new InMemoryLargeSourceSet(sourceFiles), ctx);
+        }
+        return memo.run(recipe, sourceFiles, ctx);
+    }
+
+    static void saveNoChangeMemo(@Nullable NoChangeMemo memo, ResultsContainer results) {
+        if (memo == null) {
+            return;
+        }
+        memo.save();
+        results.setSkippedUnchanged(memo.getSkipped());
+        if (memo.getSkipped() > 0) {
+            logger.lifecycle("Skipped {} files that previous runs of the active recipes made no change to", memo.getSkipped());
+        }
+    }
+
+    /**
+     * The sources that recipes visit, which are only the {@code changedFiles} when those are set, unless
+     * {@code wholeBuildRecipe} needs to see all files. Its results are limited to the changed files afterwards instead.
+     */
+    static List<SourceFile> sourcesToVisit(List<SourceFile> sourceFiles,
+                                           Path baseDir,
+                                           @Nullable Set<Path> changedFiles,
+                                           @Nullable Recipe wholeBuildRecipe) {
+        if (changedFiles == null || wholeBuildRecipe != null) {
+            return sourceFiles;
+        }
+        Predicate<SourceFile> visited = visited(baseDir, changedFiles, null);
+        List<SourceFile> changedSourceFiles = new ArrayList<>();
+        for (SourceFile sourceFile : sourceFiles) {
+            if (visited.test(sourceFile)) {
+                changedSourceFiles.add(sourceFile);
+            }
+        }
+        return changedSourceFiles;
+    }
+
+    /**
+     * Accepts the sources that recipes visit, as described by {@link #sourcesToVisit}.
+     */
+    static Predicate<SourceFile> visited(Path baseDir, @Nullable Set<Path> changedFiles, @Nullable Recipe wholeBuildRecipe) {
+        if (changedFiles == null || wholeBuildRecipe != null) {
+            return sourceFile -> true;
+        }
+        return sourceFile -> changedFiles.contains(baseDir.resolve(sourceFile.getSourcePath()).toAbsolutePath().normalize());
+    }
+
+    private void checkParseFailures() {
+        if (settings.throwOnParseFailures && firstWarningLogged.get()) {
+            throw new RuntimeException("There were problems parsing some source files, run with --info to see full stack traces. Fix the parse failures or set throwOnParseFailures to false to continue.");
+        }
+    }
+
+    private void exportDatatables(ExecutionContext ctx) {
+        if (settings.datatablesDirectory != null) {
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS"));
+            Path datatableDirectoryPath = Paths.get(settings.datatablesDirectory).resolve(timestamp);
+            logger.info(String.format("Printing available datatables to: %s", datatableDirectoryPath));
+            DataTableExecutionContextView.view(ctx).setDataTableStore(new CsvDataTableStore(datatableDirectoryPath));
+        }
+    }
+
+    static void validateRecipe(Recipe recipe, boolean failOnInvalidActiveRecipes, ExecutionContext ctx) {
+        logger.lifecycle("Validating active recipes");
+        Collection<Validated<Object>> validated = recipe.validateAll(ctx, new ArrayList<>());
+        List<Validated.Invalid<Object>> failedValidations = validated.stream().map(Validated::failures)
+                .flatMap(Collection::stream).collect(toList());
+        if (!failedValidations.isEmpty()) {
+            failedValidations.forEach(failedValidation -> logger.error(
+                    "Recipe validation error in {} for property {}: {}",
+                    recipe.getName(),
+                    failedValidation.getProperty(),
+                    failedValidation.getMessage(),
+                    failedValidation.getException()));
+            if (failOnInvalidActiveRecipes) {
+                throw new RuntimeException("Recipe validation errors detected as part of one or more activeRecipe(s). Please check error logs.");
+            }
+            logger.error("Recipe validation errors detected as part of one or more activeRecipe(s). Execution will continue regardless.");
+        }
+    }
+
+    /**
+     * Parse the files of every project of {@code manifest}, up to {@link RewriteSettings#projectParseParallelism}
+     * projects at a time. A project is only submitted once one of the projects before it has been consumed, so that
+     * parsed projects do not pile up ahead of the recipes.
+     */
+    Stream<SourceFile> parse(ParseManifest manifest, ExecutionContext ctx) {
+        List<Supplier<Stream<SourceFile>>> projects = new ArrayList<>(manifest.getProjects().size());
+        for (ParseManifest.Project project : manifest.getProjects()) {
+            projects.add(() -> parse(project, manifest, ctx));
+        }
+        return projectExecutor().submitInOrder(projects).map(this::logParseErrors);
+    }
+
+    /**
+     * Parse the files of one project of {@code manifest}. The parsers are created on the calling thread, while the
+     * source sets are parsed by the parse executor.
+     */
+    Stream<SourceFile> parse(ParseManifest.Project project, ParseManifest manifest, ExecutionContext ctx) {
+        List<ParseManifest.Group> groups = manifest.getGroups(project.getPath());
+        if (groups.isEmpty()) {
+            return Stream.empty();
+        }
+
+        String cliPort = System.getenv("MODERNE_CLI_PORT");
+        try (ProgressBar progressBar = StringUtils.isBlank(cliPort) ? new NoopProgressBar() :
+                new RemoteProgressBarSender(Integer.parseInt(cliPort))) {
+            SourceFileStream sourceFileStream = SourceFileStream.build(
+                    project.getPath(),
+                    projectName -> progressBar.intermediateResult(":" + projectName));
+
+            Collection<PathMatcher> exclusions = DefaultProjectParser.pathMatchers(baseDir, settings.exclusions);
+            Path buildDirPath = project.getBuildDir();
+
+            boolean hasSourceSets = false;
+            int i = 0;
+            while (i < groups.size()) {
+                ParseManifest.Group group = groups.get(i);
+                String sourceSet = group.getSourceSet();
+                if (sourceSet == null) {
+                    SourceFileStream groupSourceFiles = parseGroup(project, group, manifest.getClaimedPaths(), ctx);
+                    sourceFileStream = sourceFileStream.concat(groupSourceFiles, groupSourceFiles.size());
+                    i++;
+                    continue;
+                }
+
+                // The groups of one source set share a type cache, and are parsed together as one unit of work
+                int end = i + 1;
+                while (end < groups.size() && sourceSet.equals(groups.get(end).getSourceSet())) {
+                    end++;
+                }
+                List<ParseManifest.Group> sourceSetGroups = groups.subList(i, end);
+                sourceFileStream = sourceFileStream.concat(
+                        parseSourceSet(project, sourceSetGroups, ctx)
+                                .filter(cu -> !DefaultProjectParser.isExcluded(repository, dirCache(), exclusions, cu.getSourcePath()) &&
+                                              !cu.getSourcePath().startsWith(buildDirPath)),
+                        sourceSetGroups.stream().mapToInt(g -> g.getPaths().size()).sum());
+                hasSourceSets = true;
+                i = end;
+            }
+
+            List<Marker> projectProvenance;
+            if (!hasSourceSets) {
+                projectProvenance = sharedProvenance;
+            } else {
+                projectProvenance = new ArrayList<>(sharedProvenance);
+                projectProvenance.add(new JavaProject(
+                        randomId(),
+                        project.getName(),
+                        new JavaProject.Publication(
+                                project.getGroup(),
+                                project.getName(),
+                                project.getVersion())));
+            }
+
+            return sourceFileStream.map(addProvenance(projectProvenance))
+                    .map(addGitTreeEntryInformation(repository));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Stream<SourceFile> parseSourceSet(ParseManifest.Project project,
+                                              List<ParseManifest.Group> groups,
+                                              ExecutionContext ctx) {
+        Set<Path> classpath = new LinkedHashSet<>();
+        for (ParseManifest.Group group : groups) {
+            classpath.addAll(group.getClasspath());
+        }
+        JavaTypeCache javaTypeCache = typeCache(classpath);
+        Stream<SourceFile> sourceSetSourceFiles = Stream.of();
+        for (ParseManifest.Group group : groups) {
+            ExecutionContext groupCtx = group.getCharset() == null ? ctx : ForkedExecutionContext.withCharset(ctx, group.getCharset());
+            Stream<SourceFile> parsed = parseCached(group, paths -> {
+                switch (group.getKind()) {
+                    case JAVA:
+                        return parseJavaFiles(group, project.isAndroid(), groupCtx, javaTypeCache);
+                    case KOTLIN:
+                        return parseKotlinFiles(group, project.isAndroid(), groupCtx, javaTypeCache);
+                    case GROOVY:
+                        return parseGroovyFiles(group, groupCtx, javaTypeCache);
+                    case RESOURCE:
+                        return parseResources(project, paths, groupCtx);
+                    default:
+                        throw new IllegalStateException("Unable to parse " + group.getKind() + " files as part of source set " + group.getSourceSet());
+                }
+            });
+            sourceSetSourceFiles = Stream.concat(sourceSetSourceFiles, parsed.map(addMarkers(group.getMarkers())));
+        }
+        return parseExecutor().submit(sourceSetSourceFiles);
+    }
+
+    /**
+     * @param claimed Every file of the manifest, of which the files that are not parsed by this group were parsed
+     *                before it, or are parsed elsewhere.
+     */
+    private SourceFileStream parseGroup(ParseManifest.Project project,
+                                        ParseManifest.Group group,
+                                        Set<Path> claimed,
+                                        ExecutionContext ctx) {
+        if (group.getKind() == ParseManifest.Kind.RESOURCE) {
+            return SourceFileStream.build("", s -> {
+            }).concat(parseCached(group, paths -> parseNonProjectResources(project, except(claimed, paths), paths, ctx)),
+                    group.getPaths().size());
+        }
+        Stream<SourceFile> sourceFiles = parseCached(group, paths -> {
+            switch (group.getKind()) {
+                case GRADLE:
+                    return parserPool().parse(
+                            ParserPool.Key.of("gradle", gradleParserClasspath(), null),
+                            this::gradleParser,
+                            gp -> gp.parse(paths, baseDir, ctx));
+                case PROPERTIES:
+                    return new PropertiesParser().parse(paths, baseDir, ctx);
+                case PLAIN_TEXT:
+                    return PlainTextParser.builder().build().parse(paths, baseDir, ctx);
+                case GRADLE_WRAPPER:
+                    return DefaultProjectParser.omniParser(baseDir, settings.plainTextMasks,
+                                    DefaultProjectParser.pathMatchers(baseDir, project.getResourceExclusions()),
+                                    emptySet(), settings.sizeThresholdMb)
+                            .parse(paths, baseDir, ctx);
+                default:
+                    throw new IllegalStateException("Unable to parse " + group.getKind() + " files outside of a source set");
+            }
+        });
+        return SourceFileStream.build("", s -> {
+        }).concat(sourceFiles.map(addMarkers(group.getMarkers())), group.getPaths().size());
+    }
+
+    /**
+     * Parse the files of a project that are not part of any source set or Gradle script, as planned in the
+     * {@link ParseManifest}.
+     *
+     * @param alreadyParsed The files that are not among {@code resources}, which are parsed elsewhere.
+     */
+    protected SourceFileStream parseNonProjectResources(ParseManifest.Project project,
+                                                        Set<Path> alreadyParsed,
+                                                        List<Path> resources,
+                                                        ExecutionContext ctx) {
+        return SourceFileStream.build("", s -> {
+        }).concat(parseResources(project, resources, ctx), resources.size());
+    }
+
+    /**
+     * A view of {@code paths} without {@code excluded}, so that the claimed paths of a large build are not copied.
+     */
+    private static Set<Path> except(Set<Path> paths, Collection<Path> excluded) {
+        Set<Path> excludedPaths = new HashSet<>(excluded);
+        return new AbstractSet<Path>() {
+            @Override
+            public boolean contains(Object o) {
+                return paths.contains(o) && !excludedPaths.contains(o);
+            }
+
+            @Override
+            public Iterator<Path> iterator() {
+                return paths.stream().filter(path -> !excludedPaths.contains(path)).iterator();
+            }
+
+            @Override
+            public int size() {
+                return (int) paths.stream().filter(path -> !excludedPaths.contains(path)).count();
+            }
+        };
+    }
+
+    /**
+     * Parse resource files with the omni parser, partitioned by the parser that the omni parser picks for them when
+     * {@link RewriteSettings#resourceParseParallelism} is set.
+     */
+    Stream<SourceFile> parseResources(ParseManifest.Project project, List<Path> resources, ExecutionContext ctx) {
+        Collection<PathMatcher> exclusions = DefaultProjectParser.pathMatchers(baseDir, project.getResourceExclusions());
+        return resourceParser().parse(
+                () -> DefaultProjectParser.resourceParsers(baseDir, settings.plainTextMasks),
+                parsers -> DefaultProjectParser.omniParser(parsers, exclusions, emptySet(), settings.sizeThresholdMb),
+                resources, baseDir, ctx);
+    }
+
+    /**
+     * Android sources are parsed with the active styles.
+     */
+    private Stream<SourceFile> parseJavaFiles(ParseManifest.Group group,
+                                              boolean android,
+                                              ExecutionContext ctx,
+                                              JavaTypeCache javaTypeCache) {
+        ParserPool.Key key = ParserPool.Key.of(android ? "android-java" : "java", group.getClasspath(),
+                group.getCharset(), languageLevel(group));
+        return ParseBatches.parse(
+                group.getPaths(),
+                settings.javaParseBatchSize,
+                ParseBatches.concurrentParsers(settings),
+                heapPressureGovernor(),
+                batch -> parserPool().parse(key, javaTypeCache,
+                        typeCache -> JavaParser.fromJavaVersion()
+                                .classpath(group.getClasspath())
+                                .styles(android ? getStyles() : Collections.emptyList())
+                                .typeCache(typeCache)
+                                .logCompilationWarningsAndErrors(settings.logCompilationWarningsAndErrors)
+                                .build(),
+                        jp -> sourceIngestion().parse(jp, batch, baseDir, ctx)));
+    }
+
+    private Stream<SourceFile> parseKotlinFiles(ParseManifest.Group group,
+                                                boolean android,
+                                                ExecutionContext ctx,
+                                                JavaTypeCache javaTypeCache) {
+        return parserPool().parse(ParserPool.Key.of(android ? "android-kotlin" : "kotlin", group.getClasspath(),
+                        group.getCharset(), languageLevel(group)),
+                javaTypeCache,
+                typeCache -> KotlinParser.builder()
+                        .classpath(group.getClasspath())
+                        .styles(android ? getStyles() : Collections.emptyList())
+                        .typeCache(typeCache)
+                        .logCompilationWarningsAndErrors(settings.logCompilationWarningsAndErrors)
+                        .build(),
+                kp -> sourceIngestion().parse(kp, group.getPaths(), baseDir, ctx));
+    }
+
+    private Stream<SourceFile> parseGroovyFiles(ParseManifest.Group group,
+                                                ExecutionContext ctx,
+                                                JavaTypeCache javaTypeCache) {
+        return parserPool().parse(ParserPool.Key.of("groovy", group.getClasspath(), group.getCharset(),
+                        languageLevel(group)),
+                javaTypeCache,
+                typeCache -> GroovyParser.builder()
+                        .classpath(group.getClasspath())
+                        .typeCache(typeCache)
+                        .logCompilationWarningsAndErrors(false)
+                        .build(),
+                gp -> sourceIngestion().parse(gp, group.getPaths(), baseDir, ctx));
+    }
+
+    /**
+     * The Java version that the sources of {@code group} are compiled for, as recorded by its {@link JavaVersion}
+     * marker.
+     */
+    private static @Nullable String languageLevel(ParseManifest.Group group) {
+        for (Marker marker : group.getMarkers()) {
+            if (marker instanceof JavaVersion) {
+                return ((JavaVersion) marker).getSourceCompatibility();
+            }
+        }
+        return null;
+    }
+
+    private List<Path> gradleParserClasspath() {
+        return Stream.concat(
+                        Objects.requireNonNull(gradleParserClasspath).stream(),
+                        Objects.requireNonNull(gradleParserSettingsClasspath).stream())
+                .collect(toList());
+    }
+
+    private GradleParser gradleParser() {
+        JavaTypeCache typeCache = typeCache(gradleParserClasspath());
+        return GradleParser.builder()
+                .groovyParser(GroovyParser.builder()
+                        .typeCache(typeCache)
+                        .logCompilationWarningsAndErrors(false))
+                .kotlinParser(KotlinParser.builder()
+                        .typeCache(typeCache)
+                        .logCompilationWarningsAndErrors(false))
+                .buildscriptClasspath(Objects.requireNonNull(gradleParserClasspath))
+                .settingsClasspath(Objects.requireNonNull(gradleParserSettingsClasspath))
+                .build();
+    }
+
+    /**
+     * Parse the files of {@code group} with {@code parse}, or read them from the cache of parsed source files when it
+     * is enabled and they are unchanged. Only the files that were not found in the cache are passed to {@code parse}.
+     */
+    private Stream<SourceFile> parseCached(ParseManifest.Group group, Function<List<Path>, Stream<SourceFile>> parse) {
+        LstCache lstCache = lstCache();
+        if (lstCache == null) {
+            return parse.apply(group.getPaths());
+        }
+        return lstCache.parse(group.getKind(), group.getCharset(),
+                group.getKind() == ParseManifest.Kind.GRADLE ? gradleParserClasspath() : group.getClasspath(),
+                group.getMarkers(), group.getPaths(), parse);
+    }
+
+    private SourceFile logParseErrors(SourceFile source) {
+        source.getMarkers().findFirst(ParseExceptionResult.class).ifPresent(e -> {
+            if (firstWarningLogged.compareAndSet(false, true)) {
+                logger.warn("There were problems parsing some source files, run with --info to see full stack traces");
+            }
+            logger.warn("There were problems parsing {}", source.getSourcePath());
+            logger.debug(e.getMessage());
+        });
+        return source;
+    }
+
+    private synchronized ParseExecutor projectExecutor() {
+        if (projectExecutor == null) {
+            if (settings.projectParseParallelism > 1) {
+                logger.info("Parsing up to {} projects concurrently", settings.projectParseParallelism);
+            }
+            projectExecutor = new ParseExecutor(settings.projectParseParallelism);
+        }
+        return projectExecutor;
+    }
+
+    private synchronized ParseExecutor parseExecutor() {
+        if (parseExecutor == null) {
+            int parallelism = settings.parseParallelism;
+            if (parallelism > 1) {
+                logger.info("Parsing up to {} source sets concurrently", parallelism);
+            }
+            parseExecutor = new ParseExecutor(parallelism);
+        }
+        return parseExecutor;
+    }
+
+    private synchronized ParserPool parserPool() {
+        if (parserPool == null) {
+            parserPool = new ParserPool(settings.parserPoolSize);
+        }
+        return parserPool;
+    }
+
+    /**
+     * The governor that makes parsing use less heap when the heap is under pressure, or {@code null} when it is
+     * disabled.
+     */
+    private synchronized @Nullable HeapPressureGovernor heapPressureGovernor() {
+        if (heapPressureGovernor == null && settings.heapPressureOldGenPercent > 0) {
+            heapPressureGovernor = HeapPressureGovernor.start(settings.heapPressureOldGenPercent,
+                    settings.heapPressureGcOverheadPercent);
+            // Reliefs run on the governor's thread and must not lock this engine
+            heapPressureGovernor.addRelief("cached types", () -> {
+                TypeCacheRegistry registry = typeCacheRegistry;
+                if (registry != null) {
+                    registry.clearTypes();
+                }
+            });
+            heapPressureGovernor.addRelief("idle parsers", () -> {
+                ParserPool pool = parserPool;
+                if (pool != null) {
+                    pool.clear();
+                }
+            });
+        }
+        return heapPressureGovernor;
+    }
+
+    private synchronized ResourceParser resourceParser() {
+        if (resourceParser == null) {
+            resourceParser = new ResourceParser(settings.resourceParseParallelism);
+        }
+        return resourceParser;
+    }
+
+    private synchronized SourceIngestion sourceIngestion() {
+        if (sourceIngestion == null) {
+            sourceIngestion = new SourceIngestion(settings.sourcePrefetchMb);
+        }
+        return sourceIngestion;
+    }
+
+    private synchronized @Nullable LstCache lstCache() {
+        if (lstCache == null && settings.lstCacheSizeMb > 0) {
+            lstCache = new LstCache(Paths.get(settings.lstCacheDirectory), baseDir,
+                    settings.lstCacheSizeMb,
+                    lstCacheParserSettings(settings.plainTextMasks, settings.sizeThresholdMb),
+                    settings.refreshLstCache,
+                    fileIndex());
+        }
+        return lstCache;
+    }
+
+    static String lstCacheParserSettings(List<String> plainTextMasks, int sizeThresholdMb) {
+        return String.join(",", plainTextMasks) + "|" + sizeThresholdMb;
+    }
+
+    /**
+     * The content hashes of the files read by this and previous builds.
+     */
+    /**
+     * Bring the file index up to date with the files that are planned to be parsed, so that whether they changed since
+     * the last build can be answered with a stat call.
+     */
+    void indexFiles(Collection<Path> files) {
+        fileIndex().update(files);
+    }
+
+    private synchronized FileIndex fileIndex() {
+        if (fileIndex == null) {
+            fileIndex = FileIndex.load(Paths.get(settings.fileIndexFile), baseDir);
+        }
+        return fileIndex;
+    }
+
+    /**
+     * The type cache for sources parsed with {@code classpath}. It is shared with other source sets that have the same
+     * jars on their classpath when {@link RewriteSettings#sharedTypeCacheSize} is set.
+     */
+    private synchronized JavaTypeCache typeCache(Collection<Path> classpath) {
+        if (typeCacheRegistry == null) {
+            typeCacheRegistry = new TypeCacheRegistry(settings.sharedTypeCacheSize, typeCacheFactory);
+        }
+        return typeCacheRegistry.get(classpath);
+    }
+
+    /**
+     * Stop the parser threads and release what was cached while parsing.
+     */
+    synchronized void shutdown() {
+        if (projectExecutor != null) {
+            projectExecutor.shutdown();
+            projectExecutor = null;
+        }
+        if (parseExecutor != null) {
+            parseExecutor.shutdown();
+            parseExecutor = null;
+        }
+        if (parserPool != null) {
+            parserPool.logStatistics(logger);
+            parserPool.clear();
+            parserPool = null;
+        }
+        if (typeCacheRegistry != null) {
+            typeCacheRegistry.logStatistics(logger);
+            typeCacheRegistry.clear();
+            typeCacheRegistry = null;
+        }
+        if (heapPressureGovernor != null) {
+            heapPressureGovernor.close();
+            heapPressureGovernor.logStatistics(logger);
+            heapPressureGovernor = null;
+        }
+        if (sourceIngestion != null) {
+            sourceIngestion.shutdown();
+            sourceIngestion = null;
+        }
+        if (resourceParser != null) {
+            resourceParser.shutdown();
+            resourceParser = null;
+        }
+        if (lstCache != null) {
+            lstCache.evict();
+            lstCache.logStatistics(logger);
+            lstCache = null;
+        }
+        if (fileIndex != null) {
+            fileIndex.save();
+            fileIndex.logStatistics(logger);
+            fileIndex = null;
+        }
+    }
+
+    /**
+     * Collect the parsed sources, adding the styles that are autodetected from them and the configured styles.
+     */
+    static List<SourceFile> applyStyles(Stream<SourceFile> parsed, List<NamedStyles> configuredStyles) {
+        org.openrewrite.java.style.Autodetect.Detector javaDetector = org.openrewrite.java.style.Autodetect.detector();
+        org.openrewrite.kotlin.style.Autodetect.Detector kotlinDetector = org.openrewrite.kotlin.style.Autodetect.detector();
+        org.openrewrite.xml.style.Autodetect.Detector xmlDetector = org.openrewrite.xml.style.Autodetect.detector();
+        List<SourceFile> sourceFiles = parsed
+                .peek(s -> {
+                    if (s instanceof K.CompilationUnit) {
+                        kotlinDetector.sample(s);
+                    } else if (s instanceof J.CompilationUnit) {
+                        javaDetector.sample(s);
+                    }
+                })
+                .peek(xmlDetector::sample)
+                .collect(toList());
+        Map<Class<? extends SourceFile>, NamedStyles> stylesByType = new HashMap<>();
+        stylesByType.put(J.CompilationUnit.class, javaDetector.build());
+        stylesByType.put(K.CompilationUnit.class, kotlinDetector.build());
+        stylesByType.put(Xml.Document.class, xmlDetector.build());
+        sourceFiles = ListUtils.map(sourceFiles, applyAutodetected(stylesByType));
+        sourceFiles = ListUtils.map(sourceFiles, applyConfiguredStyles(configuredStyles));
+        return sourceFiles;
+    }
+
+    /**
+     * Add styles that were detected before parsing, such as from a sample of the files, and the configured styles to
+     * the parsed sources as they are parsed.
+     */
+    static Stream<SourceFile> applyStyles(Stream<SourceFile> parsed,
+                                          Map<Class<? extends SourceFile>, NamedStyles> detectedStyles,
+                                          List<NamedStyles> configuredStyles) {
+        return parsed
+                .map(applyAutodetected(detectedStyles))
+                .map(applyConfiguredStyles(configuredStyles));
+    }
+
+    /**
+     * Write the parsed sources that recipes visit to disk, like {@link #applyStyles} collects them. Unless styles were
+     * detected before parsing, they are detected while the sources are written and added when they are read back.
+     *
+     * @param detectedStyles The styles detected before parsing, or {@code null} to detect them from all sources.
+     * @param heapBudgetMb   How many megabytes of sources are kept on heap once they were read back.
+     */
+    static SpillingLargeSourceSet spill(Stream<SourceFile> parsed,
+                                        @Nullable Map<Class<? extends SourceFile>, NamedStyles> detectedStyles,
+                                        List<NamedStyles> configuredStyles,
+                                        Predicate<SourceFile> visited,
+                                        Path spillDirectory,
+                                        int heapBudgetMb) {
+        if (detectedStyles != null) {
+            SpillingLargeSourceSet.Builder builder = SpillingLargeSourceSet.builder(spillDirectory, heapBudgetMb * 1024L * 1024L);
+            try {
+                applyStyles(parsed.filter(visited), detectedStyles, configuredStyles).forEach(builder::add);
+            } catch (RuntimeException e) {
+                builder.discard();
+                throw e;
+            }
+            return builder.build(UnaryOperator.identity());
+        }
+        org.openrewrite.java.style.Autodetect.Detector javaDetector = org.openrewrite.java.style.Autodetect.detector();
+        org.openrewrite.kotlin.style.Autodetect.Detector kotlinDetector = org.openrewrite.kotlin.style.Autodetect.detector();
+        org.openrewrite.xml.style.Autodetect.Detector xmlDetector = org.openrewrite.xml.style.Autodetect.detector();
+        SpillingLargeSourceSet.Builder builder = SpillingLargeSourceSet.builder(spillDirectory, heapBudgetMb * 1024L * 1024L);
+        try {
+            parsed.forEach(s -> {
+                if (s instanceof K.CompilationUnit) {
+                    kotlinDetector.sample(s);
+                } else if (s instanceof J.CompilationUnit) {
+                    javaDetector.sample(s);
+                }
+                xmlDetector.sample(s);
+                if (visited.test(s)) {
+                    builder.add(s);
+                }
+            });
+        } catch (RuntimeException e) {
+            builder.discard();
+            throw e;
+        }
+        Map<Class<? extends SourceFile>, NamedStyles> stylesByType = new HashMap<>();
+        stylesByType.put(J.CompilationUnit.class, javaDetector.build());
+        stylesByType.put(K.CompilationUnit.class, kotlinDetector.build());
+        stylesByType.put(Xml.Document.class, xmlDetector.build());
+        UnaryOperator<SourceFile> autodetected = applyAutodetected(stylesByType);
+        UnaryOperator<SourceFile> configured = applyConfiguredStyles(configuredStyles);
+        return builder.build(s -> configured.apply(autodetected.apply(s)));
+    }
+
+    private static UnaryOperator<SourceFile> applyAutodetected(
+            Map<Class<? extends SourceFile>, NamedStyles> stylesByType) {
+        return before -> {
+            for (Map.Entry<Class<? extends SourceFile>, NamedStyles> styleTypeEntry : stylesByType.entrySet()) {
+                if (styleTypeEntry.getKey().isAssignableFrom(before.getClass())) {
+                    before = before.withMarkers(before.getMarkers().add(styleTypeEntry.getValue()));
+                }
+            }
+            return before;
+        };
+    }
+
+    private static <T extends SourceFile> UnaryOperator<T> applyConfiguredStyles(List<NamedStyles> styles) {
+        return s -> {
+            Markers m = s.getMarkers();
+            for (NamedStyles style : styles) {
+                m = m.addIfAbsent(style);
+            }
+            return s.withMarkers(m);
+        };
+    }
+
+    static <T extends SourceFile> UnaryOperator<T> addMarkers(List<Marker> markers) {
+        return s -> {
+            Markers m = s.getMarkers();
+            for (Marker marker : markers) {
+                m = m.add(marker);
+            }
+            return s.withMarkers(m);
+        };
+    }
+
+    static <T extends SourceFile> UnaryOperator<T> addProvenance(List<Marker> projectProvenance) {
+        return s -> {
+            Markers m = s.getMarkers();
+            for (Marker marker : projectProvenance) {
+                m = m.addIfAbsent(marker);
+            }
+            return s.withMarkers(m);
+        };
+    }
+
+    static <T extends SourceFile> UnaryOperator<T> addGitTreeEntryInformation(@Nullable Repository repository) {
+        return s -> {
+            if (repository == null) {
+                return s;
+            }
+
+            try {
+                ObjectId head = repository.resolve("HEAD");
+                if (head == null) {
+                    return s;
+                }
+
+                try (RevWalk revWalk = new RevWalk(repository);
+                     TreeWalk treeWalk = new TreeWalk(repository)) {
+                    RevCommit commit = revWalk.parseCommit(head);
+                    treeWalk.addTree(commit.getTree());
+                    treeWalk.setRecursive(true);
+                    treeWalk.setFilter(PathFilter.create(PathUtils.separatorsToUnix(s.getSourcePath().toString())));
+
+                    if (treeWalk.next()) {
+                        return s.withMarkers(s.getMarkers().add(new GitTreeEntry(randomId(), treeWalk.getObjectId(0).name(), treeWalk.getRawMode(0))));
+                    }
+                    return s;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
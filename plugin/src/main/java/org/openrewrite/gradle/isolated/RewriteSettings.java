@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.gradle.RewriteExtension;
+
+import java.io.File;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The settings of the rewrite extension and of the build that a {@link RewriteEngine} needs, resolved in the build
+ * process, so that they can be sent to a worker process.
+ */
+final class RewriteSettings implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final List<String> activeRecipes;
+    final List<String> activeStyles;
+    final String configFile;
+    final boolean configFileSetDeliberately;
+    final HashMap<String, String> properties = new HashMap<>();
+    final @Nullable String checkstyleConfigFile;
+    final HashMap<String, String> checkstyleProperties = new HashMap<>();
+    final boolean pomCacheEnabled;
+    final @Nullable String pomCacheDirectory;
+    final boolean failOnInvalidActiveRecipes;
+    final boolean failOnDryRunResults;
+    final boolean throwOnParseFailures;
+    final boolean logCompilationWarningsAndErrors;
+    final @Nullable String datatablesDirectory;
+    final List<String> plainTextMasks;
+    final List<String> exclusions;
+    final int sizeThresholdMb;
+    final int parseParallelism;
+    final int projectParseParallelism;
+    final int javaParseBatchSize;
+    final int parserPoolSize;
+    final int sharedTypeCacheSize;
+    final int sourcePrefetchMb;
+    final int resourceParseParallelism;
+    final boolean runRecipesPerProject;
+    final int lstCacheSizeMb;
+    final String lstCacheDirectory;
+    final boolean refreshLstCache;
+    final @Nullable String noChangeMemoFile;
+    final int sourceSetHeapBudgetMb;
+    final int styleDetectionSampleSize;
+    final String fileIndexFile;
+    final String environmentIndexFile;
+    final String spillDirectory;
+    final @Nullable String compactResultsDirectory;
+    final int heapPressureOldGenPercent;
+    final int heapPressureGcOverheadPercent;
+
+    /**
+     * @param properties          The Gradle properties of the project, for placeholders in the configuration file.
+     * @param datatablesDirectory Where data tables are exported to, or {@code null} to not export them.
+     * @param noChangeMemoFile    Where files that recipes made no change to are remembered, or {@code null} to
+     *                            not remember them.
+     * @param fileIndexFile       Where the content hashes of files are kept between builds.
+     * @param environmentIndexFile Where the recipes found on the recipe classpath are kept between builds.
+     * @param lstCacheDirectory   Where parsed source files are cached between builds, when the cache is enabled.
+     * @param spillDirectory      Where parsed source files are written to when they are not all kept on heap.
+     * @param compactResultsDirectory Where compact results are written to until they are reported or applied, or
+     *                                {@code null} to keep results on heap.
+     */
+    RewriteSettings(RewriteExtension extension,
+                    List<String> activeRecipes,
+                    List<String> activeStyles,
+                    Map<String, ?> properties,
+                    @Nullable Path datatablesDirectory,
+                    @Nullable Path noChangeMemoFile,
+                    Path fileIndexFile,
+                    Path environmentIndexFile,
+                    Path lstCacheDirectory,
+                    Path spillDirectory,
+                    @Nullable Path compactResultsDirectory) {
+        this.activeRecipes = new ArrayList<>(activeRecipes);
+        this.activeStyles = new ArrayList<>(activeStyles);
+        this.configFile = extension.getConfigFile().getAbsolutePath();
+        this.configFileSetDeliberately = extension.getConfigFileSetDeliberately();
+        for (Map.Entry<String, ?> property : properties.entrySet()) {
+            if (property.getKey() != null && property.getValue() != null) {
+                this.properties.put(property.getKey(), property.getValue().toString());
+            }
+        }
+        File checkstyleConfig = extension.getCheckstyleConfigFile();
+        this.checkstyleConfigFile = checkstyleConfig == null ? null : checkstyleConfig.getAbsolutePath();
+        for (Map.Entry<String, Object> property : extension.getCheckstyleProperties().entrySet()) {
+            if (property.getValue() != null) {
+                this.checkstyleProperties.put(property.getKey(), property.getValue().toString());
+            }
+        }
+        this.pomCacheEnabled = extension.getPomCacheEnabled();
+        this.pomCacheDirectory = extension.getPomCacheDirectory();
+        this.failOnInvalidActiveRecipes = extension.getFailOnInvalidActiveRecipes();
+        this.failOnDryRunResults = extension.getFailOnDryRunResults();
+        this.throwOnParseFailures = extension.getThrowOnParseFailures();
+        this.logCompilationWarningsAndErrors = extension.getLogCompilationWarningsAndErrors();
+        this.datatablesDirectory = datatablesDirectory == null ? null : datatablesDirectory.toString();
+        this.plainTextMasks = new ArrayList<>(extension.getPlainTextMasks());
+        this.exclusions = new ArrayList<>(extension.getExclusions());
+        this.sizeThresholdMb = extension.getSizeThresholdMb();
+        this.parseParallelism = extension.getParseParallelism();
+        this.projectParseParallelism = extension.getProjectParseParallelism();
+        this.javaParseBatchSize = extension.getJavaParseBatchSize();
+        this.parserPoolSize = extension.getParserPoolSize();
+        this.sharedTypeCacheSize = extension.getSharedTypeCacheSize();
+        this.sourcePrefetchMb = extension.getSourcePrefetchMb();
+        this.resourceParseParallelism = extension.getResourceParseParallelism();
+        this.runRecipesPerProject = extension.getRunRecipesPerProject();
+        this.lstCacheSizeMb = extension.getLstCacheSizeMb();
+        this.lstCacheDirectory = lstCacheDirectory.toString();
+        this.refreshLstCache = extension.getRefreshLstCache();
+        this.noChangeMemoFile = noChangeMemoFile == null ? null : noChangeMemoFile.toString();
+        this.sourceSetHeapBudgetMb = extension.getSourceSetHeapBudgetMb();
+        this.styleDetectionSampleSize = extension.getStyleDetectionSampleSize();
+        this.fileIndexFile = fileIndexFile.toString();
+        this.environmentIndexFile = environmentIndexFile.toString();
+        this.spillDirectory = spillDirectory.toString();
+        this.compactResultsDirectory = compactResultsDirectory == null ? null : compactResultsDirectory.toString();
+        this.heapPressureOldGenPercent = extension.getHeapPressureOldGenPercent();
+        this.heapPressureGcOverheadPercent = extension.getHeapPressureGcOverheadPercent();
+    }
+}
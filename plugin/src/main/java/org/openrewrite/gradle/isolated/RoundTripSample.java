@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.openrewrite.SourceFile;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which serialized source files are read back and printed to check that they print the same as the source
+ * file they were serialized from. Reading back and printing a source file costs about as much as parsing it again, so
+ * only the first {@link #SAMPLE_SIZE} source files of each type are checked. Once a source file of some type did not
+ * print the same, source files of that type are no longer trusted to be serialized.
+ * <p>
+ * Every source file is checked when the {@code rewrite.verifyRoundTrip} system property is set.
+ */
+final class RoundTripSample {
+    static final int SAMPLE_SIZE = 8;
+
+    private static final int UNTRUSTED = -1;
+
+    private final boolean verifyAll;
+    private final Map<Class<?>, Integer> checked = new ConcurrentHashMap<>();
+
+    RoundTripSample() {
+        this(Boolean.getBoolean("rewrite.verifyRoundTrip"));
+    }
+
+    RoundTripSample(boolean verifyAll) {
+        this.verifyAll = verifyAll;
+    }
+
+    /**
+     * @return Whether a source file of this type did not print the same after it was read back.
+     */
+    boolean isUntrusted(SourceFile sourceFile) {
+        return checked.getOrDefault(sourceFile.getClass(), 0) == UNTRUSTED;
+    }
+
+    /**
+     * @return Whether this source file should be read back and printed after it was serialized.
+     */
+    boolean shouldCheck(SourceFile sourceFile) {
+        int count = checked.getOrDefault(sourceFile.getClass(), 0);
+        return count != UNTRUSTED && (verifyAll || count < SAMPLE_SIZE);
+    }
+
+    /**
+     * @param printsTheSame Whether the source file printed the same after it was read back.
+     */
+    void record(SourceFile sourceFile, boolean printsTheSame) {
+        checked.merge(sourceFile.getClass(), printsTheSame ? 1 : UNTRUSTED,
+                (count, result) -> count == UNTRUSTED || result == UNTRUSTED ? UNTRUSTED : count + 1);
+    }
+}
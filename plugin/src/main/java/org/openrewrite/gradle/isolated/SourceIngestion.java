@@ -0,0 +1,289 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.FileAttributes;
+import org.openrewrite.Parser;
+import org.openrewrite.SourceFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Reads source files ahead of the parsers, so that the latency of a slow file system, such as a network-mounted CI
+ * workspace, overlaps with parsing instead of adding up one file after another. Files are read on virtual threads when
+ * the JVM supports them, and on a bounded pool of threads otherwise.
+ * <p>
+ * The bytes that have been read but not yet handed to a parser are bounded by {@code maxMegabytesInFlight}, shared by
+ * all source sets that are parsed at the same time. Files are read in the order the parser asks for them. When a parser
+ * asks for a file that has not been read ahead yet, it reads the file itself, so a parser never waits for room in the
+ * budget. With a {@code maxMegabytesInFlight} of {@code 0} parsers read all files themselves.
+ */
+class SourceIngestion {
+    private static final Logger logger = Logging.getLogger(DefaultProjectParser.class);
+
+    private final int maxKilobytesInFlight;
+    private final Semaphore kilobytesInFlight;
+
+    /**
+     * Reads files. Tasks on this executor never block on the budget.
+     */
+    @Nullable
+    private ExecutorService reads;
+
+    /**
+     * Claims room in the budget for the files of each parser call, which blocks until room is free. These tasks are kept
+     * off {@link #reads}, so that claims that wait for room never keep the files that would free it from being read.
+     */
+    @Nullable
+    private ExecutorService claims;
+
+    SourceIngestion(int maxMegabytesInFlight) {
+        this.maxKilobytesInFlight = Math.max(0, maxMegabytesInFlight) * 1024;
+        this.kilobytesInFlight = new Semaphore(maxKilobytesInFlight, true);
+    }
+
+    /**
+     * Parse {@code paths} with {@code parser}, with the files read ahead.
+     */
+    Stream<SourceFile> parse(Parser parser, List<Path> paths, Path relativeTo, ExecutionContext ctx) {
+        if (maxKilobytesInFlight <= 0 || paths.isEmpty()) {
+            return parser.parse(paths, relativeTo, ctx);
+        }
+        Prefetch prefetch;
+        synchronized (this) {
+            if (reads == null || claims == null) {
+                startExecutors();
+            }
+            prefetch = new Prefetch(paths, reads, claims);
+        }
+        return parser.parseInputs(prefetch, relativeTo, ctx).onClose(prefetch::cancel);
+    }
+
+    /**
+     * Virtual threads were added in Java 21, while the plugin is compiled for Java 8.
+     */
+    private void startExecutors() {
+        try {
+            reads = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            claims = reads;
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+            logger.debug("Virtual threads are not available, reading sources with {} threads", threads);
+            reads = Executors.newFixedThreadPool(threads, daemonThreads("rewrite-source-ingestion-"));
+            // One thread for each parser call that is in progress
+            claims = Executors.newCachedThreadPool(daemonThreads("rewrite-source-claims-"));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    synchronized void shutdown() {
+        if (claims != null) {
+            claims.shutdownNow();
+            claims = null;
+        }
+        if (reads != null) {
+            reads.shutdownNow();
+            reads = null;
+        }
+    }
+
+    /**
+     * The inputs of one call to a parser. A single task claims room in the budget for one file after another, in the
+     * order of the paths, and hands each claimed file to another task to be read.
+     */
+    private class Prefetch extends AbstractList<Parser.Input> {
+        private final Source[] sources;
+        private final ExecutorService reads;
+        private final Future<?> producer;
+
+        Prefetch(List<Path> paths, ExecutorService reads, ExecutorService claims) {
+            this.reads = reads;
+            this.sources = new Source[paths.size()];
+            for (int i = 0; i < sources.length; i++) {
+                sources[i] = new Source(paths.get(i));
+            }
+            this.producer = claims.submit(this::claimAll);
+        }
+
+        private void claimAll() {
+            for (Source source : sources) {
+                if (!source.claim(reads)) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public Parser.Input get(int index) {
+            return sources[index].input();
+        }
+
+        @Override
+        public int size() {
+            return sources.length;
+        }
+
+        /**
+         * Return the room of files that were read ahead but never asked for to the budget.
+         */
+        void cancel() {
+            producer.cancel(true);
+            for (Source source : sources) {
+                source.discard();
+            }
+        }
+    }
+
+    private class Source {
+        private static final int PENDING = 0;
+        private static final int CLAIMED = 1;
+        private static final int READ_BY_PARSER = 2;
+
+        private final Path path;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CompletableFuture<Read> read = new CompletableFuture<>();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile int kilobytes;
+
+        @Nullable
+        private Parser.Input input;
+
+        Source(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * @return {@code false} when the prefetch has been cancelled.
+         */
+        boolean claim(ExecutorService reads) {
+            int kilobytes = kilobytes();
+            try {
+                kilobytesInFlight.acquire(kilobytes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            this.kilobytes = kilobytes;
+            if (!state.compareAndSet(PENDING, CLAIMED)) {
+                release();
+                return true;
+            }
+            try {
+                reads.execute(() -> {
+                    try {
+                        read.complete(new Read(FileAttributes.fromPath(path), Files.readAllBytes(path)));
+                    } catch (Throwable t) {
+                        read.completeExceptionally(t);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                read.completeExceptionally(e);
+                return false;
+            }
+            return true;
+        }
+
+        private int kilobytes() {
+            try {
+                return (int) Math.min(maxKilobytesInFlight, Math.max(1, (Files.size(path) + 1023) / 1024));
+            } catch (IOException e) {
+                return 1;
+            }
+        }
+
+        synchronized Parser.Input input() {
+            if (input == null) {
+                Read prefetched = null;
+                if (!state.compareAndSet(PENDING, READ_BY_PARSER)) {
+                    try {
+                        prefetched = read.join();
+                    } catch (CompletionException | CancellationException e) {
+                        // Let the parser read the file and report the problem
+                        release();
+                    }
+                }
+                input = prefetched == null ?
+                        new Parser.Input(path, FileAttributes.fromPath(path), this::readFromDisk) :
+                        new Parser.Input(path, prefetched.attributes, () -> take(prefetched));
+            }
+            return input;
+        }
+
+        /**
+         * The prefetched bytes are only handed out once, so that they can be reclaimed once the parser is done with
+         * them. Parsers that read a file more than once read it from disk again.
+         */
+        private InputStream take(Read prefetched) {
+            byte[] bytes = prefetched.bytes.getAndSet(null);
+            release();
+            return bytes == null ? readFromDisk() : new ByteArrayInputStream(bytes);
+        }
+
+        private InputStream readFromDisk() {
+            try {
+                return Files.newInputStream(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void discard() {
+            if (state.get() == CLAIMED) {
+                release();
+            }
+        }
+
+        private void release() {
+            if (kilobytes > 0 && released.compareAndSet(false, true)) {
+                kilobytesInFlight.release(kilobytes);
+            }
+        }
+    }
+
+    private static class Read {
+        private final @Nullable FileAttributes attributes;
+        private final AtomicReference<byte @Nullable []> bytes;
+
+        Read(@Nullable FileAttributes attributes, byte[] bytes) {
+            this.attributes = attributes;
+            this.bytes = new AtomicReference<>(bytes);
+        }
+    }
+}
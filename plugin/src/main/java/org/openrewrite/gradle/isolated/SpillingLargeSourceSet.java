@@ -0,0 +1,489 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.*;
+import org.openrewrite.internal.ObjectMappers;
+import org.openrewrite.marker.Markers;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+
+/**
+ * A {@link LargeSourceSet} that keeps the parsed source files on disk rather than on heap, so that the heap that
+ * recipes need does not grow with the size of the repository.
+ * <p>
+ * The trees of the parsed source files are serialized to segment files as they are added. Their markers, which are
+ * mostly shared between the source files of a source set, stay on heap. A source file is read back when a recipe visits
+ * it; the source files that were read most recently are kept on heap up to a budget, measured by their serialized size.
+ * Source files that recipes change or generate stay on heap. A {@link RoundTripSample sample} of the trees is read back
+ * as it is written, and source files of a type whose trees do not print the same after they were read back stay on heap
+ * as well.
+ * <p>
+ * The {@link #getChangeset() changeset} only reads back the source files that were changed or deleted, so the trees of
+ * unchanged files are never held by the results.
+ */
+class SpillingLargeSourceSet implements LargeSourceSet, Closeable {
+    private final Store store;
+    private final List<Slot> slots;
+
+    @Nullable
+    private final SpillingLargeSourceSet initialState;
+
+    private final Map<Slot, List<Recipe>> deletions;
+    private List<Recipe> recipeStack = emptyList();
+
+    private SpillingLargeSourceSet(Store store,
+                                   @Nullable SpillingLargeSourceSet initialState,
+                                   List<Slot> slots,
+                                   Map<Slot, List<Recipe>> deletions) {
+        this.store = store;
+        this.initialState = initialState;
+        this.slots = slots;
+        this.deletions = deletions;
+    }
+
+    /**
+     * @param directory       The directory in which a new directory is created for the segment files of this source
+     *                        set, which is deleted by {@link #close()}.
+     * @param heapBudgetBytes How many bytes of serialized source files are kept on heap once they were read back.
+     */
+    static Builder builder(Path directory, long heapBudgetBytes) {
+        return new Builder(directory, heapBudgetBytes);
+    }
+
+    @Override
+    public void setRecipe(List<Recipe> recipeStack) {
+        this.recipeStack = recipeStack;
+    }
+
+    @Override
+    public LargeSourceSet edit(UnaryOperator<SourceFile> map) {
+        List<Slot> mapped = null;
+        Map<Slot, List<Recipe>> deleted = null;
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            SourceFile before = slot.live == null ? store.load(slot.original) : slot.live;
+            SourceFile after = map.apply(before);
+            if (after == before) {
+                continue;
+            }
+            if (mapped == null) {
+                mapped = new ArrayList<>(slots);
+            }
+            if (after == null) {
+                if (deleted == null) {
+                    deleted = new LinkedHashMap<>(deletions);
+                }
+                deleted.put(slot, recipeStack);
+            }
+            mapped.set(i, after == null ? null : new Slot(slot.original, after, true));
+        }
+        if (mapped == null) {
+            return this;
+        }
+        mapped.removeIf(Objects::isNull);
+        return new SpillingLargeSourceSet(store, getInitialState(), mapped, deleted == null ? deletions : deleted);
+    }
+
+    @Override
+    public LargeSourceSet generate(@Nullable Collection<? extends SourceFile> t) {
+        if (t == null || t.isEmpty()) {
+            return this;
+        }
+        List<Slot> generated = new ArrayList<>(slots.size() + t.size());
+        generated.addAll(slots);
+        for (SourceFile sourceFile : t) {
+            generated.add(new Slot(-1, sourceFile, true));
+        }
+        return new SpillingLargeSourceSet(store, getInitialState(), generated, deletions);
+    }
+
+    @Override
+    public Changeset getChangeset() {
+        List<Slot> changed = new ArrayList<>();
+        for (Slot slot : slots) {
+            if (slot.changed) {
+                changed.add(slot);
+            }
+        }
+        List<Map.Entry<Slot, List<Recipe>>> deleted = new ArrayList<>();
+        for (Map.Entry<Slot, List<Recipe>> deletion : deletions.entrySet()) {
+            // A source file that was generated and deleted again was never there
+            if (deletion.getKey().original >= 0) {
+                deleted.add(deletion);
+            }
+        }
+        return new Changeset() {
+            @Override
+            public int size() {
+                return changed.size() + deleted.size();
+            }
+
+            @Override
+            public List<Result> getPage(int start, int count) {
+                List<Result> page = new ArrayList<>(Math.max(0, Math.min(count, size() - start)));
+                for (int i = start; i < start + count && i < size(); i++) {
+                    if (i < changed.size()) {
+                        Slot slot = changed.get(i);
+                        page.add(new Result(slot.original < 0 ? null : store.load(slot.original), slot.live));
+                    } else {
+                        Map.Entry<Slot, List<Recipe>> deletion = deleted.get(i - changed.size());
+                        page.add(new Result(store.load(deletion.getKey().original), null, singleton(deletion.getValue())));
+                    }
+                }
+                return page;
+            }
+        };
+    }
+
+    @Override
+    public @Nullable SourceFile getBefore(Path sourcePath) {
+        Integer original = store.originalsByPath.get(sourcePath);
+        return original == null ? null : store.load(original);
+    }
+
+    /**
+     * @return The number of source files in this source set.
+     */
+    int size() {
+        return slots.size();
+    }
+
+    void logStatistics(Logger logger) {
+        store.logStatistics(logger);
+    }
+
+    /**
+     * Drop the source files that were read back and are only kept on heap to be visited again, which are read from
+     * disk again when they are needed.
+     */
+    void releaseHeap() {
+        store.releaseHot();
+    }
+
+    /**
+     * Delete the segment files. The source set and its changeset must not be used afterward, while results that were
+     * already taken from the changeset remain usable.
+     */
+    @Override
+    public void close() {
+        store.close();
+    }
+
+    private SpillingLargeSourceSet getInitialState() {
+        return initialState == null ? this : initialState;
+    }
+
+    static class Builder {
+        private final Store store;
+        private final List<Slot> slots = new ArrayList<>();
+
+        private Builder(Path directory, long heapBudgetBytes) {
+            this.store = new Store(directory, heapBudgetBytes);
+        }
+
+        /**
+         * Write the tree of {@code sourceFile} to disk.
+         */
+        synchronized void add(SourceFile sourceFile) {
+            int original = store.spill(sourceFile);
+            slots.add(new Slot(original, store.pinned(original), false));
+        }
+
+        /**
+         * @param onLoad Applied to every source file when it is read back, such as to add the styles that were
+         *               detected from all source files.
+         */
+        SpillingLargeSourceSet build(UnaryOperator<SourceFile> onLoad) {
+            store.onLoad = onLoad;
+            List<Slot> built = new ArrayList<>(slots.size());
+            for (Slot slot : slots) {
+                built.add(slot.live == null ? slot : new Slot(slot.original, store.pin(slot.original, onLoad), false));
+            }
+            return new SpillingLargeSourceSet(store, null, built, Collections.emptyMap());
+        }
+
+        /**
+         * Delete the segment files, when the source set is not built.
+         */
+        void discard() {
+            store.close();
+        }
+    }
+
+    /**
+     * A source file of one state of the source set: one that was added to the builder, which is read back from disk
+     * unless {@code live} is set, or one that was changed or generated by a recipe.
+     */
+    private static final class Slot {
+        /**
+         * The index of the source file that this was added to the builder as, or {@code -1} for generated files.
+         */
+        private final int original;
+
+        @Nullable
+        private final SourceFile live;
+
+        private final boolean changed;
+
+        private Slot(int original, @Nullable SourceFile live, boolean changed) {
+            this.original = original;
+            this.live = live;
+            this.changed = changed;
+        }
+    }
+
+    private static final class Store implements Closeable {
+        private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+        private final Path directory;
+        private final long heapBudgetBytes;
+        private final ObjectWriter writer;
+        private final ObjectReader reader;
+        private final List<Original> originals = new ArrayList<>();
+        private final Map<Path, Integer> originalsByPath = new HashMap<>();
+        private final List<FileChannel> segments = new ArrayList<>();
+        private final LinkedHashMap<Integer, SourceFile> hot = new LinkedHashMap<>(16, 0.75f, true);
+        private final RoundTripSample roundTrips = new RoundTripSample();
+        private UnaryOperator<SourceFile> onLoad = UnaryOperator.identity();
+
+        @Nullable
+        private Path segmentDirectory;
+
+        private long segmentPosition = SEGMENT_BYTES;
+        private long hotBytes;
+        private long spilledBytes;
+        private int spilled;
+        private int loads;
+
+        private Store(Path directory, long heapBudgetBytes) {
+            this.directory = directory;
+            this.heapBudgetBytes = heapBudgetBytes;
+            ObjectMapper mapper = ObjectMappers.propertyBasedMapper(SpillingLargeSourceSet.class.getClassLoader())
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+            this.writer = mapper.writerFor(SourceFile.class);
+            this.reader = mapper.readerFor(SourceFile.class);
+        }
+
+        /**
+         * @return The index of the original source file. Its tree is kept on heap when it can not be written to disk,
+         * or when trees of its type were not read back the same.
+         */
+        synchronized int spill(SourceFile sourceFile) {
+            int index = originals.size();
+            originalsByPath.put(sourceFile.getSourcePath(), index);
+            SourceFile tree = sourceFile.withMarkers(Markers.EMPTY);
+            try {
+                if (!roundTrips.isUntrusted(tree)) {
+                    byte[] serialized = writer.writeValueAsBytes(tree);
+                    if (!roundTrips.shouldCheck(tree) || printsTheSame(tree, serialized)) {
+                        byte[] compressed = gzip(serialized);
+                        long position = write(compressed);
+                        originals.add(new Original(sourceFile.getMarkers(), segments.size() - 1, position,
+                                compressed.length, serialized.length, null));
+                        spilled++;
+                        spilledBytes += compressed.length;
+                        return index;
+                    }
+                }
+            } catch (IOException | RuntimeException ignored) {
+                // Kept on heap
+            }
+            originals.add(new Original(sourceFile.getMarkers(), -1, 0, 0, 0, sourceFile));
+            return index;
+        }
+
+        private boolean printsTheSame(SourceFile tree, byte[] serialized) {
+            boolean printsTheSame;
+            try {
+                printsTheSame = read(serialized).printAll().equals(tree.printAll());
+            } catch (IOException | RuntimeException e) {
+                printsTheSame = false;
+            }
+            roundTrips.record(tree, printsTheSame);
+            return printsTheSame;
+        }
+
+        synchronized @Nullable SourceFile pinned(int index) {
+            return originals.get(index).pinned;
+        }
+
+        synchronized SourceFile pin(int index, UnaryOperator<SourceFile> onLoad) {
+            Original original = originals.get(index);
+            SourceFile pinned = onLoad.apply(Objects.requireNonNull(original.pinned));
+            originals.set(index, new Original(original.markers, -1, 0, 0, 0, pinned));
+            return pinned;
+        }
+
+        synchronized SourceFile load(int index) {
+            Original original = originals.get(index);
+            if (original.pinned != null) {
+                return original.pinned;
+            }
+            SourceFile sourceFile = hot.get(index);
+            if (sourceFile != null) {
+                return sourceFile;
+            }
+
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(original.length);
+                FileChannel segment = segments.get(original.segment);
+                while (buffer.hasRemaining()) {
+                    if (segment.read(buffer, original.position + buffer.position()) < 0) {
+                        throw new EOFException("Spilled source file is truncated");
+                    }
+                }
+                sourceFile = onLoad.apply(read(gunzip(buffer.array())).withMarkers(original.markers));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            loads++;
+
+            hot.put(index, sourceFile);
+            hotBytes += original.size;
+            for (Iterator<Map.Entry<Integer, SourceFile>> entries = hot.entrySet().iterator();
+                 hotBytes > heapBudgetBytes && hot.size() > 1 && entries.hasNext(); ) {
+                Map.Entry<Integer, SourceFile> eldest = entries.next();
+                entries.remove();
+                hotBytes -= originals.get(eldest.getKey()).size;
+            }
+            return sourceFile;
+        }
+
+        private SourceFile read(byte[] serialized) throws IOException {
+            return reader.readValue(serialized);
+        }
+
+        private long write(byte[] compressed) throws IOException {
+            if (segmentPosition + compressed.length > SEGMENT_BYTES) {
+                if (segmentDirectory == null) {
+                    Files.createDirectories(directory);
+                    segmentDirectory = Files.createTempDirectory(directory, "spill-");
+                }
+                segments.add(FileChannel.open(segmentDirectory.resolve(segments.size() + ".seg"),
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE));
+                segmentPosition = 0;
+            }
+            long position = segmentPosition;
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            FileChannel segment = segments.get(segments.size() - 1);
+            while (buffer.hasRemaining()) {
+                segmentPosition += segment.write(buffer, segmentPosition);
+            }
+            return position;
+        }
+
+        synchronized void releaseHot() {
+            hot.clear();
+            hotBytes = 0;
+        }
+
+        void logStatistics(Logger logger) {
+            logger.info("Spilled {} of {} source files to disk ({} KB), read back {} times",
+                    spilled, originals.size(), spilledBytes / 1024, loads);
+        }
+
+        @Override
+        public synchronized void close() {
+            hot.clear();
+            for (FileChannel segment : segments) {
+                try {
+                    segment.close();
+                } catch (IOException ignored) {
+                    // Deleted below
+                }
+            }
+            segments.clear();
+            if (segmentDirectory != null) {
+                try (Stream<Path> files = Files.list(segmentDirectory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.deleteIfExists(file);
+                    }
+                    Files.deleteIfExists(segmentDirectory);
+                } catch (IOException ignored) {
+                    // Left in the build directory
+                }
+                segmentDirectory = null;
+            }
+        }
+
+        private static byte[] gzip(byte[] bytes) throws IOException {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+            try (OutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(bytes);
+            }
+            return compressed.toByteArray();
+        }
+
+        private static byte[] gunzip(byte[] bytes) throws IOException {
+            ByteArrayOutputStream uncompressed = new ByteArrayOutputStream(bytes.length * 4);
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    uncompressed.write(buffer, 0, read);
+                }
+            }
+            return uncompressed.toByteArray();
+        }
+    }
+
+    /**
+     * Where the tree of a source file that was added to the builder is kept, and the markers that it is read back with.
+     */
+    private static final class Original {
+        private final Markers markers;
+        private final int segment;
+        private final long position;
+        private final int length;
+        private final int size;
+
+        @Nullable
+        private final SourceFile pinned;
+
+        /**
+         * @param length The compressed length on disk.
+         * @param size   The serialized size, as an estimate of the heap that the tree takes once it is read back.
+         */
+        private Original(Markers markers, int segment, long position, int length, int size, @Nullable SourceFile pinned) {
+            this.markers = markers;
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+            this.size = size;
+            this.pinned = pinned;
+        }
+    }
+}
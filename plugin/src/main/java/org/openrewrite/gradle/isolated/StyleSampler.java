@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Parser;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.kotlin.KotlinParser;
+import org.openrewrite.kotlin.tree.K;
+import org.openrewrite.style.NamedStyles;
+import org.openrewrite.xml.XmlParser;
+import org.openrewrite.xml.tree.Xml;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Detects the styles of Java, Kotlin and XML files from a sample of the files that are about to be parsed, so that the
+ * styles are known before parsing starts and can be added to source files as they come out of the parsers.
+ * <p>
+ * Up to {@code sampleSize} files of each language are sampled per project, uniformly over the files that are
+ * {@linkplain #offer offered}. The sample is chosen the same way in every build as long as the same files are offered
+ * in the same order. Sampled files are parsed once more on their own, without their classpath, which is all that
+ * detecting their formatting needs.
+ */
+class StyleSampler {
+    private enum Language {
+        JAVA,
+        KOTLIN,
+        XML
+    }
+
+    private final int sampleSize;
+    private final Random random = new Random(0);
+    private final Map<String, Reservoir> reservoirs = new LinkedHashMap<>();
+
+    StyleSampler(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Consider {@code path} for the sample of {@code project}, if it is a Java, Kotlin or XML file.
+     */
+    void offer(String project, Path path) {
+        Language language = language(path);
+        if (language != null) {
+            reservoirs.computeIfAbsent(project + " " + language, k -> new Reservoir(language)).offer(path);
+        }
+    }
+
+    /**
+     * Parse the sampled files and detect their styles.
+     *
+     * @return The detected styles by the type of source file that they apply to, like
+     * {@link RewriteEngine#applyStyles} detects them from all source files.
+     */
+    Map<Class<? extends SourceFile>, NamedStyles> detect(Path baseDir, Logger logger) {
+        org.openrewrite.java.style.Autodetect.Detector javaDetector = org.openrewrite.java.style.Autodetect.detector();
+        org.openrewrite.kotlin.style.Autodetect.Detector kotlinDetector = org.openrewrite.kotlin.style.Autodetect.detector();
+        org.openrewrite.xml.style.Autodetect.Detector xmlDetector = org.openrewrite.xml.style.Autodetect.detector();
+
+        Map<Language, List<Path>> samples = new EnumMap<>(Language.class);
+        int offered = 0;
+        for (Reservoir reservoir : reservoirs.values()) {
+            samples.computeIfAbsent(reservoir.language, l -> new ArrayList<>()).addAll(reservoir.sample);
+            offered += reservoir.offered;
+        }
+
+        // Parse errors of the sample do not matter, the files are parsed again afterward
+        ExecutionContext ctx = new InMemoryExecutionContext(t -> {
+        });
+        int sampled = 0;
+        for (Map.Entry<Language, List<Path>> sample : samples.entrySet()) {
+            sampled += sample.getValue().size();
+            try (Stream<SourceFile> parsed = parser(sample.getKey()).parse(sample.getValue(), baseDir, ctx)) {
+                parsed.forEach(s -> {
+                    if (s instanceof K.CompilationUnit) {
+                        kotlinDetector.sample(s);
+                    } else if (s instanceof J.CompilationUnit) {
+                        javaDetector.sample(s);
+                    }
+                    xmlDetector.sample(s);
+                });
+            }
+        }
+        logger.info("Detected styles from a sample of {} of {} Java, Kotlin and XML files", sampled, offered);
+
+        Map<Class<? extends SourceFile>, NamedStyles> stylesByType = new HashMap<>();
+        stylesByType.put(J.CompilationUnit.class, javaDetector.build());
+        stylesByType.put(K.CompilationUnit.class, kotlinDetector.build());
+        stylesByType.put(Xml.Document.class, xmlDetector.build());
+        return stylesByType;
+    }
+
+    private static Parser parser(Language language) {
+        switch (language) {
+            case JAVA:
+                return JavaParser.fromJavaVersion().build();
+            case KOTLIN:
+                return KotlinParser.builder().build();
+            default:
+                return XmlParser.builder().build();
+        }
+    }
+
+    private static @Nullable Language language(Path path) {
+        String fileName = path.getFileName().toString();
+        if (fileName.endsWith(".java")) {
+            return Language.JAVA;
+        } else if (fileName.endsWith(".kt")) {
+            return Language.KOTLIN;
+        } else if (fileName.endsWith(".xml")) {
+            return Language.XML;
+        }
+        return null;
+    }
+
+    private class Reservoir {
+        private final Language language;
+        private final List<Path> sample = new ArrayList<>();
+        private int offered;
+
+        Reservoir(Language language) {
+            this.language = language;
+        }
+
+        void offer(Path path) {
+            offered++;
+            if (sample.size() < sampleSize) {
+                sample.add(path);
+            } else {
+                int replaced = random.nextInt(offered);
+                if (replaced < sampleSize) {
+                    sample.set(replaced, path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.java.internal.JavaTypeCache;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Type caches shared by all source sets that are parsed with the same jars, so that the types of their dependencies
+ * are only attributed once. A type is cached by its signature alone, which does not say which jar it came from, so
+ * source sets whose jars differ at all get separate caches.
+ * <p>
+ * The class directories on a classpath, which are the outputs of projects of the build, are left out of the key.
+ * Otherwise a test source set, which has the classes of its main source set on its classpath, would never share a
+ * cache with anything. The types of a build's own classes are attributed from their sources too, and builds rarely
+ * declare the same class in two projects. When they do, source sets with the same jars may see the type of either.
+ * <p>
+ * The number of types held by all caches together is bounded by {@code maxEntries}. When a cache is handed out while
+ * the caches hold more than that, the least recently used caches are dropped from the registry. Parsers that are still
+ * using a dropped cache keep it until they finish. With a {@code maxEntries} of {@code 0} every call gets a new cache.
+ */
+class TypeCacheRegistry {
+    private final int maxEntries;
+    private final Supplier<JavaTypeCache> newTypeCache;
+
+    // Access-ordered, so that iteration starts with the least recently used classpath
+    private final LinkedHashMap<String, JavaTypeCache> caches = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int hits;
+    private int misses;
+    private int evictions;
+
+    /**
+     * @param newTypeCache Creates the cache that holds the types of a classpath.
+     */
+    TypeCacheRegistry(int maxEntries, Supplier<JavaTypeCache> newTypeCache) {
+        this.maxEntries = maxEntries;
+        this.newTypeCache = newTypeCache;
+    }
+
+    synchronized JavaTypeCache get(Collection<Path> classpath) {
+        if (maxEntries <= 0) {
+            return newTypeCache.get();
+        }
+        String fingerprint = fingerprint(classpath);
+        JavaTypeCache typeCache = caches.get(fingerprint);
+        if (typeCache == null) {
+            misses++;
+            typeCache = new SynchronizedTypeCache(newTypeCache.get());
+            caches.put(fingerprint, typeCache);
+        } else {
+            hits++;
+        }
+        evict(fingerprint);
+        return typeCache;
+    }
+
+    /**
+     * The fingerprint of the jars on {@code classpath}, leaving out its class directories.
+     */
+    static String fingerprint(Collection<Path> classpath) {
+        List<Path> jars = new ArrayList<>(classpath.size());
+        for (Path entry : classpath) {
+            String fileName = entry.getFileName() == null ? "" : entry.getFileName().toString();
+            if (fileName.endsWith(".jar") || fileName.endsWith(".zip")) {
+                jars.add(entry);
+            }
+        }
+        return ParserPool.fingerprint(jars);
+    }
+
+    private void evict(String inUse) {
+        long entries = 0;
+        for (JavaTypeCache typeCache : caches.values()) {
+            entries += typeCache.size();
+        }
+        Iterator<Map.Entry<String, JavaTypeCache>> leastRecentlyUsed = caches.entrySet().iterator();
+        while (entries > maxEntries && leastRecentlyUsed.hasNext()) {
+            Map.Entry<String, JavaTypeCache> cache = leastRecentlyUsed.next();
+            if (cache.getKey().equals(inUse)) {
+                continue;
+            }
+            entries -= cache.getValue().size();
+            leastRecentlyUsed.remove();
+            evictions++;
+        }
+    }
+
+    synchronized void logStatistics(Logger logger) {
+        if (hits + misses > 0) {
+            logger.info("Type caches were shared {} times, created {} and evicted {}", hits, misses, evictions);
+        }
+    }
+
+    synchronized void clear() {
+        caches.clear();
+    }
+
+    /**
+     * Drop the types of all caches, including the caches of source sets that are being parsed, which attribute the
+     * types again as they need them.
+     */
+    synchronized void clearTypes() {
+        for (JavaTypeCache typeCache : caches.values()) {
+            typeCache.clear();
+        }
+        caches.clear();
+    }
+
+    /**
+     * Source sets that share a cache may be parsed at the same time.
+     */
+    private static class SynchronizedTypeCache extends JavaTypeCache {
+        private final JavaTypeCache delegate;
+
+        SynchronizedTypeCache(JavaTypeCache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized <T> @Nullable T get(String signature) {
+            return delegate.get(signature);
+        }
+
+        @Override
+        public synchronized void put(String signature, Object o) {
+            delegate.put(signature, o);
+        }
+
+        @Override
+        public synchronized void clear() {
+            delegate.clear();
+        }
+
+        @Override
+        public synchronized int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public synchronized JavaTypeCache clone() {
+            return delegate.clone();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.java.marker.JavaVersion;
+import org.openrewrite.marker.Marker;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static java.util.stream.Collectors.toList;
+import static org.openrewrite.Tree.randomId;
+
+/**
+ * Everything that a {@link WorkerProjectParser} needs to parse a build and run recipes on it in a worker process,
+ * where the Gradle model is not available. The plan is written by the build process once it has planned the parse,
+ * and read back by the worker.
+ * <p>
+ * Markers are carried over with Java serialization where they support it. {@link JavaVersion} and
+ * {@link JavaSourceSet} markers do not, and are built again in the worker instead.
+ */
+final class WorkerPlan implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final String baseDir;
+    final String gradleVersion;
+    final RewriteSettings settings;
+    final @Nullable List<String> changedFiles;
+    final List<String> gradleParserClasspath;
+    final List<String> gradleParserSettingsClasspath;
+    final List<ParseManifest.Project> projects;
+    final List<GroupPlan> groups;
+
+    /**
+     * @param changedFiles The files that recipes are limited to, or {@code null} to run them on all files.
+     */
+    WorkerPlan(Path baseDir, String gradleVersion, RewriteSettings settings, @Nullable Collection<Path> changedFiles,
+               List<Path> gradleParserClasspath, List<Path> gradleParserSettingsClasspath, ParseManifest manifest) {
+        this.baseDir = baseDir.toString();
+        this.gradleVersion = gradleVersion;
+        this.settings = settings;
+        this.changedFiles = changedFiles == null ? null : toStrings(changedFiles);
+        this.gradleParserClasspath = toStrings(gradleParserClasspath);
+        this.gradleParserSettingsClasspath = toStrings(gradleParserSettingsClasspath);
+        this.projects = new ArrayList<>(manifest.getProjects());
+        Map<Marker, MarkerPlan> markerPlans = new IdentityHashMap<>();
+        this.groups = manifest.getGroups().stream()
+                .map(group -> GroupPlan.of(group, manifest, markerPlans))
+                .collect(toList());
+    }
+
+    @Nullable
+    Set<Path> getChangedFiles() {
+        return changedFiles == null ? null : new HashSet<>(toPaths(changedFiles));
+    }
+
+    /**
+     * The manifest that this plan was written from, with its markers built again.
+     *
+     * @param markerInterner Shares identical markers between the groups of the manifest.
+     */
+    ParseManifest toManifest(MarkerInterner markerInterner) {
+        ParseManifest.Builder manifest = ParseManifest.builder(markerInterner);
+        for (ParseManifest.Project project : projects) {
+            manifest.project(project);
+        }
+        // A marker shared by several groups was sent once, and is built again once
+        Map<MarkerPlan, Marker> markers = new IdentityHashMap<>();
+        for (GroupPlan group : groups) {
+            List<Marker> groupMarkers = new ArrayList<>(group.markers.size());
+            for (MarkerPlan marker : group.markers) {
+                groupMarkers.add(markers.computeIfAbsent(marker, m -> m.toMarker(markerInterner)));
+            }
+            manifest.claim(group.project, group.sourceSet, group.kind, group.getCharset(), group.getClasspath(),
+                    groupMarkers, group.getPaths());
+        }
+        return manifest.build();
+    }
+
+    void write(Path planFile) {
+        try {
+            Files.createDirectories(planFile.getParent());
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(planFile)))) {
+                out.writeObject(this);
+            }
+        } catch (NotSerializableException e) {
+            throw new IllegalStateException("The rewrite worker can not be used with this build, because " +
+                                            e.getMessage() + " can not be sent to it. Disable workerIsolation to run rewrite in the build process.", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write rewrite worker plan", e);
+        }
+    }
+
+    static WorkerPlan read(Path planFile) {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(planFile)))) {
+            return (WorkerPlan) in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read rewrite worker plan", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Unable to read rewrite worker plan", e);
+        }
+    }
+
+    /**
+     * A {@link ParseManifest.Group} with its paths, charset and markers in a form that can be sent to the worker.
+     */
+    static final class GroupPlan implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String project;
+        final @Nullable String sourceSet;
+        final ParseManifest.Kind kind;
+        final @Nullable String charset;
+        final List<String> classpath;
+        final List<MarkerPlan> markers;
+        final List<String> paths;
+
+        private GroupPlan(ParseManifest.Group group, List<MarkerPlan> markers) {
+            this.project = group.getProject();
+            this.sourceSet = group.getSourceSet();
+            this.kind = group.getKind();
+            this.charset = group.getCharset() == null ? null : group.getCharset().name();
+            this.classpath = toStrings(group.getClasspath());
+            this.markers = markers;
+            this.paths = toStrings(group.getPaths());
+        }
+
+        /**
+         * @param markerPlans The plans of markers converted so far, so that a marker shared by several groups is sent
+         *                    and built again only once.
+         */
+        static GroupPlan of(ParseManifest.Group group, ParseManifest manifest, Map<Marker, MarkerPlan> markerPlans) {
+            List<MarkerPlan> markers = new ArrayList<>(group.getMarkers().size());
+            for (Marker marker : group.getMarkers()) {
+                markers.add(markerPlans.computeIfAbsent(marker, m -> MarkerPlan.of(m, manifest)));
+            }
+            return new GroupPlan(group, markers);
+        }
+
+        @Nullable
+        Charset getCharset() {
+            return charset == null ? null : Charset.forName(charset);
+        }
+
+        List<Path> getClasspath() {
+            return toPaths(classpath);
+        }
+
+        List<Path> getPaths() {
+            return toPaths(paths);
+        }
+    }
+
+    abstract static class MarkerPlan implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * @param markerInterner Shares the marker with identical markers of other groups.
+         */
+        abstract Marker toMarker(MarkerInterner markerInterner);
+
+        static MarkerPlan of(Marker marker, ParseManifest manifest) {
+            if (marker instanceof JavaVersion) {
+                return new JavaVersionPlan((JavaVersion) marker);
+            } else if (marker instanceof JavaSourceSet) {
+                JavaSourceSet sourceSet = (JavaSourceSet) marker;
+                List<Path> classpath = manifest.getSourceSetClasspath(sourceSet);
+                if (classpath == null) {
+                    throw new IllegalStateException("The classpath of source set " + sourceSet.getName() + " is unknown");
+                }
+                return new JavaSourceSetPlan(sourceSet.getName(), classpath);
+            }
+            return new SerializedMarker(marker);
+        }
+    }
+
+    private static final class SerializedMarker extends MarkerPlan {
+        private static final long serialVersionUID = 1L;
+
+        private final Marker marker;
+
+        SerializedMarker(Marker marker) {
+            this.marker = marker;
+        }
+
+        @Override
+        Marker toMarker(MarkerInterner markerInterner) {
+            return marker;
+        }
+    }
+
+    private static final class JavaVersionPlan extends MarkerPlan {
+        private static final long serialVersionUID = 1L;
+
+        private final String createdBy;
+        private final String vmVendor;
+        private final String sourceCompatibility;
+        private final String targetCompatibility;
+
+        JavaVersionPlan(JavaVersion javaVersion) {
+            this.createdBy = javaVersion.getCreatedBy();
+            this.vmVendor = javaVersion.getVmVendor();
+            this.sourceCompatibility = javaVersion.getSourceCompatibility();
+            this.targetCompatibility = javaVersion.getTargetCompatibility();
+        }
+
+        @Override
+        Marker toMarker(MarkerInterner markerInterner) {
+            return markerInterner.intern(new JavaVersion(randomId(), createdBy, vmVendor, sourceCompatibility, targetCompatibility));
+        }
+    }
+
+    private static final class JavaSourceSetPlan extends MarkerPlan {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final List<String> classpath;
+
+        JavaSourceSetPlan(String name, List<Path> classpath) {
+            this.name = name;
+            this.classpath = toStrings(classpath);
+        }
+
+        @Override
+        Marker toMarker(MarkerInterner markerInterner) {
+            return markerInterner.javaSourceSet(name, toPaths(classpath));
+        }
+    }
+
+    private static List<String> toStrings(Collection<Path> paths) {
+        return paths.stream().map(Path::toString).collect(toList());
+    }
+
+    static List<Path> toPaths(Collection<String> paths) {
+        return paths.stream().map(Paths::get).collect(toList());
+    }
+}
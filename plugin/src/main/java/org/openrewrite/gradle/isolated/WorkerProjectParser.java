@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.gradle.RewriteWorker;
+import org.openrewrite.java.internal.JavaTypeCache;
+import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.marker.BuildTool;
+import org.openrewrite.marker.GitProvenance;
+import org.openrewrite.marker.Marker;
+import org.openrewrite.marker.OperatingSystemProvenance;
+import org.openrewrite.marker.ci.BuildEnvironment;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.openrewrite.Tree.randomId;
+
+/**
+ * Parses a build and runs recipes on it from a {@link WorkerPlan}, in a worker process with its own heap. Everything
+ * that needs the Gradle model has already been done by the {@link DefaultProjectParser} of the build process that
+ * wrote the plan, so the parse and the recipe run are left to a {@link RewriteEngine} as they are.
+ */
+public class WorkerProjectParser implements RewriteWorker {
+    private static final Logger logger = Logging.getLogger(WorkerProjectParser.class);
+
+    private final WorkerPlan plan;
+    private final @Nullable Repository repository;
+    private final RewriteEngine engine;
+
+    public WorkerProjectParser(Path planFile) {
+        this.plan = WorkerPlan.read(planFile);
+        Path baseDir = Paths.get(plan.baseDir);
+        this.repository = DefaultProjectParser.getRepository(baseDir);
+
+        BuildEnvironment buildEnvironment = BuildEnvironment.build(System::getenv);
+        GitProvenance gitProvenance = null;
+        try {
+            gitProvenance = GitProvenance.fromProjectDirectory(baseDir, buildEnvironment);
+        } catch (Exception e) {
+            // Logging at a low level as this is unlikely to happen except in non-git projects, where it is expected
+            logger.debug("Unable to determine git provenance", e);
+        }
+        List<Marker> sharedProvenance = Stream.of(
+                        buildEnvironment,
+                        gitProvenance,
+                        OperatingSystemProvenance.current(),
+                        new BuildTool(randomId(), BuildTool.Type.Gradle, plan.gradleVersion))
+                .filter(Objects::nonNull)
+                .collect(toList());
+
+        this.engine = new RewriteEngine(baseDir, plan.settings, sharedProvenance, repository, JavaTypeCache::new);
+        engine.useGradleParserClasspath(WorkerPlan.toPaths(plan.gradleParserClasspath),
+                WorkerPlan.toPaths(plan.gradleParserSettingsClasspath));
+    }
+
+    @Override
+    public void run(Consumer<Throwable> onError) {
+        ExecutionContext ctx = new InMemoryExecutionContext(onError);
+        try (ResultsContainer results = engine.listResults(this::manifest, plan.getChangedFiles(), false, ctx)) {
+            DefaultProjectParser.applyResults(results, ctx, DefaultProjectParser::logRecipes);
+        } finally {
+            shutdownRewrite();
+        }
+    }
+
+    @Override
+    public void dryRun(Path reportPath, boolean dumpGcActivity, Consumer<Throwable> onError) {
+        if (dumpGcActivity) {
+            logger.warn("GC activity is not dumped when rewrite runs in a worker process");
+        }
+        ExecutionContext ctx = new InMemoryExecutionContext(onError);
+        try (ResultsContainer results = engine.listResults(this::manifest, plan.getChangedFiles(), true, ctx)) {
+            DefaultProjectParser.writeDryRunReport(reportPath, results, plan.settings.failOnDryRunResults,
+                    DefaultProjectParser::logRecipes);
+        } finally {
+            shutdownRewrite();
+        }
+    }
+
+    private ParseManifest manifest() {
+        MarkerInterner markerInterner = new MarkerInterner();
+        ParseManifest manifest = plan.toManifest(markerInterner);
+        logger.info(markerInterner.describeSavings());
+        return manifest;
+    }
+
+    private void shutdownRewrite() {
+        engine.shutdown();
+        if (repository != null) {
+            repository.close();
+        }
+    }
+}
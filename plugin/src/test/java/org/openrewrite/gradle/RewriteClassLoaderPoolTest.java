@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RewriteClassLoaderPoolTest {
+    private final ClassLoader pluginClassLoader = getClass().getClassLoader();
+
+    @Test
+    void classLoadersAreSharedByClasspathAndPluginClassLoader(@TempDir Path tempDir) throws Exception {
+        try (RewriteClassLoaderPool pool = new RewriteClassLoaderPool(4, TimeUnit.MINUTES.toNanos(30))) {
+            List<URL> a = classpath(tempDir, "a.jar");
+            List<URL> b = classpath(tempDir, "b.jar");
+
+            RewriteClassLoader classLoader = pool.get(a, pluginClassLoader);
+            assertThat(pool.get(b, pluginClassLoader)).isNotSameAs(classLoader);
+            assertThat(pool.get(a, pluginClassLoader)).isSameAs(classLoader);
+            assertThat(pool.get(a, new ClassLoader(pluginClassLoader) {
+            })).isNotSameAs(classLoader);
+            assertThat(pool.size()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed(@TempDir Path tempDir) throws Exception {
+        try (RewriteClassLoaderPool pool = new RewriteClassLoaderPool(2, TimeUnit.MINUTES.toNanos(30))) {
+            RewriteClassLoader a = released(pool.get(classpath(tempDir, "a.jar"), pluginClassLoader));
+            RewriteClassLoader b = released(pool.get(classpath(tempDir, "b.jar"), pluginClassLoader));
+            assertThat(released(pool.get(classpath(tempDir, "a.jar"), pluginClassLoader))).isSameAs(a);
+
+            released(pool.get(classpath(tempDir, "c.jar"), pluginClassLoader));
+            assertThat(pool.size()).isEqualTo(2);
+            assertThat(released(pool.get(classpath(tempDir, "a.jar"), pluginClassLoader))).isSameAs(a);
+            assertThat(released(pool.get(classpath(tempDir, "b.jar"), pluginClassLoader))).isNotSameAs(b);
+        }
+    }
+
+    @Test
+    void evictsIdleClassLoaders(@TempDir Path tempDir) throws Exception {
+        try (RewriteClassLoaderPool pool = new RewriteClassLoaderPool(4, -1)) {
+            RewriteClassLoader a = released(pool.get(classpath(tempDir, "a.jar"), pluginClassLoader));
+            assertThat(pool.get(classpath(tempDir, "a.jar"), pluginClassLoader)).isNotSameAs(a);
+            assertThat(pool.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void keepsClassLoadersThatAreInUse(@TempDir Path tempDir) throws Exception {
+        try (RewriteClassLoaderPool pool = new RewriteClassLoaderPool(1, -1)) {
+            RewriteClassLoader a = pool.get(classpath(tempDir, "a.jar"), pluginClassLoader);
+            pool.evictIdle();
+            assertThat(pool.size()).isEqualTo(1);
+
+            RewriteClassLoader b = pool.get(classpath(tempDir, "b.jar"), pluginClassLoader);
+            assertThat(pool.size()).isEqualTo(2);
+
+            a.release();
+            b.release();
+            pool.evictIdle();
+            assertThat(pool.size()).isZero();
+        }
+    }
+
+    @Test
+    void idleTimeoutOfTheLatestUse(@TempDir Path tempDir) throws Exception {
+        try (RewriteClassLoaderPool pool = new RewriteClassLoaderPool(4, -1)) {
+            RewriteClassLoader a = released(pool.get(classpath(tempDir, "a.jar"), pluginClassLoader, 30, TimeUnit.MINUTES));
+            pool.evictIdle();
+            assertThat(released(pool.get(classpath(tempDir, "a.jar"), pluginClassLoader, -1, TimeUnit.NANOSECONDS))).isSameAs(a);
+            pool.evictIdle();
+            assertThat(pool.size()).isZero();
+        }
+    }
+
+    @Test
+    void closeEmptiesThePool(@TempDir Path tempDir) throws Exception {
+        RewriteClassLoaderPool pool = new RewriteClassLoaderPool(4, TimeUnit.MINUTES.toNanos(30));
+        pool.get(classpath(tempDir, "a.jar"), pluginClassLoader);
+        pool.close();
+        assertThat(pool.size()).isZero();
+    }
+
+    private static RewriteClassLoader released(RewriteClassLoader classLoader) {
+        classLoader.release();
+        return classLoader;
+    }
+
+    private static List<URL> classpath(Path dir, String jar) throws Exception {
+        return singletonList(dir.resolve(jar).toUri().toURL());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RewriteClassLoaderTest {
+
+    @Test
+    void loadsClassesFromTheJarsThatContainTheirPackage(@TempDir Path tempDir) throws Exception {
+        Path empty = jar(tempDir.resolve("empty.jar"));
+        Path indexed = jar(tempDir.resolve("indexed.jar"), Indexed.class);
+        try (RewriteClassLoader classLoader = new RewriteClassLoader(
+                Arrays.asList(empty.toUri().toURL(), indexed.toUri().toURL()), getClass().getClassLoader())) {
+            Class<?> loaded = classLoader.loadClass(Indexed.class.getName());
+            assertThat(loaded).isNotSameAs(Indexed.class);
+            assertThat(loaded.getClassLoader()).isSameAs(classLoader);
+            assertThat(loaded.getProtectionDomain().getCodeSource().getLocation()).isEqualTo(indexed.toUri().toURL());
+            assertThat(loaded.getPackage().getName()).isEqualTo("org.openrewrite.gradle");
+
+            assertThatThrownBy(() -> classLoader.findClass("org.openrewrite.gradle.DoesNotExist"))
+                    .isInstanceOf(ClassNotFoundException.class);
+            assertThatThrownBy(() -> classLoader.findClass("com.example.DoesNotExist"))
+                    .isInstanceOf(ClassNotFoundException.class);
+            // Classes of packages that are not on the classpath are left to the parent
+            assertThat(classLoader.loadClass(Test.class.getName())).isSameAs(Test.class);
+        }
+    }
+
+    @Test
+    void classpathWithDirectories(@TempDir Path tempDir) throws Exception {
+        Path classes = Files.createDirectories(tempDir.resolve("classes"));
+        Path classFile = classes.resolve(Indexed.class.getName().replace('.', '/') + ".class");
+        Files.createDirectories(classFile.getParent());
+        try (InputStream in = classResource(Indexed.class)) {
+            Files.copy(in, classFile);
+        }
+        try (RewriteClassLoader classLoader = new RewriteClassLoader(
+                Collections.singletonList(classes.toUri().toURL()), getClass().getClassLoader())) {
+            Class<?> loaded = classLoader.loadClass(Indexed.class.getName());
+            assertThat(loaded.getClassLoader()).isSameAs(classLoader);
+        }
+    }
+
+    private static Path jar(Path jar, Class<?>... classes) throws Exception {
+        try (OutputStream out = Files.newOutputStream(jar);
+             JarOutputStream jarOut = new JarOutputStream(out)) {
+            for (Class<?> clazz : classes) {
+                jarOut.putNextEntry(new JarEntry(clazz.getName().replace('.', '/') + ".class"));
+                try (InputStream in = classResource(clazz)) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        jarOut.write(buffer, 0, read);
+                    }
+                }
+                jarOut.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static InputStream classResource(Class<?> clazz) {
+        URL resource = clazz.getResource("/" + clazz.getName().replace('.', '/') + ".class");
+        assertThat(resource).isNotNull();
+        try {
+            return resource.openStream();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Indexed {
+    }
+}
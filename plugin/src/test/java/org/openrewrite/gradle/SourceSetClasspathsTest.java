@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle;
+
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SourceSetClasspathsTest {
+    private final SourceSetClasspaths classpaths = new SourceSetClasspaths();
+
+    @Test
+    void classpathsAreResolvedOncePerProjectAndName(@TempDir Path tempDir) {
+        Project a = project(":a");
+        Project b = project(":b");
+        File jar = tempDir.resolve("lib.jar").toFile();
+        AtomicInteger resolutions = new AtomicInteger();
+
+        Set<Path> main = classpaths.get(a, "main", () -> {
+            resolutions.incrementAndGet();
+            return asList(jar, new File(tempDir.toFile(), "other/../lib.jar"));
+        });
+        assertThat(main).containsExactly(jar.toPath().toAbsolutePath().normalize());
+        assertThat(classpaths.get(a, "main", () -> {
+            resolutions.incrementAndGet();
+            return singletonList(jar);
+        })).isSameAs(main);
+        assertThat(resolutions).hasValue(1);
+
+        classpaths.get(a, "test", () -> {
+            resolutions.incrementAndGet();
+            return singletonList(jar);
+        });
+        classpaths.get(b, "main", () -> {
+            resolutions.incrementAndGet();
+            return singletonList(jar);
+        });
+        assertThat(resolutions).hasValue(3);
+    }
+
+    @Test
+    void failedResolutionsAreNotRemembered() {
+        Project a = project(":a");
+        assertThatThrownBy(() -> classpaths.get(a, "main", () -> {
+            throw new IllegalStateException("unresolvable");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(classpaths.get(a, "main", ArrayList::new)).isEmpty();
+    }
+
+    @Test
+    void resolutionTimesAreReportedPerProject() {
+        classpaths.get(project(":b"), "main", ArrayList::new);
+        classpaths.get(project(":a"), "main", ArrayList::new);
+        classpaths.get(project(":a"), "test", ArrayList::new);
+
+        List<String> logged = new ArrayList<>();
+        classpaths.logResolutionTimes(logger(logged));
+
+        assertThat(logged).hasSize(2);
+        assertThat(logged.get(0)).startsWith("Resolved source set classpaths of :a in ");
+        assertThat(logged.get(1)).startsWith("Resolved source set classpaths of :b in ");
+    }
+
+    private static Project project(String path) {
+        return (Project) Proxy.newProxyInstance(
+                SourceSetClasspathsTest.class.getClassLoader(),
+                new Class[]{Project.class},
+                (proxy, method, args) -> "getPath".equals(method.getName()) ? path : null);
+    }
+
+    private static Logger logger(List<String> logged) {
+        return (Logger) Proxy.newProxyInstance(
+                SourceSetClasspathsTest.class.getClassLoader(),
+                new Class[]{Logger.class},
+                (proxy, method, args) -> {
+                    if ("info".equals(method.getName()) && args != null && args.length == 3) {
+                        logged.add(((String) args[0])
+                                .replaceFirst("\\{}", String.valueOf(args[1]))
+                                .replaceFirst("\\{}", String.valueOf(args[2])));
+                    }
+                    return null;
+                });
+    }
+}
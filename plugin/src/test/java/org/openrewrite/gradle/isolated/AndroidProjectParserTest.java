@@ -19,14 +19,12 @@ import org.gradle.api.Project;
 import org.gradle.api.plugins.ExtensionContainer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
-import org.openrewrite.gradle.RewriteExtension;
 
 import java.io.File;
 import java.lang.reflect.Proxy;
 import java.nio.file.Path;
 import java.util.Collection;
 
-import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -102,8 +100,7 @@ class AndroidProjectParserTest {
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     private AndroidProjectParser createParser(Path tempDir, Project project) {
-        RewriteExtension rewriteExtension = new RewriteExtension(project);
-        return new AndroidProjectParser(tempDir, null, rewriteExtension, emptyList());
+        return new AndroidProjectParser(tempDir);
     }
 
     private Project createMockProject(Path tempDir, Object androidExtension) {
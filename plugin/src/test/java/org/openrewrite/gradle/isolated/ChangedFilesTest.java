@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.jgit.api.Git;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChangedFilesTest {
+
+    @Test
+    void committedAndUncommittedChangesSinceTheMergeBase(@TempDir Path tempDir) throws Exception {
+        Path dir = tempDir.toAbsolutePath().normalize();
+        try (Git git = Git.init().setDirectory(dir.toFile()).call()) {
+            writeFile(dir.resolve(".gitignore"), "ignored.txt\n");
+            writeFile(dir.resolve("committed.txt"), "base");
+            writeFile(dir.resolve("unchanged.txt"), "base");
+            writeFile(dir.resolve("modified.txt"), "base");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("base").call();
+            git.branchCreate().setName("base").call();
+
+            writeFile(dir.resolve("committed.txt"), "changed");
+            git.add().addFilepattern("committed.txt").call();
+            git.commit().setMessage("change").call();
+            writeFile(dir.resolve("modified.txt"), "changed");
+            writeFile(dir.resolve("untracked.txt"), "new");
+            writeFile(dir.resolve("ignored.txt"), "ignored");
+
+            assertThat(ChangedFiles.since(git.getRepository(), "base")).containsExactlyInAnyOrder(
+                    dir.resolve("committed.txt"),
+                    dir.resolve("modified.txt"),
+                    dir.resolve("untracked.txt"));
+        }
+    }
+
+    @Test
+    void unknownRef(@TempDir Path tempDir) throws Exception {
+        try (Git git = Git.init().setDirectory(tempDir.toFile()).call()) {
+            writeFile(tempDir.resolve("a.txt"), "a");
+            git.add().addFilepattern("a.txt").call();
+            git.commit().setMessage("initial").call();
+
+            assertThatThrownBy(() -> ChangedFiles.since(git.getRepository(), "does-not-exist"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private static void writeFile(Path path, String content) throws Exception {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnvironmentIndexTest {
+
+    @Test
+    void referencedRecipesFollowDeclarativeRecipes() {
+        String yaml = "type: specs.openrewrite.org/v1beta/recipe\n" +
+                      "name: com.example.Outer\n" +
+                      "recipeList:\n" +
+                      "  - com.example.Inner\n" +
+                      "  - org.openrewrite.java.RemoveUnusedImports\n" +
+                      "---\n" +
+                      "type: specs.openrewrite.org/v1beta/recipe\n" +
+                      "name: com.example.Inner\n" +
+                      "recipeList:\n" +
+                      "  - org.openrewrite.java.format.AutoFormat\n" +
+                      "---\n" +
+                      "type: specs.openrewrite.org/v1beta/recipe\n" +
+                      "name: com.example.Unused\n" +
+                      "recipeList:\n" +
+                      "  - org.openrewrite.java.OrderImports\n";
+
+        assertThat(EnvironmentIndex.referencedRecipes(singletonList("com.example.Outer"), singletonList(yaml)))
+                .contains("com.example.Outer", "com.example.Inner",
+                        "org.openrewrite.java.RemoveUnusedImports", "org.openrewrite.java.format.AutoFormat")
+                .doesNotContain("com.example.Unused", "org.openrewrite.java.OrderImports");
+    }
+
+    @Test
+    void activeJavaRecipesAreReferenced() {
+        assertThat(EnvironmentIndex.referencedRecipes(asList("org.openrewrite.java.OrderImports"), singletonList("")))
+                .containsExactly("org.openrewrite.java.OrderImports");
+    }
+
+    @Test
+    void recipesMissingFromTheIndexAreUnknown() {
+        String yaml = "type: specs.openrewrite.org/v1beta/recipe\n" +
+                      "name: com.example.Declarative\n" +
+                      "recipeList:\n" +
+                      "  - org.openrewrite.java.OrderImports\n";
+        Set<String> javaRecipes = singleton("org.openrewrite.java.OrderImports");
+
+        assertThat(EnvironmentIndex.unknownRecipe(asList("com.example.Declarative", "org.openrewrite.java.OrderImports"),
+                javaRecipes, singletonList(yaml)))
+                .isNull();
+        assertThat(EnvironmentIndex.unknownRecipe(asList("com.example.Declarative", "com.example.Misspelled"),
+                javaRecipes, singletonList(yaml)))
+                .isEqualTo("com.example.Misspelled");
+    }
+}
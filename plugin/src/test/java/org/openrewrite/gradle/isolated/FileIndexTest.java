@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileIndexTest {
+
+    @TempDir
+    Path baseDir;
+
+    @TempDir
+    Path indexDir;
+
+    @Test
+    void unchangedFilesAreNotReadAgain() throws IOException {
+        Path file = write("a.txt", "a", 60_000);
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        FileIndex fileIndex = load();
+        byte[] hash = fileIndex.hash(file);
+        fileIndex.save();
+
+        // Neither the size nor the modification time change, so the content is not read again
+        Files.write(file, "b".getBytes());
+        Files.setLastModifiedTime(file, lastModified);
+        fileIndex = load();
+        assertThat(fileIndex.changed(file)).isFalse();
+        assertThat(fileIndex.hash(file)).isEqualTo(hash);
+    }
+
+    @Test
+    void changedFilesAreHashedAgain() throws IOException {
+        Path file = write("a.txt", "a", 60_000);
+        FileIndex fileIndex = load();
+        byte[] hash = fileIndex.hash(file);
+        fileIndex.save();
+
+        write("a.txt", "ab", 60_000);
+        fileIndex = load();
+        assertThat(fileIndex.changed(file)).isTrue();
+        assertThat(fileIndex.hash(file)).isNotEqualTo(hash);
+    }
+
+    @Test
+    void updateIndexesFilesThatWereNeverHashed() throws IOException {
+        Path a = write("a.txt", "a", 60_000);
+        Path b = write("b.txt", "b", 60_000);
+        FileIndex fileIndex = load();
+        assertThat(fileIndex.changed(a)).isTrue();
+
+        fileIndex.update(asList(a, b, baseDir.resolve("missing.txt")));
+        fileIndex.save();
+
+        fileIndex = load();
+        assertThat(fileIndex.changed(a)).isFalse();
+        assertThat(fileIndex.changed(b)).isFalse();
+    }
+
+    @Test
+    void recentlyModifiedFilesAreNotRemembered() throws IOException {
+        Path file = write("a.txt", "a", 0);
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        FileIndex fileIndex = load();
+        byte[] hash = fileIndex.hash(file);
+        fileIndex.save();
+
+        // The file may still be modified within the resolution of the clock, so its content is read again
+        Files.write(file, "b".getBytes());
+        Files.setLastModifiedTime(file, lastModified);
+        fileIndex = load();
+        assertThat(fileIndex.changed(file)).isTrue();
+        assertThat(fileIndex.hash(file)).isNotEqualTo(hash);
+    }
+
+    private FileIndex load() {
+        return FileIndex.load(indexDir.resolve("file-index.bin"), baseDir);
+    }
+
+    private Path write(String name, String text, long ageMillis) throws IOException {
+        Path file = Files.write(baseDir.resolve(name), text.getBytes());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - ageMillis));
+        return file;
+    }
+}
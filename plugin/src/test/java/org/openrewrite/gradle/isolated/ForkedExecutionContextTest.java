@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.tree.ParsingExecutionContextView.view;
+
+class ForkedExecutionContextTest {
+    private final ExecutionContext shared = new InMemoryExecutionContext(Throwable::printStackTrace);
+
+    @Test
+    void charsetStaysLocalToTheFork() {
+        view(shared).setCharset(StandardCharsets.UTF_8);
+        ExecutionContext forked = ForkedExecutionContext.withCharset(shared, StandardCharsets.ISO_8859_1);
+
+        assertThat(view(forked).getCharset()).isEqualTo(StandardCharsets.ISO_8859_1);
+        assertThat(view(shared).getCharset()).isEqualTo(StandardCharsets.UTF_8);
+
+        view(forked).setCharset(StandardCharsets.US_ASCII);
+        assertThat(view(shared).getCharset()).isEqualTo(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void otherMessagesAreSharedWithTheContextThatWasForked() {
+        ExecutionContext forked = ForkedExecutionContext.withCharset(shared, StandardCharsets.ISO_8859_1);
+
+        forked.putMessage("recorded", "by the parser");
+        assertThat((String) shared.getMessage("recorded")).isEqualTo("by the parser");
+
+        shared.putMessage("consumed", "once");
+        assertThat((String) forked.pollMessage("consumed")).isEqualTo("once");
+        assertThat((Object) shared.getMessage("consumed")).isNull();
+        assertThat((Object) ForkedExecutionContext.withCharset(shared, null).pollMessage("consumed")).isNull();
+    }
+}
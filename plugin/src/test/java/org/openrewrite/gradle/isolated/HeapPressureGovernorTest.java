@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeapPressureGovernorTest {
+
+    private final AtomicReference<Double> oldGenUsage = new AtomicReference<>(0.5);
+    private final AtomicReference<Double> gcOverhead = new AtomicReference<>(0.0);
+    private final HeapPressureGovernor governor = new HeapPressureGovernor(80, 20, oldGenUsage::get, gcOverhead::get);
+
+    @Test
+    void batchesShrinkAsPressureRises() {
+        assertThat(governor.check()).isEqualTo(HeapPressureGovernor.Pressure.NORMAL);
+        assertThat(governor.batchSize(400)).isEqualTo(400);
+
+        gcOverhead.set(0.3);
+        assertThat(governor.check()).isEqualTo(HeapPressureGovernor.Pressure.ELEVATED);
+        assertThat(governor.batchSize(400)).isEqualTo(200);
+        assertThat(governor.batchSize(30)).isEqualTo(HeapPressureGovernor.MIN_BATCH_SIZE);
+        assertThat(governor.batchSize(10)).isEqualTo(10);
+
+        oldGenUsage.set(0.95);
+        assertThat(governor.check()).isEqualTo(HeapPressureGovernor.Pressure.CRITICAL);
+        assertThat(governor.batchSize(400)).isEqualTo(100);
+    }
+
+    @Test
+    void reliefsRunEveryTimePressureRises() {
+        AtomicInteger released = new AtomicInteger();
+        Runnable relief = released::incrementAndGet;
+        governor.addRelief("test", relief);
+
+        oldGenUsage.set(0.85);
+        governor.check();
+        governor.check();
+        assertThat(released).hasValue(1);
+
+        oldGenUsage.set(0.95);
+        governor.check();
+        assertThat(released).hasValue(2);
+
+        oldGenUsage.set(0.5);
+        governor.check();
+        governor.removeRelief(relief);
+        oldGenUsage.set(0.85);
+        governor.check();
+        assertThat(released).hasValue(2);
+    }
+
+    @Test
+    void parsingOnlyPausesWhilePressureIsCritical() {
+        oldGenUsage.set(0.85);
+        governor.check();
+        long start = System.nanoTime();
+        governor.awaitRelief();
+
+        oldGenUsage.set(0.95);
+        governor.check();
+        oldGenUsage.set(0.5);
+        governor.awaitRelief();
+
+        assertThat(governor.getPressure()).isEqualTo(HeapPressureGovernor.Pressure.NORMAL);
+        assertThat(System.nanoTime() - start).isLessThan(HeapPressureGovernor.MAX_PAUSE.toNanos());
+    }
+
+    @Test
+    void javaSourcesAreParsedInSmallerBatchesUnderPressure() {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            paths.add(Paths.get("Source" + i + ".java"));
+        }
+        List<Integer> batchSizes = new ArrayList<>();
+        ParseBatches.parse(paths, 100, 1, governor, batch -> {
+            batchSizes.add(batch.size());
+            if (batchSizes.size() == 1) {
+                gcOverhead.set(0.3);
+                governor.check();
+            }
+            return Stream.empty();
+        }).collect(toList());
+
+        assertThat(batchSizes).containsExactly(100, 50, 50);
+    }
+
+    @Test
+    void sourceSetsThatAreNotBatchedAreNotSplitUnderPressure() {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            paths.add(Paths.get("Source" + i + ".java"));
+        }
+        gcOverhead.set(0.3);
+        governor.check();
+
+        List<Integer> batchSizes = new ArrayList<>();
+        ParseBatches.parse(paths, 0, 1, governor, batch -> {
+            batchSizes.add(batch.size());
+            return Stream.empty();
+        }).collect(toList());
+
+        assertThat(batchSizes).containsExactly(200);
+    }
+}
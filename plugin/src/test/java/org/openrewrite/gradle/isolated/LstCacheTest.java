@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.text.PlainText;
+import org.openrewrite.text.PlainTextParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LstCacheTest {
+
+    @TempDir
+    Path baseDir;
+
+    @TempDir
+    Path cacheDir;
+
+    private final List<Path> parsed = new ArrayList<>();
+
+    @Test
+    void unchangedFilesAreReadFromTheCache() throws IOException {
+        List<Path> paths = asList(write("a.txt", "a"), write("b.txt", "b"));
+        assertThat(parse(new LstCache(cacheDir, baseDir, 10, "", false, fileIndex()), paths)).containsExactly("a", "b");
+        assertThat(parsed).containsExactlyElementsOf(paths);
+
+        parsed.clear();
+        write("b.txt", "changed");
+        assertThat(parse(new LstCache(cacheDir, baseDir, 10, "", false, fileIndex()), paths)).containsExactly("a", "changed");
+        assertThat(parsed).containsExactly(paths.get(1));
+    }
+
+    @Test
+    void refreshParsesAllFilesAgain() throws IOException {
+        List<Path> paths = asList(write("a.txt", "a"), write("b.txt", "b"));
+        parse(new LstCache(cacheDir, baseDir, 10, "", false, fileIndex()), paths);
+
+        parsed.clear();
+        assertThat(parse(new LstCache(cacheDir, baseDir, 10, "", true, fileIndex()), paths)).containsExactly("a", "b");
+        assertThat(parsed).containsExactlyElementsOf(paths);
+    }
+
+    @Test
+    void otherParserSettingsDoNotShareEntries() throws IOException {
+        List<Path> paths = asList(write("a.txt", "a"));
+        parse(new LstCache(cacheDir, baseDir, 10, "", false, fileIndex()), paths);
+
+        parsed.clear();
+        parse(new LstCache(cacheDir, baseDir, 10, "**/*.txt", false, fileIndex()), paths);
+        assertThat(parsed).containsExactlyElementsOf(paths);
+    }
+
+    @Test
+    void evictsDownToTheMaximumSize() throws IOException {
+        LstCache lstCache = new LstCache(cacheDir, baseDir, 0, "", false, fileIndex());
+        parse(lstCache, asList(write("a.txt", "a"), write("b.txt", "b")));
+        assertThat(entries()).hasSize(2);
+
+        lstCache.evict();
+        assertThat(entries()).isEmpty();
+    }
+
+    @Test
+    void recordedSizeSavesWalkingTheCache() throws IOException {
+        LstCache lstCache = new LstCache(cacheDir, baseDir, 10, "", false, fileIndex());
+        parse(lstCache, asList(write("a.txt", "a"), write("b.txt", "b")));
+        lstCache.evict();
+        long size = 0;
+        for (Path entry : entries()) {
+            size += Files.size(entry);
+        }
+        assertThat(new String(Files.readAllBytes(cacheDir.resolve("size")), StandardCharsets.UTF_8))
+                .isEqualTo(Long.toString(size));
+
+        // The recorded size is trusted while it is within the maximum size
+        Files.write(cacheDir.resolve("size"), "0".getBytes(StandardCharsets.UTF_8));
+        new LstCache(cacheDir, baseDir, 0, "", false, fileIndex()).evict();
+        assertThat(entries()).hasSize(2);
+    }
+
+    private List<String> parse(LstCache lstCache, List<Path> paths) {
+        try (Stream<SourceFile> sourceFiles = lstCache.parse(ParseManifest.Kind.PLAIN_TEXT, null, emptyList(), emptyList(), paths,
+                unparsed -> {
+                    parsed.addAll(unparsed);
+                    return PlainTextParser.builder().build()
+                            .parse(unparsed, baseDir, new InMemoryExecutionContext(Throwable::printStackTrace));
+                })) {
+            return sourceFiles.map(s -> ((PlainText) s).getText()).collect(toList());
+        }
+    }
+
+    private FileIndex fileIndex() {
+        return FileIndex.load(cacheDir.resolve("file-index.bin"), baseDir);
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            return files.filter(file -> file.toString().endsWith(".json.gz")).collect(toList());
+        }
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(baseDir.resolve(name), text.getBytes());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.java.marker.JavaVersion;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.Tree.randomId;
+
+class MarkerInternerTest {
+
+    @Test
+    void sourceSetsWithTheSameClasspathShareItsTypes() throws Exception {
+        List<Path> classpath = singletonList(Paths.get(Test.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        MarkerInterner interner = new MarkerInterner();
+
+        JavaSourceSet debug = interner.javaSourceSet("debug", classpath);
+        JavaSourceSet release = interner.javaSourceSet("release", classpath);
+
+        assertThat(debug.getClasspath()).isNotEmpty();
+        assertThat(release.getName()).isEqualTo("release");
+        assertThat(release.getId()).isNotEqualTo(debug.getId());
+        assertThat(release.getClasspath()).isSameAs(debug.getClasspath());
+        assertThat(interner.getSavedBytes()).isPositive();
+    }
+
+    @Test
+    void identicalJavaVersionsAreOneMarker() {
+        MarkerInterner interner = new MarkerInterner();
+        JavaVersion first = new JavaVersion(randomId(), "17", "vendor", "17", "17");
+
+        assertThat(interner.intern(first)).isSameAs(first);
+        assertThat(interner.intern(new JavaVersion(randomId(), "17", "vendor", "17", "17"))).isSameAs(first);
+        assertThat(interner.intern(new JavaVersion(randomId(), "17", "vendor", "11", "11"))).isNotSameAs(first);
+    }
+}
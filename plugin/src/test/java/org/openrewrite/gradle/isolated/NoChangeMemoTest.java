@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.*;
+import org.openrewrite.text.PlainText;
+import org.openrewrite.text.PlainTextParser;
+import org.openrewrite.text.PlainTextVisitor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NoChangeMemoTest {
+
+    @TempDir
+    Path baseDir;
+
+    @TempDir
+    Path buildDir;
+
+    @Test
+    void skipsFilesThatWereUnchanged() throws IOException {
+        List<Path> paths = asList(write("a.txt", "foo"), write("b.txt", "bar"));
+        Recipe recipe = findAndReplace("foo", "baz");
+
+        assertThat(run(recipe, paths)).isEqualTo(0);
+        assertThat(run(recipe, paths)).isEqualTo(1);
+
+        write("b.txt", "foo bar");
+        assertThat(run(recipe, paths)).isEqualTo(0);
+    }
+
+    @Test
+    void otherRecipeOptionsVisitAllFiles() throws IOException {
+        List<Path> paths = asList(write("a.txt", "foo"), write("b.txt", "bar"));
+        run(findAndReplace("foo", "baz"), paths);
+
+        assertThat(run(findAndReplace("bar", "baz"), paths)).isEqualTo(0);
+    }
+
+    @Test
+    void scanningRecipesVisitAllFiles() throws IOException {
+        List<Path> paths = asList(write("a.txt", "foo"), write("b.txt", "bar"));
+        ScanAndReplaceText recipe = new ScanAndReplaceText("foo", "baz");
+        run(recipe, paths);
+        recipe.scanned.clear();
+
+        assertThat(run(recipe, paths)).isEqualTo(0);
+        assertThat(recipe.scanned).containsExactlyInAnyOrder(Paths.get("a.txt"), Paths.get("b.txt"));
+    }
+
+    private int run(Recipe recipe, List<Path> paths) {
+        InMemoryExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+        List<SourceFile> sourceFiles = PlainTextParser.builder().build().parse(paths, baseDir, ctx).collect(toList());
+        NoChangeMemo memo = NoChangeMemo.load(buildDir.resolve("no-change-memo.txt"), baseDir, recipe,
+                FileIndex.load(buildDir.resolve("file-index.bin"), baseDir));
+        memo.run(recipe, sourceFiles, ctx);
+        memo.save();
+        return memo.getSkipped();
+    }
+
+    private static Recipe findAndReplace(String find, String replace) {
+        return new ReplaceText(find, replace);
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(baseDir.resolve(name), text.getBytes());
+    }
+
+    static class ReplaceText extends Recipe {
+        @Option(displayName = "Find")
+        final String find;
+
+        @Option(displayName = "Replace")
+        final String replace;
+
+        ReplaceText(String find, String replace) {
+            this.find = find;
+            this.replace = replace;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Replace text";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Replace text in plain text files.";
+        }
+
+        @Override
+        public TreeVisitor<?, ExecutionContext> getVisitor() {
+            return new PlainTextVisitor<ExecutionContext>() {
+                @Override
+                public PlainText visitText(PlainText text, ExecutionContext ctx) {
+                    return text.withText(text.getText().replace(find, replace));
+                }
+            };
+        }
+    }
+
+    static class ScanAndReplaceText extends ScanningRecipe<Set<Path>> {
+        @Option(displayName = "Find")
+        final String find;
+
+        @Option(displayName = "Replace")
+        final String replace;
+
+        final Set<Path> scanned = new HashSet<>();
+
+        ScanAndReplaceText(String find, String replace) {
+            this.find = find;
+            this.replace = replace;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Scan and replace text";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Replace text in plain text files after scanning all of them.";
+        }
+
+        @Override
+        public Set<Path> getInitialValue(ExecutionContext ctx) {
+            return new HashSet<>();
+        }
+
+        @Override
+        public TreeVisitor<?, ExecutionContext> getScanner(Set<Path> acc) {
+            return new PlainTextVisitor<ExecutionContext>() {
+                @Override
+                public PlainText visitText(PlainText text, ExecutionContext ctx) {
+                    acc.add(text.getSourcePath());
+                    scanned.add(text.getSourcePath());
+                    return text;
+                }
+            };
+        }
+
+        @Override
+        public TreeVisitor<?, ExecutionContext> getVisitor(Set<Path> acc) {
+            return new PlainTextVisitor<ExecutionContext>() {
+                @Override
+                public PlainText visitText(PlainText text, ExecutionContext ctx) {
+                    return text.withText(text.getText().replace(find, replace));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParseBatchesTest {
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void partitionKeepsOrder() {
+        List<Integer> items = asList(1, 2, 3, 4, 5);
+
+        assertThat(ParseBatches.partition(items, 2)).containsExactly(asList(1, 2), asList(3, 4), asList(5));
+        assertThat(ParseBatches.partition(items, 5)).containsExactly(items);
+    }
+
+    @Test
+    void batchSizeOfZeroParsesEverythingAtOnce() {
+        List<Integer> items = asList(1, 2, 3);
+
+        assertThat(ParseBatches.partition(items, 0)).containsExactly(items);
+        assertThat(ParseBatches.resolveBatchSize(0, 3, 1)).isZero();
+    }
+
+    @Test
+    void autoBatchSizeFollowsHeapHeadroom() {
+        // 1 GB free at half a megabyte per source
+        assertThat(ParseBatches.autoBatchSize(1536 * MB, 512 * MB, 1)).isEqualTo(2048);
+        // The same headroom is shared by four concurrent parsers
+        assertThat(ParseBatches.autoBatchSize(1536 * MB, 512 * MB, 4)).isEqualTo(512);
+    }
+
+    @Test
+    void autoBatchSizeIsBounded() {
+        assertThat(ParseBatches.autoBatchSize(512 * MB, 511 * MB, 1)).isEqualTo(ParseBatches.MIN_AUTO_BATCH_SIZE);
+        assertThat(ParseBatches.autoBatchSize(64 * 1024 * MB, 0, 1)).isEqualTo(ParseBatches.MAX_AUTO_BATCH_SIZE);
+        assertThat(ParseBatches.autoBatchSize(Long.MAX_VALUE, 0, 1)).isEqualTo(ParseBatches.MAX_AUTO_BATCH_SIZE);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParseExecutorTest {
+
+    @Test
+    void serialExecutorReturnsStreamUnchanged() {
+        ParseExecutor executor = new ParseExecutor(1);
+        Stream<String> sources = Stream.of("a", "b");
+
+        assertThat(executor.isParallel()).isFalse();
+        assertThat(executor.submit(sources)).isSameAs(sources);
+    }
+
+    @Test
+    void parallelResultsKeepSubmissionOrder() {
+        ParseExecutor executor = new ParseExecutor(4);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        try {
+            List<String> parsed = IntStream.range(0, 16)
+                    .mapToObj(sourceSet -> executor.submit(IntStream.range(0, 100)
+                            .mapToObj(file -> {
+                                threads.add(Thread.currentThread().getName());
+                                return sourceSet + ":" + file;
+                            })))
+                    .reduce(Stream.empty(), Stream::concat)
+                    .collect(toList());
+
+            assertThat(parsed).containsExactlyElementsOf(IntStream.range(0, 16).boxed()
+                    .flatMap(sourceSet -> IntStream.range(0, 100).mapToObj(file -> sourceSet + ":" + file))
+                    .collect(toList()));
+            assertThat(threads).allMatch(name -> name.startsWith("rewrite-parser-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void submitsInOrderOnlyAsFarAheadAsThereAreThreads() {
+        ParseExecutor executor = new ParseExecutor(2);
+        AtomicInteger created = new AtomicInteger();
+        try {
+            List<Supplier<Stream<Integer>>> groups = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                int group = i;
+                groups.add(() -> {
+                    created.incrementAndGet();
+                    return Stream.of(group);
+                });
+            }
+            Iterator<Integer> parsed = executor.submitInOrder(groups).iterator();
+
+            assertThat(parsed.next()).isEqualTo(0);
+            assertThat(created).hasValueLessThanOrEqualTo(3);
+            List<Integer> rest = new ArrayList<>();
+            parsed.forEachRemaining(rest::add);
+            assertThat(rest).containsExactly(1, 2, 3, 4);
+            assertThat(created).hasValue(5);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void failuresSurfaceWhenResultsAreConsumed() {
+        ParseExecutor executor = new ParseExecutor(2);
+        try {
+            Stream<String> parsed = executor.submit(Stream.of("a").<String>map(s -> {
+                throw new IllegalStateException("unable to parse " + s);
+            }));
+
+            assertThatThrownBy(() -> parsed.collect(toList()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("unable to parse a");
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParseManifestTest {
+    private final Path baseDir = Paths.get("/repo").toAbsolutePath();
+    private final Path a = baseDir.resolve("src/main/java/A.java");
+    private final Path b = baseDir.resolve("src/main/java/B.java");
+    private final Path c = baseDir.resolve("src/test/java/C.java");
+
+    @Test
+    void firstGroupToClaimAFileOwnsIt() {
+        ParseManifest.Builder builder = ParseManifest.builder();
+
+        List<Path> main = builder.claim(":app", "main", ParseManifest.Kind.JAVA, StandardCharsets.UTF_8,
+                emptyList(), emptyList(), asList(a, b));
+        List<Path> test = builder.claim(":app", "test", ParseManifest.Kind.JAVA, StandardCharsets.UTF_8,
+                emptyList(), emptyList(), asList(b, c));
+        ParseManifest manifest = builder.build();
+
+        assertThat(main).containsExactly(a, b);
+        assertThat(test).containsExactly(c);
+        assertThat(manifest.size()).isEqualTo(3);
+        assertThat(manifest.getOwner(b).getSourceSet()).isEqualTo("main");
+        assertThat(manifest.getOwner(c).getSourceSet()).isEqualTo("test");
+    }
+
+    @Test
+    void groupsWithoutUnclaimedFilesAreNotPlanned() {
+        ParseManifest.Builder builder = ParseManifest.builder(singletonList(a));
+        builder.reserve(b);
+
+        List<Path> claimed = builder.claim(":app", "main", ParseManifest.Kind.JAVA, null,
+                emptyList(), emptyList(), asList(a, b));
+        ParseManifest manifest = builder.build();
+
+        assertThat(claimed).isEmpty();
+        assertThat(manifest.getGroups()).isEmpty();
+        assertThat(manifest.getOwner(a)).isNull();
+        assertThat(manifest.getClaimedPaths()).containsExactlyInAnyOrder(a, b);
+    }
+
+    @Test
+    void groupsOfAProjectKeepPlanningOrder() {
+        ParseManifest.Builder builder = ParseManifest.builder();
+        builder.claim(":lib", "main", ParseManifest.Kind.JAVA, null, emptyList(), emptyList(), singletonList(a));
+        builder.claim(":app", "test", ParseManifest.Kind.JAVA, null, emptyList(), emptyList(), singletonList(c));
+        builder.claim(":lib", null, ParseManifest.Kind.RESOURCE, null, emptyList(), emptyList(), singletonList(b));
+        ParseManifest manifest = builder.build();
+
+        // Claims made after the manifest was built are not visible to it
+        builder.claim(":lib", null, ParseManifest.Kind.GRADLE, null, emptyList(), emptyList(),
+                singletonList(baseDir.resolve("build.gradle")));
+
+        assertThat(manifest.getGroups(":lib"))
+                .extracting(ParseManifest.Group::getKind)
+                .containsExactly(ParseManifest.Kind.JAVA, ParseManifest.Kind.RESOURCE);
+        assertThat(manifest.getGroups(":app")).hasSize(1);
+        assertThat(manifest.size()).isEqualTo(3);
+    }
+
+    @Test
+    void retainsSourceSetsWithChangesAndChangedResources() {
+        Path readme = baseDir.resolve("README.md");
+        Path license = baseDir.resolve("LICENSE");
+        ParseManifest.Builder builder = ParseManifest.builder();
+        builder.claim(":app", "main", ParseManifest.Kind.JAVA, null, emptyList(), emptyList(), asList(a, b));
+        builder.claim(":app", "test", ParseManifest.Kind.JAVA, null, emptyList(), emptyList(), singletonList(c));
+        builder.claim(":app", null, ParseManifest.Kind.RESOURCE, null, emptyList(), emptyList(), asList(readme, license));
+
+        ParseManifest changed = builder.build().retainChanged(new HashSet<>(asList(a, readme)));
+
+        assertThat(changed.getGroups())
+                .extracting(ParseManifest.Group::getPaths)
+                .containsExactly(asList(a, b), singletonList(readme));
+        assertThat(changed.getOwner(c)).isNull();
+        assertThat(changed.size()).isEqualTo(3);
+    }
+
+    @Test
+    void dump() throws IOException {
+        ParseManifest.Builder builder = ParseManifest.builder();
+        builder.claim(":app", "main", ParseManifest.Kind.JAVA, StandardCharsets.UTF_8,
+                singletonList(Paths.get("/libs/guava.jar")), emptyList(), asList(a, b));
+        builder.claim(":app", null, ParseManifest.Kind.RESOURCE, null, emptyList(), emptyList(),
+                singletonList(baseDir.resolve("README.md")));
+
+        StringWriter writer = new StringWriter();
+        builder.build().dump(baseDir, writer);
+
+        assertThat(writer.toString()).isEqualTo(
+                ":app main JAVA UTF-8 (2 files, 1 classpath entries)\n" +
+                "    classpath " + Paths.get("/libs/guava.jar").toString().replace('\\', '/') + "\n" +
+                "    src/main/java/A.java\n" +
+                "    src/main/java/B.java\n" +
+                ":app - RESOURCE - (1 files, 0 classpath entries)\n" +
+                "    README.md\n");
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.java.internal.JavaTypeCache;
+import org.openrewrite.text.PlainTextParser;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParserPoolTest {
+    private final List<Path> guava = singletonList(Paths.get("/libs/guava.jar"));
+    private final ParserPool.Key text = ParserPool.Key.of("text", guava, StandardCharsets.UTF_8);
+
+    @Test
+    void parserIsReusedOnceTheStreamIsClosed() {
+        ParserPool pool = new ParserPool(2);
+
+        PlainTextParser first = pool.acquire(text, () -> PlainTextParser.builder().build());
+        pool.release(text, first);
+        PlainTextParser second = pool.acquire(text, () -> PlainTextParser.builder().build());
+
+        assertThat(second).isSameAs(first);
+        assertThat(pool.getHits()).isEqualTo(1);
+        assertThat(pool.getMisses()).isEqualTo(1);
+
+        pool.release(text, second);
+        try (Stream<?> parsed = pool.parse(text, () -> PlainTextParser.builder().build(), p -> {
+            assertThat(p).isSameAs(first);
+            return Stream.empty();
+        })) {
+            assertThat(parsed).isEmpty();
+        }
+        assertThat(pool.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    void differentClasspathOrCharsetGetsAnotherParser() {
+        ParserPool pool = new ParserPool(4);
+        PlainTextParser parser = pool.acquire(text, () -> PlainTextParser.builder().build());
+        pool.release(text, parser);
+
+        assertThat(pool.acquire(ParserPool.Key.of("text", guava, StandardCharsets.ISO_8859_1),
+                () -> PlainTextParser.builder().build())).isNotSameAs(parser);
+        assertThat(pool.acquire(ParserPool.Key.of("text", singletonList(Paths.get("/libs/junit.jar")), StandardCharsets.UTF_8),
+                () -> PlainTextParser.builder().build())).isNotSameAs(parser);
+        assertThat(pool.getHits()).isZero();
+    }
+
+    @Test
+    void differentLanguageLevelGetsAnotherParser() {
+        ParserPool pool = new ParserPool(4);
+        ParserPool.Key java8 = ParserPool.Key.of("java", guava, StandardCharsets.UTF_8, "1.8");
+        PlainTextParser parser = pool.acquire(java8, () -> PlainTextParser.builder().build());
+        pool.release(java8, parser);
+
+        assertThat(pool.acquire(ParserPool.Key.of("java", guava, StandardCharsets.UTF_8, "17"),
+                () -> PlainTextParser.builder().build())).isNotSameAs(parser);
+        assertThat(pool.acquire(java8, () -> PlainTextParser.builder().build())).isSameAs(parser);
+    }
+
+    @Test
+    void pooledParserUsesTheTypeCacheOfItsBorrower() {
+        ParserPool pool = new ParserPool(2);
+        JavaTypeCache first = new JavaTypeCache();
+        JavaTypeCache second = new JavaTypeCache();
+        List<JavaTypeCache> built = new ArrayList<>();
+        Function<JavaTypeCache, PlainTextParser> newParser = typeCache -> {
+            built.add(typeCache);
+            return PlainTextParser.builder().build();
+        };
+
+        try (Stream<?> parsed = pool.parse(text, first, newParser, p -> {
+            built.get(0).put("com.google.common.collect.ImmutableList", new Object());
+            return Stream.empty();
+        })) {
+            assertThat(parsed).isEmpty();
+        }
+        try (Stream<?> parsed = pool.parse(text, second, newParser, p -> {
+            built.get(0).put("org.junit.jupiter.api.Test", new Object());
+            return Stream.empty();
+        })) {
+            assertThat(parsed).isEmpty();
+        }
+
+        assertThat(built).hasSize(1);
+        assertThat(first.size()).isEqualTo(1);
+        assertThat(second.size()).isEqualTo(1);
+        assertThat((Object) second.get("org.junit.jupiter.api.Test")).isNotNull();
+    }
+
+    @Test
+    void leastRecentlyUsedParserIsEvicted() {
+        ParserPool pool = new ParserPool(1);
+        ParserPool.Key other = ParserPool.Key.of("other", guava, null);
+        PlainTextParser first = pool.acquire(text, () -> PlainTextParser.builder().build());
+        PlainTextParser second = pool.acquire(other, () -> PlainTextParser.builder().build());
+        pool.release(text, first);
+        pool.release(other, second);
+
+        assertThat(pool.acquire(text, () -> PlainTextParser.builder().build())).isNotSameAs(first);
+        assertThat(pool.acquire(other, () -> PlainTextParser.builder().build())).isSameAs(second);
+    }
+
+    @Test
+    void nothingIsKeptWithoutIdleCapacity() {
+        ParserPool pool = new ParserPool(0);
+        PlainTextParser parser = pool.acquire(text, () -> PlainTextParser.builder().build());
+        pool.release(text, parser);
+
+        assertThat(pool.acquire(text, () -> PlainTextParser.builder().build())).isNotSameAs(parser);
+        assertThat(pool.getHits()).isZero();
+    }
+
+    @Test
+    void fingerprintIgnoresClasspathOrder() {
+        Path a = Paths.get("/libs/a.jar");
+        Path b = Paths.get("/libs/b.jar");
+
+        assertThat(ParserPool.fingerprint(asList(a, b))).isEqualTo(ParserPool.fingerprint(asList(b, a)));
+        assertThat(ParserPool.fingerprint(asList(a, b))).isNotEqualTo(ParserPool.fingerprint(singletonList(a)));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.Recipe;
+import org.openrewrite.config.DeclarativeRecipe;
+import org.openrewrite.config.Environment;
+import org.openrewrite.config.YamlResourceLoader;
+import org.openrewrite.text.ChangeText;
+import org.openrewrite.text.CreateTextFile;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecipeScopeTest {
+
+    @Test
+    void recipeThatOnlyVisitsCanRunPerProject() {
+        assertThat(RecipeScope.findWholeBuildRecipe(new ChangeText("hello"))).isNull();
+    }
+
+    @Test
+    void scanningRecipeNeedsWholeBuild() {
+        Recipe createTextFile = new CreateTextFile("hello", "hello.txt", false);
+        assertThat(RecipeScope.findWholeBuildRecipe(createTextFile)).isSameAs(createTextFile);
+    }
+
+    @Test
+    void declarativeRecipeNeedsWholeBuild() {
+        // Its preconditions may scan, and can not be inspected
+        Recipe declarative = declarative(
+                "  - org.openrewrite.text.ChangeText:\n" +
+                "      toText: hello\n");
+        Recipe wholeBuild = RecipeScope.findWholeBuildRecipe(declarative);
+        assertThat(wholeBuild).isInstanceOf(DeclarativeRecipe.class);
+        assertThat(wholeBuild.getName()).isEqualTo("org.openrewrite.gradle.Declarative");
+    }
+
+    private static Recipe declarative(String recipeList) {
+        String yaml = "type: specs.openrewrite.org/v1beta/recipe\n" +
+                      "name: org.openrewrite.gradle.Declarative\n" +
+                      "displayName: Declarative\n" +
+                      "recipeList:\n" +
+                      recipeList;
+        return Environment.builder()
+                .load(new YamlResourceLoader(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)),
+                        URI.create("rewrite.yml"), new Properties()))
+                .build()
+                .activateRecipes("org.openrewrite.gradle.Declarative");
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Parser;
+import org.openrewrite.SourceFile;
+import org.openrewrite.quark.QuarkParser;
+import org.openrewrite.text.PlainTextParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.PathUtils.separatorsToUnix;
+
+class ResourceParserTest {
+
+    @TempDir
+    Path baseDir;
+
+    @Test
+    void partitionsByFirstAcceptingParserInPlannedOrder() {
+        Path a = baseDir.resolve("dir/a.txt");
+        Path b = baseDir.resolve("dir/b.bin");
+        Path c = baseDir.resolve("dir/c.txt");
+
+        assertThat(ResourceParser.partition(parsers(), asList(a, b, c)))
+                .containsExactly(asList(a, c), singletonList(b));
+    }
+
+    @Test
+    void partitionsAreReturnedInParserOrder() throws IOException {
+        List<Path> paths = asList(
+                write("a.bin"), write("b.txt"), write("c.bin"), write("d.txt"));
+        ResourceParser resourceParser = new ResourceParser(2);
+        try (Stream<SourceFile> parsed = resourceParser.parse(this::parsers, parsers -> parsers.get(0), paths,
+                baseDir, new InMemoryExecutionContext(Throwable::printStackTrace))) {
+            assertThat(parsed.map(s -> separatorsToUnix(s.getSourcePath().toString())).collect(toList()))
+                    .containsExactly("dir/b.txt", "dir/d.txt", "dir/a.bin", "dir/c.bin");
+        } finally {
+            resourceParser.shutdown();
+        }
+    }
+
+    @Test
+    void parsesInPlannedOrderWithoutParallelism() throws IOException {
+        List<Path> paths = asList(write("a.bin"), write("b.txt"));
+        try (Stream<SourceFile> parsed = new ResourceParser(1).parse(this::parsers, parsers -> parsers.get(0), paths,
+                baseDir, new InMemoryExecutionContext(Throwable::printStackTrace))) {
+            assertThat(parsed.map(s -> separatorsToUnix(s.getSourcePath().toString())).collect(toList()))
+                    .containsExactly("dir/a.bin", "dir/b.txt");
+        }
+    }
+
+    private List<Parser> parsers() {
+        return asList(
+                PlainTextParser.builder().plainTextMasks(baseDir, singletonList("**/*.txt")).build(),
+                QuarkParser.builder().build());
+    }
+
+    private Path write(String name) throws IOException {
+        Path path = baseDir.resolve("dir").resolve(name);
+        Files.createDirectories(path.getParent());
+        return Files.write(path, name.getBytes());
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.*;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.text.PlainTextParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultsContainerTest {
+
+    @TempDir
+    Path baseDir;
+
+    @TempDir
+    Path resultsDir;
+
+    private final InMemoryExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+
+    @Test
+    void compactDryRunWritesDiffsAsResultsAreAdded() throws IOException {
+        ResultsContainer results = ResultsContainer.compact(baseDir, resultsDir, true, ctx);
+        results.add(replaceFoo(write("a.txt", "foo"), write("b.txt", "bar")));
+
+        assertThat(results.getSummaries()).singleElement().satisfies(summary -> {
+            assertThat(summary.getChange()).isEqualTo(ResultSummary.Change.CHANGED);
+            assertThat(summary.getBefore()).isEqualTo(Paths.get("a.txt"));
+            assertThat(summary.getResult()).isNull();
+        });
+
+        Path report = baseDir.resolve("rewrite.patch");
+        results.writeDiffs(report);
+        assertThat(new String(Files.readAllBytes(report), StandardCharsets.UTF_8))
+                .contains("-foo").contains("+baz");
+        results.close();
+        try (Stream<Path> written = Files.list(resultsDir)) {
+            assertThat(written).isEmpty();
+        }
+    }
+
+    @Test
+    void compactRunStagesChangedFilesUntilTheyAreApplied() throws IOException {
+        Path a = write("a.txt", "foo");
+        ResultsContainer results = ResultsContainer.compact(baseDir, resultsDir, false, ctx);
+        results.add(replaceFoo(a));
+        assertThat(new String(Files.readAllBytes(a), StandardCharsets.UTF_8)).isEqualTo("foo");
+
+        DefaultProjectParser.applyResults(results, ctx, summary -> {
+        });
+        results.close();
+
+        assertThat(new String(Files.readAllBytes(a), StandardCharsets.UTF_8)).isEqualTo("baz");
+        try (Stream<Path> written = Files.list(resultsDir)) {
+            assertThat(written).isEmpty();
+        }
+    }
+
+    @Test
+    void resultsThatAreNotRetainedAreDroppedWhenAdded() throws IOException {
+        Path a = write("a.txt", "foo");
+        Path b = write("b.txt", "foo");
+        ResultsContainer results = ResultsContainer.compact(baseDir, resultsDir, true, ctx);
+        results.retain(singleton(b.toAbsolutePath().normalize()));
+        results.add(replaceFoo(a, b));
+
+        assertThat(results.getSummaries()).extracting(ResultSummary::getBefore).containsExactly(Paths.get("b.txt"));
+        results.close();
+    }
+
+    @Test
+    void generatedFilesAreRetainedWithTheChangedFiles() throws IOException {
+        Path a = write("a.txt", "foo");
+        Path b = write("b.txt", "foo");
+        for (ResultsContainer results : asList(new ResultsContainer(baseDir, null),
+                ResultsContainer.compact(baseDir, resultsDir, true, ctx))) {
+            results.retain(singleton(a.toAbsolutePath().normalize()));
+            List<SourceFile> sourceFiles = PlainTextParser.builder().build().parse(asList(a, b), baseDir, ctx).collect(toList());
+            results.add(new GenerateText("generated.txt").run(new InMemoryLargeSourceSet(sourceFiles), ctx));
+
+            assertThat(results.getSummaries()).singleElement().satisfies(summary -> {
+                assertThat(summary.getChange()).isEqualTo(ResultSummary.Change.GENERATED);
+                assertThat(summary.getAfter()).isEqualTo(Paths.get("generated.txt"));
+            });
+            results.close();
+        }
+    }
+
+    @Test
+    void compactDryRunWritesDiffsInTheSameOrderAsResultsOnHeap() throws IOException {
+        Path a = write("a.txt", "foo");
+        List<String> reports = new ArrayList<>();
+        for (ResultsContainer results : asList(new ResultsContainer(baseDir, null),
+                ResultsContainer.compact(baseDir, resultsDir, true, ctx))) {
+            results.add(replaceFoo(a));
+            List<SourceFile> sourceFiles = PlainTextParser.builder().build().parse(singletonList(a), baseDir, ctx).collect(toList());
+            results.add(new GenerateText("generated.txt").run(new InMemoryLargeSourceSet(sourceFiles), ctx));
+
+            Path report = baseDir.resolve("rewrite-" + reports.size() + ".patch");
+            results.writeDiffs(report);
+            reports.add(new String(Files.readAllBytes(report), StandardCharsets.UTF_8));
+            results.close();
+        }
+
+        assertThat(reports.get(0).indexOf("generated.txt")).isLessThan(reports.get(0).indexOf("a.txt"));
+        assertThat(reports.get(1)).isEqualTo(reports.get(0));
+    }
+
+    private RecipeRun replaceFoo(Path... paths) {
+        List<SourceFile> sourceFiles = PlainTextParser.builder().build().parse(asList(paths), baseDir, ctx).collect(toList());
+        return new NoChangeMemoTest.ReplaceText("foo", "baz").run(new InMemoryLargeSourceSet(sourceFiles), ctx);
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(baseDir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static class GenerateText extends ScanningRecipe<AtomicInteger> {
+        @Option(displayName = "Path")
+        final String path;
+
+        GenerateText(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Generate text";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Generate a plain text file that counts the files of the build.";
+        }
+
+        @Override
+        public AtomicInteger getInitialValue(ExecutionContext ctx) {
+            return new AtomicInteger();
+        }
+
+        @Override
+        public TreeVisitor<?, ExecutionContext> getScanner(AtomicInteger count) {
+            return new TreeVisitor<Tree, ExecutionContext>() {
+                @Override
+                public Tree visit(Tree tree, ExecutionContext ctx) {
+                    if (tree instanceof SourceFile) {
+                        count.incrementAndGet();
+                    }
+                    return tree;
+                }
+            };
+        }
+
+        @Override
+        public Collection<? extends SourceFile> generate(AtomicInteger count, ExecutionContext ctx) {
+            return PlainTextParser.builder().build().parse(ctx, count.get() + " files")
+                    .map(generated -> generated.withSourcePath(Paths.get(path)))
+                    .collect(toList());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.marker.Markers;
+import org.openrewrite.quark.Quark;
+import org.openrewrite.text.PlainText;
+
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.Tree.randomId;
+
+class RoundTripSampleTest {
+
+    @Test
+    void onlyTheFirstSourceFilesOfEachTypeAreChecked() {
+        RoundTripSample roundTrips = new RoundTripSample(false);
+        PlainText text = PlainText.builder().sourcePath(Paths.get("a.txt")).text("a").build();
+        for (int i = 0; i < RoundTripSample.SAMPLE_SIZE; i++) {
+            assertThat(roundTrips.shouldCheck(text)).isTrue();
+            roundTrips.record(text, true);
+        }
+        assertThat(roundTrips.shouldCheck(text)).isFalse();
+        assertThat(roundTrips.isUntrusted(text)).isFalse();
+
+        Quark quark = new Quark(randomId(), Paths.get("a.bin"), Markers.EMPTY, null, null);
+        assertThat(roundTrips.shouldCheck(quark)).isTrue();
+    }
+
+    @Test
+    void typesThatDoNotPrintTheSameAreNotTrusted() {
+        RoundTripSample roundTrips = new RoundTripSample(false);
+        PlainText text = PlainText.builder().sourcePath(Paths.get("a.txt")).text("a").build();
+        roundTrips.record(text, true);
+        roundTrips.record(text, false);
+        roundTrips.record(text, true);
+
+        assertThat(roundTrips.isUntrusted(text)).isTrue();
+        assertThat(roundTrips.shouldCheck(text)).isFalse();
+    }
+
+    @Test
+    void everySourceFileIsCheckedWhenVerifyingAll() {
+        RoundTripSample roundTrips = new RoundTripSample(true);
+        PlainText text = PlainText.builder().sourcePath(Paths.get("a.txt")).text("a").build();
+        for (int i = 0; i < RoundTripSample.SAMPLE_SIZE * 2; i++) {
+            roundTrips.record(text, true);
+        }
+        assertThat(roundTrips.shouldCheck(text)).isTrue();
+    }
+}
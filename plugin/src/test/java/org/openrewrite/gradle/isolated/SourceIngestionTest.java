@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.text.PlainText;
+import org.openrewrite.text.PlainTextParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceIngestionTest {
+
+    @TempDir
+    Path baseDir;
+
+    @Test
+    void parsesPrefetchedFilesInOrder() throws IOException {
+        List<Path> paths = write(20, "hello");
+        SourceIngestion ingestion = new SourceIngestion(1);
+        try {
+            assertThat(parse(ingestion, paths))
+                    .containsExactly(paths.stream().map(p -> "hello " + p.getFileName()).toArray(String[]::new));
+        } finally {
+            ingestion.shutdown();
+        }
+    }
+
+    @Timeout(30)
+    @Test
+    void filesLargerThanTheBudgetDoNotBlockParsing() throws IOException {
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 600 * 1024; i++) {
+            large.append('x');
+        }
+        List<Path> paths = write(5, large.toString());
+        SourceIngestion ingestion = new SourceIngestion(1);
+        try {
+            // Parsed twice, so the second parse needs the budget of the first one back
+            assertThat(parse(ingestion, paths)).hasSize(5);
+            assertThat(parse(ingestion, paths)).hasSize(5);
+        } finally {
+            ingestion.shutdown();
+        }
+    }
+
+    @Test
+    void parsersReadFilesThemselvesWithoutBudget() throws IOException {
+        List<Path> paths = write(3, "hello");
+        SourceIngestion ingestion = new SourceIngestion(0);
+        assertThat(parse(ingestion, paths)).hasSize(3);
+    }
+
+    private List<Path> write(int count, String text) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Path path = baseDir.resolve("file" + i + ".txt");
+            Files.write(path, (text + " " + path.getFileName()).getBytes());
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    private List<String> parse(SourceIngestion ingestion, List<Path> paths) {
+        try (Stream<SourceFile> parsed = ingestion.parse(PlainTextParser.builder().build(), paths, baseDir,
+                new InMemoryExecutionContext(Throwable::printStackTrace))) {
+            return parsed.map(s -> ((PlainText) s).getText()).collect(toList());
+        }
+    }
+}
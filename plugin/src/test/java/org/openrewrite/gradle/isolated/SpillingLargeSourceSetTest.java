@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Result;
+import org.openrewrite.SourceFile;
+import org.openrewrite.text.PlainText;
+import org.openrewrite.text.PlainTextParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpillingLargeSourceSetTest {
+
+    @TempDir
+    Path baseDir;
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    void runsRecipesOnSpilledSourceFiles() throws IOException {
+        List<Path> paths = asList(write("a.txt", "foo"), write("b.txt", "bar"), write("c.txt", "foo bar"));
+        InMemoryExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+        Stream<SourceFile> parsed = PlainTextParser.builder().build().parse(paths, baseDir, ctx);
+
+        SpillingLargeSourceSet.Builder builder = SpillingLargeSourceSet.builder(spillDir, 0);
+        parsed.forEach(builder::add);
+        try (SpillingLargeSourceSet sourceSet = builder.build(s -> s)) {
+            assertThat(sourceSet.size()).isEqualTo(3);
+            assertThat(sourceSet.getBefore(Paths.get("b.txt"))).isInstanceOf(PlainText.class)
+                    .extracting(SourceFile::printAll).isEqualTo("bar");
+
+            List<Result> results = new NoChangeMemoTest.ReplaceText("foo", "baz").run(sourceSet, ctx)
+                    .getChangeset().getAllResults();
+            assertThat(results).hasSize(2);
+            for (Result result : results) {
+                assertThat(result.getBefore()).isNotNull();
+                assertThat(result.getAfter()).isNotNull();
+                assertThat(result.getBefore().printAll()).contains("foo");
+                assertThat(result.getAfter().printAll()).doesNotContain("foo").contains("baz");
+            }
+        }
+        try (Stream<Path> spilled = Files.list(spillDir)) {
+            assertThat(spilled).isEmpty();
+        }
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(baseDir.resolve(name), text.getBytes());
+    }
+}
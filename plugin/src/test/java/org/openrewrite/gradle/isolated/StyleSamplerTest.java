@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.style.TabsAndIndentsStyle;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.style.NamedStyles;
+import org.openrewrite.style.Style;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StyleSamplerTest {
+
+    @TempDir
+    Path baseDir;
+
+    @Test
+    void detectsStylesFromSample() throws IOException {
+        StyleSampler sampler = new StyleSampler(3);
+        for (int i = 0; i < 10; i++) {
+            String source = "class A" + i + " {\n" +
+                            "  void m() {\n" +
+                            "    int i = 0;\n" +
+                            "  }\n" +
+                            "}\n";
+            sampler.offer(":", write("A" + i + ".java", source));
+            sampler.offer(":", write("a" + i + ".txt", "not sampled"));
+        }
+
+        Map<Class<? extends SourceFile>, NamedStyles> styles = sampler.detect(baseDir, Logging.getLogger(StyleSamplerTest.class));
+
+        TabsAndIndentsStyle tabsAndIndents = null;
+        for (Style style : styles.get(J.CompilationUnit.class).getStyles()) {
+            if (style instanceof TabsAndIndentsStyle) {
+                tabsAndIndents = (TabsAndIndentsStyle) style;
+            }
+        }
+        assertThat(tabsAndIndents).isNotNull();
+        assertThat(tabsAndIndents.getIndentSize()).isEqualTo(2);
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(baseDir.resolve(name), text.getBytes());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.gradle.isolated;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.java.internal.JavaTypeCache;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TypeCacheRegistryTest {
+    private final List<Path> guava = singletonList(Paths.get("/libs/guava.jar"));
+    private final List<Path> junit = singletonList(Paths.get("/libs/junit.jar"));
+    private final List<JavaTypeCache> created = new ArrayList<>();
+
+    private JavaTypeCache newTypeCache() {
+        JavaTypeCache typeCache = new JavaTypeCache();
+        created.add(typeCache);
+        return typeCache;
+    }
+
+    @Test
+    void sourceSetsWithTheSameClasspathShareACache() {
+        TypeCacheRegistry registry = new TypeCacheRegistry(1000, this::newTypeCache);
+
+        JavaTypeCache typeCache = registry.get(asList(Paths.get("/libs/guava.jar"), Paths.get("/libs/junit.jar")));
+        assertThat(registry.get(asList(Paths.get("/libs/junit.jar"), Paths.get("/libs/../libs/guava.jar"))))
+                .isSameAs(typeCache);
+        assertThat(registry.get(guava)).isNotSameAs(typeCache);
+        assertThat(registry.get(junit)).isNotSameAs(typeCache);
+        assertThat(created).hasSize(3);
+    }
+
+    @Test
+    void classDirectoriesDoNotKeepSourceSetsFromSharingACache() {
+        TypeCacheRegistry registry = new TypeCacheRegistry(1000, this::newTypeCache);
+
+        JavaTypeCache main = registry.get(asList(Paths.get("/libs/guava.jar"), Paths.get("/app/build/resources/main")));
+        assertThat(registry.get(asList(Paths.get("/libs/guava.jar"), Paths.get("/app/build/classes/java/main"))))
+                .isSameAs(main);
+        assertThat(registry.get(asList(Paths.get("/libs/guava.jar"), Paths.get("/lib/build/classes/java/main"))))
+                .isSameAs(main);
+        assertThat(created).hasSize(1);
+    }
+
+    @Test
+    void everySourceSetGetsItsOwnCacheWhenNotShared() {
+        TypeCacheRegistry registry = new TypeCacheRegistry(0, this::newTypeCache);
+
+        assertThat(registry.get(guava)).isNotSameAs(registry.get(guava));
+        assertThat(created).hasSize(2);
+    }
+
+    @Test
+    void leastRecentlyUsedCacheIsEvicted() {
+        TypeCacheRegistry registry = new TypeCacheRegistry(1, this::newTypeCache);
+        JavaTypeCache first = registry.get(guava);
+        first.put("com.google.common.collect.ImmutableList", new Object());
+        JavaTypeCache second = registry.get(junit);
+        second.put("org.junit.jupiter.api.Test", new Object());
+
+        // Handing out the junit cache drops the guava cache, which was used less recently
+        assertThat(registry.get(junit)).isSameAs(second);
+        assertThat(registry.get(guava)).isNotSameAs(first);
+    }
+
+    @Test
+    void sharedCachesCanBeUsedConcurrently() throws Exception {
+        TypeCacheRegistry registry = new TypeCacheRegistry(100_000, this::newTypeCache);
+        JavaTypeCache typeCache = registry.get(guava);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> puts = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread * 1000;
+                puts.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        registry.get(guava).put("Type" + (offset + i), new Object());
+                    }
+                }));
+            }
+            for (Future<?> put : puts) {
+                put.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(typeCache.size()).isEqualTo(4000);
+        assertThat(created).hasSize(1);
+        assertThat(created.get(0).size()).isEqualTo(4000);
+        assertThat((Object) typeCache.get("Type1234")).isNotNull();
+    }
+
+    @Test
+    void clearTypesEmptiesCachesThatAreStillInUse() {
+        TypeCacheRegistry registry = new TypeCacheRegistry(1000, this::newTypeCache);
+        JavaTypeCache inUse = registry.get(guava);
+        inUse.put("com.google.common.collect.ImmutableList", new Object());
+
+        registry.clearTypes();
+
+        assertThat(inUse.size()).isZero();
+        assertThat(created.get(0).size()).isZero();
+        assertThat(registry.get(guava)).isNotSameAs(inUse);
+    }
+}
@@ -42,6 +42,29 @@ class DocumentationSyncTest {
         "failOnInvalidActiveRecipes",
         "failOnDryRunResults",
         "throwOnParseFailures",
+        "parseParallelism",
+        "projectParseParallelism",
+        "dumpParseManifest",
+        "javaParseBatchSize",
+        "parserPoolSize",
+        "sharedTypeCacheSize",
+        "sourcePrefetchMb",
+        "resourceParseParallelism",
+        "runRecipesPerProject",
+        "lstCacheSizeMb",
+        "lstCacheDirectory",
+        "refreshLstCache",
+        "changedSince",
+        "noChangeMemo",
+        "sourceSetHeapBudgetMb",
+        "styleDetectionSampleSize",
+        "compactResults",
+        "heapPressureOldGenPercent",
+        "heapPressureGcOverheadPercent",
+        "workerIsolation",
+        "workerMaxHeapSize",
+        "workerJvmArgs",
+        "cacheIdleTimeoutMinutes",
     )
 
     @Test
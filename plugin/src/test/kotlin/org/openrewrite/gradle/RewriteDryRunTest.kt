@@ -92,6 +92,111 @@ class RewriteDryRunTest : RewritePluginTest {
         assertThat(File(projectDir, "build/reports/rewrite/rewrite.patch").exists()).isTrue
     }
 
+    @Test
+    fun `rewriteDryRun is up-to-date when its inputs are unchanged`() {
+        gradleProject(projectDir) {
+            buildGradle(
+                """
+                plugins {
+                    id("java")
+                    id("org.openrewrite.rewrite")
+                }
+
+                repositories {
+                    mavenLocal()
+                    mavenCentral()
+                    maven {
+                       url = uri("https://central.sonatype.com/repository/maven-snapshots")
+                    }
+                }
+
+                rewrite {
+                    activeRecipe("org.openrewrite.java.format.AutoFormat")
+                }
+            """
+            )
+            sourceSet("main") {
+                java(
+                    """
+                    package org.openrewrite.before;
+
+                    public class HelloWorld { public static void main(String[] args) {   System.out.println("Hello world"); }
+                    }
+                """.trimIndent()
+                )
+            }
+        }
+        assertThat(runGradle(projectDir, taskName()).task(":${taskName()}")!!.outcome)
+            .isEqualTo(TaskOutcome.SUCCESS)
+        assertThat(runGradle(projectDir, taskName()).task(":${taskName()}")!!.outcome)
+            .isEqualTo(TaskOutcome.UP_TO_DATE)
+
+        File(projectDir, "src/main/java/org/openrewrite/before/HelloWorld.java").appendText("\n")
+        assertThat(runGradle(projectDir, taskName()).task(":${taskName()}")!!.outcome)
+            .isEqualTo(TaskOutcome.SUCCESS)
+
+        // Project properties are available to placeholders of the configuration file
+        assertThat(runGradle(projectDir, taskName(), "-Pgreeting=hello").task(":${taskName()}")!!.outcome)
+            .isEqualTo(TaskOutcome.SUCCESS)
+        assertThat(runGradle(projectDir, taskName(), "-Pgreeting=hello", "-Prewrite.runRecipesPerProject=true").task(":${taskName()}")!!.outcome)
+            .isEqualTo(TaskOutcome.SUCCESS)
+    }
+
+    @Test
+    fun `rewriteDryRun is not up-to-date when files outside of source sets change`() {
+        gradleProject(projectDir) {
+            buildGradle(
+                """
+                plugins {
+                    id("org.openrewrite.rewrite")
+                }
+
+                repositories {
+                    mavenLocal()
+                    mavenCentral()
+                    maven {
+                       url = uri("https://central.sonatype.com/repository/maven-snapshots")
+                    }
+                }
+
+                rewrite {
+                    activeRecipe("org.openrewrite.FindSourceFiles")
+                }
+
+                subprojects {
+                    apply plugin: "java"
+                }
+            """
+            )
+            subproject("a") {
+                buildGradle(
+                    """
+                    dependencies {
+                    }
+                """
+                )
+                textFile(
+                    "config/application.yml",
+                    """
+                    greeting: hello
+                    """.trimIndent()
+                )
+            }
+        }
+        assertThat(runGradle(projectDir, taskName()).task(":${taskName()}")!!.outcome)
+            .isEqualTo(TaskOutcome.SUCCESS)
+        assertThat(runGradle(projectDir, taskName()).task(":${taskName()}")!!.outcome)
+            .isEqualTo(TaskOutcome.UP_TO_DATE)
+
+        File(projectDir, "a/build.gradle").appendText("\n// changed\n")
+        assertThat(runGradle(projectDir, taskName()).task(":${taskName()}")!!.outcome)
+            .isEqualTo(TaskOutcome.SUCCESS)
+
+        File(projectDir, "a/config/application.yml").appendText("\nfarewell: goodbye\n")
+        assertThat(runGradle(projectDir, taskName()).task(":${taskName()}")!!.outcome)
+            .isEqualTo(TaskOutcome.SUCCESS)
+    }
+
     @Test
     fun `A recipe with optional configuration can be activated directly`() {
         gradleProject(projectDir) {
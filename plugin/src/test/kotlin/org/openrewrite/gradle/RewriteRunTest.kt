@@ -369,6 +369,275 @@ class RewriteRunTest : RewritePluginTest {
         assertThat(propertiesFile.readText()).isEqualTo("bar=baz\n")
     }
 
+    @Test
+    fun `rewriteRun applies recipe to projects and source sets parsed concurrently`(
+        @TempDir projectDir: File
+    ) {
+        gradleProject(projectDir) {
+            buildGradle(
+                """
+                plugins {
+                    id("org.openrewrite.rewrite")
+                    id("java")
+                }
+
+                rewrite {
+                    activeRecipe("org.openrewrite.java.format.AutoFormat")
+                    parseParallelism = 2
+                    projectParseParallelism = 2
+                }
+
+                repositories {
+                    mavenLocal()
+                    mavenCentral()
+                    maven {
+                       url = uri("https://central.sonatype.com/repository/maven-snapshots")
+                    }
+                }
+
+                subprojects {
+                    apply plugin: "java"
+
+                    repositories {
+                        mavenCentral()
+                    }
+                }
+            """
+            )
+            for (name in listOf("a", "b", "c")) {
+                subproject(name) {
+                    sourceSet("main") {
+                        java(
+                            """
+                            package com.$name;
+
+                            public class Main { public void run() { } }
+                        """
+                        )
+                    }
+                    sourceSet("test") {
+                        java(
+                            """
+                            package com.$name;
+
+                            public class MainTest { public void runs() { } }
+                        """
+                        )
+                    }
+                }
+            }
+        }
+
+        val result = runGradle(projectDir, taskName())
+        val rewriteRunResult = result.task(":${taskName()}")!!
+        assertThat(rewriteRunResult.outcome).isEqualTo(TaskOutcome.SUCCESS)
+        for (name in listOf("a", "b", "c")) {
+            assertThat(File(projectDir, "$name/src/main/java/com/$name/Main.java").readText()).isEqualTo(
+                //language=java
+                """
+                package com.$name;
+
+                public class Main {
+                    public void run() {
+                    }
+                }
+                """.trimIndent()
+            )
+            assertThat(File(projectDir, "$name/src/test/java/com/$name/MainTest.java").readText()).isEqualTo(
+                //language=java
+                """
+                package com.$name;
+
+                public class MainTest {
+                    public void runs() {
+                    }
+                }
+                """.trimIndent()
+            )
+        }
+    }
+
+    @EnabledForGradleRange(min = "5.6")
+    @Test
+    fun `rewriteRun applies recipe in a worker process`(
+        @TempDir projectDir: File
+    ) {
+        gradleProject(projectDir) {
+            buildGradle(
+                """
+                plugins {
+                    id("org.openrewrite.rewrite")
+                    id("java")
+                }
+
+                rewrite {
+                    activeRecipe("org.openrewrite.java.format.AutoFormat")
+                    workerIsolation = true
+                    workerMaxHeapSize = "512m"
+                }
+
+                repositories {
+                    mavenLocal()
+                    mavenCentral()
+                    maven {
+                       url = uri("https://central.sonatype.com/repository/maven-snapshots")
+                    }
+                }
+            """
+            )
+            sourceSet("main") {
+                java(
+                    """
+                    package com.foo;
+
+                    public class Main { public void run() { } }
+                """
+                )
+            }
+        }
+
+        val result = runGradle(projectDir, taskName())
+        val rewriteRunResult = result.task(":${taskName()}")!!
+        assertThat(rewriteRunResult.outcome).isEqualTo(TaskOutcome.SUCCESS)
+        assertThat(File(projectDir, "src/main/java/com/foo/Main.java").readText()).isEqualTo(
+            //language=java
+            """
+            package com.foo;
+
+            public class Main {
+                public void run() {
+                }
+            }
+            """.trimIndent()
+        )
+    }
+
+    @Test
+    fun `rewriteRun applies recipe to one project at a time`(
+        @TempDir projectDir: File
+    ) {
+        gradleProject(projectDir) {
+            buildGradle(
+                """
+                plugins {
+                    id("org.openrewrite.rewrite")
+                    id("java")
+                }
+
+                rewrite {
+                    activeRecipe("org.openrewrite.java.format.AutoFormat")
+                    runRecipesPerProject = true
+                }
+
+                repositories {
+                    mavenLocal()
+                    mavenCentral()
+                    maven {
+                       url = uri("https://central.sonatype.com/repository/maven-snapshots")
+                    }
+                }
+
+                subprojects {
+                    apply plugin: "java"
+
+                    repositories {
+                        mavenCentral()
+                    }
+                }
+            """
+            )
+            for (name in listOf("a", "b")) {
+                subproject(name) {
+                    sourceSet("main") {
+                        java(
+                            """
+                            package com.$name;
+
+                            public class Main { public void run() { } }
+                        """
+                        )
+                    }
+                }
+            }
+        }
+
+        val result = runGradle(projectDir, taskName())
+        val rewriteRunResult = result.task(":${taskName()}")!!
+        assertThat(rewriteRunResult.outcome).isEqualTo(TaskOutcome.SUCCESS)
+        assertThat(result.output).contains("Sources of :a parsed", "Sources of :b parsed")
+        for (name in listOf("a", "b")) {
+            assertThat(File(projectDir, "$name/src/main/java/com/$name/Main.java").readText()).isEqualTo(
+                //language=java
+                """
+                package com.$name;
+
+                public class Main {
+                    public void run() {
+                    }
+                }
+                """.trimIndent()
+            )
+        }
+    }
+
+    @Test
+    fun `dumpParseManifest lists the project, source set and parser of each file`(
+        @TempDir projectDir: File
+    ) {
+        gradleProject(projectDir) {
+            buildGradle(
+                """
+                plugins {
+                    id("org.openrewrite.rewrite")
+                    id("java")
+                }
+
+                rewrite {
+                    activeRecipe("org.openrewrite.java.format.AutoFormat")
+                    dumpParseManifest = true
+                }
+
+                repositories {
+                    mavenLocal()
+                    mavenCentral()
+                    maven {
+                       url = uri("https://central.sonatype.com/repository/maven-snapshots")
+                    }
+                }
+
+                subprojects {
+                    apply plugin: "java"
+
+                    repositories {
+                        mavenCentral()
+                    }
+                }
+            """
+            )
+            subproject("a") {
+                sourceSet("main") {
+                    java(
+                        """
+                        package com.a;
+
+                        public class Main {
+                        }
+                    """
+                    )
+                }
+            }
+        }
+
+        val result = runGradle(projectDir, taskName())
+        assertThat(result.task(":${taskName()}")!!.outcome).isEqualTo(TaskOutcome.SUCCESS)
+        val manifest = File(projectDir, "build/rewrite/parse-manifest.txt").readText()
+        assertThat(manifest)
+            .contains(":a main JAVA ")
+            .contains("    a/src/main/java/com/a/Main.java\n")
+            .contains(": - GRADLE - ")
+            .contains("    build.gradle\n")
+    }
+
     @Test
     fun `resources in subproject committed to git are correctly processed`(
         @TempDir projectDir: File